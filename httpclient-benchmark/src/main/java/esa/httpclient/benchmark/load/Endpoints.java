@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Paths served by {@link LoadServer} and the canned responses of them.
+ */
+final class Endpoints {
+
+    static final String SMALL = "/small";
+    static final String DOWNLOAD = "/download";
+    static final String UPLOAD = "/upload";
+    static final String SLOW = "/slow";
+
+    static final int SMALL_SIZE = 64;
+    static final int DOWNLOAD_SIZE = 1024 * 1024;
+    static final long SLOW_DELAY_MILLIS = 20L;
+
+    private static final ByteBuf SMALL_BODY = unreleasable(SMALL_SIZE);
+    private static final ByteBuf DOWNLOAD_BODY = unreleasable(DOWNLOAD_SIZE);
+
+    private Endpoints() {
+    }
+
+    static ByteBuf body(String path) {
+        switch (stripQuery(path)) {
+            case DOWNLOAD:
+                return DOWNLOAD_BODY.duplicate();
+            case UPLOAD:
+                return Unpooled.EMPTY_BUFFER;
+            default:
+                return SMALL_BODY.duplicate();
+        }
+    }
+
+    static long delayMillis(String path) {
+        return SLOW.equals(stripQuery(path)) ? SLOW_DELAY_MILLIS : 0L;
+    }
+
+    private static String stripQuery(String path) {
+        if (path == null) {
+            return SMALL;
+        }
+        final int idx = path.indexOf('?');
+        return idx < 0 ? path : path.substring(0, idx);
+    }
+
+    private static ByteBuf unreleasable(int size) {
+        final byte[] data = new byte[size];
+        ThreadLocalRandom.current().nextBytes(data);
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer(size).writeBytes(data));
+    }
+}
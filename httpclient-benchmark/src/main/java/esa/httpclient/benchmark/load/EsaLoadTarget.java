@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import esa.commons.http.HttpMethod;
+import esa.commons.http.HttpVersion;
+import esa.httpclient.core.ChunkRequest;
+import esa.httpclient.core.HttpClient;
+import esa.httpclient.core.HttpClientBuilder;
+import esa.httpclient.core.HttpRequest;
+import esa.httpclient.core.config.SslOptions;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drives {@link HttpClient#async(HttpRequest)}, {@link HttpClient#execute(HttpRequest)} and
+ * {@link HttpClient#prepare(String)} according to the {@link Scenario}.
+ */
+final class EsaLoadTarget implements LoadTarget {
+
+    private final Scenario scenario;
+    private final String uri;
+    private final HttpClient client;
+
+    EsaLoadTarget(LoadServer server, Scenario scenario) {
+        this.scenario = scenario;
+        this.uri = server.uri(scenario.path());
+
+        final HttpClientBuilder builder = HttpClient.create();
+        switch (server.protocol()) {
+            case H2:
+                builder.version(HttpVersion.HTTP_2)
+                        .sslOptions(SslOptions.options().trustCertificates(server.certificate()).build());
+                break;
+            case H2C:
+                builder.version(HttpVersion.HTTP_2).h2ClearTextUpgrade(false);
+                break;
+            default:
+                builder.version(HttpVersion.HTTP_1_1);
+                break;
+        }
+        if (scenario == Scenario.POOL_SATURATION) {
+            builder.connectionPoolSize(Scenario.SATURATED_POOL_SIZE)
+                    .connectionPoolWaitingQueueLength(Scenario.SATURATED_WAITING_QUEUE_LENGTH);
+        }
+        this.client = builder.build();
+    }
+
+    @Override
+    public String name() {
+        return "esa-httpclient";
+    }
+
+    @Override
+    public CompletableFuture<?> send() {
+        switch (scenario) {
+            case DOWNLOAD_1M:
+                return client.execute(HttpRequest.get(uri)
+                        .handle(h -> h.onData(data -> {
+                            // Discard the content
+                        }).onEnd(v -> {
+                        }))
+                        .build());
+            case CHUNKED_UPLOAD:
+                final ChunkRequest chunk = client.prepare(uri).method(HttpMethod.POST).build();
+                for (int i = 0; i < Scenario.UPLOAD_CHUNKS; i++) {
+                    chunk.write(Scenario.UPLOAD_CHUNK);
+                }
+                return chunk.end();
+            default:
+                return client.async(HttpRequest.get(uri).build());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2FrameStream;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers the {@link Endpoints} over HTTP/2, it must be placed after a {@code Http2FrameCodec}.
+ */
+class H2ServerHandler extends ChannelDuplexHandler {
+
+    private final IntObjectMap<String> paths = new IntObjectHashMap<>();
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Http2HeadersFrame) {
+            final Http2HeadersFrame headers = (Http2HeadersFrame) msg;
+            final String path = headers.headers().path() == null ? null : headers.headers().path().toString();
+            if (headers.isEndStream()) {
+                respond(ctx, headers.stream(), path);
+            } else {
+                paths.put(headers.stream().id(), path);
+            }
+        } else if (msg instanceof Http2DataFrame) {
+            final Http2DataFrame data = (Http2DataFrame) msg;
+            try {
+                if (data.initialFlowControlledBytes() > 0) {
+                    ctx.write(new DefaultHttp2WindowUpdateFrame(data.initialFlowControlledBytes())
+                            .stream(data.stream()));
+                }
+                if (data.isEndStream()) {
+                    respond(ctx, data.stream(), paths.remove(data.stream().id()));
+                }
+            } finally {
+                data.release();
+            }
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    private static void respond(ChannelHandlerContext ctx, Http2FrameStream stream, String path) {
+        final ByteBuf body = Endpoints.body(path);
+        final Http2Headers headers = new DefaultHttp2Headers()
+                .status(HttpResponseStatus.OK.codeAsText())
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes())
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM);
+
+        final Runnable write = () -> {
+            if (body.isReadable()) {
+                ctx.write(new DefaultHttp2HeadersFrame(headers).stream(stream));
+                ctx.writeAndFlush(new DefaultHttp2DataFrame(body, true).stream(stream));
+            } else {
+                ctx.writeAndFlush(new DefaultHttp2HeadersFrame(headers, true).stream(stream));
+            }
+        };
+
+        final long delay = Endpoints.delayMillis(path);
+        if (delay > 0L) {
+            ctx.executor().schedule(write, delay, TimeUnit.MILLISECONDS);
+        } else {
+            write.run();
+        }
+    }
+}
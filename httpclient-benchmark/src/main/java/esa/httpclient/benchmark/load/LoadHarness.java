@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Entry of the open-loop load test, which starts an in-process {@link LoadServer} per protocol and drives every
+ * {@link Scenario} against it with {@link EsaLoadTarget} and, when running on JDK 11+, the JDK {@code HttpClient}
+ * as a baseline.
+ *
+ * <p>Options (system properties):
+ * <ul>
+ *     <li>{@code load.protocols}: comma separated {@link LoadServer.Protocol}s, default all</li>
+ *     <li>{@code load.scenarios}: comma separated {@link Scenario}s, default all</li>
+ *     <li>{@code load.rate}: requests per second of every scenario, default {@link Scenario#defaultRate()}</li>
+ *     <li>{@code load.warmUpSeconds}: default 10</li>
+ *     <li>{@code load.durationSeconds}: default 30</li>
+ *     <li>{@code load.baseline}: whether to run the JDK {@code HttpClient} too, default true</li>
+ * </ul>
+ */
+public final class LoadHarness {
+
+    private static final String JDK_TARGET = "esa.httpclient.benchmark.load.JdkLoadTarget";
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final List<LoadServer.Protocol> protocols = parse(LoadServer.Protocol.class,
+                System.getProperty("load.protocols"));
+        final List<Scenario> scenarios = parse(Scenario.class, System.getProperty("load.scenarios"));
+        final int rate = Integer.getInteger("load.rate", -1);
+        final long warmUpMillis = Long.getLong("load.warmUpSeconds", 10L) * 1000L;
+        final long durationMillis = Long.getLong("load.durationSeconds", 30L) * 1000L;
+        final Constructor<? extends LoadTarget> baseline =
+                Boolean.parseBoolean(System.getProperty("load.baseline", "true")) ? jdkTarget() : null;
+
+        LoadResult.printHeader(System.out);
+        for (LoadServer.Protocol protocol : protocols) {
+            try (LoadServer server = new LoadServer(protocol).start()) {
+                for (Scenario scenario : scenarios) {
+                    final int r = rate > 0 ? rate : scenario.defaultRate();
+                    try (LoadTarget target = new EsaLoadTarget(server, scenario)) {
+                        new OpenLoopDriver(target, r).run(warmUpMillis, durationMillis)
+                                .print(System.out, scenario, target.name(), protocol);
+                    }
+                    if (baseline != null) {
+                        try (LoadTarget target = baseline.newInstance(server, scenario)) {
+                            new OpenLoopDriver(target, r).run(warmUpMillis, durationMillis)
+                                    .print(System.out, scenario, target.name(), protocol);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Constructor<? extends LoadTarget> jdkTarget() {
+        try {
+            return Class.forName(JDK_TARGET)
+                    .asSubclass(LoadTarget.class)
+                    .getDeclaredConstructor(LoadServer.class, Scenario.class);
+        } catch (ClassNotFoundException | NoSuchMethodException ex) {
+            System.err.println("JDK HttpClient baseline is unavailable, build and run on JDK 11+ to enable it");
+            return null;
+        }
+    }
+
+    private static <E extends Enum<E>> List<E> parse(Class<E> type, String value) {
+        final List<E> values = new ArrayList<>();
+        if (value == null || value.trim().isEmpty()) {
+            for (E e : type.getEnumConstants()) {
+                values.add(e);
+            }
+            return values;
+        }
+
+        for (String v : value.split(",")) {
+            values.add(Enum.valueOf(type, v.trim().toUpperCase(Locale.ROOT)));
+        }
+        return values;
+    }
+}
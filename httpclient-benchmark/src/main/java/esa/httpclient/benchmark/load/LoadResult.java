@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a single run of {@link OpenLoopDriver}. Latencies are in microseconds.
+ */
+final class LoadResult {
+
+    private final int rate;
+    private final long sent;
+    private final long completed;
+    private final long timedOut;
+    private final Map<String, Long> errors;
+    private final long elapsedNanos;
+    private final Histogram corrected;
+    private final Histogram uncorrected;
+
+    LoadResult(int rate,
+               long sent,
+               long completed,
+               long timedOut,
+               Map<String, Long> errors,
+               long elapsedNanos,
+               Histogram corrected,
+               Histogram uncorrected) {
+        this.rate = rate;
+        this.sent = sent;
+        this.completed = completed;
+        this.timedOut = timedOut;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.corrected = corrected;
+        this.uncorrected = uncorrected;
+    }
+
+    double throughput() {
+        return completed * (double) TimeUnit.SECONDS.toNanos(1L) / elapsedNanos;
+    }
+
+    long errorCount() {
+        long count = 0L;
+        for (Long c : errors.values()) {
+            count += c;
+        }
+        return count;
+    }
+
+    static void printHeader(PrintStream out) {
+        out.printf("%-16s %-16s %-6s %8s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "scenario", "client", "proto", "rate", "tput", "errors", "timeout",
+                "p50(us)", "p99(us)", "p99.9(us)", "max(us)", "p99*(us)");
+    }
+
+    void print(PrintStream out, Scenario scenario, String client, LoadServer.Protocol protocol) {
+        out.printf("%-16s %-16s %-6s %8d %10.1f %8d %8d %10d %10d %10d %10d %10d%n",
+                scenario,
+                client,
+                protocol,
+                rate,
+                throughput(),
+                errorCount(),
+                timedOut,
+                corrected.getValueAtPercentile(50.0D),
+                corrected.getValueAtPercentile(99.0D),
+                corrected.getValueAtPercentile(99.9D),
+                corrected.getMaxValue(),
+                uncorrected.getValueAtPercentile(99.0D));
+        errors.forEach((name, count) -> out.printf("    %8d x %s%n", count, name));
+        if (sent != completed + errorCount() + timedOut) {
+            out.printf("    sent: %d, completed: %d%n", sent, completed);
+        }
+    }
+}
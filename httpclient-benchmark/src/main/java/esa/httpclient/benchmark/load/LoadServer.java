@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.util.AsciiString;
+
+import java.io.Closeable;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.security.cert.CertificateException;
+import javax.net.ssl.SSLException;
+
+/**
+ * An in-process server which answers the {@link Endpoints} over HTTP/1.1, HTTP/2 with TLS and ALPN, or HTTP/2 over
+ * clear text (both prior knowledge and upgrade).
+ */
+public final class LoadServer implements Closeable {
+
+    public static final String HOST = "localhost";
+
+    public enum Protocol {
+        H1,
+        H2,
+        H2C
+    }
+
+    private final Protocol protocol;
+    private final EventLoopGroup boss;
+    private final EventLoopGroup workers;
+    private final SelfSignedCertificate certificate;
+    private final SslContext sslContext;
+    private Channel channel;
+
+    public LoadServer(Protocol protocol) throws CertificateException, SSLException {
+        this.protocol = protocol;
+        this.boss = new NioEventLoopGroup(1);
+        this.workers = new NioEventLoopGroup();
+        if (protocol == Protocol.H2) {
+            this.certificate = new SelfSignedCertificate(HOST);
+            this.sslContext = SslContextBuilder.forServer(certificate.certificate(), certificate.privateKey())
+                    .sslProvider(SslProvider.JDK)
+                    .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(
+                            ApplicationProtocolConfig.Protocol.ALPN,
+                            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                            ApplicationProtocolNames.HTTP_2,
+                            ApplicationProtocolNames.HTTP_1_1))
+                    .build();
+        } else {
+            this.certificate = null;
+            this.sslContext = null;
+        }
+    }
+
+    public LoadServer start() throws InterruptedException {
+        channel = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 4096)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        switch (protocol) {
+                            case H2:
+                                configureH2(ch);
+                                break;
+                            case H2C:
+                                configureH2c(ch.pipeline());
+                                break;
+                            default:
+                                ch.pipeline().addLast(new HttpServerCodec(), new H1ServerHandler());
+                                break;
+                        }
+                    }
+                })
+                .bind(0)
+                .sync()
+                .channel();
+        return this;
+    }
+
+    public Protocol protocol() {
+        return protocol;
+    }
+
+    public int port() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    /**
+     * Obtains the self signed certificate which should be trusted by clients, only available for {@link Protocol#H2}.
+     *
+     * @return certificate file, or {@code null}
+     */
+    public File certificate() {
+        return certificate == null ? null : certificate.certificate();
+    }
+
+    public String uri(String path) {
+        return (protocol == Protocol.H2 ? "https" : "http") + "://" + HOST + ":" + port() + path;
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+        boss.shutdownGracefully();
+        workers.shutdownGracefully();
+        if (certificate != null) {
+            certificate.delete();
+        }
+    }
+
+    private void configureH2(SocketChannel ch) {
+        ch.pipeline().addLast(sslContext.newHandler(ch.alloc()));
+        ch.pipeline().addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+            @Override
+            protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                    ctx.pipeline().addLast(Http2FrameCodecBuilder.forServer().build(), new H2ServerHandler());
+                } else {
+                    ctx.pipeline().addLast(new HttpServerCodec(), new H1ServerHandler());
+                }
+            }
+        });
+    }
+
+    private static void configureH2c(ChannelPipeline pipeline) {
+        final HttpServerCodec sourceCodec = new HttpServerCodec();
+        final HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec, protocol -> {
+            if (AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)) {
+                return new Http2ServerUpgradeCodec(Http2FrameCodecBuilder.forServer().build(),
+                        new H2ServerHandler());
+            }
+            return null;
+        });
+
+        // Falls back to HTTP/1.1 if neither the prior knowledge preface nor an upgrade request is received.
+        pipeline.addLast(new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler,
+                new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(Http2FrameCodecBuilder.forServer().build(), new H2ServerHandler());
+                    }
+                }));
+        pipeline.addLast(new H1ServerHandler());
+    }
+}
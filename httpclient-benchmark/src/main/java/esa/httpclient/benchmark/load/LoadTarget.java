@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A client under test, which sends one request of the given {@link Scenario} per {@link #send()}.
+ */
+public interface LoadTarget extends Closeable {
+
+    /**
+     * Obtains the name of current target which will be printed in the report.
+     *
+     * @return name
+     */
+    String name();
+
+    /**
+     * Sends a request asynchronously, and the returned future should be completed once the whole response
+     * has been received.
+     *
+     * @return future
+     */
+    CompletableFuture<?> send();
+}
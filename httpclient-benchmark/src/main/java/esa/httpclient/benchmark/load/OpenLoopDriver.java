@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate regardless of how fast the responses come back (open loop).
+ *
+ * The n-th request is scheduled at {@code start + n * interval}, and its latency is measured from that intended
+ * start time rather than from the time it was actually sent. So if the sender is held up (eg: by a blocking call
+ * or a queue in the client), the delay is charged to every request that should have been sent in the meantime,
+ * which corrects the coordinated omission of a closed-loop test. The latency measured from the actual send time
+ * is recorded as well, the gap between them is the time spent waiting before the request could be sent.
+ */
+final class OpenLoopDriver {
+
+    private static final int MAX_ERROR_NAME_LENGTH = 120;
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30L);
+
+    private final LoadTarget target;
+    private final int rate;
+
+    private final Recorder corrected = new Recorder(3);
+    private final Recorder uncorrected = new Recorder(3);
+    private final LongAdder completed = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final AtomicLong outstanding = new AtomicLong();
+
+    OpenLoopDriver(LoadTarget target, int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive, but given: " + rate);
+        }
+        this.target = target;
+        this.rate = rate;
+    }
+
+    LoadResult run(long warmUpMillis, long durationMillis) {
+        drive(TimeUnit.MILLISECONDS.toNanos(warmUpMillis));
+        drain();
+        reset();
+
+        final long start = System.nanoTime();
+        final long sent = drive(TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        final boolean drained = drain();
+        final long elapsed = System.nanoTime() - start;
+
+        final Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((k, v) -> errorCounts.put(k, v.sum()));
+        return new LoadResult(rate,
+                sent,
+                completed.sum(),
+                drained ? 0L : outstanding.get(),
+                errorCounts,
+                elapsed,
+                corrected.getIntervalHistogram(),
+                uncorrected.getIntervalHistogram());
+    }
+
+    private long drive(long durationNanos) {
+        final long interval = TimeUnit.SECONDS.toNanos(1L) / rate;
+        final long start = System.nanoTime();
+        final long end = start + durationNanos;
+
+        long sent = 0L;
+        for (long intended = start; intended < end; intended = start + (++sent) * interval) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            send(intended, now);
+        }
+        return sent;
+    }
+
+    private void send(long intendedStart, long actualStart) {
+        outstanding.incrementAndGet();
+        CompletableFuture<?> future;
+        try {
+            future = target.send();
+        } catch (Throwable ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+
+        future.whenComplete((r, ex) -> {
+            final long now = System.nanoTime();
+            try {
+                if (ex == null) {
+                    completed.increment();
+                    corrected.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intendedStart));
+                    uncorrected.recordValue(TimeUnit.NANOSECONDS.toMicros(now - actualStart));
+                } else {
+                    errors.computeIfAbsent(nameOf(ex), k -> new LongAdder()).increment();
+                }
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        });
+    }
+
+    private boolean drain() {
+        final long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (outstanding.get() > 0L) {
+            if (System.nanoTime() - deadline > 0L) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+        }
+        return true;
+    }
+
+    private void reset() {
+        corrected.reset();
+        uncorrected.reset();
+        completed.reset();
+        errors.clear();
+    }
+
+    private static String nameOf(Throwable ex) {
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        final String name = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return name.length() > MAX_ERROR_NAME_LENGTH ? name.substring(0, MAX_ERROR_NAME_LENGTH) : name;
+    }
+}
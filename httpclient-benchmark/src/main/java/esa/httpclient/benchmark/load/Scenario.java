@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Workloads driven by {@link LoadHarness}, each of them has a default arrival rate which is expected to be
+ * sustainable on a laptop except for {@link #POOL_SATURATION}.
+ */
+public enum Scenario {
+
+    /**
+     * Small GETs which are aggregated.
+     */
+    SMALL_GET(Endpoints.SMALL, 2000),
+
+    /**
+     * 1 MB downloads which are consumed chunk by chunk and discarded.
+     */
+    DOWNLOAD_1M(Endpoints.DOWNLOAD, 50),
+
+    /**
+     * Chunked uploads of {@link #UPLOAD_CHUNKS} chunks, each of them is {@link #UPLOAD_CHUNK_SIZE} bytes.
+     */
+    CHUNKED_UPLOAD(Endpoints.UPLOAD, 500),
+
+    /**
+     * Slow responses against a connection pool of {@link #SATURATED_POOL_SIZE} connections and a waiting queue of
+     * {@link #SATURATED_WAITING_QUEUE_LENGTH}, the offered load is about twice as much as the pool can serve so that
+     * the waiting queue overflows.
+     */
+    POOL_SATURATION(Endpoints.SLOW, 400);
+
+    public static final int UPLOAD_CHUNKS = 16;
+    public static final int UPLOAD_CHUNK_SIZE = 4 * 1024;
+    public static final int SATURATED_POOL_SIZE = 4;
+    public static final int SATURATED_WAITING_QUEUE_LENGTH = 16;
+
+    static final byte[] UPLOAD_CHUNK = new byte[UPLOAD_CHUNK_SIZE];
+
+    static {
+        ThreadLocalRandom.current().nextBytes(UPLOAD_CHUNK);
+    }
+
+    private final String path;
+    private final int defaultRate;
+
+    Scenario(String path, int defaultRate) {
+        this.path = path;
+        this.defaultRate = defaultRate;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public int defaultRate() {
+        return defaultRate;
+    }
+}
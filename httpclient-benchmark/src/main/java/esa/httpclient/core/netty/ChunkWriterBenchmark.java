@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.ChunkRequest;
+import esa.httpclient.core.Context;
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.HttpClient;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole chunked request written by {@link ChunkWriter}: headers, {@link #chunks} chunks and the end
+ * marker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkWriterBenchmark {
+
+    @Param({"1", "16"})
+    private int chunks;
+
+    @Param({"1024", "8192"})
+    private int chunkSize;
+
+    private HttpClient client;
+    private EmbeddedChannel channel;
+    private ChunkRequest request;
+    private Context ctx;
+    private byte[] data;
+
+    @Setup
+    public void setUp() {
+        data = new byte[chunkSize];
+        ThreadLocalRandom.current().nextBytes(data);
+
+        client = HttpClient.ofDefault();
+        channel = new EmbeddedChannel(new HttpRequestEncoder());
+        request = client.prepare("http://127.0.0.1:8080/benchmark").build();
+        ctx = new ContextImpl();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.finishAndReleaseAll();
+        client.close();
+    }
+
+    @Benchmark
+    public ChannelFuture writeAndEnd() throws IOException {
+        final ChunkWriter writer = new ChunkWriter();
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                ctx,
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+        for (int i = 0; i < chunks; i++) {
+            writer.write(data, 0, data.length);
+        }
+        writer.end(null);
+        channel.releaseOutbound();
+        return end;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.Context;
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.FileRequest;
+import esa.httpclient.core.HttpRequest;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileWriter} writing a file body, which goes through {@link io.netty.channel.DefaultFileRegion}
+ * when ssl is absent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileWriterBenchmark {
+
+    @Param({"4096", "1048576"})
+    private int fileSize;
+
+    private File file;
+    private EmbeddedChannel channel;
+    private FileRequest request;
+    private Context ctx;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] data = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(data);
+
+        file = File.createTempFile("httpclient-benchmark-", ".tmp");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+
+        channel = new EmbeddedChannel(new HttpRequestEncoder(), new ChunkedWriteHandler());
+        request = (FileRequest) HttpRequest.post("http://127.0.0.1:8080/benchmark").file(file).build();
+        ctx = new ContextImpl();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        file.delete();
+    }
+
+    @Benchmark
+    public ChannelFuture writeAndFlush() throws IOException {
+        final ChannelFuture future = FileWriter.singleton().writeAndFlush(request,
+                channel,
+                ctx,
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+        channel.releaseOutbound();
+        return future;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.HttpRequest;
+import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.NoopListener;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Http1ChannelHandler} reading an already decoded response which is split into {@link #chunks}
+ * contents and aggregated by a {@link DefaultHandle}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Http1ChannelHandlerBenchmark {
+
+    @Param({"1", "16"})
+    private int chunks;
+
+    @Param({"1024", "8192"})
+    private int chunkSize;
+
+    private HandleRegistry registry;
+    private Http1ChannelHandler handler;
+    private EmbeddedChannel channel;
+    private HttpRequest request;
+    private HttpHeaders headers;
+    private ByteBuf data;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final byte[] bytes = new byte[chunkSize];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        data = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(bytes));
+
+        registry = new HandleRegistry(1, 0);
+        handler = new Http1ChannelHandler(registry, -1L);
+        channel = new EmbeddedChannel(handler);
+        request = HttpRequest.get("http://127.0.0.1:8080/benchmark").build();
+        headers = new DefaultHttpHeaders();
+        headers.add(HttpHeaderNames.CONTENT_LENGTH, chunks * chunkSize);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public CompletableFuture<HttpResponse> read() {
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        handler.updateRequestId(registry.put(new DefaultHandle(request,
+                new ContextImpl(),
+                NoopListener.INSTANCE,
+                response,
+                ByteBufAllocator.DEFAULT)));
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, headers));
+        for (int i = 1; i < chunks; i++) {
+            channel.writeInbound(new DefaultHttpContent(data.duplicate()));
+        }
+        channel.writeInbound(new DefaultLastHttpContent(data.duplicate()));
+        return response;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.HttpRequest;
+import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.NoopListener;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Http2FrameHandler} handling a response stream: one HEADERS frame followed by {@link #frames}
+ * DATA frames. The frames are delivered to the listener directly so that the cost of the frame reader is excluded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Http2FrameHandlerBenchmark {
+
+    @Param({"1", "16"})
+    private int frames;
+
+    @Param({"1024", "16384"})
+    private int frameSize;
+
+    private HandleRegistry registry;
+    private Http2Connection connection;
+    private Http2FrameHandler handler;
+    private HttpRequest request;
+    private ByteBuf data;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final byte[] bytes = new byte[frameSize];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        data = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(bytes));
+
+        // Stream ids are odd numbers started with 3, same as the registry used by ChannelPoolHandler.
+        registry = new HandleRegistry(2, 1);
+        connection = new DefaultHttp2Connection(false);
+        handler = new Http2FrameHandler(registry, connection, -1L);
+        request = HttpRequest.get("http://127.0.0.1:8080/benchmark").build();
+    }
+
+    @Benchmark
+    public CompletableFuture<HttpResponse> read() throws Http2Exception {
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final int streamId = registry.put(new DefaultHandle(request,
+                new ContextImpl(),
+                NoopListener.INSTANCE,
+                response,
+                ByteBufAllocator.DEFAULT));
+        connection.local().createStream(streamId, false);
+
+        final Http2Headers headers = new DefaultHttp2Headers()
+                .status(HttpResponseStatus.OK.codeAsText())
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, frames * frameSize);
+        handler.onHeadersRead(null, streamId, headers, 0, false);
+        for (int i = 1; i <= frames; i++) {
+            handler.onDataRead(null, streamId, data.duplicate(), 0, i == frames);
+        }
+
+        connection.stream(streamId).close();
+        return response;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.Context;
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.HttpRequest;
+import esa.httpclient.core.PlainRequest;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PlainWriter} encoding a request with a byte[] body through {@link HttpRequestEncoder}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlainWriterBenchmark {
+
+    @Param({"0", "1024", "16384"})
+    private int bodySize;
+
+    private EmbeddedChannel channel;
+    private PlainRequest request;
+    private Context ctx;
+
+    @Setup
+    public void setUp() {
+        final byte[] body = new byte[bodySize];
+        ThreadLocalRandom.current().nextBytes(body);
+
+        channel = new EmbeddedChannel(new HttpRequestEncoder());
+        request = (PlainRequest) HttpRequest.post("http://127.0.0.1:8080/benchmark?a=b").body(body).build();
+        ctx = new ContextImpl();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public ChannelFuture writeAndFlush() throws IOException {
+        final ChannelFuture future = PlainWriter.singleton().writeAndFlush(request,
+                channel,
+                ctx,
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+        channel.releaseOutbound();
+        return future;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.util;
+
+import esa.commons.netty.http.Http1HeadersImpl;
+import esa.httpclient.core.HttpRequest;
+import io.netty.handler.codec.http2.Http2Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion from HTTP/1.1 request headers to {@link Http2Headers}, which happens for every
+ * HTTP/2 request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpHeadersUtilsBenchmark {
+
+    @Param({"4", "16"})
+    private int headers;
+
+    private HttpRequest request;
+    private Http1HeadersImpl h1Headers;
+
+    @Setup
+    public void setUp() {
+        request = HttpRequest.get("http://127.0.0.1:8080/benchmark?a=b").build();
+        for (int i = 0; i < headers; i++) {
+            request.addHeader("x-benchmark-header-" + i, "value" + i);
+        }
+        h1Headers = (Http1HeadersImpl) request.headers();
+    }
+
+    @Benchmark
+    public Http2Headers toHttp2Headers() {
+        return HttpHeadersUtils.toHttp2Headers(request, h1Headers, false);
+    }
+}
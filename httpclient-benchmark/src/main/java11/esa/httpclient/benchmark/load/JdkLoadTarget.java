@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.benchmark.load;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * The JDK {@link HttpClient} baseline, which is only compiled on JDK 11+.
+ *
+ * Note that the JDK client doesn't limit the number of HTTP/1.1 connections, so {@link Scenario#POOL_SATURATION}
+ * shows how the same load behaves without a bounded pool.
+ */
+final class JdkLoadTarget implements LoadTarget {
+
+    private static final List<byte[]> UPLOAD_CHUNKS = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < Scenario.UPLOAD_CHUNKS; i++) {
+            UPLOAD_CHUNKS.add(Scenario.UPLOAD_CHUNK);
+        }
+    }
+
+    private final Scenario scenario;
+    private final URI uri;
+    private final HttpClient client;
+
+    JdkLoadTarget(LoadServer server, Scenario scenario) throws IOException, GeneralSecurityException {
+        this.scenario = scenario;
+        this.uri = URI.create(server.uri(scenario.path()));
+
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(server.protocol() == LoadServer.Protocol.H1
+                        ? HttpClient.Version.HTTP_1_1 : HttpClient.Version.HTTP_2);
+        if (server.certificate() != null) {
+            builder.sslContext(trusting(server));
+        }
+        this.client = builder.build();
+    }
+
+    @Override
+    public String name() {
+        return "jdk-httpclient";
+    }
+
+    @Override
+    public CompletableFuture<?> send() {
+        switch (scenario) {
+            case DOWNLOAD_1M:
+                return client.sendAsync(HttpRequest.newBuilder(uri).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+            case CHUNKED_UPLOAD:
+                // Unknown content length, so that the body is sent by chunks.
+                return client.sendAsync(HttpRequest.newBuilder(uri)
+                                .POST(HttpRequest.BodyPublishers.ofByteArrays(UPLOAD_CHUNKS))
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+            default:
+                return client.sendAsync(HttpRequest.newBuilder(uri).GET().build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+        }
+    }
+
+    @Override
+    public void close() {
+        // HttpClient of JDK 11 can't be closed explicitly, it will be released once unreachable.
+    }
+
+    private static SSLContext trusting(LoadServer server) throws IOException, GeneralSecurityException {
+        final Certificate certificate;
+        try (InputStream in = new FileInputStream(server.certificate())) {
+            certificate = CertificateFactory.getInstance("X.509").generateCertificate(in);
+        }
+
+        final KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry(LoadServer.HOST, certificate);
+
+        final TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(trustStore);
+
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, factory.getTrustManagers(), null);
+        return sslContext;
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core;
+
+import esa.commons.Checks;
+import esa.commons.concurrent.ThreadFactories;
+import esa.commons.http.HttpHeaderNames;
+import esa.commons.netty.core.Buffer;
+import esa.httpclient.core.util.Futures;
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Downloads the body of a successful response to a file, which executes the request by itself:
+ * <pre>{@code
+ * FileDownload.to(path).build()
+ *         .execute(client, HttpRequest.get(url))
+ *         .thenAccept(result -> ...);
+ * }</pre>
+ * The received buffers are written to a {@link FileChannel} by gathering writes in the given {@link Executor} rather
+ * than the IO-Thread, and no more of the body is read from the connection while the buffers waiting to be written
+ * exceed {@link FileDownloadBuilder#maxPendingBytes(long)}, so that the memory is bounded whatever the size of the
+ * file is.
+ * <p>
+ * The body of a response whose status is not 2xx is dropped and the {@link #future()} fails once the final response
+ * has turned out to be so, including a 3xx one which is not redirected. Be note that retries are disabled, since
+ * every attempt writes the file from the beginning.
+ */
+public final class FileDownload {
+
+    private static final int MAX_GATHERING_BUFFERS = 64;
+
+    private final Path path;
+    private final Executor executor;
+    private final String digestAlgorithm;
+    private final long maxPendingBytes;
+    private final ProgressListener progress;
+    private final CompletableFuture<Result> future = new CompletableFuture<>();
+    private final AtomicBoolean executed = new AtomicBoolean();
+    private volatile boolean sinking;
+
+    private FileDownload(Path path,
+                         Executor executor,
+                         String digestAlgorithm,
+                         long maxPendingBytes,
+                         ProgressListener progress) {
+        this.path = path;
+        this.executor = executor;
+        this.digestAlgorithm = digestAlgorithm;
+        this.maxPendingBytes = maxPendingBytes;
+        this.progress = progress;
+    }
+
+    public static FileDownloadBuilder to(Path path) {
+        return new FileDownloadBuilder(path);
+    }
+
+    /**
+     * Executes the request built by given builder with this download as its {@link Handle}, and a download can be
+     * executed only once.
+     *
+     * @param client    client to execute the request
+     * @param request   builder of the request, whose handle and retries are overridden
+     * @return          {@link #future()}
+     */
+    public CompletableFuture<Result> execute(HttpClient client, HttpRequestBuilder<?, ?> request) {
+        Checks.checkNotNull(client, "HttpClient must not be null");
+        Checks.checkNotNull(request, "Request must not be null");
+        Checks.checkState(executed.compareAndSet(false, true), "FileDownload can be executed only once");
+
+        final CompletableFuture<HttpResponse> response;
+        try {
+            response = client.execute(request.handle(this::accept).maxRetries(0).build());
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            return future;
+        }
+        return bind(response);
+    }
+
+    /**
+     * Obtains the future which is completed once the whole body has been written to the file, or the request has
+     * failed, eg. failing to connect, or the final response is not a 2xx one.
+     *
+     * @return future
+     */
+    public CompletableFuture<Result> future() {
+        return future;
+    }
+
+    /**
+     * Binds this download to the execution of the request which it handles.
+     *
+     * @param response  future of the execution
+     * @return          {@link #future()}
+     */
+    CompletableFuture<Result> bind(CompletableFuture<HttpResponse> response) {
+        response.whenComplete((rsp, th) -> {
+            if (th != null) {
+                future.completeExceptionally(Futures.unwrapped(th));
+            } else if (rsp.status() / 100 != 2) {
+                future.completeExceptionally(new IOException("Unexpected status of download: " + rsp.status()));
+            } else if (!sinking) {
+                future.completeExceptionally(new IllegalStateException(
+                        "The response has not been handled by the download"));
+            }
+            // Otherwise, it is completed by the sink once the body has been written.
+        });
+        return future;
+    }
+
+    void accept(Handle handle) {
+        final Sink[] sink = new Sink[1];
+        handle.onStart(v -> {
+            if (handle.status() / 100 == 2) {
+                sink[0] = new Sink(contentLength(handle));
+                sinking = true;
+                handle.publisher().subscribe(sink[0]);
+            }
+        });
+        handle.onEnd(v -> {
+            final int status = handle.status();
+            if (status / 100 != 2 && status / 100 != 3) {
+                future.completeExceptionally(new IOException("Unexpected status of download: " + status));
+            }
+        });
+        handle.onError(cause -> {
+            // The sink fails the future by itself once it has cleaned up.
+            if (sink[0] == null) {
+                future.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private static long contentLength(Handle handle) {
+        final String value = handle.headers().get(HttpHeaderNames.CONTENT_LENGTH);
+        if (value == null) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return digestAlgorithm == null ? null : MessageDigest.getInstance(digestAlgorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + digestAlgorithm, ex);
+        }
+    }
+
+    /**
+     * Writes the body of one response to the file, the buffers are retained from {@link #onNext(Buffer)} until
+     * they have been written in the {@link #executor}, which runs {@code this} serially.
+     */
+    private final class Sink implements Subscriber<Buffer>, Runnable {
+
+        private final long total;
+        private final Queue<ByteBuf> buffers = new ArrayDeque<>();
+
+        private Subscription subscription;
+        private long pendingBytes;
+        private boolean starving;
+        private boolean scheduled;
+        private boolean done;
+        private Throwable cause;
+        private boolean terminated;
+
+        // Accessed in the executor only.
+        private FileChannel channel;
+        private MessageDigest digest;
+        private long written;
+
+        private Sink(long total) {
+            this.total = total;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            synchronized (this) {
+                subscription = s;
+            }
+            s.request(1L);
+        }
+
+        @Override
+        public void onNext(Buffer content) {
+            final ByteBuf buf = content.getByteBuf().retain();
+            final boolean more;
+            final boolean schedule;
+            synchronized (this) {
+                if (terminated) {
+                    ReferenceCountUtil.safeRelease(buf);
+                    return;
+                }
+                buffers.offer(buf);
+                pendingBytes += buf.readableBytes();
+                more = pendingBytes < maxPendingBytes;
+                starving = !more;
+                schedule = !scheduled;
+                scheduled = true;
+            }
+
+            if (more) {
+                subscription.request(1L);
+            }
+            if (schedule) {
+                schedule();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            terminate(t);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        private void terminate(Throwable t) {
+            final boolean schedule;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                cause = t;
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (Throwable ex) {
+                fail(ex);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (channel == null) {
+                    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+                    digest = newDigest();
+                }
+
+                for (;;) {
+                    final List<ByteBuf> polled;
+                    final Throwable error;
+                    synchronized (this) {
+                        error = cause;
+                        polled = error == null ? poll() : Collections.emptyList();
+                        if (polled.isEmpty() && !done) {
+                            scheduled = false;
+                            return;
+                        }
+                    }
+
+                    if (error != null) {
+                        fail(error);
+                        return;
+                    }
+                    if (polled.isEmpty()) {
+                        channel.close();
+                        complete();
+                        return;
+                    }
+
+                    write(polled);
+                }
+            } catch (Throwable ex) {
+                final Subscription s;
+                synchronized (this) {
+                    s = subscription;
+                }
+                if (s != null) {
+                    s.cancel();
+                }
+                fail(ex);
+            }
+        }
+
+        private List<ByteBuf> poll() {
+            if (buffers.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<ByteBuf> polled = new ArrayList<>(Math.min(buffers.size(), MAX_GATHERING_BUFFERS));
+            while (polled.size() < MAX_GATHERING_BUFFERS && !buffers.isEmpty()) {
+                polled.add(buffers.poll());
+            }
+            return polled;
+        }
+
+        private void write(List<ByteBuf> polled) throws IOException {
+            long bytes = 0L;
+            try {
+                final List<ByteBuffer> nioBuffers = new ArrayList<>(polled.size());
+                for (ByteBuf buf : polled) {
+                    bytes += buf.readableBytes();
+                    Collections.addAll(nioBuffers, buf.nioBuffers());
+                }
+                final ByteBuffer[] srcs = nioBuffers.toArray(new ByteBuffer[0]);
+                if (digest != null) {
+                    for (ByteBuffer src : srcs) {
+                        digest.update(src.duplicate());
+                    }
+                }
+                long remaining = bytes;
+                while (remaining > 0L) {
+                    remaining -= channel.write(srcs);
+                }
+            } finally {
+                for (ByteBuf buf : polled) {
+                    ReferenceCountUtil.safeRelease(buf);
+                }
+            }
+
+            written += bytes;
+            final boolean more;
+            synchronized (this) {
+                pendingBytes -= bytes;
+                more = starving && pendingBytes < maxPendingBytes;
+                starving &= !more;
+            }
+            if (more) {
+                subscription.request(1L);
+            }
+            if (progress != null) {
+                progress.onProgress(written, total);
+            }
+        }
+
+        private void complete() {
+            synchronized (this) {
+                terminated = true;
+            }
+            future.complete(new Result(path, written, digest == null ? null : digest.digest()));
+        }
+
+        private void fail(Throwable ex) {
+            final List<ByteBuf> discarded;
+            synchronized (this) {
+                terminated = true;
+                discarded = new ArrayList<>(buffers);
+                buffers.clear();
+            }
+            for (ByteBuf buf : discarded) {
+                ReferenceCountUtil.safeRelease(buf);
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LoggerUtils.logger().warn("Failed to close the file: " + path, e);
+                }
+            }
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Listener of the progress, which is invoked in the {@link Executor} of the download.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Be informed while some bytes have been written to the file.
+         *
+         * @param written   bytes written so far
+         * @param total     value of content-length, or {@code -1} if absent
+         */
+        void onProgress(long written, long total);
+    }
+
+    public static final class Result {
+
+        private final Path path;
+        private final long bytes;
+        private final byte[] digest;
+
+        private Result(Path path, long bytes, byte[] digest) {
+            this.path = path;
+            this.bytes = bytes;
+            this.digest = digest;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        /**
+         * The digest of the file.
+         *
+         * @return digest, or {@code null} if no digest algorithm is configured
+         */
+        public byte[] digest() {
+            return digest == null ? null : digest.clone();
+        }
+    }
+
+    public static class FileDownloadBuilder {
+
+        private final Path path;
+        private Executor executor;
+        private String digestAlgorithm;
+        private long maxPendingBytes = 4L * 1024 * 1024;
+        private ProgressListener progress;
+
+        FileDownloadBuilder(Path path) {
+            Checks.checkNotNull(path, "Path must not be null");
+            this.path = path;
+        }
+
+        /**
+         * Sets the executor to write the file in, a shared cached thread pool is used by default.
+         *
+         * @param executor  executor
+         * @return          builder
+         */
+        public FileDownloadBuilder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the algorithm of {@link MessageDigest} to compute the digest of the file with, such as SHA-256.
+         *
+         * @param algorithm algorithm
+         * @return          builder
+         */
+        public FileDownloadBuilder digest(String algorithm) {
+            this.digestAlgorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Sets the max bytes of received buffers waiting to be written, no more of the body is read beyond it.
+         *
+         * @param maxPendingBytes   max pending bytes
+         * @return                  builder
+         */
+        public FileDownloadBuilder maxPendingBytes(long maxPendingBytes) {
+            this.maxPendingBytes = maxPendingBytes;
+            return this;
+        }
+
+        public FileDownloadBuilder onProgress(ProgressListener progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        public FileDownload build() {
+            Checks.checkArg(maxPendingBytes > 0L, "maxPendingBytes is " + maxPendingBytes + " (expected > 0)");
+            if (digestAlgorithm != null) {
+                try {
+                    MessageDigest.getInstance(digestAlgorithm);
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new IllegalArgumentException("Unsupported digest algorithm: " + digestAlgorithm, ex);
+                }
+            }
+            return new FileDownload(path,
+                    executor == null ? DefaultExecutor.INSTANCE : executor,
+                    digestAlgorithm,
+                    maxPendingBytes,
+                    progress);
+        }
+    }
+
+    private static final class DefaultExecutor {
+        private static final Executor INSTANCE = Executors.newCachedThreadPool(ThreadFactories
+                .namedThreadFactory("HttpClient-FileDownload-", true));
+    }
+}
@@ -17,6 +17,7 @@ package esa.httpclient.core;
 
 import esa.commons.http.HttpHeaders;
 import esa.commons.netty.core.Buffer;
+import org.reactivestreams.Publisher;
 
 import java.util.function.Consumer;
 
@@ -81,4 +82,24 @@ public interface Handle extends HttpResponse {
      */
     Handle onError(Consumer<Throwable> h);
 
+    /**
+     * Obtains the body as a {@link Publisher} which publishes the received {@link Buffer}s at the pace of the
+     * demand of its only subscriber, and no more contents are read from the connection while there is no demand.
+     * It must be obtained before the body arrives, such as in {@link #onStart(Consumer)}, and once obtained the
+     * consumer set by {@link #onData(Consumer)} is no longer invoked. Be note that each {@link Buffer} is only
+     * valid until {@code onNext} returns, so that it must be copied if it is used afterwards.
+     * <p>
+     * The publisher must be subscribed once obtained, otherwise nothing more is read from the connection and the
+     * request ends up with the read timeout.
+     * <p>
+     * The default implementation is built on {@link #onData(Consumer)}, {@link #onEnd(Consumer)} and
+     * {@link #onError(Consumer)}, which can not push back on the connection, so that the contents received while
+     * there is no demand are copied and held. It should be obtained only once.
+     *
+     * @return      publisher of body
+     */
+    default Publisher<Buffer> publisher() {
+        return new HandlePublisher(this);
+    }
+
 }
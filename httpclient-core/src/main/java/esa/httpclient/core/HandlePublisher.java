@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core;
+
+import esa.commons.Checks;
+import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.Unpooled;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * The default {@link Handle#publisher()}, which publishes the contents received by {@link Handle#onData} to a
+ * single {@link Subscriber}. The contents are copied and held while there is no demand, since there is no way to
+ * push back on the connection through the {@link Handle}.
+ */
+final class HandlePublisher implements Publisher<Buffer>, Subscription {
+
+    private static final Subscription NOOP = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Queue<Buffer> contents = new ArrayDeque<>();
+
+    private Subscriber<? super Buffer> subscriber;
+    private boolean subscribed;
+    private long demand;
+    private boolean done;
+    private Throwable cause;
+    private boolean terminated;
+    private boolean cancelled;
+    private boolean draining;
+
+    HandlePublisher(Handle handle) {
+        handle.onData(this::offer);
+        handle.onEnd(v -> terminate(null));
+        handle.onError(this::terminate);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Buffer> s) {
+        Checks.checkNotNull(s, "Subscriber must not be null");
+        final boolean accepted;
+        synchronized (this) {
+            accepted = subscriber == null;
+            if (accepted) {
+                subscriber = s;
+            }
+        }
+
+        if (!accepted) {
+            s.onSubscribe(NOOP);
+            s.onError(new IllegalStateException("Publisher of body allows only one subscriber"));
+            return;
+        }
+
+        s.onSubscribe(this);
+        synchronized (this) {
+            subscribed = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0L) {
+            terminate(new IllegalArgumentException("Requested " + n + " contents (expected > 0)"));
+            return;
+        }
+
+        synchronized (this) {
+            demand += n;
+            if (demand < 0L) {
+                demand = Long.MAX_VALUE;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+            contents.clear();
+        }
+    }
+
+    private void offer(Buffer content) {
+        synchronized (this) {
+            if (cancelled || done) {
+                return;
+            }
+            // The content is only valid while it's being handled.
+            contents.offer(new BufferImpl(Unpooled.copiedBuffer(content.getByteBuf())));
+        }
+        drain();
+    }
+
+    private void terminate(Throwable cause) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            this.cause = cause;
+            if (cause != null) {
+                contents.clear();
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+
+        for (;;) {
+            final Subscriber<? super Buffer> s;
+            final Buffer content;
+            final boolean terminal;
+            final Throwable error;
+            synchronized (this) {
+                s = subscriber;
+                if (!subscribed || cancelled || terminated
+                        || (contents.isEmpty() && !done) || (!contents.isEmpty() && demand == 0L)) {
+                    draining = false;
+                    return;
+                }
+
+                content = contents.poll();
+                if (content != null && demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                terminal = content == null;
+                terminated = terminal;
+                error = cause;
+            }
+
+            if (!terminal) {
+                try {
+                    s.onNext(content);
+                } catch (Throwable ex) {
+                    LoggerUtils.logger().error("Subscriber: " + s + " failed to handle the content, cancel it", ex);
+                    cancel();
+                }
+            } else if (error == null) {
+                s.onComplete();
+            } else {
+                s.onError(error);
+            }
+        }
+    }
+}
@@ -70,6 +70,24 @@ public interface HttpClient extends Closeable, Identifiable, MetricPoint {
      */
     CompletableFuture<HttpResponse> execute(HttpRequest request);
 
+    /**
+     * Establishes the given number of connections to the origin of given {@code uri} in advance, so that the
+     * following requests will not pay for connecting and handshaking. The idle connections which have been
+     * established are counted, and for http2 fewer connections may be established since they are multiplexed.
+     *
+     * It's useful to call this after starting up with the origins which have been recorded from
+     * {@link esa.httpclient.core.metrics.ConnectionPoolMetricProvider#all()} before shutting down, or see
+     * {@link HttpClientBuilder#connectionPoolMinIdle(int)} to keep connections ready.
+     *
+     * @param uri           uri whose scheme, host and port identify the origin
+     * @param connections   the number of connections expected, which must be greater than 0
+     * @return future which will be completed with the number of connections which are ready, the default
+     * implementation establishes nothing and completes with 0
+     */
+    default CompletableFuture<Integer> warmUp(String uri, int connections) {
+        return CompletableFuture.completedFuture(0);
+    }
+
 
     ////////*********************** BUILDER TEMPLATE ********************************////////
 
@@ -19,9 +19,11 @@ import esa.commons.Checks;
 import esa.commons.http.HttpVersion;
 import esa.httpclient.core.config.CacheOptions;
 import esa.httpclient.core.config.ChannelPoolOptions;
+import esa.httpclient.core.config.ChannelPoolType;
 import esa.httpclient.core.config.Decompression;
 import esa.httpclient.core.config.Http1Options;
 import esa.httpclient.core.config.Http2Options;
+import esa.httpclient.core.config.LoadBalanceStrategy;
 import esa.httpclient.core.config.NetOptions;
 import esa.httpclient.core.config.RetryOptions;
 import esa.httpclient.core.config.SslOptions;
@@ -107,6 +109,75 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
      */
     private int connectionPoolWaitingQueueLength = 256;
 
+    private ChannelPoolType connectionPoolType = ChannelPoolType.FIXED;
+
+    private int connectionPoolMinIdle;
+
+    /**
+     * Max idle time(millis) of a pooled connection, 0 means never evicting idle connections.
+     */
+    private int connectionPoolIdleTimeout;
+
+    /**
+     * Max lifetime(millis) of a pooled connection, 0 means no limit.
+     */
+    private int connectionPoolMaxLifetime;
+
+    /**
+     * Max requests sent over a pooled connection, 0 means no limit.
+     */
+    private int connectionPoolMaxRequestsPerConnection;
+
+    /**
+     * Min size limit of an adaptive connection pool.
+     */
+    private int connectionPoolMinSize = 1;
+
+    /**
+     * Max number of connection attempts in flight per host.
+     */
+    private int connectionPoolMaxConnecting;
+
+    /**
+     * Max number of connection attempts per second per host.
+     */
+    private int connectionPoolConnectRate;
+
+    /**
+     * Max time in milliseconds to wait for a connection from the pool.
+     */
+    private int connectionPoolAcquireTimeout = 3000;
+
+    /**
+     * Interval in milliseconds to resolve the hosts again, which splits the pool of a host by address if positive.
+     */
+    private int connectionPoolResolveInterval;
+
+    /**
+     * Delay in milliseconds between the connection attempts racing across the resolved addresses, disabled if 0.
+     */
+    private int connectionPoolConnectAttemptDelay;
+
+    /**
+     * Strategy to pick a resolved address for each request, which applies to the pools split by address.
+     */
+    private LoadBalanceStrategy connectionPoolLoadBalance = LoadBalanceStrategy.ROUND_ROBIN;
+
+    /**
+     * Consecutive failures to eject a resolved address from the load balancing, disabled if 0.
+     */
+    private int connectionPoolOutlierConsecutiveFailures;
+
+    /**
+     * Base time in milliseconds that a resolved address is ejected for.
+     */
+    private int connectionPoolOutlierEjectionTime = 30000;
+
+    /**
+     * Max percent of the resolved addresses of a host which can be ejected at the same time.
+     */
+    private int connectionPoolOutlierMaxEjectionPercent = 10;
+
     private int maxRedirects = 5;
 
     private SslOptions sslOptions;
@@ -117,6 +188,8 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
     private RetryOptions retryOptions = RetryOptions.ofDefault();
     private boolean expectContinueEnabled = false;
     private boolean uriEncodeEnabled = false;
+    private boolean requestMetricsEnabled = false;
+    private boolean pooledResponseBody = false;
 
     /**
      * This map is helpful for configure {@link ChannelPoolOptions}s for every {@link SocketAddress}.
@@ -129,6 +202,14 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
 
     private Interceptor[] unmodifiableInterceptors;
 
+    /**
+     * Sets the {@link HostResolver} used while connecting. The default {@link SystemDefaultResolver} resolves by
+     * the blocking {@link java.net.InetAddress#getAllByName(String)}, use
+     * {@link esa.httpclient.core.resolver.DnsHostResolver} to resolve asynchronously.
+     *
+     * @param resolver  resolver
+     * @return this builder
+     */
     public HttpClientBuilder resolver(HostResolver resolver) {
         this.resolver = resolver;
         return self();
@@ -181,6 +262,109 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return self();
     }
 
+    public HttpClientBuilder connectionPoolType(ChannelPoolType type) {
+        Checks.checkNotNull(type, "ChannelPoolType must not be null");
+        this.connectionPoolType = type;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolMinIdle(int minIdle) {
+        Checks.checkArg(minIdle >= 0, "minIdle is " + minIdle +
+                " (expected >= 0)");
+        this.connectionPoolMinIdle = minIdle;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolIdleTimeout(int idleTimeout) {
+        Checks.checkArg(idleTimeout >= 0, "idleTimeout is " + idleTimeout +
+                " (expected >= 0)");
+        this.connectionPoolIdleTimeout = idleTimeout;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolMaxLifetime(int maxLifetime) {
+        Checks.checkArg(maxLifetime >= 0, "maxLifetime is " + maxLifetime +
+                " (expected >= 0)");
+        this.connectionPoolMaxLifetime = maxLifetime;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolMaxRequestsPerConnection(int maxRequestsPerConnection) {
+        Checks.checkArg(maxRequestsPerConnection >= 0, "maxRequestsPerConnection is " + maxRequestsPerConnection +
+                " (expected >= 0)");
+        this.connectionPoolMaxRequestsPerConnection = maxRequestsPerConnection;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolMinSize(int minSize) {
+        Checks.checkArg(minSize >= 1, "minSize is " + minSize +
+                " (expected >= 1)");
+        this.connectionPoolMinSize = minSize;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolMaxConnecting(int maxConnecting) {
+        Checks.checkArg(maxConnecting >= 0, "maxConnecting is " + maxConnecting +
+                " (expected >= 0)");
+        this.connectionPoolMaxConnecting = maxConnecting;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolConnectRate(int connectRate) {
+        Checks.checkArg(connectRate >= 0, "connectRate is " + connectRate +
+                " (expected >= 0)");
+        this.connectionPoolConnectRate = connectRate;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolAcquireTimeout(int acquireTimeout) {
+        Checks.checkArg(acquireTimeout >= 1, "acquireTimeout is " + acquireTimeout +
+                " (expected >= 1)");
+        this.connectionPoolAcquireTimeout = acquireTimeout;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolResolveInterval(int resolveInterval) {
+        Checks.checkArg(resolveInterval >= 0, "resolveInterval is " + resolveInterval +
+                " (expected >= 0)");
+        this.connectionPoolResolveInterval = resolveInterval;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolConnectAttemptDelay(int connectAttemptDelay) {
+        Checks.checkArg(connectAttemptDelay >= 0, "connectAttemptDelay is " + connectAttemptDelay +
+                " (expected >= 0)");
+        this.connectionPoolConnectAttemptDelay = connectAttemptDelay;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolLoadBalance(LoadBalanceStrategy loadBalance) {
+        Checks.checkNotNull(loadBalance, "LoadBalanceStrategy must not be null");
+        this.connectionPoolLoadBalance = loadBalance;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolOutlierConsecutiveFailures(int consecutiveFailures) {
+        Checks.checkArg(consecutiveFailures >= 0, "consecutiveFailures is " + consecutiveFailures +
+                " (expected >= 0)");
+        this.connectionPoolOutlierConsecutiveFailures = consecutiveFailures;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolOutlierEjectionTime(int ejectionTime) {
+        Checks.checkArg(ejectionTime >= 1, "ejectionTime is " + ejectionTime +
+                " (expected >= 1)");
+        this.connectionPoolOutlierEjectionTime = ejectionTime;
+        return self();
+    }
+
+    public HttpClientBuilder connectionPoolOutlierMaxEjectionPercent(int maxEjectionPercent) {
+        Checks.checkArg(maxEjectionPercent >= 1 && maxEjectionPercent <= 100, "maxEjectionPercent is " +
+                maxEjectionPercent + " (expected: [1, 100])");
+        this.connectionPoolOutlierMaxEjectionPercent = maxEjectionPercent;
+        return self();
+    }
+
     public HttpClientBuilder useDecompress(boolean useDecompress) {
         this.useDecompress = useDecompress;
         return self();
@@ -202,6 +386,32 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return self();
     }
 
+    /**
+     * Whether to record per-host latency histograms of each phase of requests, which can be obtained by
+     * {@link HttpClient#requestMetric()}.
+     *
+     * @param requestMetricsEnabled enabled or not
+     * @return this builder
+     */
+    public HttpClientBuilder requestMetricsEnabled(boolean requestMetricsEnabled) {
+        this.requestMetricsEnabled = requestMetricsEnabled;
+        return self();
+    }
+
+    /**
+     * Whether the body of an aggregated response is backed by the pooled buffers which it has been read into,
+     * rather than copied onto the heap. If it's enabled, the response must be closed by
+     * {@link HttpResponse#close()} once its body has been consumed, otherwise the buffers leak, which is reported
+     * by netty's {@link io.netty.util.ResourceLeakDetector}.
+     *
+     * @param pooledResponseBody enabled or not
+     * @return this builder
+     */
+    public HttpClientBuilder pooledResponseBody(boolean pooledResponseBody) {
+        this.pooledResponseBody = pooledResponseBody;
+        return self();
+    }
+
     public boolean isExpectContinueEnabled() {
         return this.expectContinueEnabled;
     }
@@ -210,6 +420,14 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return uriEncodeEnabled;
     }
 
+    public boolean isRequestMetricsEnabled() {
+        return requestMetricsEnabled;
+    }
+
+    public boolean isPooledResponseBody() {
+        return pooledResponseBody;
+    }
+
     public HttpClientBuilder addInterceptor(Interceptor interceptor) {
         Checks.checkNotNull(interceptor, "Interceptor must not be null");
         this.interceptors.add(interceptor);
@@ -339,6 +557,8 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
                 .h2ClearTextUpgrade(h2ClearTextUpgrade)
                 .expectContinueEnabled(expectContinueEnabled)
                 .uriEncodeEnabled(uriEncodeEnabled)
+                .requestMetricsEnabled(requestMetricsEnabled)
+                .pooledResponseBody(pooledResponseBody)
                 .connectTimeout(connectTimeout)
                 .readTimeout(readTimeout)
                 .maxContentLength(maxContentLength)
@@ -347,6 +567,21 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
                 .maxRedirects(maxRedirects)
                 .connectionPoolSize(connectionPoolSize)
                 .connectionPoolWaitingQueueLength(connectionPoolWaitingQueueLength)
+                .connectionPoolType(connectionPoolType)
+                .connectionPoolMinIdle(connectionPoolMinIdle)
+                .connectionPoolIdleTimeout(connectionPoolIdleTimeout)
+                .connectionPoolMaxLifetime(connectionPoolMaxLifetime)
+                .connectionPoolMaxRequestsPerConnection(connectionPoolMaxRequestsPerConnection)
+                .connectionPoolMinSize(connectionPoolMinSize)
+                .connectionPoolMaxConnecting(connectionPoolMaxConnecting)
+                .connectionPoolConnectRate(connectionPoolConnectRate)
+                .connectionPoolAcquireTimeout(connectionPoolAcquireTimeout)
+                .connectionPoolResolveInterval(connectionPoolResolveInterval)
+                .connectionPoolConnectAttemptDelay(connectionPoolConnectAttemptDelay)
+                .connectionPoolLoadBalance(connectionPoolLoadBalance)
+                .connectionPoolOutlierConsecutiveFailures(connectionPoolOutlierConsecutiveFailures)
+                .connectionPoolOutlierEjectionTime(connectionPoolOutlierEjectionTime)
+                .connectionPoolOutlierMaxEjectionPercent(connectionPoolOutlierMaxEjectionPercent)
                 .sslOptions(Reusable.copyOf(sslOptions))
                 .netOptions(Reusable.copyOf(netOptions))
                 .http1Options(Reusable.copyOf(http1Options))
@@ -388,6 +623,66 @@ public class HttpClientBuilder implements Reusable<HttpClientBuilder> {
         return connectionPoolWaitingQueueLength;
     }
 
+    public ChannelPoolType connectionPoolType() {
+        return connectionPoolType;
+    }
+
+    public int connectionPoolMinIdle() {
+        return connectionPoolMinIdle;
+    }
+
+    public int connectionPoolIdleTimeout() {
+        return connectionPoolIdleTimeout;
+    }
+
+    public int connectionPoolMaxLifetime() {
+        return connectionPoolMaxLifetime;
+    }
+
+    public int connectionPoolMaxRequestsPerConnection() {
+        return connectionPoolMaxRequestsPerConnection;
+    }
+
+    public int connectionPoolMinSize() {
+        return connectionPoolMinSize;
+    }
+
+    public int connectionPoolMaxConnecting() {
+        return connectionPoolMaxConnecting;
+    }
+
+    public int connectionPoolConnectRate() {
+        return connectionPoolConnectRate;
+    }
+
+    public int connectionPoolAcquireTimeout() {
+        return connectionPoolAcquireTimeout;
+    }
+
+    public int connectionPoolResolveInterval() {
+        return connectionPoolResolveInterval;
+    }
+
+    public int connectionPoolConnectAttemptDelay() {
+        return connectionPoolConnectAttemptDelay;
+    }
+
+    public LoadBalanceStrategy connectionPoolLoadBalance() {
+        return connectionPoolLoadBalance;
+    }
+
+    public int connectionPoolOutlierConsecutiveFailures() {
+        return connectionPoolOutlierConsecutiveFailures;
+    }
+
+    public int connectionPoolOutlierEjectionTime() {
+        return connectionPoolOutlierEjectionTime;
+    }
+
+    public int connectionPoolOutlierMaxEjectionPercent() {
+        return connectionPoolOutlierMaxEjectionPercent;
+    }
+
     public boolean isUseDecompress() {
         return this.useDecompress;
     }
@@ -20,10 +20,19 @@ import esa.commons.collection.HashMultiValueMap;
 import esa.commons.collection.MultiValueMap;
 import esa.commons.http.HttpHeaders;
 import esa.commons.http.HttpMethod;
+import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
 import esa.commons.netty.http.Http1HeadersImpl;
 import esa.httpclient.core.netty.NettyRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.reactivestreams.Publisher;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -71,6 +80,11 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
     protected Consumer<Handle> handle;
     protected Handler handler;
 
+    /**
+     * The priority of current request while waiting for a connection, {@link RequestPriority#NORMAL} if absent.
+     */
+    protected RequestPriority priority;
+
     public HttpRequestBuilder(String uri) {
         Checks.checkNotEmptyArg(uri, "Request's uri must not be empty");
         this.uri = new HttpUri(uri);
@@ -150,6 +164,11 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
         return self();
     }
 
+    public Builder priority(RequestPriority priority) {
+        this.priority = priority;
+        return self();
+    }
+
     public Builder method(HttpMethod method) {
         this.method = method;
         return self();
@@ -206,13 +225,17 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
                     headers,
                     handle,
                     handler,
-                    (byte[]) null);
+                    (byte[]) null,
+                    priority);
         }
     }
 
     public static class BodyPermittedBuilder extends HttpRequestBuilder<BodyPermittedBuilder, HttpRequest> {
         private byte[] body;
         private File file;
+        private ReadableByteChannel channel;
+        private Publisher<ByteBuffer> publisher;
+        private Buffer buffer;
 
         BodyPermittedBuilder(HttpMethod method, String uri) {
             super(uri);
@@ -225,14 +248,125 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
             return self();
         }
 
+        /**
+         * Sets the body which is written to the connection without copying, see {@link PlainRequest#buffer()}.
+         * Note that the request takes over the ownership of given {@link Buffer}.
+         *
+         * @param buffer    buffer
+         * @return          builder
+         */
+        public BodyPermittedBuilder buffer(Buffer buffer) {
+            cleanBody();
+            this.buffer = buffer;
+            return self();
+        }
+
+        /**
+         * Sets the body which is written to the connection without copying, see {@link PlainRequest#buffer()}.
+         * Note that the request takes over the ownership of given {@link ByteBuf}.
+         *
+         * @param buf   buf
+         * @return      builder
+         */
+        public BodyPermittedBuilder buffer(ByteBuf buf) {
+            return buffer(buf == null ? null : new BufferImpl(buf));
+        }
+
+        /**
+         * Sets the body which is written to the connection without copying, see {@link PlainRequest#buffer()}.
+         * The content of given {@link ByteBuffer} must not be modified until the execution completes.
+         *
+         * @param buf   buf
+         * @return      builder
+         */
+        public BodyPermittedBuilder buffer(ByteBuffer buf) {
+            return buffer(buf == null ? null : Unpooled.wrappedBuffer(buf));
+        }
+
         public BodyPermittedBuilder file(File file) {
             cleanBody();
             this.file = file;
             return self();
         }
 
+        /**
+         * Sets the body to be read from given {@link InputStream}, see {@link StreamRequest}.
+         *
+         * @param in    input stream
+         * @return      builder
+         */
+        public BodyPermittedBuilder stream(InputStream in) {
+            return stream(in == null ? null : Channels.newChannel(in));
+        }
+
+        /**
+         * Sets the body to be read from given {@link ReadableByteChannel}, see {@link StreamRequest}.
+         *
+         * @param channel   channel
+         * @return          builder
+         */
+        public BodyPermittedBuilder stream(ReadableByteChannel channel) {
+            cleanBody();
+            this.channel = channel;
+            return self();
+        }
+
+        /**
+         * Sets the body to be published by given {@link Publisher}, see {@link StreamRequest}.
+         *
+         * @param publisher publisher
+         * @return          builder
+         */
+        public BodyPermittedBuilder publisher(Publisher<ByteBuffer> publisher) {
+            cleanBody();
+            this.publisher = publisher;
+            return self();
+        }
+
         @Override
         public HttpRequest build() {
+            if (channel != null) {
+                return NettyRequest.from(method,
+                        uri,
+                        readTimeout,
+                        uriEncodeEnabled,
+                        expectContinueEnabled,
+                        maxRetries,
+                        maxRedirects,
+                        headers,
+                        handle,
+                        handler,
+                        channel,
+                        priority);
+            }
+            if (publisher != null) {
+                return NettyRequest.from(method,
+                        uri,
+                        readTimeout,
+                        uriEncodeEnabled,
+                        expectContinueEnabled,
+                        maxRetries,
+                        maxRedirects,
+                        headers,
+                        handle,
+                        handler,
+                        publisher,
+                        priority);
+            }
+            if (buffer != null) {
+                return NettyRequest.from(method,
+                        uri,
+                        readTimeout,
+                        uriEncodeEnabled,
+                        expectContinueEnabled,
+                        maxRetries,
+                        maxRedirects,
+                        headers,
+                        handle,
+                        handler,
+                        buffer,
+                        priority);
+            }
             if (file != null) {
                 return NettyRequest.from(method,
                         uri,
@@ -244,7 +378,8 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
                         headers,
                         handle,
                         handler,
-                        file);
+                        file,
+                        priority);
             }
             return NettyRequest.from(method,
                     uri,
@@ -256,12 +391,16 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
                     headers,
                     handle,
                     handler,
-                    body);
+                    body,
+                    priority);
         }
 
         private void cleanBody() {
             this.body = null;
             this.file = null;
+            this.channel = null;
+            this.publisher = null;
+            this.buffer = null;
         }
     }
 
@@ -310,7 +449,8 @@ public abstract class HttpRequestBuilder<Builder extends HttpRequestBuilder<Buil
                     handler,
                     multipart,
                     attributes,
-                    files);
+                    files,
+                    priority);
         }
 
         public Multipart multipart(boolean multipart) {
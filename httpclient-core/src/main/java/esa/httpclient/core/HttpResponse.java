@@ -18,7 +18,7 @@ package esa.httpclient.core;
 import esa.commons.http.HttpHeaders;
 import esa.commons.netty.core.Buffer;
 
-public interface HttpResponse extends HttpMessage {
+public interface HttpResponse extends HttpMessage, AutoCloseable {
 
     /**
      * Obtains body as {@link Buffer} format.
@@ -46,4 +46,13 @@ public interface HttpResponse extends HttpMessage {
      */
     boolean aggregated();
 
+    /**
+     * Releases the buffers which back the {@link #body()}, which is required if the response is aggregated while
+     * {@link HttpClientBuilder#pooledResponseBody(boolean)} is enabled, and does nothing otherwise. The body must
+     * not be used after that. It can be called more than once.
+     */
+    @Override
+    default void close() {
+    }
+
 }
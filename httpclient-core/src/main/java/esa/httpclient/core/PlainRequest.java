@@ -15,6 +15,8 @@
  */
 package esa.httpclient.core;
 
+import esa.commons.netty.core.Buffer;
+
 public interface PlainRequest extends HttpRequest {
 
     /**
@@ -24,6 +26,17 @@ public interface PlainRequest extends HttpRequest {
      */
     byte[] body();
 
+    /**
+     * Obtains request's body as {@link Buffer} format, which is written to the connection without copying. The
+     * request owns the buffer and releases it once the execution completes, and the {@link #body()} is
+     * {@code null} in this case.
+     *
+     * @return buffer, or {@code null} if the body is given as byte[]
+     */
+    default Buffer buffer() {
+        return null;
+    }
+
     /**
      * {@link HttpRequest} as {@link RequestType#PLAIN}
      *
@@ -21,10 +21,14 @@ import esa.commons.collection.HashMultiValueMap;
 import esa.commons.collection.MultiValueMap;
 import esa.commons.http.HttpHeaders;
 import esa.commons.http.HttpMethod;
+import esa.commons.netty.core.Buffer;
 import esa.httpclient.core.util.HttpHeadersUtils;
+import org.reactivestreams.Publisher;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
@@ -47,6 +51,10 @@ public class RequestOptions {
     private final boolean multipart;
     private final MultiValueMap<String, String> attributes;
     private final List<MultipartFileItem> files;
+    private final RequestPriority priority;
+    private final ReadableByteChannel channel;
+    private final Publisher<ByteBuffer> publisher;
+    private final Buffer buffer;
 
     public RequestOptions(HttpMethod method,
                           HttpUri uri,
@@ -124,6 +132,73 @@ public class RequestOptions {
                           boolean multipart,
                           MultiValueMap<String, String> attributes,
                           List<MultipartFileItem> files) {
+        this(method, uri, readTimeout, uriEncodeEnabled, maxRetries, maxRedirects, headers,
+                expectContinueEnabled, handle, handler, body, file, multipart, attributes, files, null);
+    }
+
+    public RequestOptions(HttpMethod method,
+                          HttpUri uri,
+                          int readTimeout,
+                          Boolean uriEncodeEnabled,
+                          int maxRetries,
+                          int maxRedirects,
+                          HttpHeaders headers,
+                          Boolean expectContinueEnabled,
+                          Consumer<Handle> handle,
+                          Handler handler,
+                          byte[] body,
+                          File file,
+                          boolean multipart,
+                          MultiValueMap<String, String> attributes,
+                          List<MultipartFileItem> files,
+                          RequestPriority priority) {
+        this(method, uri, readTimeout, uriEncodeEnabled, maxRetries, maxRedirects, headers,
+                expectContinueEnabled, handle, handler, body, file, multipart, attributes, files, priority,
+                null, null);
+    }
+
+    public RequestOptions(HttpMethod method,
+                          HttpUri uri,
+                          int readTimeout,
+                          Boolean uriEncodeEnabled,
+                          int maxRetries,
+                          int maxRedirects,
+                          HttpHeaders headers,
+                          Boolean expectContinueEnabled,
+                          Consumer<Handle> handle,
+                          Handler handler,
+                          byte[] body,
+                          File file,
+                          boolean multipart,
+                          MultiValueMap<String, String> attributes,
+                          List<MultipartFileItem> files,
+                          RequestPriority priority,
+                          ReadableByteChannel channel,
+                          Publisher<ByteBuffer> publisher) {
+        this(method, uri, readTimeout, uriEncodeEnabled, maxRetries, maxRedirects, headers,
+                expectContinueEnabled, handle, handler, body, file, multipart, attributes, files, priority,
+                channel, publisher, null);
+    }
+
+    public RequestOptions(HttpMethod method,
+                          HttpUri uri,
+                          int readTimeout,
+                          Boolean uriEncodeEnabled,
+                          int maxRetries,
+                          int maxRedirects,
+                          HttpHeaders headers,
+                          Boolean expectContinueEnabled,
+                          Consumer<Handle> handle,
+                          Handler handler,
+                          byte[] body,
+                          File file,
+                          boolean multipart,
+                          MultiValueMap<String, String> attributes,
+                          List<MultipartFileItem> files,
+                          RequestPriority priority,
+                          ReadableByteChannel channel,
+                          Publisher<ByteBuffer> publisher,
+                          Buffer buffer) {
         Checks.checkNotNull(method, "HttpMethod must not be null");
         Checks.checkNotNull(uri, "HttpUri must not be null");
         Checks.checkNotNull(headers, "HttpHeaders must not be null");
@@ -142,6 +217,10 @@ public class RequestOptions {
         this.multipart = multipart;
         this.attributes = attributes == null ? null : new HashMultiValueMap<>(attributes);
         this.files = files == null ? null : new ArrayList<>(files);
+        this.priority = priority == null ? RequestPriority.NORMAL : priority;
+        this.channel = channel;
+        this.publisher = publisher;
+        this.buffer = buffer;
         this.scheme = toScheme(this.uri.netURI());
     }
 
@@ -201,6 +280,42 @@ public class RequestOptions {
         return files;
     }
 
+    /**
+     * The priority of current request while waiting for a connection.
+     *
+     * @return priority, {@link RequestPriority#NORMAL} by default
+     */
+    public RequestPriority priority() {
+        return priority;
+    }
+
+    /**
+     * The channel to read the body from, which is pulled only while the connection is able to take more.
+     *
+     * @return channel, or {@code null} if absent
+     */
+    public ReadableByteChannel channel() {
+        return channel;
+    }
+
+    /**
+     * The publisher of the body, which is requested only while the connection is able to take more.
+     *
+     * @return publisher, or {@code null} if absent
+     */
+    public Publisher<ByteBuffer> publisher() {
+        return publisher;
+    }
+
+    /**
+     * The body which is written to the connection as it is without copying, see {@link PlainRequest#buffer()}.
+     *
+     * @return buffer, or {@code null} if absent
+     */
+    public Buffer buffer() {
+        return buffer;
+    }
+
     public Consumer<Handle> handle() {
         return handle;
     }
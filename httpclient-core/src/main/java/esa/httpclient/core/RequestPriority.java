@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core;
+
+/**
+ * The priority class of a request, which decides the order in which the requests waiting for a connection are
+ * served, and the requests of lower priority are rejected firstly once the waiting queue is full.
+ */
+public enum RequestPriority {
+
+    /**
+     * served before the others, eg. the requests serving users directly
+     */
+    HIGH,
+
+    /**
+     * the default priority
+     */
+    NORMAL,
+
+    /**
+     * served after the others, eg. the background or batch requests
+     */
+    LOW
+}
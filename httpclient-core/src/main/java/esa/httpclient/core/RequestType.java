@@ -35,5 +35,10 @@ public enum RequestType {
     /**
      * request of chunk type
      */
-    CHUNK
+    CHUNK,
+
+    /**
+     * request of body pulled from a stream
+     */
+    STREAM
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core;
+
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The request whose body is pulled from a stream only while the connection, and the flow-control window of the
+ * stream as for http2, is able to take more, so that a body of any size can be written with bounded memory. The
+ * body is sent with {@code Transfer-Encoding: chunked} over http1 unless the {@code Content-Length} is set, and
+ * the source of it is closed or cancelled once the request has been written, or has failed to.
+ */
+public interface StreamRequest extends HttpRequest {
+
+    /**
+     * Obtains the channel to read the body from, which is read in the event loop, so that it should not block
+     * for long.
+     *
+     * @return channel, or {@code null} if the body is published by {@link #publisher()}
+     */
+    ReadableByteChannel channel();
+
+    /**
+     * Obtains the publisher of the body, which is requested one {@link ByteBuffer} at a time.
+     *
+     * @return publisher, or {@code null} if the body is read from {@link #channel()}
+     */
+    Publisher<ByteBuffer> publisher();
+
+    /**
+     * {@link RequestType} of current request
+     *
+     * @return type of {@link RequestType#STREAM}
+     */
+    @Override
+    default RequestType type() {
+        return RequestType.STREAM;
+    }
+}
@@ -30,8 +30,41 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
     private final int connectTimeout;
     private final int poolSize;
     private final int waitingQueueLength;
+    private final ChannelPoolType type;
+    private final int minIdle;
+    private final int idleTimeout;
+    private final int maxLifetime;
+    private final int maxRequestsPerConnection;
+    private final int minPoolSize;
+    private final int maxConnecting;
+    private final int connectRate;
+    private final int acquireTimeout;
+    private final int resolveInterval;
+    private final int connectAttemptDelay;
+    private final LoadBalanceStrategy loadBalance;
+    private final int outlierConsecutiveFailures;
+    private final int outlierEjectionTime;
+    private final int outlierMaxEjectionPercent;
 
-    private ChannelPoolOptions(int readTimeout, int connectTimeout, int poolSize, int waitingQueueLength) {
+    private ChannelPoolOptions(int readTimeout,
+                               int connectTimeout,
+                               int poolSize,
+                               int waitingQueueLength,
+                               ChannelPoolType type,
+                               int minIdle,
+                               int idleTimeout,
+                               int maxLifetime,
+                               int maxRequestsPerConnection,
+                               int minPoolSize,
+                               int maxConnecting,
+                               int connectRate,
+                               int acquireTimeout,
+                               int resolveInterval,
+                               int connectAttemptDelay,
+                               LoadBalanceStrategy loadBalance,
+                               int outlierConsecutiveFailures,
+                               int outlierEjectionTime,
+                               int outlierMaxEjectionPercent) {
         Checks.checkArg(readTimeout >= 1, "readTimeout is " + readTimeout +
                 " (expected >= 1)");
         Checks.checkArg(connectTimeout >= 1, "connectTimeout is " + connectTimeout +
@@ -40,15 +73,61 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
                 " (expected >= 1)");
         Checks.checkArg(waitingQueueLength >= 1, "waitingQueueLength is " + waitingQueueLength +
                 " (expected >= 1)");
+        Checks.checkNotNull(type, "type must not be null");
+        Checks.checkArg(minIdle >= 0 && minIdle <= poolSize, "minIdle is " + minIdle +
+                " (expected >= 0 and <= poolSize)");
+        Checks.checkArg(idleTimeout >= 0, "idleTimeout is " + idleTimeout +
+                " (expected >= 0)");
+        Checks.checkArg(maxLifetime >= 0, "maxLifetime is " + maxLifetime +
+                " (expected >= 0)");
+        Checks.checkArg(maxRequestsPerConnection >= 0, "maxRequestsPerConnection is " + maxRequestsPerConnection +
+                " (expected >= 0)");
+        Checks.checkArg(minPoolSize >= 1 && minPoolSize <= poolSize, "minPoolSize is " + minPoolSize +
+                " (expected >= 1 and <= poolSize)");
+        Checks.checkArg(maxConnecting >= 0, "maxConnecting is " + maxConnecting +
+                " (expected >= 0)");
+        Checks.checkArg(connectRate >= 0, "connectRate is " + connectRate +
+                " (expected >= 0)");
+        Checks.checkArg(acquireTimeout >= 1, "acquireTimeout is " + acquireTimeout +
+                " (expected >= 1)");
+        Checks.checkArg(resolveInterval >= 0, "resolveInterval is " + resolveInterval +
+                " (expected >= 0)");
+        Checks.checkArg(connectAttemptDelay >= 0, "connectAttemptDelay is " + connectAttemptDelay +
+                " (expected >= 0)");
+        Checks.checkNotNull(loadBalance, "loadBalance must not be null");
+        Checks.checkArg(outlierConsecutiveFailures >= 0, "outlierConsecutiveFailures is " +
+                outlierConsecutiveFailures + " (expected >= 0)");
+        Checks.checkArg(outlierEjectionTime >= 1, "outlierEjectionTime is " + outlierEjectionTime +
+                " (expected >= 1)");
+        Checks.checkArg(outlierMaxEjectionPercent >= 1 && outlierMaxEjectionPercent <= 100,
+                "outlierMaxEjectionPercent is " + outlierMaxEjectionPercent + " (expected: [1, 100])");
         this.readTimeout = readTimeout;
         this.connectTimeout = connectTimeout;
         this.poolSize = poolSize;
         this.waitingQueueLength = waitingQueueLength;
+        this.type = type;
+        this.minIdle = minIdle;
+        this.idleTimeout = idleTimeout;
+        this.maxLifetime = maxLifetime;
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+        this.minPoolSize = minPoolSize;
+        this.maxConnecting = maxConnecting;
+        this.connectRate = connectRate;
+        this.acquireTimeout = acquireTimeout;
+        this.resolveInterval = resolveInterval;
+        this.connectAttemptDelay = connectAttemptDelay;
+        this.loadBalance = loadBalance;
+        this.outlierConsecutiveFailures = outlierConsecutiveFailures;
+        this.outlierEjectionTime = outlierEjectionTime;
+        this.outlierMaxEjectionPercent = outlierMaxEjectionPercent;
     }
 
     @Override
     public ChannelPoolOptions copy() {
-        return new ChannelPoolOptions(readTimeout, connectTimeout, poolSize, waitingQueueLength);
+        return new ChannelPoolOptions(readTimeout, connectTimeout, poolSize, waitingQueueLength, type, minIdle,
+                idleTimeout, maxLifetime, maxRequestsPerConnection, minPoolSize,
+                maxConnecting, connectRate, acquireTimeout, resolveInterval, connectAttemptDelay, loadBalance,
+                outlierConsecutiveFailures, outlierEjectionTime, outlierMaxEjectionPercent);
     }
 
     public static ChannelPoolOptions ofDefault() {
@@ -75,6 +154,161 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
         return waitingQueueLength;
     }
 
+    public ChannelPoolType type() {
+        return type;
+    }
+
+    /**
+     * The minimum number of idle connections which are kept by establishing new ones in background. A pool whose
+     * minIdle is greater than 0 is also kept from being expired for no requests. For http2, whose connections are
+     * multiplexed, it only makes sure that there is a connection.
+     *
+     * @return min idle connections, 0 by default
+     */
+    public int minIdle() {
+        return minIdle;
+    }
+
+    /**
+     * The maximum time in milliseconds that a connection could stay idle in the pool, after which it will be
+     * closed in background and will never be handed out again. 0 means idle connections are never evicted.
+     *
+     * @return idle timeout, 0 by default
+     */
+    public int idleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * The max time in milliseconds that a connection could live, after which it will be closed gracefully once the
+     * requests in flight have completed, and replaced in background. The lifetime of each connection is shortened by
+     * a random jitter of up to 10% so that the connections will not be closed at the same time. It helps to spread
+     * the load to the backends which are newly added behind a load balancer. 0 means no limit.
+     *
+     * @return max lifetime, 0 by default
+     */
+    public int maxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * The max number of requests sent over a connection, after which it will be closed gracefully. For http1, the
+     * last request is sent with a {@code Connection: close} header. 0 means no limit.
+     *
+     * @return max requests per connection, 0 by default
+     */
+    public int maxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    /**
+     * The lower bound of the size limit of an {@link ChannelPoolType#ADAPTIVE} pool, whose upper bound is
+     * {@link #poolSize()}.
+     *
+     * @return min pool size, 1 by default
+     */
+    public int minPoolSize() {
+        return minPoolSize;
+    }
+
+    /**
+     * The max number of connection attempts(including the TLS handshakes) in flight to a host. The acquisitions
+     * beyond it wait for the connections being established or released instead of connecting each. 0 means no
+     * limit.
+     *
+     * @return max connecting, 0 by default
+     */
+    public int maxConnecting() {
+        return maxConnecting;
+    }
+
+    /**
+     * The max number of connection attempts per second to a host, which spaces the connection attempts evenly so
+     * that the recovery after a restart of the host ramps up smoothly. 0 means no limit.
+     *
+     * @return connect rate, 0 by default
+     */
+    public int connectRate() {
+        return connectRate;
+    }
+
+    /**
+     * The max time in milliseconds a request waits for a connection from the pool, which is independent of the
+     * connect timeout.
+     *
+     * @return acquire timeout, 3000 by default
+     */
+    public int acquireTimeout() {
+        return acquireTimeout;
+    }
+
+    /**
+     * The interval in milliseconds to resolve the host again. If it is greater than 0, the pool of a host is split
+     * into a sub pool per resolved address, and the requests are balanced across them. Once the addresses of the host
+     * change, the sub pools of the removed addresses are closed after their connections have been released, and the
+     * sub pools of the new addresses are created. The sub pools have the same options as the pool of the host.
+     * 0 means the host is resolved by each connection, and the connections are never revisited.
+     *
+     * @return resolve interval, 0 by default
+     */
+    public int resolveInterval() {
+        return resolveInterval;
+    }
+
+    /**
+     * The delay in milliseconds between the connection attempts to the resolved addresses of a host, see RFC 8305.
+     * If it is greater than 0, a new connection is established by racing the attempts across all the resolved
+     * addresses, IPv6 and IPv4 interleaved, each of which starts once the previous one has failed or the delay has
+     * elapsed, and the first one connected wins. 250 is recommended. 0 means only the first resolved address is
+     * connected.
+     *
+     * @return connection attempt delay, 0 by default
+     */
+    public int connectAttemptDelay() {
+        return connectAttemptDelay;
+    }
+
+    /**
+     * The strategy to pick a resolved address of a host for each request, which only applies if
+     * {@link #resolveInterval()} is greater than 0.
+     *
+     * @return load balance strategy, {@link LoadBalanceStrategy#ROUND_ROBIN} by default
+     */
+    public LoadBalanceStrategy loadBalance() {
+        return loadBalance;
+    }
+
+    /**
+     * The number of consecutive failures to eject a resolved address of a host from the load balancing for a
+     * while, which only applies if {@link #resolveInterval()} is greater than 0. A failure is a failed connect, a
+     * read timeout or a 5xx response. 0 means the addresses are never ejected.
+     *
+     * @return consecutive failures to eject an address, 0 by default
+     */
+    public int outlierConsecutiveFailures() {
+        return outlierConsecutiveFailures;
+    }
+
+    /**
+     * The base time in milliseconds that an address is ejected for, which is multiplied by the number of times
+     * it has been ejected in a row, up to 10 times.
+     *
+     * @return ejection time, 30000 by default
+     */
+    public int outlierEjectionTime() {
+        return outlierEjectionTime;
+    }
+
+    /**
+     * The max percent of the resolved addresses of a host which can be ejected at the same time. At least one
+     * address can be ejected, and at least one is always kept.
+     *
+     * @return max ejection percent, 10 by default
+     */
+    public int outlierMaxEjectionPercent() {
+        return outlierMaxEjectionPercent;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", ChannelPoolOptions.class.getSimpleName() + "[", "]")
@@ -82,6 +316,21 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
                 .add("connectTimeout=" + connectTimeout)
                 .add("poolSize=" + poolSize)
                 .add("waitingQueueLength=" + waitingQueueLength)
+                .add("type=" + type)
+                .add("minIdle=" + minIdle)
+                .add("idleTimeout=" + idleTimeout)
+                .add("maxLifetime=" + maxLifetime)
+                .add("maxRequestsPerConnection=" + maxRequestsPerConnection)
+                .add("minPoolSize=" + minPoolSize)
+                .add("maxConnecting=" + maxConnecting)
+                .add("connectRate=" + connectRate)
+                .add("acquireTimeout=" + acquireTimeout)
+                .add("resolveInterval=" + resolveInterval)
+                .add("connectAttemptDelay=" + connectAttemptDelay)
+                .add("loadBalance=" + loadBalance)
+                .add("outlierConsecutiveFailures=" + outlierConsecutiveFailures)
+                .add("outlierEjectionTime=" + outlierEjectionTime)
+                .add("outlierMaxEjectionPercent=" + outlierMaxEjectionPercent)
                 .toString();
     }
 
@@ -97,12 +346,30 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
         return readTimeout == options.readTimeout &&
                 connectTimeout == options.connectTimeout &&
                 poolSize == options.poolSize &&
-                waitingQueueLength == options.waitingQueueLength;
+                waitingQueueLength == options.waitingQueueLength &&
+                type == options.type &&
+                minIdle == options.minIdle &&
+                idleTimeout == options.idleTimeout &&
+                maxLifetime == options.maxLifetime &&
+                maxRequestsPerConnection == options.maxRequestsPerConnection &&
+                minPoolSize == options.minPoolSize &&
+                maxConnecting == options.maxConnecting &&
+                connectRate == options.connectRate &&
+                acquireTimeout == options.acquireTimeout &&
+                resolveInterval == options.resolveInterval &&
+                connectAttemptDelay == options.connectAttemptDelay &&
+                loadBalance == options.loadBalance &&
+                outlierConsecutiveFailures == options.outlierConsecutiveFailures &&
+                outlierEjectionTime == options.outlierEjectionTime &&
+                outlierMaxEjectionPercent == options.outlierMaxEjectionPercent;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(readTimeout, connectTimeout, poolSize, waitingQueueLength);
+        return Objects.hash(readTimeout, connectTimeout, poolSize, waitingQueueLength, type, minIdle,
+                idleTimeout, maxLifetime, maxRequestsPerConnection, minPoolSize,
+                maxConnecting, connectRate, acquireTimeout, resolveInterval, connectAttemptDelay, loadBalance,
+                outlierConsecutiveFailures, outlierEjectionTime, outlierMaxEjectionPercent);
     }
 
     public static class ChannelPoolOptionsBuilder {
@@ -111,6 +378,21 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
         private int connectTimeout = 3000;
         private int poolSize = 512;
         private int waitingQueueLength = 256;
+        private ChannelPoolType type = ChannelPoolType.FIXED;
+        private int minIdle;
+        private int idleTimeout;
+        private int maxLifetime;
+        private int maxRequestsPerConnection;
+        private int minPoolSize = 1;
+        private int maxConnecting;
+        private int connectRate;
+        private int acquireTimeout = 3000;
+        private int resolveInterval;
+        private int connectAttemptDelay;
+        private LoadBalanceStrategy loadBalance = LoadBalanceStrategy.ROUND_ROBIN;
+        private int outlierConsecutiveFailures;
+        private int outlierEjectionTime = 30000;
+        private int outlierMaxEjectionPercent = 10;
 
         ChannelPoolOptionsBuilder() {
         }
@@ -135,8 +417,86 @@ public class ChannelPoolOptions implements Reusable<ChannelPoolOptions>, Seriali
             return this;
         }
 
+        public ChannelPoolOptionsBuilder type(ChannelPoolType type) {
+            this.type = type;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder minIdle(int minIdle) {
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder idleTimeout(int idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder maxLifetime(int maxLifetime) {
+            this.maxLifetime = maxLifetime;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder maxRequestsPerConnection(int maxRequestsPerConnection) {
+            this.maxRequestsPerConnection = maxRequestsPerConnection;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder minPoolSize(int minPoolSize) {
+            this.minPoolSize = minPoolSize;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder maxConnecting(int maxConnecting) {
+            this.maxConnecting = maxConnecting;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder connectRate(int connectRate) {
+            this.connectRate = connectRate;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder acquireTimeout(int acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder resolveInterval(int resolveInterval) {
+            this.resolveInterval = resolveInterval;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder connectAttemptDelay(int connectAttemptDelay) {
+            this.connectAttemptDelay = connectAttemptDelay;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder loadBalance(LoadBalanceStrategy loadBalance) {
+            this.loadBalance = loadBalance;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder outlierConsecutiveFailures(int outlierConsecutiveFailures) {
+            this.outlierConsecutiveFailures = outlierConsecutiveFailures;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder outlierEjectionTime(int outlierEjectionTime) {
+            this.outlierEjectionTime = outlierEjectionTime;
+            return this;
+        }
+
+        public ChannelPoolOptionsBuilder outlierMaxEjectionPercent(int outlierMaxEjectionPercent) {
+            this.outlierMaxEjectionPercent = outlierMaxEjectionPercent;
+            return this;
+        }
+
         public ChannelPoolOptions build() {
-            return new ChannelPoolOptions(readTimeout, connectTimeout, poolSize, waitingQueueLength);
+            return new ChannelPoolOptions(readTimeout, connectTimeout, poolSize, waitingQueueLength, type, minIdle,
+                    idleTimeout, maxLifetime, maxRequestsPerConnection, minPoolSize,
+                    maxConnecting, connectRate, acquireTimeout, resolveInterval, connectAttemptDelay, loadBalance,
+                outlierConsecutiveFailures, outlierEjectionTime, outlierMaxEjectionPercent);
         }
 
     }
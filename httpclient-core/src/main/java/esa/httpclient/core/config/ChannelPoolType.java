@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.config;
+
+public enum ChannelPoolType {
+
+    /**
+     * A single fixed-size pool per address, whose acquires and releases are executed by one I/O thread while the
+     * pooled connections belong to all I/O threads.
+     */
+    FIXED,
+
+    /**
+     * A pool per address which is sharded by I/O threads, each shard keeps its own connections and is operated by
+     * the I/O thread which owns them, so that acquiring on an I/O thread never hands off to another one. A shard
+     * only borrows from its siblings when it has run out of connections. It suits heavy traffic to a few hosts.
+     * It does not apply to http2, whose connections are always multiplexed.
+     */
+    EVENT_LOOP_SHARDED,
+
+    /**
+     * A pool per address whose size limit is adjusted by demand between {@link ChannelPoolOptions#minPoolSize()}
+     * and {@link ChannelPoolOptions#poolSize()}. The limit grows when acquires have to wait for connections, and
+     * shrinks towards the average number of connections in use (the L of Little's law) with some headroom, and
+     * the connections beyond the limit are left idle and evicted after {@link ChannelPoolOptions#idleTimeout()},
+     * which should be set since idle connections are never evicted by default. It suits a lot of hosts whose
+     * traffic differs a lot. It does not apply to http2, whose connections are always multiplexed.
+     */
+    ADAPTIVE
+}
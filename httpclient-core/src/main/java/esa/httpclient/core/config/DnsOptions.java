@@ -0,0 +1,288 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.config;
+
+import esa.commons.Checks;
+import esa.httpclient.core.Reusable;
+import io.netty.resolver.ResolvedAddressTypes;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Options of {@link esa.httpclient.core.resolver.DnsHostResolver}. TTLs are in seconds and timeouts are in millis.
+ */
+public class DnsOptions implements Reusable<DnsOptions>, Serializable {
+
+    private static final long serialVersionUID = -2904213853284120307L;
+
+    private final List<InetSocketAddress> nameServers;
+    private final List<String> searchDomains;
+    private final ResolvedAddressTypes resolvedAddressTypes;
+    private final long queryTimeoutMillis;
+    private final long resolveTimeoutMillis;
+    private final int maxQueriesPerResolve;
+    private final int minTtl;
+    private final int maxTtl;
+    private final int negativeTtl;
+
+    private DnsOptions(List<InetSocketAddress> nameServers,
+                       List<String> searchDomains,
+                       ResolvedAddressTypes resolvedAddressTypes,
+                       long queryTimeoutMillis,
+                       long resolveTimeoutMillis,
+                       int maxQueriesPerResolve,
+                       int minTtl,
+                       int maxTtl,
+                       int negativeTtl) {
+        Checks.checkNotNull(nameServers, "nameServers must not be null");
+        Checks.checkArg(queryTimeoutMillis >= 1L, "queryTimeoutMillis is " + queryTimeoutMillis +
+                " (expected >= 1)");
+        Checks.checkArg(maxQueriesPerResolve >= 1, "maxQueriesPerResolve is " + maxQueriesPerResolve +
+                " (expected >= 1)");
+        Checks.checkArg(minTtl >= 0, "minTtl is " + minTtl + " (expected >= 0)");
+        Checks.checkArg(maxTtl >= minTtl, "maxTtl is " + maxTtl + " (expected >= minTtl: " + minTtl + ")");
+        Checks.checkArg(negativeTtl >= 0, "negativeTtl is " + negativeTtl + " (expected >= 0)");
+        this.nameServers = Collections.unmodifiableList(new ArrayList<>(nameServers));
+        this.searchDomains = searchDomains == null ? null
+                : Collections.unmodifiableList(new ArrayList<>(searchDomains));
+        this.resolvedAddressTypes = resolvedAddressTypes;
+        this.queryTimeoutMillis = queryTimeoutMillis;
+        this.resolveTimeoutMillis = resolveTimeoutMillis;
+        this.maxQueriesPerResolve = maxQueriesPerResolve;
+        this.minTtl = minTtl;
+        this.maxTtl = maxTtl;
+        this.negativeTtl = negativeTtl;
+    }
+
+    @Override
+    public DnsOptions copy() {
+        return new DnsOptions(nameServers,
+                searchDomains,
+                resolvedAddressTypes,
+                queryTimeoutMillis,
+                resolveTimeoutMillis,
+                maxQueriesPerResolve,
+                minTtl,
+                maxTtl,
+                negativeTtl);
+    }
+
+    public static DnsOptions ofDefault() {
+        return new DnsOptionsBuilder().build();
+    }
+
+    public static DnsOptionsBuilder options() {
+        return new DnsOptionsBuilder();
+    }
+
+    /**
+     * Name servers to query, the system default ones (eg: /etc/resolv.conf) will be used if empty.
+     *
+     * @return name servers
+     */
+    public List<InetSocketAddress> nameServers() {
+        return nameServers;
+    }
+
+    /**
+     * Search domains, the system default ones will be used if {@code null}.
+     *
+     * @return search domains
+     */
+    public List<String> searchDomains() {
+        return searchDomains;
+    }
+
+    /**
+     * Address types to resolve, which is decided by whether the IPv6 is supported if {@code null}.
+     *
+     * @return types
+     */
+    public ResolvedAddressTypes resolvedAddressTypes() {
+        return resolvedAddressTypes;
+    }
+
+    /**
+     * Timeout of a single DNS query.
+     *
+     * @return timeout
+     */
+    public long queryTimeoutMillis() {
+        return queryTimeoutMillis;
+    }
+
+    /**
+     * Timeout of a whole resolution which may consists of several queries (eg: CNAMEs, search domains, retries
+     * of other name servers), a value &le; 0 means no limit other than the {@link #queryTimeoutMillis()}.
+     *
+     * @return timeout
+     */
+    public long resolveTimeoutMillis() {
+        return resolveTimeoutMillis;
+    }
+
+    public int maxQueriesPerResolve() {
+        return maxQueriesPerResolve;
+    }
+
+    /**
+     * The lower bound of the TTL of cached records, in seconds.
+     *
+     * @return min ttl
+     */
+    public int minTtl() {
+        return minTtl;
+    }
+
+    /**
+     * The upper bound of the TTL of cached records, in seconds.
+     *
+     * @return max ttl
+     */
+    public int maxTtl() {
+        return maxTtl;
+    }
+
+    /**
+     * How long a failed resolution is cached, in seconds. 0 disables the negative cache.
+     *
+     * @return negative ttl
+     */
+    public int negativeTtl() {
+        return negativeTtl;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", DnsOptions.class.getSimpleName() + "[", "]")
+                .add("nameServers=" + nameServers)
+                .add("searchDomains=" + searchDomains)
+                .add("resolvedAddressTypes=" + resolvedAddressTypes)
+                .add("queryTimeoutMillis=" + queryTimeoutMillis)
+                .add("resolveTimeoutMillis=" + resolveTimeoutMillis)
+                .add("maxQueriesPerResolve=" + maxQueriesPerResolve)
+                .add("minTtl=" + minTtl)
+                .add("maxTtl=" + maxTtl)
+                .add("negativeTtl=" + negativeTtl)
+                .toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DnsOptions options = (DnsOptions) o;
+        return queryTimeoutMillis == options.queryTimeoutMillis &&
+                resolveTimeoutMillis == options.resolveTimeoutMillis &&
+                maxQueriesPerResolve == options.maxQueriesPerResolve &&
+                minTtl == options.minTtl &&
+                maxTtl == options.maxTtl &&
+                negativeTtl == options.negativeTtl &&
+                nameServers.equals(options.nameServers) &&
+                Objects.equals(searchDomains, options.searchDomains) &&
+                resolvedAddressTypes == options.resolvedAddressTypes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nameServers, searchDomains, resolvedAddressTypes, queryTimeoutMillis,
+                resolveTimeoutMillis, maxQueriesPerResolve, minTtl, maxTtl, negativeTtl);
+    }
+
+    public static class DnsOptionsBuilder {
+
+        private final List<InetSocketAddress> nameServers = new ArrayList<>();
+        private List<String> searchDomains;
+        private ResolvedAddressTypes resolvedAddressTypes;
+        private long queryTimeoutMillis = 2000L;
+        private long resolveTimeoutMillis = 5000L;
+        private int maxQueriesPerResolve = 16;
+        private int minTtl = 0;
+        private int maxTtl = Integer.MAX_VALUE;
+        private int negativeTtl = 5;
+
+        DnsOptionsBuilder() {
+        }
+
+        public DnsOptionsBuilder addNameServer(InetSocketAddress nameServer) {
+            Checks.checkNotNull(nameServer, "nameServer must not be null");
+            this.nameServers.add(nameServer);
+            return this;
+        }
+
+        public DnsOptionsBuilder searchDomains(List<String> searchDomains) {
+            this.searchDomains = searchDomains;
+            return this;
+        }
+
+        public DnsOptionsBuilder resolvedAddressTypes(ResolvedAddressTypes resolvedAddressTypes) {
+            this.resolvedAddressTypes = resolvedAddressTypes;
+            return this;
+        }
+
+        public DnsOptionsBuilder queryTimeoutMillis(long queryTimeoutMillis) {
+            this.queryTimeoutMillis = queryTimeoutMillis;
+            return this;
+        }
+
+        public DnsOptionsBuilder resolveTimeoutMillis(long resolveTimeoutMillis) {
+            this.resolveTimeoutMillis = resolveTimeoutMillis;
+            return this;
+        }
+
+        public DnsOptionsBuilder maxQueriesPerResolve(int maxQueriesPerResolve) {
+            this.maxQueriesPerResolve = maxQueriesPerResolve;
+            return this;
+        }
+
+        public DnsOptionsBuilder minTtl(int minTtl) {
+            this.minTtl = minTtl;
+            return this;
+        }
+
+        public DnsOptionsBuilder maxTtl(int maxTtl) {
+            this.maxTtl = maxTtl;
+            return this;
+        }
+
+        public DnsOptionsBuilder negativeTtl(int negativeTtl) {
+            this.negativeTtl = negativeTtl;
+            return this;
+        }
+
+        public DnsOptions build() {
+            return new DnsOptions(nameServers,
+                    searchDomains,
+                    resolvedAddressTypes,
+                    queryTimeoutMillis,
+                    resolveTimeoutMillis,
+                    maxQueriesPerResolve,
+                    minTtl,
+                    maxTtl,
+                    negativeTtl);
+        }
+    }
+}
@@ -29,18 +29,28 @@ public class Http2Options implements Reusable<Http2Options>, Serializable {
     private final int maxReservedStreams;
     private final int maxFrameSize;
     private final long gracefulShutdownTimeoutMillis;
+    private final long pingIntervalMillis;
+    private final long pingAckTimeoutMillis;
 
     private Http2Options(int maxReservedStreams,
                          int maxFrameSize,
-                         long gracefulShutdownTimeoutMillis) {
+                         long gracefulShutdownTimeoutMillis,
+                         long pingIntervalMillis,
+                         long pingAckTimeoutMillis) {
         Checks.checkArg(maxReservedStreams >= 0, "maxReservedStreams is " + maxReservedStreams +
                 " (expected >= 0)");
         Checks.checkArg(Http2CodecUtil.isMaxFrameSizeValid(maxFrameSize), "maxFrameSize is invalid");
         Checks.checkArg(gracefulShutdownTimeoutMillis >= -1L, "gracefulShutdownTimeoutMillis is "
                 + gracefulShutdownTimeoutMillis + " (expected > -1L)");
+        Checks.checkArg(pingIntervalMillis >= 0L, "pingIntervalMillis is " + pingIntervalMillis +
+                " (expected >= 0L)");
+        Checks.checkArg(pingAckTimeoutMillis > 0L, "pingAckTimeoutMillis is " + pingAckTimeoutMillis +
+                " (expected > 0L)");
         this.maxReservedStreams = maxReservedStreams;
         this.maxFrameSize = maxFrameSize;
         this.gracefulShutdownTimeoutMillis = gracefulShutdownTimeoutMillis;
+        this.pingIntervalMillis = pingIntervalMillis;
+        this.pingAckTimeoutMillis = pingAckTimeoutMillis;
     }
 
     public static Http2Options ofDefault() {
@@ -63,9 +73,31 @@ public class Http2Options implements Reusable<Http2Options>, Serializable {
         return gracefulShutdownTimeoutMillis;
     }
 
+    /**
+     * The interval of sending PING frames on an idle connection which has no active streams, so that the
+     * connection is kept alive from being killed by middleboxes and the broken one is detected early. 0 means
+     * no PING frames are sent.
+     *
+     * @return ping interval, 0 by default
+     */
+    public long pingIntervalMillis() {
+        return pingIntervalMillis;
+    }
+
+    /**
+     * The max time to wait for the ack of a PING frame, after which the connection is regarded as broken and will
+     * be closed.
+     *
+     * @return ping ack timeout, 5000 by default
+     */
+    public long pingAckTimeoutMillis() {
+        return pingAckTimeoutMillis;
+    }
+
     @Override
     public Http2Options copy() {
-        return new Http2Options(maxReservedStreams, maxFrameSize, gracefulShutdownTimeoutMillis);
+        return new Http2Options(maxReservedStreams, maxFrameSize, gracefulShutdownTimeoutMillis,
+                pingIntervalMillis, pingAckTimeoutMillis);
     }
 
     @Override
@@ -74,6 +106,8 @@ public class Http2Options implements Reusable<Http2Options>, Serializable {
                 .add("maxReservedStreams=" + maxReservedStreams)
                 .add("maxFrameSize=" + maxFrameSize)
                 .add("gracefulShutdownTimeoutMillis=" + gracefulShutdownTimeoutMillis)
+                .add("pingIntervalMillis=" + pingIntervalMillis)
+                .add("pingAckTimeoutMillis=" + pingAckTimeoutMillis)
                 .toString();
     }
 
@@ -86,6 +120,8 @@ public class Http2Options implements Reusable<Http2Options>, Serializable {
          * @see io.netty.handler.codec.http2.Http2CodecUtil#DEFAULT_GRACEFUL_SHUTDOWN_TIMEOUT_MILLIS
          */
         private long gracefulShutdownTimeoutMillis = 30_000L;
+        private long pingIntervalMillis;
+        private long pingAckTimeoutMillis = 5_000L;
 
         Http2OptionsBuilder() {
         }
@@ -105,8 +141,19 @@ public class Http2Options implements Reusable<Http2Options>, Serializable {
             return this;
         }
 
+        public Http2OptionsBuilder pingIntervalMillis(long pingIntervalMillis) {
+            this.pingIntervalMillis = pingIntervalMillis;
+            return this;
+        }
+
+        public Http2OptionsBuilder pingAckTimeoutMillis(long pingAckTimeoutMillis) {
+            this.pingAckTimeoutMillis = pingAckTimeoutMillis;
+            return this;
+        }
+
         public Http2Options build() {
-            return new Http2Options(maxReservedStreams, maxFrameSize, gracefulShutdownTimeoutMillis);
+            return new Http2Options(maxReservedStreams, maxFrameSize, gracefulShutdownTimeoutMillis,
+                    pingIntervalMillis, pingAckTimeoutMillis);
         }
     }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.config;
+
+/**
+ * The strategy to pick a resolved address of a host for each request, which applies to the pools split by address,
+ * see {@link ChannelPoolOptions#resolveInterval()}. The outstanding requests of an address are the ones which have
+ * acquired or are acquiring a connection to it, and the latency is the time from a request being written to its
+ * response being completed.
+ */
+public enum LoadBalanceStrategy {
+
+    /**
+     * Picks the addresses in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Picks the address with the least outstanding requests, and the ties are broken randomly.
+     */
+    LEAST_REQUESTS,
+
+    /**
+     * Picks two addresses randomly and takes the one with less outstanding requests, which is nearly as good as
+     * {@link #LEAST_REQUESTS} while never herding all the requests to the same address.
+     */
+    POWER_OF_TWO_CHOICES,
+
+    /**
+     * Picks two addresses randomly and takes the one whose exponentially weighted moving average of latency
+     * multiplied by its outstanding requests plus one is lower, so that a slow address takes less requests. The
+     * addresses which have not been measured yet are preferred unless they have more outstanding requests.
+     */
+    LATENCY_EWMA
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.config;
+
+import esa.commons.Checks;
+import esa.httpclient.core.Reusable;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Options of {@link esa.httpclient.core.resolver.CachingHostResolver}, which caches the resolved addresses and
+ * refreshes them in background.
+ */
+public class ResolverCacheOptions implements Reusable<ResolverCacheOptions>, Serializable {
+
+    private static final long serialVersionUID = 3418556279651325046L;
+
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final long prefetchAheadMillis;
+    private final long idleTimeoutMillis;
+    private final int threads;
+
+    private ResolverCacheOptions(long ttlMillis,
+                                 long maxStaleMillis,
+                                 long prefetchAheadMillis,
+                                 long idleTimeoutMillis,
+                                 int threads) {
+        Checks.checkArg(ttlMillis >= 1L, "ttlMillis is " + ttlMillis + " (expected >= 1)");
+        Checks.checkArg(maxStaleMillis >= 0L, "maxStaleMillis is " + maxStaleMillis + " (expected >= 0)");
+        Checks.checkArg(prefetchAheadMillis >= 0L && prefetchAheadMillis < ttlMillis,
+                "prefetchAheadMillis is " + prefetchAheadMillis
+                        + " (expected >= 0 and < ttlMillis: " + ttlMillis + ")");
+        Checks.checkArg(idleTimeoutMillis >= ttlMillis,
+                "idleTimeoutMillis is " + idleTimeoutMillis + " (expected >= ttlMillis: " + ttlMillis + ")");
+        Checks.checkArg(threads >= 1, "threads is " + threads + " (expected >= 1)");
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.prefetchAheadMillis = prefetchAheadMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.threads = threads;
+    }
+
+    @Override
+    public ResolverCacheOptions copy() {
+        return new ResolverCacheOptions(ttlMillis, maxStaleMillis, prefetchAheadMillis, idleTimeoutMillis,
+                threads);
+    }
+
+    public static ResolverCacheOptions ofDefault() {
+        return new ResolverCacheOptionsBuilder().build();
+    }
+
+    public static ResolverCacheOptionsBuilder options() {
+        return new ResolverCacheOptionsBuilder();
+    }
+
+    /**
+     * How long a resolved result is fresh, after that it will be refreshed in background.
+     *
+     * @return ttl
+     */
+    public long ttlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * How long a result can still be served after it's expired, while it's being refreshed or the refresh keeps
+     * failing. Once exceeded, resolving has to wait for the underlying resolver.
+     *
+     * @return max stale
+     */
+    public long maxStaleMillis() {
+        return maxStaleMillis;
+    }
+
+    /**
+     * Hot hosts, which have been resolved within the last {@link #ttlMillis()}, are refreshed this long before
+     * they expire. 0 disables prefetching.
+     *
+     * @return prefetch ahead
+     */
+    public long prefetchAheadMillis() {
+        return prefetchAheadMillis;
+    }
+
+    /**
+     * Cached hosts which haven't been resolved for this long are evicted.
+     *
+     * @return idle timeout
+     */
+    public long idleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Number of threads to load from the underlying resolver, which may block them.
+     *
+     * @return threads
+     */
+    public int threads() {
+        return threads;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ResolverCacheOptions.class.getSimpleName() + "[", "]")
+                .add("ttlMillis=" + ttlMillis)
+                .add("maxStaleMillis=" + maxStaleMillis)
+                .add("prefetchAheadMillis=" + prefetchAheadMillis)
+                .add("idleTimeoutMillis=" + idleTimeoutMillis)
+                .add("threads=" + threads)
+                .toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ResolverCacheOptions options = (ResolverCacheOptions) o;
+        return ttlMillis == options.ttlMillis &&
+                maxStaleMillis == options.maxStaleMillis &&
+                prefetchAheadMillis == options.prefetchAheadMillis &&
+                idleTimeoutMillis == options.idleTimeoutMillis &&
+                threads == options.threads;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ttlMillis, maxStaleMillis, prefetchAheadMillis, idleTimeoutMillis, threads);
+    }
+
+    public static class ResolverCacheOptionsBuilder {
+
+        private long ttlMillis = 60_000L;
+        private long maxStaleMillis = 300_000L;
+        private long prefetchAheadMillis = 5_000L;
+        private long idleTimeoutMillis = 600_000L;
+        private int threads = 2;
+
+        ResolverCacheOptionsBuilder() {
+        }
+
+        public ResolverCacheOptionsBuilder ttlMillis(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+            return this;
+        }
+
+        public ResolverCacheOptionsBuilder maxStaleMillis(long maxStaleMillis) {
+            this.maxStaleMillis = maxStaleMillis;
+            return this;
+        }
+
+        public ResolverCacheOptionsBuilder prefetchAheadMillis(long prefetchAheadMillis) {
+            this.prefetchAheadMillis = prefetchAheadMillis;
+            return this;
+        }
+
+        public ResolverCacheOptionsBuilder idleTimeoutMillis(long idleTimeoutMillis) {
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            return this;
+        }
+
+        public ResolverCacheOptionsBuilder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public ResolverCacheOptions build() {
+            return new ResolverCacheOptions(ttlMillis, maxStaleMillis, prefetchAheadMillis, idleTimeoutMillis,
+                    threads);
+        }
+    }
+}
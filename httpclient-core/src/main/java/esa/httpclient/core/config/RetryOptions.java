@@ -17,6 +17,7 @@ package esa.httpclient.core.config;
 
 import esa.commons.Checks;
 import esa.httpclient.core.Reusable;
+import esa.httpclient.core.exec.ExponentialBackOff;
 import esa.httpclient.core.exec.RetryPredicate;
 import esa.httpclient.core.exec.RetryPredicateImpl;
 
@@ -91,6 +92,21 @@ public class RetryOptions implements Reusable<RetryOptions>, Serializable {
             return this;
         }
 
+        /**
+         * Uses {@link ExponentialBackOff} as the interval between retries.
+         *
+         * @param baseMillis    the interval before the first retry
+         * @param maxMillis     the upper bound of intervals
+         * @param jitter        jitter
+         * @return this builder
+         */
+        public RetryOptionsBuilder exponentialBackOff(long baseMillis,
+                                                      long maxMillis,
+                                                      ExponentialBackOff.Jitter jitter) {
+            this.intervalMillis = new ExponentialBackOff(baseMillis, maxMillis, jitter);
+            return this;
+        }
+
         public RetryOptionsBuilder maxRetries(int maxRetries) {
             this.maxRetries = maxRetries;
             return this;
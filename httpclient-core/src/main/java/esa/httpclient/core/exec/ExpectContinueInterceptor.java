@@ -68,12 +68,17 @@ public class ExpectContinueInterceptor implements Interceptor {
 
     protected boolean emptyBody(HttpRequest request) {
         if (RequestType.PLAIN.equals(request.type())) {
+            if (((PlainRequest) request).buffer() != null) {
+                return ((PlainRequest) request).buffer().readableBytes() == 0;
+            }
             return ((PlainRequest) request).body() == null || ((PlainRequest) request).body().length == 0;
         } else if (RequestType.MULTIPART.equals(request.type())) {
             return ((MultipartRequest) request).files().isEmpty()
                     && ((MultipartRequest) request).attributes().isEmpty();
         } else if (RequestType.FILE.equals(request.type())) {
             return ((FileRequest) request).file() == null;
+        } else if (RequestType.STREAM.equals(request.type())) {
+            return false;
         }
 
         return true;
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.exec;
+
+import esa.commons.Checks;
+
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Exponential back-off between retries. Without jitter, the interval before the n-th retry is
+ * {@code min(maxMillis, baseMillis * 2^(n - 1))}. Jitter spreads the retries of different requests over time so
+ * that they won't hit a recovering upstream at the same moment.
+ *
+ * See <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">Exponential Backoff
+ * And Jitter</a>
+ */
+public class ExponentialBackOff implements IntToLongFunction {
+
+    public enum Jitter {
+
+        /**
+         * No jitter, the interval is exactly the exponential one.
+         */
+        NONE,
+
+        /**
+         * Random between 0 and the exponential interval.
+         */
+        FULL,
+
+        /**
+         * Random between {@code baseMillis} and 3 times of the previous interval, and capped by {@code maxMillis}.
+         */
+        DECORRELATED
+    }
+
+    private final long baseMillis;
+    private final long maxMillis;
+    private final Jitter jitter;
+
+    public ExponentialBackOff(long baseMillis, long maxMillis, Jitter jitter) {
+        Checks.checkArg(baseMillis > 0L, "baseMillis is " + baseMillis + " (expected > 0)");
+        Checks.checkArg(maxMillis >= baseMillis, "maxMillis is " + maxMillis +
+                " (expected >= baseMillis: " + baseMillis + ")");
+        Checks.checkNotNull(jitter, "Jitter must not be null");
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public long applyAsLong(int retryCount) {
+        return next(retryCount, -1L);
+    }
+
+    /**
+     * Obtains the interval before the {@code retryCount}-th retry.
+     *
+     * @param retryCount        retry count, which starts from 1
+     * @param previousMillis    the interval before the previous retry, or a negative value if unknown, which
+     *                          is only used by {@link Jitter#DECORRELATED}
+     * @return interval in millis
+     */
+    public long next(int retryCount, long previousMillis) {
+        switch (jitter) {
+            case FULL:
+                return ThreadLocalRandom.current().nextLong(exponential(retryCount) + 1L);
+            case DECORRELATED:
+                final long previous = previousMillis > 0L ? previousMillis : exponential(retryCount - 1);
+                final long upper = previous > maxMillis / 3L ? maxMillis : Math.max(baseMillis, previous * 3L);
+                return baseMillis + ThreadLocalRandom.current().nextLong(upper - baseMillis + 1L);
+            default:
+                return exponential(retryCount);
+        }
+    }
+
+    public long baseMillis() {
+        return baseMillis;
+    }
+
+    public long maxMillis() {
+        return maxMillis;
+    }
+
+    public Jitter jitter() {
+        return jitter;
+    }
+
+    private long exponential(int retryCount) {
+        final int shift = Math.max(0, retryCount - 1);
+        if (shift >= Long.SIZE - 2 || baseMillis > (maxMillis >> shift)) {
+            return maxMillis;
+        }
+        return baseMillis << shift;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ExponentialBackOff.class.getSimpleName() + "[", "]")
+                .add("baseMillis=" + baseMillis)
+                .add("maxMillis=" + maxMillis)
+                .add("jitter=" + jitter)
+                .toString();
+    }
+}
@@ -51,7 +51,7 @@ public class RedirectInterceptor implements Interceptor {
     public CompletableFuture<HttpResponse> proceed(HttpRequest request, ExecChain next) {
         // Pass directly when redirect is disabled
         final int maxRedirects = next.ctx().getUncheckedAttr(MAX_REDIRECTS, 0);
-        if (RequestType.CHUNK == request.type() || maxRedirects < 1) {
+        if (RequestType.CHUNK == request.type() || RequestType.STREAM == request.type() || maxRedirects < 1) {
             next.ctx().removeAttr(MAX_REDIRECTS);
 
             if (logger.isDebugEnabled()) {
@@ -98,6 +98,8 @@ public class RedirectInterceptor implements Interceptor {
                     response.complete(rsp);
                     return;
                 }
+                // The body of the redirect response is dropped.
+                rsp.close();
 
                 if (hasDirectedCount < maxRedirects) {
                     URI uri = detectURI(request, rsp);
@@ -140,7 +142,8 @@ public class RedirectInterceptor implements Interceptor {
                     null,
                     false,
                     null,
-                    null));
+                    null,
+                    preOptions.priority()));
         } else {
             request0 = NettyRequest.from(new RequestOptions(method,
                     new HttpUri(uri, request.uri().params()),
@@ -156,7 +159,11 @@ public class RedirectInterceptor implements Interceptor {
                     preOptions.file(),
                     preOptions.multipart(),
                     preOptions.attributes(),
-                    preOptions.files()));
+                    preOptions.files(),
+                    preOptions.priority(),
+                    null,
+                    null,
+                    preOptions.buffer()));
         }
 
         standardHeaders(request0.headers(), cleanBody);
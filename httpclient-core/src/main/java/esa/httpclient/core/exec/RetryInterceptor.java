@@ -16,6 +16,7 @@
 package esa.httpclient.core.exec;
 
 import esa.commons.Checks;
+import esa.commons.concurrent.ThreadFactories;
 import esa.commons.logging.Logger;
 import esa.httpclient.core.HttpRequest;
 import esa.httpclient.core.HttpResponse;
@@ -23,8 +24,12 @@ import esa.httpclient.core.RequestType;
 import esa.httpclient.core.exception.RetryException;
 import esa.httpclient.core.util.Futures;
 import esa.httpclient.core.util.LoggerUtils;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.internal.SystemPropertyUtil;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.IntToLongFunction;
 
 import static esa.httpclient.core.ContextNames.MAX_RETRIES;
@@ -32,8 +37,21 @@ import static esa.httpclient.core.ContextNames.MAX_RETRIES;
 public class RetryInterceptor implements Interceptor {
 
     static final String HAS_RETRIED_COUNT = "$retried.count";
+    static final String LAST_INTERVAL = "$retried.interval";
     private static final Logger logger = LoggerUtils.logger();
 
+    private static final String BACKOFF_TIMER_TICKDURATION_KEY = "esa.httpclient.retry.backOffTimer.tickDurationMs";
+
+    /**
+     * Back-offs are scheduled on this timer instead of sleeping in the thread which completes the previous
+     * attempt, that is usually an I/O thread shared by many other connections. The timer thread is a daemon
+     * and is started lazily on the first back-off.
+     */
+    private static final Timer BACK_OFF_TIMER = new HashedWheelTimer(ThreadFactories
+            .namedThreadFactory("HttpClient-Retry-BackOff-", true),
+            SystemPropertyUtil.getLong(BACKOFF_TIMER_TICKDURATION_KEY, 10L),
+            TimeUnit.MILLISECONDS);
+
     private final RetryPredicate predicate;
     private final IntToLongFunction intervalMs;
 
@@ -50,7 +68,8 @@ public class RetryInterceptor implements Interceptor {
         if (maxRetries < 1) {
             return next.proceed(request);
         }
-        if (RequestType.CHUNK == request.type()) {
+        // The body of a chunk or stream request can not be written twice
+        if (RequestType.CHUNK == request.type() || RequestType.STREAM == request.type()) {
             next.ctx().removeAttr(MAX_RETRIES);
             if (logger.isDebugEnabled()) {
                 logger.debug("Retry is ignored, request: {}, maxRetries: {}", request, maxRetries);
@@ -95,22 +114,19 @@ public class RetryInterceptor implements Interceptor {
                     return;
                 }
 
+                // The response to retry is dropped.
+                if (rsp != null) {
+                    rsp.close();
+                }
                 if (hasRetriedCount < maxRetries) {
-                    if (intervalMs != null) {
-                        try {
-                            backOff(request, hasRetriedCount + 1, intervalMs);
-                        } catch (InterruptedException ex) {
-                            response.completeExceptionally(new RetryException("Interrupted during retry interval",
-                                    ex));
-                        }
-                    }
-
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Begin to retry request: {}, retryCount: {}",
-                                request, hasRetriedCount + 1);
+                    final int retryCount = hasRetriedCount + 1;
+                    final long interval = intervalMs == null ? 0L : nextInterval(next, retryCount);
+                    if (interval > 0L) {
+                        backOff(request, retryCount, interval,
+                                () -> retry(response, request, next, maxRetries, retryCount));
+                    } else {
+                        retry(response, request, next, maxRetries, retryCount);
                     }
-
-                    doRetry(response, request, next, maxRetries);
                 } else {
                     response.completeExceptionally(new RetryException(String
                             .format("Failed to proceed request: " + request.uri().netURI().toString() +
@@ -122,17 +138,48 @@ public class RetryInterceptor implements Interceptor {
         });
     }
 
-    protected void backOff(HttpRequest request, int retryCount, IntToLongFunction intervalMs)
-            throws InterruptedException {
-        long interval = intervalMs.applyAsLong(retryCount);
-        if (interval <= 0L) {
-            return;
+    /**
+     * Schedules the {@code retry} after {@code intervalMs}, which must not block current thread.
+     *
+     * @param request       request
+     * @param retryCount    retry count, which starts from 1
+     * @param intervalMs    interval in millis, which is always positive
+     * @param retry         the task to proceed the request again
+     */
+    protected void backOff(HttpRequest request, int retryCount, long intervalMs, Runnable retry) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Begin to back off {}ms before retrying request: {}, retryCount: {}",
+                    intervalMs, request, retryCount);
+        }
+        BACK_OFF_TIMER.newTimeout(timeout -> retry.run(), intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long nextInterval(ExecChain next, int retryCount) {
+        if (!(intervalMs instanceof ExponentialBackOff)) {
+            return intervalMs.applyAsLong(retryCount);
         }
 
+        // Decorrelated jitter depends on the previous interval of current request.
+        final long interval = ((ExponentialBackOff) intervalMs)
+                .next(retryCount, next.ctx().getUncheckedAttr(LAST_INTERVAL, -1L));
+        next.ctx().setAttr(LAST_INTERVAL, interval);
+        return interval;
+    }
+
+    private void retry(CompletableFuture<HttpResponse> response,
+                       HttpRequest request,
+                       ExecChain next,
+                       int maxRetries,
+                       int retryCount) {
         if (logger.isDebugEnabled()) {
-            logger.debug("Begin to back off before retrying request: {}, retryCount: {}", request, retryCount);
+            logger.debug("Begin to retry request: {}, retryCount: {}", request, retryCount);
+        }
+
+        try {
+            doRetry(response, request, next, maxRetries);
+        } catch (Throwable ex) {
+            response.completeExceptionally(new RetryException("Unexpected error while retrying", ex));
         }
-        Thread.sleep(interval);
     }
 
 }
@@ -26,6 +26,16 @@ public interface ConnectionPoolMetric {
      */
     int maxSize();
 
+    /**
+     * Obtains the current size limit of current channel pool, which is adjusted by demand if the pool is
+     * {@link esa.httpclient.core.config.ChannelPoolType#ADAPTIVE}, otherwise it's the same as {@link #maxSize()}.
+     *
+     * @return current size limit, {@link #maxSize()} by default
+     */
+    default int currentMaxSize() {
+        return maxSize();
+    }
+
     /**
      * Obtains the {@code maxPendingAcquires} of current channel pool.
      *
@@ -47,6 +57,70 @@ public interface ConnectionPoolMetric {
      */
     int pendingAcquireCount();
 
+    /**
+     * Obtains the histogram of the time waited for acquiring a connection from current pool, in nanoseconds.
+     *
+     * @return acquire wait time, {@link Histogram#EMPTY} by default
+     */
+    default Histogram acquireWaitTime() {
+        return Histogram.EMPTY;
+    }
+
+    /**
+     * Obtains the histogram of the time spent on connecting a new connection of current pool, in nanoseconds.
+     *
+     * @return connect time, {@link Histogram#EMPTY} by default
+     */
+    default Histogram connectTime() {
+        return Histogram.EMPTY;
+    }
+
+    /**
+     * Obtains the count of connections which have been created by current pool.
+     *
+     * @return created count, 0 by default
+     */
+    default long createdCount() {
+        return 0L;
+    }
+
+    /**
+     * Obtains the count of connections of current pool which have been closed.
+     *
+     * @return closed count, 0 by default
+     */
+    default long closedCount() {
+        return 0L;
+    }
+
+    /**
+     * Obtains the count of acquires from current pool which have failed because of timeout.
+     *
+     * @return acquire timeout count, 0 by default
+     */
+    default long acquireTimeoutCount() {
+        return 0L;
+    }
+
+    /**
+     * Obtains the histogram of the round-trip time measured by PING frames on the http2 connections of current
+     * pool, in nanoseconds.
+     *
+     * @return ping round-trip time, {@link Histogram#EMPTY} by default
+     */
+    default Histogram pingRtt() {
+        return Histogram.EMPTY;
+    }
+
+    /**
+     * Obtains the count of PING frames sent by current pool which have not been acked in time.
+     *
+     * @return ping timeout count, 0 by default
+     */
+    default long pingTimeoutCount() {
+        return 0L;
+    }
+
     /**
      * Obtains the {@link ChannelPoolOptions} of current channel pool.
      *
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.metrics;
+
+public interface Histogram {
+
+    /**
+     * A histogram which has recorded nothing.
+     */
+    Histogram EMPTY = new Histogram() {
+        @Override
+        public long count() {
+            return 0L;
+        }
+
+        @Override
+        public long sum() {
+            return 0L;
+        }
+
+        @Override
+        public long max() {
+            return 0L;
+        }
+
+        @Override
+        public long valueAtPercentile(double percentile) {
+            return 0L;
+        }
+    };
+
+    /**
+     * Obtains the count of recorded values.
+     *
+     * @return count
+     */
+    long count();
+
+    /**
+     * Obtains the sum of recorded values.
+     *
+     * @return sum
+     */
+    long sum();
+
+    /**
+     * Obtains the max recorded value.
+     *
+     * @return max, 0 if nothing has been recorded
+     */
+    long max();
+
+    /**
+     * Obtains the mean of recorded values.
+     *
+     * @return mean, 0 if nothing has been recorded
+     */
+    default double mean() {
+        final long count = count();
+        return count == 0L ? 0.0d : (double) sum() / count;
+    }
+
+    /**
+     * Obtains the value which the given {@code percentile} of recorded values are less than or equal to, which
+     * may be larger than the exact one by a bounded relative error.
+     *
+     * @param percentile percentile, between 0 and 100, eg: 99.9
+     * @return value, 0 if nothing has been recorded
+     */
+    long valueAtPercentile(double percentile);
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.metrics;
+
+public interface HostResolverCacheMetric {
+
+    /**
+     * Obtains the number of hosts cached currently.
+     *
+     * @return size
+     */
+    int size();
+
+    /**
+     * Obtains the count of resolutions served by a fresh cached entry.
+     *
+     * @return hit count
+     */
+    long hitCount();
+
+    /**
+     * Obtains the count of resolutions served by a stale cached entry while it's being refreshed in background.
+     *
+     * @return stale hit count
+     */
+    long staleHitCount();
+
+    /**
+     * Obtains the count of resolutions which had to wait for the underlying resolver.
+     *
+     * @return miss count
+     */
+    long missCount();
+
+    /**
+     * Obtains the count of refreshes triggered ahead of expiration for hot hosts.
+     *
+     * @return prefetch count
+     */
+    long prefetchCount();
+
+    /**
+     * Obtains the count of finished loads from the underlying resolver, including misses, background refreshes
+     * and prefetches.
+     *
+     * @return load count
+     */
+    long loadCount();
+
+    /**
+     * Obtains the count of failed loads from the underlying resolver.
+     *
+     * @return load failure count
+     */
+    long loadFailureCount();
+
+    /**
+     * Obtains the total time spent on loading from the underlying resolver, in nanoseconds.
+     *
+     * @return total load time
+     */
+    long totalLoadTimeNanos();
+
+    /**
+     * Obtains the max time spent on a single load from the underlying resolver, in nanoseconds.
+     *
+     * @return max load time
+     */
+    long maxLoadTimeNanos();
+}
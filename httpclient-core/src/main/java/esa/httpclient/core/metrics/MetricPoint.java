@@ -38,4 +38,12 @@ public interface MetricPoint {
      */
     CallbackExecutorMetric callbackExecutorMetric();
 
+    /**
+     * Obtains {@link RequestMetricProvider}, which is null unless
+     * {@link esa.httpclient.core.HttpClientBuilder#requestMetricsEnabled(boolean)} is set.
+     *
+     * @return metric
+     */
+    RequestMetricProvider requestMetric();
+
 }
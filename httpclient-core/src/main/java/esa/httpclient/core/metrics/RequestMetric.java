@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.metrics;
+
+public interface RequestMetric {
+
+    /**
+     * Obtains the histogram of the time waited for a usable connection, including connecting and handshaking
+     * if a new connection is created, in nanoseconds.
+     *
+     * @return pool wait time
+     */
+    Histogram poolWaitTime();
+
+    /**
+     * Obtains the histogram of the time spent on connecting, which is only recorded by the first request of
+     * a new connection, in nanoseconds.
+     *
+     * @return connect time
+     */
+    Histogram connectTime();
+
+    /**
+     * Obtains the histogram of the time spent on TLS handshake or protocol negotiation after connected, which is
+     * only recorded by the first request of a new connection, in nanoseconds.
+     *
+     * @return handshake time
+     */
+    Histogram handshakeTime();
+
+    /**
+     * Obtains the histogram of the time spent on writing a request to network, in nanoseconds.
+     *
+     * @return write time
+     */
+    Histogram writeTime();
+
+    /**
+     * Obtains the histogram of the time from starting to write a request to receiving the status of its response,
+     * in nanoseconds.
+     *
+     * @return time to first byte
+     */
+    Histogram timeToFirstByte();
+
+    /**
+     * Obtains the histogram of the time from starting to execute a request to completing its response, including
+     * retries and redirects, in nanoseconds.
+     *
+     * @return total time
+     */
+    Histogram totalTime();
+
+    /**
+     * Obtains the count of errors, each failed attempt of a request counts.
+     *
+     * @return error count
+     */
+    long errorCount();
+
+}
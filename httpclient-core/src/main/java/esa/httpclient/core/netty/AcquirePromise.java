@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.RequestPriority;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * The promise of acquiring a connection for a request, which carries the {@link RequestPriority} of the request to
+ * the pool.
+ */
+final class AcquirePromise extends DefaultPromise<Channel> {
+
+    private final RequestPriority priority;
+
+    AcquirePromise(EventExecutor executor, RequestPriority priority) {
+        super(executor);
+        Checks.checkNotNull(priority, "RequestPriority must not be null");
+        this.priority = priority;
+    }
+
+    RequestPriority priority() {
+        return priority;
+    }
+
+    static RequestPriority priorityOf(Promise<Channel> promise) {
+        return promise instanceof AcquirePromise ? ((AcquirePromise) promise).priority : RequestPriority.NORMAL;
+    }
+}
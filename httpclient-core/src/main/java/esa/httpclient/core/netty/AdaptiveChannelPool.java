@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ChannelPool} whose size limit is adjusted by demand between a min and a max size. The connections are
+ * established by and owned by an underlying {@link MeteredChannelPool} whose size is the max size, and this pool
+ * only lets as many acquisitions as the current limit through to it, see {@link GatedChannelPool}.
+ *
+ * The limit is resized periodically. By Little's law, the average number of connections in use equals the rate of
+ * acquisitions multiplied by the average time a connection is held, so the limit follows the time-weighted average
+ * of the acquired connections in the last period with some headroom. It grows at once if any acquisition had to
+ * wait in the last period, and shrinks gradually otherwise. The connections beyond the limit are left idle in the
+ * underlying pool, and are closed by the idle eviction of {@link esa.httpclient.core.netty.ChannelPoolHandler}.
+ * The state of this pool is only accessed on its executor.
+ */
+class AdaptiveChannelPool extends GatedChannelPool {
+
+    private static final String RESIZE_INTERVAL_KEY = "esa.httpclient.adaptivePool.resizeIntervalMillis";
+
+    private static final long RESIZE_INTERVAL_MILLIS = Math.max(1L,
+            SystemPropertyUtil.getLong(RESIZE_INTERVAL_KEY, 200L));
+
+    /**
+     * The ratio of the limit to the average number of connections in use.
+     */
+    private static final double HEADROOM = 1.25d;
+
+    private final ChannelPoolMetricImpl metric;
+    private final int minConnections;
+    private final int maxConnections;
+    private final ScheduledFuture<?> resizer;
+
+    /**
+     * The integral of the number of acquired connections over time(in nanoseconds) since the start of current
+     * period.
+     */
+    private long inUseArea;
+    private long periodStart;
+    private long lastUpdate;
+
+    /**
+     * The number of acquisitions which had to wait in current period.
+     */
+    private int waited;
+
+    AdaptiveChannelPool(Bootstrap bootstrap,
+                        ChannelPoolHandler handler,
+                        ChannelHealthChecker healthCheck,
+                        long acquireTimeoutMillis,
+                        int minConnections,
+                        int maxConnections,
+                        int maxPendingAcquires,
+                        ChannelPoolMetricImpl metric) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, minConnections, maxConnections,
+                maxPendingAcquires, metric, null);
+    }
+
+    AdaptiveChannelPool(Bootstrap bootstrap,
+                        ChannelPoolHandler handler,
+                        ChannelHealthChecker healthCheck,
+                        long acquireTimeoutMillis,
+                        int minConnections,
+                        int maxConnections,
+                        int maxPendingAcquires,
+                        ChannelPoolMetricImpl metric,
+                        ConnectLimiter limiter) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, minConnections, maxConnections,
+                maxPendingAcquires, metric, limiter, null);
+    }
+
+    AdaptiveChannelPool(Bootstrap bootstrap,
+                        ChannelPoolHandler handler,
+                        ChannelHealthChecker healthCheck,
+                        long acquireTimeoutMillis,
+                        int minConnections,
+                        int maxConnections,
+                        int maxPendingAcquires,
+                        ChannelPoolMetricImpl metric,
+                        ConnectLimiter limiter,
+                        HappyEyeballsConnector connector) {
+        super(bootstrap, handler, healthCheck, acquireTimeoutMillis, minConnections, maxConnections,
+                maxPendingAcquires, metric, limiter, connector);
+        this.metric = metric;
+        this.minConnections = minConnections;
+        this.maxConnections = maxConnections;
+        this.periodStart = this.lastUpdate = System.nanoTime();
+        metric.onResized(minConnections);
+        this.resizer = executor.scheduleAtFixedRate(this::resize, RESIZE_INTERVAL_MILLIS, RESIZE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Future<Void> closeAsync() {
+        resizer.cancel(false);
+        return super.closeAsync();
+    }
+
+    @Override
+    void beforePermitChange() {
+        updateInUse();
+    }
+
+    @Override
+    void onQueued() {
+        waited++;
+    }
+
+    private void resize() {
+        if (isClosed()) {
+            return;
+        }
+        updateInUse();
+        final long elapsed = lastUpdate - periodStart;
+        if (elapsed <= 0L) {
+            return;
+        }
+
+        final int limit = limit();
+        final int pending = pendingAcquires();
+        final double inUse = (double) inUseArea / elapsed;
+        int target = (int) Math.ceil(inUse * HEADROOM);
+        if (waited > 0 || pending > 0) {
+            // Grow fast while the acquisitions are waiting for connections.
+            target = Math.max(target, limit + Math.max(pending, (limit + 1) / 2));
+        } else if (target < limit) {
+            // Shrink gradually to absorb the fluctuation of demand.
+            target = Math.max(target, limit - Math.max(1, limit / 4));
+        }
+        final int newLimit = Math.max(minConnections, Math.min(maxConnections, target));
+        metric.onResized(newLimit);
+
+        inUseArea = 0L;
+        periodStart = lastUpdate;
+        waited = 0;
+        limit(newLimit);
+    }
+
+    private void updateInUse() {
+        final long now = System.nanoTime();
+        inUseArea += acquired() * (now - lastUpdate);
+        lastUpdate = now;
+    }
+}
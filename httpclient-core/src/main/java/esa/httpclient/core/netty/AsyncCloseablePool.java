@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ChannelPool} which could be closed without blocking, so that it could be closed on any thread and
+ * nested in other pools.
+ */
+interface AsyncCloseablePool extends ChannelPool {
+
+    /**
+     * Closes the pool asynchronously.
+     *
+     * @return future which will be completed after the pool has been closed
+     */
+    Future<Void> closeAsync();
+
+    /**
+     * Completes the given {@code promise} after all the given {@code futures} have succeeded, or fails it with the
+     * first failure of them.
+     *
+     * @param futures futures
+     * @param promise promise to complete
+     * @return promise
+     */
+    static Future<Void> whenAll(Collection<? extends Future<?>> futures, Promise<Void> promise) {
+        if (futures.isEmpty()) {
+            promise.trySuccess(null);
+            return promise;
+        }
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (Future<?> future : futures) {
+            future.addListener(f -> {
+                if (!f.isSuccess()) {
+                    promise.tryFailure(f.cause());
+                } else if (remaining.decrementAndGet() == 0) {
+                    promise.trySuccess(null);
+                }
+            });
+        }
+        return promise;
+    }
+
+    /**
+     * Completes the given {@code promise} as the given {@code future}.
+     *
+     * @param future  future
+     * @param promise promise to complete
+     */
+    static void cascade(Future<?> future, Promise<Void> promise) {
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                promise.trySuccess(null);
+            } else {
+                promise.tryFailure(f.cause());
+            }
+        });
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.ByteBuf;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Publishes the body of a response to a single {@link Subscriber} at the pace of its demand. The contents are held
+ * in the publisher while there is no demand, and the {@link InboundFlow} is paused so that no more of them are read
+ * until the held ones have been published. Each {@link Buffer} is only valid until {@link Subscriber#onNext(Object)}
+ * returns, as same as the one passed to {@link esa.httpclient.core.Handle#onData}.
+ */
+class BodyPublisher implements Publisher<Buffer>, Subscription {
+
+    private static final Subscription NOOP = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Queue<ByteBuf> contents = new ArrayDeque<>();
+
+    private InboundFlow flow;
+    private Subscriber<? super Buffer> subscriber;
+    private boolean subscribed;
+    private long demand;
+    private boolean done;
+    private Throwable cause;
+    private boolean terminated;
+    private boolean cancelled;
+    private boolean draining;
+    private boolean paused;
+
+    @Override
+    public void subscribe(Subscriber<? super Buffer> s) {
+        Checks.checkNotNull(s, "Subscriber must not be null");
+        final boolean accepted;
+        synchronized (this) {
+            accepted = subscriber == null;
+            if (accepted) {
+                subscriber = s;
+            }
+        }
+
+        if (!accepted) {
+            s.onSubscribe(NOOP);
+            s.onError(new IllegalStateException("BodyPublisher allows only one subscriber"));
+            return;
+        }
+
+        s.onSubscribe(this);
+        synchronized (this) {
+            subscribed = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0L) {
+            error(new IllegalArgumentException("Requested " + n + " contents (expected > 0)"));
+            return;
+        }
+
+        synchronized (this) {
+            demand += n;
+            if (demand < 0L) {
+                demand = Long.MAX_VALUE;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        final ByteBuf[] discarded;
+        final boolean resume;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            discarded = clear();
+            resume = paused;
+            paused = false;
+        }
+
+        discard(discarded);
+        // Reads and discards the rest of the body, so that the connection can be reused.
+        if (resume) {
+            flow.resume();
+        }
+    }
+
+    /**
+     * Offers a content of the body, which is released by this publisher. Called in the event loop.
+     *
+     * @param content content
+     * @param flow    flow to push back on
+     */
+    void offer(ByteBuf content, InboundFlow flow) {
+        final boolean accepted;
+        synchronized (this) {
+            if (this.flow == null) {
+                this.flow = flow;
+            }
+            accepted = !cancelled && !done;
+            if (accepted) {
+                contents.offer(content);
+            }
+        }
+
+        if (!accepted) {
+            discard(content, flow);
+            return;
+        }
+
+        drain();
+        synchronized (this) {
+            if (!paused && !cancelled && !done && !contents.isEmpty()) {
+                paused = true;
+                this.flow.pause();
+            }
+        }
+    }
+
+    /**
+     * Completes the body once all the offered contents have been published.
+     */
+    void complete() {
+        terminate(null);
+    }
+
+    /**
+     * Fails the body immediately, and the contents which have not been published are discarded.
+     *
+     * @param cause cause
+     */
+    void error(Throwable cause) {
+        terminate(cause);
+    }
+
+    private void terminate(Throwable cause) {
+        ByteBuf[] discarded = null;
+        final boolean resume;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            this.cause = cause;
+            if (cause != null) {
+                discarded = clear();
+            }
+            resume = paused;
+            paused = false;
+        }
+
+        discard(discarded);
+        // No more contents of this body, so the reading must go on for the next response over the connection.
+        if (resume) {
+            flow.resume();
+        }
+        drain();
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+
+        for (;;) {
+            final Subscriber<? super Buffer> s;
+            ByteBuf content = null;
+            boolean terminal = false;
+            Throwable error = null;
+            boolean resume = false;
+            synchronized (this) {
+                s = subscriber;
+                if (!subscribed || cancelled || terminated) {
+                    draining = false;
+                    return;
+                }
+
+                if (contents.isEmpty()) {
+                    if (done) {
+                        terminated = true;
+                        terminal = true;
+                        error = cause;
+                    } else {
+                        // The held contents have been published, and the next one will be held again if there
+                        // is no demand by then.
+                        resume = paused;
+                        paused = false;
+                    }
+                } else if (demand > 0L) {
+                    content = contents.poll();
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                }
+
+                if (content == null) {
+                    draining = false;
+                }
+            }
+
+            if (content != null) {
+                publish(s, content);
+            } else if (terminal) {
+                if (error == null) {
+                    s.onComplete();
+                } else {
+                    s.onError(error);
+                }
+                return;
+            } else {
+                if (resume) {
+                    flow.resume();
+                }
+                return;
+            }
+        }
+    }
+
+    private void publish(Subscriber<? super Buffer> s, ByteBuf content) {
+        final int bytes = content.readableBytes();
+        try {
+            s.onNext(new BufferImpl(content));
+        } catch (Throwable ex) {
+            LoggerUtils.logger().error("Subscriber: " + s + " failed to handle the content, cancel it", ex);
+            cancel();
+        } finally {
+            Utils.tryRelease(content);
+            flow.consumed(bytes);
+        }
+    }
+
+    private ByteBuf[] clear() {
+        final ByteBuf[] cleared = contents.toArray(new ByteBuf[0]);
+        contents.clear();
+        return cleared;
+    }
+
+    private void discard(ByteBuf[] discarded) {
+        if (discarded == null) {
+            return;
+        }
+        for (ByteBuf content : discarded) {
+            discard(content, flow);
+        }
+    }
+
+    private static void discard(ByteBuf content, InboundFlow flow) {
+        final int bytes = content.readableBytes();
+        Utils.tryRelease(content);
+        flow.consumed(bytes);
+    }
+}
@@ -18,7 +18,18 @@ package esa.httpclient.core.netty;
 import esa.commons.Checks;
 import esa.commons.function.ThrowingSupplier;
 import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.Future;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 final class ChannelPool {
 
@@ -26,17 +37,116 @@ final class ChannelPool {
     final ChannelPoolOptions options;
     final boolean ssl;
     final ThrowingSupplier<SslHandler> sslHandler;
+    final ChannelPoolMetricImpl metric;
+    private final AtomicBoolean warming = new AtomicBoolean();
 
     ChannelPool(io.netty.channel.pool.ChannelPool underlying,
                 ChannelPoolOptions options,
                 boolean ssl,
                 ThrowingSupplier<SslHandler> sslHandler) {
+        this(underlying, options, ssl, sslHandler, options == null ? null : new ChannelPoolMetricImpl(options));
+    }
+
+    ChannelPool(io.netty.channel.pool.ChannelPool underlying,
+                ChannelPoolOptions options,
+                boolean ssl,
+                ThrowingSupplier<SslHandler> sslHandler,
+                ChannelPoolMetricImpl metric) {
         Checks.checkNotNull(underlying, "ChannelPool must not be null");
         Checks.checkNotNull(options, "ChannelPoolOptions must not be null");
         Checks.checkNotNull(sslHandler, "SslHandler must not be null");
+        Checks.checkNotNull(metric, "ChannelPoolMetric must not be null");
         this.underlying = underlying;
         this.options = options;
         this.ssl = ssl;
         this.sslHandler = sslHandler;
+        this.metric = metric;
+    }
+
+    /**
+     * Acquires the given number of channels(at most the pool size) at the same time and releases them after all
+     * of them are ready, so that the lacking connections are established and handshaken in advance.
+     *
+     * @param connections   the number of connections expected
+     * @return future which will be completed with the number of distinct connections which are ready
+     */
+    CompletableFuture<Integer> warmUp(int connections) {
+        Checks.checkArg(connections >= 1, "connections is " + connections + " (expected >= 1)");
+        final WarmUp warmUp = new WarmUp(Math.min(connections, options.poolSize()));
+        for (int i = 0; i < warmUp.acquires; i++) {
+            final Future<Channel> acquire = underlying.acquire();
+            acquire.addListener(f -> {
+                if (!acquire.isSuccess()) {
+                    warmUp.onDone(null);
+                    return;
+                }
+
+                final Channel channel = acquire.getNow();
+                warmUp.acquired.add(channel);
+                final ChannelFuture handshake = channel.attr(ChannelPoolHandler.HANDSHAKE_FUTURE).get();
+                if (handshake == null) {
+                    warmUp.onDone(channel);
+                } else {
+                    handshake.addListener(hf -> warmUp.onDone(hf.isSuccess() ? channel : null));
+                }
+            });
+        }
+        return warmUp.result;
+    }
+
+    /**
+     * Establishes connections in background if there are less idle connections than {@link
+     * ChannelPoolOptions#minIdle()}, unless the previous warming up has not finished.
+     */
+    void maintainMinIdle() {
+        final int minIdle = options.minIdle();
+        if (minIdle <= 0 || warming.get()) {
+            return;
+        }
+
+        final int open = (int) (metric.createdCount() - metric.closedCount());
+        final int connections;
+        if (underlying instanceof MultiplexedChannelPool) {
+            connections = open > 0 ? 0 : 1;
+        } else if (open - metric.active() >= minIdle) {
+            connections = 0;
+        } else {
+            // The idle ones will be acquired firstly, so acquire all of them along with the lacking ones.
+            connections = Math.min(minIdle, options.poolSize() - metric.active());
+        }
+
+        if (connections > 0 && warming.compareAndSet(false, true)) {
+            warmUp(connections).whenComplete((ready, th) -> warming.set(false));
+        }
+    }
+
+    private final class WarmUp {
+
+        private final int acquires;
+        private final AtomicInteger remaining;
+        private final Queue<Channel> acquired = new ConcurrentLinkedQueue<>();
+        private final Set<Channel> ready = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        private WarmUp(int acquires) {
+            this.acquires = acquires;
+            this.remaining = new AtomicInteger(acquires);
+        }
+
+        private void onDone(Channel readyChannel) {
+            if (readyChannel != null) {
+                ready.add(readyChannel);
+            }
+            if (remaining.decrementAndGet() > 0) {
+                return;
+            }
+
+            // Hold all the channels until now, otherwise the idle ones may be acquired repeatedly.
+            Channel channel;
+            while ((channel = acquired.poll()) != null) {
+                underlying.release(channel);
+            }
+            result.complete(ready.size());
+        }
     }
 }
@@ -16,8 +16,10 @@
 package esa.httpclient.core.netty;
 
 import esa.commons.function.ThrowingSupplier;
+import esa.commons.http.HttpVersion;
 import esa.httpclient.core.HttpClientBuilder;
 import esa.httpclient.core.config.ChannelPoolOptions;
+import esa.httpclient.core.config.ChannelPoolType;
 import esa.httpclient.core.config.NetOptions;
 import esa.httpclient.core.resolver.HostResolver;
 import esa.httpclient.core.spi.ChannelPoolOptionsProvider;
@@ -29,11 +31,11 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.pool.ChannelHealthChecker;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.internal.SystemPropertyUtil;
 
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 
 final class ChannelPoolFactory {
@@ -68,16 +70,87 @@ final class ChannelPoolFactory {
         LoggerUtils.logger().info("Begin to create a new channel pool, address: {}, options: {}",
                 address, options);
 
-        return new ChannelPool(new FixedChannelPool(bootstrap,
-                new ChannelPoolHandler(builder, sslHandler, ssl),
-                ChannelHealthChecker.ACTIVE,
-                FixedChannelPool.AcquireTimeoutAction.FAIL,
-                options.connectTimeout(),
-                options.poolSize(),
-                options.waitingQueueLength()),
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(options);
+        final ChannelPoolHandler handler = new ChannelPoolHandler(builder, sslHandler, ssl, options, metric);
+        final ChannelHealthChecker healthChecker = new ConnectionHealthChecker(options.idleTimeout());
+        final ConnectLimiter limiter = ConnectLimiter.of(options.maxConnecting(), options.connectRate(),
+                ioThreads.next());
+        final HappyEyeballsConnector connector = HappyEyeballsConnector.of(options.connectAttemptDelay(),
+                builder.resolver());
+        final io.netty.channel.pool.ChannelPool underlying;
+        if (options.resolveInterval() > 0 && isUnresolved(address) && builder.resolver() != null) {
+            underlying = new ResolvingChannelPool(bootstrap,
+                    builder.resolver(),
+                    options.resolveInterval(),
+                    EndpointBalancer.of(options.loadBalance()),
+                    OutlierDetector.of(options),
+                    bs -> newUnderlying(bs, builder, options, handler, healthChecker, metric, limiter,
+                            connector));
+        } else {
+            underlying = newUnderlying(bootstrap, builder, options, handler, healthChecker, metric, limiter,
+                    connector);
+        }
+        final ChannelPool channelPool = new ChannelPool(underlying,
                 options,
                 ssl,
-                sslHandler);
+                sslHandler,
+                metric);
+        handler.replacement(() -> channelPool.warmUp(1));
+        return channelPool;
+    }
+
+    private static io.netty.channel.pool.ChannelPool newUnderlying(Bootstrap bootstrap,
+                                                                   HttpClientBuilder builder,
+                                                                   ChannelPoolOptions options,
+                                                                   ChannelPoolHandler handler,
+                                                                   ChannelHealthChecker healthChecker,
+                                                                   ChannelPoolMetricImpl metric,
+                                                                   ConnectLimiter limiter,
+                                                                   HappyEyeballsConnector connector) {
+        if (HttpVersion.HTTP_2 == builder.version()) {
+            return new MultiplexedChannelPool(bootstrap,
+                    handler,
+                    healthChecker,
+                    options.acquireTimeout(),
+                    options.poolSize(),
+                    options.waitingQueueLength(),
+                    options.maxRequestsPerConnection(),
+                    metric,
+                    connector);
+        }
+        if (options.type() == ChannelPoolType.EVENT_LOOP_SHARDED) {
+            return new ShardedChannelPool(bootstrap,
+                    handler,
+                    healthChecker,
+                    options.acquireTimeout(),
+                    options.poolSize(),
+                    options.waitingQueueLength(),
+                    metric,
+                    limiter,
+                    connector);
+        }
+        if (options.type() == ChannelPoolType.ADAPTIVE) {
+            return new AdaptiveChannelPool(bootstrap,
+                    handler,
+                    healthChecker,
+                    options.acquireTimeout(),
+                    options.minPoolSize(),
+                    options.poolSize(),
+                    options.waitingQueueLength(),
+                    metric,
+                    limiter,
+                    connector);
+        }
+        return new GatedChannelPool(bootstrap,
+                handler,
+                healthChecker,
+                options.acquireTimeout(),
+                options.poolSize(),
+                options.poolSize(),
+                options.waitingQueueLength(),
+                metric,
+                limiter,
+                connector);
     }
 
     ChannelPool create(boolean ssl,
@@ -116,6 +189,21 @@ final class ChannelPoolFactory {
                 .connectTimeout(builder.connectTimeout())
                 .waitingQueueLength(builder.connectionPoolWaitingQueueLength())
                 .readTimeout(builder.readTimeout())
+                .type(builder.connectionPoolType())
+                .minIdle(Math.min(builder.connectionPoolMinIdle(), builder.connectionPoolSize()))
+                .idleTimeout(builder.connectionPoolIdleTimeout())
+                .maxLifetime(builder.connectionPoolMaxLifetime())
+                .maxRequestsPerConnection(builder.connectionPoolMaxRequestsPerConnection())
+                .minPoolSize(Math.min(builder.connectionPoolMinSize(), builder.connectionPoolSize()))
+                .maxConnecting(builder.connectionPoolMaxConnecting())
+                .connectRate(builder.connectionPoolConnectRate())
+                .acquireTimeout(builder.connectionPoolAcquireTimeout())
+                .resolveInterval(builder.connectionPoolResolveInterval())
+                .connectAttemptDelay(builder.connectionPoolConnectAttemptDelay())
+                .loadBalance(builder.connectionPoolLoadBalance())
+                .outlierConsecutiveFailures(builder.connectionPoolOutlierConsecutiveFailures())
+                .outlierEjectionTime(builder.connectionPoolOutlierEjectionTime())
+                .outlierMaxEjectionPercent(builder.connectionPoolOutlierMaxEjectionPercent())
                 .build();
     }
 
@@ -160,6 +248,10 @@ final class ChannelPoolFactory {
         return bootstrap;
     }
 
+    private static boolean isUnresolved(SocketAddress address) {
+        return address instanceof InetSocketAddress && ((InetSocketAddress) address).isUnresolved();
+    }
+
     private static void applyNetOptions(Bootstrap bootstrap, NetOptions options) {
         if (options.isSoKeepAlive()) {
             bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
@@ -18,9 +18,9 @@ package esa.httpclient.core.netty;
 import esa.commons.ExceptionUtils;
 import esa.commons.function.ThrowingSupplier;
 import esa.httpclient.core.HttpClientBuilder;
+import esa.httpclient.core.config.ChannelPoolOptions;
 import esa.httpclient.core.config.Http1Options;
 import esa.httpclient.core.config.Http2Options;
-import esa.httpclient.core.util.HttpHeadersUtils;
 import esa.httpclient.core.util.LoggerUtils;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
@@ -39,10 +39,15 @@ import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.SystemPropertyUtil;
 
 import java.net.ConnectException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static esa.httpclient.core.netty.ChannelPoolFactory.NETTY_CONFIGURE;
 
@@ -58,17 +63,60 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
     private final HttpClientBuilder builder;
     private final ThrowingSupplier<SslHandler> sslHandler;
     private final boolean ssl;
+    private final int idleTimeout;
+    private final long maxLifetimeNanos;
+    private final int maxRequests;
+    private final ChannelPoolMetricImpl metric;
+
+    /**
+     * Establishes a replacement in background after a connection has been retired.
+     */
+    private volatile Runnable replacement;
 
     ChannelPoolHandler(HttpClientBuilder builder,
                        ThrowingSupplier<SslHandler> sslHandler,
                        boolean ssl) {
+        this(builder, sslHandler, ssl, null, null);
+    }
+
+    ChannelPoolHandler(HttpClientBuilder builder,
+                       ThrowingSupplier<SslHandler> sslHandler,
+                       boolean ssl,
+                       ChannelPoolOptions options,
+                       ChannelPoolMetricImpl metric) {
         this.builder = builder;
         this.sslHandler = sslHandler;
         this.ssl = ssl;
+        this.idleTimeout = options == null ? 0 : options.idleTimeout();
+        this.maxLifetimeNanos = options == null ? 0L : TimeUnit.MILLISECONDS.toNanos(options.maxLifetime());
+        this.maxRequests = options == null ? 0 : options.maxRequestsPerConnection();
+        this.metric = metric;
+    }
+
+    void replacement(Runnable replacement) {
+        this.replacement = replacement;
+    }
+
+    @Override
+    public void channelAcquired(Channel ch) {
+        final ConnectionState state = ConnectionState.of(ch);
+        if (state != null) {
+            state.onAcquired();
+        }
     }
 
     @Override
     public void channelReleased(Channel ch) {
+        final ConnectionState state = ConnectionState.of(ch);
+        if (state != null) {
+            final long now = System.nanoTime();
+            state.onReleased(now);
+            if (state.isRetired(now) && ch.isActive()) {
+                // The last request has completed, see NettyTransceiver.setKeepAlive().
+                retire(ch);
+                return;
+            }
+        }
         ch.flush();
     }
 
@@ -79,6 +127,17 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
 
         NETTY_CONFIGURE.onChannelCreated(channel);
 
+        final ConnectionState state = new ConnectionState(System.nanoTime(), jitter(maxLifetimeNanos), maxRequests);
+        channel.attr(ConnectionState.KEY).set(state);
+        if (maxLifetimeNanos > 0L) {
+            scheduleRetirement(channel, state);
+        }
+        if (idleTimeout > 0) {
+            // Evict the connection in background once it has been idle in the pool for too long.
+            channel.pipeline().addLast(new IdleStateHandler(0L, 0L, idleTimeout, TimeUnit.MILLISECONDS),
+                    new IdleConnectionEvictor());
+        }
+
         // TODO: try handshaking after channel has connected, see SimpleChannelPool.connectChannel()
         final ChannelPromise handshake = channel.newPromise();
         channel.attr(HANDSHAKE_FUTURE).set(handshake);
@@ -100,6 +159,42 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
         }
     }
 
+    /**
+     * Shortens the lifetime by a random jitter of up to 10%, so that the connections established at the same time
+     * will not be retired at the same time.
+     */
+    private static long jitter(long lifetimeNanos) {
+        if (lifetimeNanos <= 0L) {
+            return 0L;
+        }
+        return lifetimeNanos - ThreadLocalRandom.current().nextLong(lifetimeNanos / 10L + 1L);
+    }
+
+    /**
+     * Closes the connection once it has outlived its lifetime if it's idle in the pool, otherwise it will be closed
+     * after the request in flight has completed, see {@link #channelReleased(Channel)}. The multiplexed http2
+     * connections are always in use, which are retired by {@link MultiplexedChannelPool} instead.
+     */
+    private void scheduleRetirement(Channel channel, ConnectionState state) {
+        final ScheduledFuture<?> retirement = channel.eventLoop().schedule(() -> {
+            if (!state.isInUse() && channel.isActive()) {
+                retire(channel);
+            }
+        }, state.remainingLifetimeNanos(System.nanoTime()), TimeUnit.NANOSECONDS);
+        channel.closeFuture().addListener(f -> retirement.cancel(false));
+    }
+
+    private void retire(Channel channel) {
+        if (LoggerUtils.logger().isDebugEnabled()) {
+            LoggerUtils.logger().debug("Retiring connection: {}", channel);
+        }
+        channel.close();
+        final Runnable replacement = this.replacement;
+        if (replacement != null) {
+            replacement.run();
+        }
+    }
+
     private void applyOptions(Channel channel) {
         int high = builder.netOptions() == null
                 ? -1 : builder.netOptions().writeBufferHighWaterMark();
@@ -197,9 +292,9 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
                                boolean decompression) {
         HttpResponseDecoder decoder;
         if (http1Options == null) {
-            decoder = new DelegatingHttpResponseDecoder();
+            decoder = new HttpResponseDecoder();
         } else {
-            decoder = new DelegatingHttpResponseDecoder(http1Options.maxInitialLineLength(),
+            decoder = new HttpResponseDecoder(http1Options.maxInitialLineLength(),
                     http1Options.maxHeaderSize(),
                     http1Options.maxChunkSize());
         }
@@ -304,10 +399,19 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
 
         Http2ConnectionHandlerBuilder builder = new Http2ConnectionHandlerBuilder(registry).codec(decoder, encoder);
 
-        builder.frameListener(decompression
+        Http2FrameListener listener = decompression
                 ? new DelegatingDecompressorFrameListener(connection,
                 new Http2FrameHandler(registry, connection, this.builder.maxContentLength()))
-                : new Http2FrameHandler(registry, connection, this.builder.maxContentLength()));
+                : new Http2FrameHandler(registry, connection, this.builder.maxContentLength());
+        if (http2Options != null && http2Options.pingIntervalMillis() > 0L) {
+            listener = new Http2PingKeepAlive(listener,
+                    connection,
+                    encoder,
+                    http2Options.pingIntervalMillis(),
+                    http2Options.pingAckTimeoutMillis(),
+                    metric);
+        }
+        builder.frameListener(listener);
         if (http2Options != null) {
             builder.gracefulShutdownTimeoutMillis(http2Options.gracefulShutdownTimeoutMillis());
         }
@@ -322,6 +426,27 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
                         Unpooled.EMPTY_BUFFER);
     }
 
+    private static final class IdleConnectionEvictor extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (!(evt instanceof IdleStateEvent)) {
+                super.userEventTriggered(ctx, evt);
+                return;
+            }
+
+            // Nothing has been read or written for idleTimeout, but a request may still be waiting for
+            // its response, which should be interrupted by the read timeout rather than here.
+            final ConnectionState state = ConnectionState.of(ctx.channel());
+            if (state != null && !state.isInUse()) {
+                if (LoggerUtils.logger().isDebugEnabled()) {
+                    LoggerUtils.logger().debug("Closing idle connection: {}", ctx.channel());
+                }
+                ctx.close();
+            }
+        }
+    }
+
     private static final class UpgradeCodecImpl extends Http2ClientUpgradeCodec implements
             HttpClientUpgradeHandler.UpgradeCodec {
 
@@ -354,20 +479,4 @@ final class ChannelPoolHandler extends AbstractChannelPoolHandler {
         }
     }
 
-    static final class DelegatingHttpResponseDecoder extends HttpResponseDecoder {
-        private DelegatingHttpResponseDecoder() {
-        }
-
-        private DelegatingHttpResponseDecoder(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize) {
-            super(maxInitialLineLength, maxHeaderSize, maxChunkSize);
-        }
-
-        @Override
-        protected HttpMessage createMessage(String[] initialLine) {
-            HttpMessage msg = super.createMessage(initialLine);
-            msg.headers().add(HttpHeadersUtils.TTFB, System.currentTimeMillis());
-            return msg;
-        }
-    }
-
 }
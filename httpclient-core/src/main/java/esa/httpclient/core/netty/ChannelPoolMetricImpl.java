@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import esa.httpclient.core.metrics.ConnectionPoolMetric;
+import esa.httpclient.core.metrics.Histogram;
+import esa.httpclient.core.util.ConcurrentHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a channel pool, which are updated by {@link MeteredChannelPool} natively, so that reading them costs
+ * neither reflection nor allocation.
+ */
+final class ChannelPoolMetricImpl implements ConnectionPoolMetric {
+
+    private final ChannelPoolOptions options;
+    private volatile int currentMaxSize;
+    private final LongAdder active = new LongAdder();
+    private final LongAdder pendingAcquires = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder pingTimeouts = new LongAdder();
+    private final ConcurrentHistogram acquireWaitTime = new ConcurrentHistogram();
+    private final ConcurrentHistogram connectTime = new ConcurrentHistogram();
+    private final ConcurrentHistogram pingRtt = new ConcurrentHistogram();
+
+    ChannelPoolMetricImpl(ChannelPoolOptions options) {
+        this.options = options;
+        this.currentMaxSize = options.poolSize();
+    }
+
+    void onAcquireStarted() {
+        pendingAcquires.increment();
+    }
+
+    void onAcquired(long waitNanos) {
+        pendingAcquires.decrement();
+        active.increment();
+        acquireWaitTime.record(waitNanos);
+    }
+
+    void onAcquireFailed(boolean timeout) {
+        pendingAcquires.decrement();
+        if (timeout) {
+            acquireTimeouts.increment();
+        }
+    }
+
+    void onReleased() {
+        active.decrement();
+    }
+
+    void onConnected(long connectNanos) {
+        created.increment();
+        connectTime.record(connectNanos);
+    }
+
+    void onResized(int currentMaxSize) {
+        this.currentMaxSize = currentMaxSize;
+    }
+
+    void onClosed() {
+        closed.increment();
+    }
+
+    void onPingAcked(long rttNanos) {
+        pingRtt.record(rttNanos);
+    }
+
+    void onPingTimeout() {
+        pingTimeouts.increment();
+    }
+
+    @Override
+    public int maxSize() {
+        return options.poolSize();
+    }
+
+    @Override
+    public int currentMaxSize() {
+        return currentMaxSize;
+    }
+
+    @Override
+    public int maxPendingAcquires() {
+        return options.waitingQueueLength();
+    }
+
+    @Override
+    public int active() {
+        return active.intValue();
+    }
+
+    /**
+     * Different from the one of {@link io.netty.channel.pool.FixedChannelPool}, this includes the acquires which
+     * are waiting for a new connection to be connected.
+     *
+     * @return the count of pending acquire
+     */
+    @Override
+    public int pendingAcquireCount() {
+        return pendingAcquires.intValue();
+    }
+
+    @Override
+    public Histogram acquireWaitTime() {
+        return acquireWaitTime;
+    }
+
+    @Override
+    public Histogram connectTime() {
+        return connectTime;
+    }
+
+    @Override
+    public long createdCount() {
+        return created.sum();
+    }
+
+    @Override
+    public long closedCount() {
+        return closed.sum();
+    }
+
+    @Override
+    public long acquireTimeoutCount() {
+        return acquireTimeouts.sum();
+    }
+
+    @Override
+    public Histogram pingRtt() {
+        return pingRtt;
+    }
+
+    @Override
+    public long pingTimeoutCount() {
+        return pingTimeouts.sum();
+    }
+
+    @Override
+    public ChannelPoolOptions options() {
+        return options;
+    }
+}
@@ -21,41 +21,58 @@ import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 import esa.commons.Checks;
 import esa.commons.function.ThrowingSupplier;
-import esa.commons.reflect.BeanUtils;
 import esa.httpclient.core.HttpClientBuilder;
 import esa.httpclient.core.config.CacheOptions;
-import esa.httpclient.core.config.ChannelPoolOptions;
 import esa.httpclient.core.metrics.ConnectionPoolMetric;
 import esa.httpclient.core.metrics.ConnectionPoolMetricProvider;
 import esa.httpclient.core.util.LoggerUtils;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.pool.FixedChannelPool;
 import io.netty.channel.pool.SimpleChannelPool;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.SystemPropertyUtil;
 
 import java.net.SocketAddress;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class ChannelPools implements ConnectionPoolMetricProvider {
 
     static final ChannelPoolFactory CHANNEL_POOL_FACTORY = new ChannelPoolFactory();
 
+    private static final String MIN_IDLE_CHECK_INTERVAL_MILLIS_KEY = "esa.httpclient.minIdleCheckIntervalMillis";
+    private static final long MIN_IDLE_CHECK_INTERVAL_MILLIS =
+            SystemPropertyUtil.getLong(MIN_IDLE_CHECK_INTERVAL_MILLIS_KEY, 1000L);
+
     private final Cache<SocketAddress, ChannelPool> cachedPools;
+
+    /**
+     * Metrics of the cached pools, which are maintained along with {@link #cachedPools} so that scraping them
+     * neither copies nor touches the access time of the pools.
+     */
+    private final Map<SocketAddress, ConnectionPoolMetric> metrics = new ConcurrentHashMap<>();
+    private final Map<SocketAddress, ConnectionPoolMetric> unmodifiableMetrics =
+            Collections.unmodifiableMap(metrics);
     private final AtomicBoolean closed = new AtomicBoolean();
 
+    /**
+     * The task which keeps the min idle connections of pools, which is scheduled once there is a pool whose
+     * minIdle is greater than 0.
+     */
+    private volatile ScheduledFuture<?> minIdleMaintainer;
+
     public ChannelPools(CacheOptions options) {
         Checks.checkNotNull(options, "CacheOptions must not be null");
         cachedPools = Caffeine.newBuilder()
                 .initialCapacity(options.initialCapacity())
                 .maximumSize(options.maximumSize())
                 .expireAfterAccess(options.expireSeconds(), TimeUnit.SECONDS)
-                .removalListener(new ChannelPoolRemovalListener())
+                .removalListener(new ChannelPoolRemovalListener(metrics))
                 .build();
     }
 
@@ -72,18 +89,25 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
                             ThrowingSupplier<SslHandler> sslHandler) {
         checkClosed();
 
-        return cachedPools.get(address, addr -> CHANNEL_POOL_FACTORY.create(ssl,
-                addr,
-                ioThreads,
-                builder,
-                sslHandler));
+        return cachedPools.get(address, addr -> {
+            final ChannelPool channelPool = CHANNEL_POOL_FACTORY.create(ssl,
+                    addr,
+                    ioThreads,
+                    builder,
+                    sslHandler);
+            metrics.put(addr, channelPool.metric);
+            scheduleMinIdleMaintainerIfNecessary(channelPool);
+            return channelPool;
+        });
     }
 
     void put(SocketAddress address, ChannelPool channelPool) {
         checkClosed();
 
         if (channelPool != null) {
+            metrics.put(address, channelPool.metric);
             cachedPools.put(address, channelPool);
+            scheduleMinIdleMaintainerIfNecessary(channelPool);
         }
     }
 
@@ -92,6 +116,11 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
             return;
         }
 
+        final ScheduledFuture<?> maintainer = minIdleMaintainer;
+        if (maintainer != null) {
+            maintainer.cancel(false);
+        }
+
         for (Map.Entry<SocketAddress, ChannelPool> entry : cachedPools.asMap().entrySet()) {
             try {
                 close(entry.getKey(), entry.getValue(), false);
@@ -106,7 +135,7 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
         if (closed.get()) {
             return null;
         } else {
-            return all().get(address);
+            return metrics.get(address);
         }
     }
 
@@ -116,14 +145,45 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
             return Collections.emptyMap();
         }
 
-        Map<SocketAddress, ChannelPool> channelPools0 = new HashMap<>(cachedPools.asMap());
+        return unmodifiableMetrics;
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     */
+    void maintainMinIdle() {
+        if (closed.get()) {
+            return;
+        }
+
+        for (Map.Entry<SocketAddress, ChannelPool> entry : cachedPools.asMap().entrySet()) {
+            final ChannelPool channelPool = entry.getValue();
+            if (channelPool.options.minIdle() <= 0) {
+                continue;
+            }
+
+            // Keep the pool from being expired
+            cachedPools.getIfPresent(entry.getKey());
+            try {
+                channelPool.maintainMinIdle();
+            } catch (Throwable th) {
+                LoggerUtils.logger().warn("Error while keeping min idle connections of channel pool: {}",
+                        entry.getKey(), th);
+            }
+        }
+    }
 
-        Map<SocketAddress, ConnectionPoolMetric> metrics = new HashMap<>(channelPools0.size());
-        for (Map.Entry<SocketAddress, ChannelPool> entry : channelPools0.entrySet()) {
-            metrics.put(entry.getKey(), new ChannelPoolMetricImpl(entry.getValue()));
+    private void scheduleMinIdleMaintainerIfNecessary(ChannelPool channelPool) {
+        if (minIdleMaintainer != null || channelPool.options.minIdle() <= 0) {
+            return;
         }
 
-        return metrics;
+        synchronized (this) {
+            if (minIdleMaintainer == null && !closed.get()) {
+                minIdleMaintainer = GlobalEventExecutor.INSTANCE.scheduleWithFixedDelay(this::maintainMinIdle,
+                        0L, MIN_IDLE_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
     private void checkClosed() {
@@ -138,7 +198,7 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
         }
 
         io.netty.channel.pool.ChannelPool underlying = channelPool.underlying;
-        if (!(underlying instanceof SimpleChannelPool)) {
+        if (!(underlying instanceof SimpleChannelPool) && !(underlying instanceof AsyncCloseablePool)) {
             underlying.close();
             return;
         }
@@ -157,7 +217,7 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
             }
         } else {
             // Do close async
-            Future<Void> closeFuture = ((SimpleChannelPool) underlying).closeAsync();
+            Future<Void> closeFuture = closeAsync(underlying);
             if (closeFuture.isDone()) {
                 closingLog(address, closeFuture, startTime);
             } else {
@@ -166,6 +226,13 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
         }
     }
 
+    static Future<Void> closeAsync(io.netty.channel.pool.ChannelPool underlying) {
+        if (underlying instanceof AsyncCloseablePool) {
+            return ((AsyncCloseablePool) underlying).closeAsync();
+        }
+        return ((SimpleChannelPool) underlying).closeAsync();
+    }
+
     private static void closingLog(SocketAddress address, Future<Void> closeFuture, long startTime) {
         long endTime = System.nanoTime();
         if (closeFuture.isSuccess()) {
@@ -179,45 +246,18 @@ public class ChannelPools implements ConnectionPoolMetricProvider {
 
     private static class ChannelPoolRemovalListener implements RemovalListener<SocketAddress, ChannelPool> {
 
-        @Override
-        public void onRemoval(SocketAddress key, ChannelPool value, RemovalCause cause) {
-            close(key, value, true);
-        }
-    }
-
-    private static class ChannelPoolMetricImpl implements ConnectionPoolMetric {
-
-        private final FixedChannelPool channelPool;
-        private final ChannelPoolOptions options;
-
-        private ChannelPoolMetricImpl(ChannelPool channelPool) {
-            this.channelPool = (FixedChannelPool) channelPool.underlying;
-            this.options = channelPool.options;
-        }
+        private final Map<SocketAddress, ConnectionPoolMetric> metrics;
 
-        @Override
-        public int maxSize() {
-            return (int) BeanUtils.getFieldValue(channelPool, "maxConnections");
+        private ChannelPoolRemovalListener(Map<SocketAddress, ConnectionPoolMetric> metrics) {
+            this.metrics = metrics;
         }
 
         @Override
-        public int maxPendingAcquires() {
-            return (int) BeanUtils.getFieldValue(channelPool, "maxPendingAcquires");
-        }
-
-        @Override
-        public int active() {
-            return ((AtomicInteger) BeanUtils.getFieldValue(channelPool, "acquiredChannelCount")).intValue();
-        }
-
-        @Override
-        public int pendingAcquireCount() {
-            return (int) BeanUtils.getFieldValue(channelPool, "pendingAcquireCount");
-        }
-
-        @Override
-        public ChannelPoolOptions options() {
-            return options;
+        public void onRemoval(SocketAddress key, ChannelPool value, RemovalCause cause) {
+            if (key != null && value != null) {
+                metrics.remove(key, value.metric);
+            }
+            close(key, value, true);
         }
     }
 
@@ -22,6 +22,7 @@ import esa.httpclient.core.ChunkRequest;
 import esa.httpclient.core.Context;
 import esa.httpclient.core.ContextImpl;
 import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.Listener;
 import esa.httpclient.core.ListenerProxy;
 import esa.httpclient.core.RequestOptions;
 import esa.httpclient.core.exec.RequestExecutor;
@@ -46,6 +47,7 @@ public class ChunkRequestImpl extends NettyRequest implements ChunkRequest {
     private static final byte[] EMPTY_BYTES = new byte[0];
 
     private final RequestExecutor executor;
+    private final Listener listener;
     private final Context ctx;
     private final boolean aggregate;
 
@@ -59,9 +61,19 @@ public class ChunkRequestImpl extends NettyRequest implements ChunkRequest {
                      RequestOptions options,
                      Context ctx,
                      boolean aggregate) {
+        this(executor, ListenerProxy.DEFAULT, options, ctx, aggregate);
+    }
+
+    ChunkRequestImpl(RequestExecutor executor,
+                     Listener listener,
+                     RequestOptions options,
+                     Context ctx,
+                     boolean aggregate) {
         super(options);
         Checks.checkNotNull(executor, "RequestExecutor must not be null");
+        Checks.checkNotNull(listener, "Listener must not be null");
         this.executor = executor;
+        this.listener = listener;
         this.ctx = ctx;
         this.aggregate = aggregate;
     }
@@ -278,7 +290,7 @@ public class ChunkRequestImpl extends NettyRequest implements ChunkRequest {
             }
 
             final Context ctx0 = ctx != null ? ctx : new ContextImpl();
-            response = executor.async(this, ctx0, ListenerProxy.DEFAULT);
+            response = executor.async(this, ctx0, listener);
             chunkWriter = ctx0.getUncheckedAttr(NettyTransceiver.CHUNK_WRITER);
         }
     }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits the connection establishment to a host, which is shared by all the pools of the host. It bounds the number
+ * of connects(including the TLS handshakes) in flight, and spaces the connects by the interval derived from the
+ * connect rate, so that a burst of acquisitions against an empty pool does not start a storm of connects, and the
+ * recovery after a restart of the host ramps up smoothly.
+ *
+ * The acquisitions which are not permitted to connect register themselves as waiters, and one of them is woken up
+ * whenever a connect may be permitted again. Note that the permit is not reserved for the woken waiter, which is
+ * supposed to try again and to call {@link #signal()} after that unless it has to wait again, and a waiter which
+ * is not waiting any more(eg. it has been served by a released connection) is skipped.
+ */
+final class ConnectLimiter {
+
+    /**
+     * The max number of connects in flight, 0 means no limit.
+     */
+    private final int maxConnecting;
+
+    /**
+     * The min interval between the starts of connects, 0 means no limit.
+     */
+    private final long intervalNanos;
+    private final EventExecutor executor;
+
+    private final Queue<BooleanSupplier> waiters = new ArrayDeque<>();
+    private int connecting;
+    private long nextPermitNanos;
+    private boolean wakeUpScheduled;
+
+    ConnectLimiter(int maxConnecting, int connectRate, EventExecutor executor) {
+        this.maxConnecting = maxConnecting;
+        this.intervalNanos = connectRate > 0 ? TimeUnit.SECONDS.toNanos(1L) / connectRate : 0L;
+        this.executor = executor;
+        this.nextPermitNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates a {@link ConnectLimiter} if any of the limits is enabled.
+     *
+     * @param maxConnecting max number of connects in flight, 0 means no limit
+     * @param connectRate   max number of connects per second, 0 means no limit
+     * @param executor      executor to wake up the waiters after the interval of connects
+     * @return limiter, or {@code null} if there is no limit
+     */
+    static ConnectLimiter of(int maxConnecting, int connectRate, EventExecutor executor) {
+        if (maxConnecting <= 0 && connectRate <= 0) {
+            return null;
+        }
+        return new ConnectLimiter(maxConnecting, connectRate, executor);
+    }
+
+    /**
+     * Tries to take a permit to connect, which must be given back by {@link #release()} once the connect has
+     * completed.
+     *
+     * @return {@code true} if permitted
+     */
+    synchronized boolean tryAcquire() {
+        if (maxConnecting > 0 && connecting >= maxConnecting) {
+            return false;
+        }
+        if (intervalNanos > 0L) {
+            final long now = System.nanoTime();
+            if (now - nextPermitNanos < 0L) {
+                return false;
+            }
+            nextPermitNanos = now + intervalNanos;
+        }
+        connecting++;
+        return true;
+    }
+
+    void release() {
+        synchronized (this) {
+            connecting--;
+        }
+        signal();
+    }
+
+    /**
+     * Registers a waiter which will be woken up once a connect may be permitted.
+     *
+     * @param waiter waiter which returns whether it was still waiting
+     */
+    void await(BooleanSupplier waiter) {
+        synchronized (this) {
+            waiters.add(waiter);
+        }
+        signal();
+    }
+
+    /**
+     * Wakes up the first waiter if a connect may be permitted now, or schedules to do it after the interval.
+     */
+    void signal() {
+        for (;;) {
+            final BooleanSupplier waiter;
+            synchronized (this) {
+                if (waiters.isEmpty() || (maxConnecting > 0 && connecting >= maxConnecting)) {
+                    return;
+                }
+                final long delay = intervalNanos > 0L ? nextPermitNanos - System.nanoTime() : 0L;
+                if (delay > 0L) {
+                    if (!wakeUpScheduled) {
+                        wakeUpScheduled = true;
+                        executor.schedule(this::wakeUp, delay, TimeUnit.NANOSECONDS);
+                    }
+                    return;
+                }
+                waiter = waiters.poll();
+            }
+            if (waiter.getAsBoolean()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     *
+     * @return the number of connects in flight
+     */
+    synchronized int connecting() {
+        return connecting;
+    }
+
+    private void wakeUp() {
+        synchronized (this) {
+            wakeUpScheduled = false;
+        }
+        signal();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.Future;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ChannelHealthChecker} which also treats the connections that have been idle for too long, or which the
+ * server is about to close according to its {@code Keep-Alive} hints, as unhealthy. These connections may have been
+ * silently dropped by the server or a load balancer although they are still active on our side.
+ */
+final class ConnectionHealthChecker implements ChannelHealthChecker {
+
+    private final long idleTimeoutNanos;
+
+    ConnectionHealthChecker(int idleTimeoutMillis) {
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    }
+
+    @Override
+    public Future<Boolean> isHealthy(Channel channel) {
+        final EventLoop loop = channel.eventLoop();
+        if (!channel.isActive()) {
+            return loop.newSucceededFuture(Boolean.FALSE);
+        }
+        final ConnectionState state = ConnectionState.of(channel);
+        return loop.newSucceededFuture(state == null || state.isReusable(System.nanoTime(), idleTimeoutNanos)
+                ? Boolean.TRUE : Boolean.FALSE);
+    }
+}
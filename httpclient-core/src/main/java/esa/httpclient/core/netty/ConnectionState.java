@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+/**
+ * The lifecycle state of a pooled connection, which decides whether the connection could be handed out again.
+ */
+final class ConnectionState {
+
+    static final AttributeKey<ConnectionState> KEY = AttributeKey.valueOf("$connection.state");
+
+    private final long createdNanos;
+
+    /**
+     * The max lifetime of the connection, 0 means no limit.
+     */
+    private final long lifetimeNanos;
+
+    /**
+     * The max number of requests sent over the connection, 0 means no limit.
+     */
+    private final int maxRequests;
+
+    private volatile boolean inUse;
+    private volatile long lastUsedNanos;
+
+    /**
+     * Only updated by the single holder of the connection, so there is no need of atomicity.
+     */
+    private volatile int requests;
+
+    /**
+     * The last round-trip time measured by PING frames, -1 means unknown.
+     */
+    private volatile long rttNanos = -1L;
+
+    /**
+     * The time the server keeps the connection open after a response, as announced by {@code Keep-Alive: timeout=},
+     * which has been shortened by a safety margin. -1 means unknown.
+     */
+    private volatile long keepAliveNanos = -1L;
+
+    /**
+     * The number of requests the server would still accept on the connection, as announced by
+     * {@code Keep-Alive: max=}. -1 means unknown.
+     */
+    private volatile int remainingRequests = -1;
+
+    ConnectionState(long createdNanos) {
+        this(createdNanos, 0L, 0);
+    }
+
+    ConnectionState(long createdNanos, long lifetimeNanos, int maxRequests) {
+        this.createdNanos = createdNanos;
+        this.lifetimeNanos = lifetimeNanos;
+        this.maxRequests = maxRequests;
+        this.lastUsedNanos = createdNanos;
+    }
+
+    static ConnectionState of(Channel channel) {
+        return channel.hasAttr(KEY) ? channel.attr(KEY).get() : null;
+    }
+
+    void onAcquired() {
+        inUse = true;
+        requests++;
+        // Count down the requests the server still accepts until it tells us a new value.
+        final int remaining = remainingRequests;
+        if (remaining > 0) {
+            remainingRequests = remaining - 1;
+        }
+    }
+
+    void onReleased(long nowNanos) {
+        lastUsedNanos = nowNanos;
+        inUse = false;
+    }
+
+    void keepAlive(long keepAliveNanos, int remainingRequests) {
+        this.keepAliveNanos = keepAliveNanos;
+        this.remainingRequests = remainingRequests;
+    }
+
+    void rttNanos(long rttNanos) {
+        this.rttNanos = rttNanos;
+    }
+
+    long rttNanos() {
+        return rttNanos;
+    }
+
+    boolean isInUse() {
+        return inUse;
+    }
+
+    long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    /**
+     * Whether the connection has outlived its max lifetime.
+     *
+     * @param nowNanos  current time in nanos
+     * @return          {@code true} if expired, otherwise {@code false}
+     */
+    boolean isExpired(long nowNanos) {
+        return lifetimeNanos > 0L && nowNanos - createdNanos >= lifetimeNanos;
+    }
+
+    /**
+     * The remaining lifetime of the connection.
+     *
+     * @param nowNanos  current time in nanos
+     * @return          remaining lifetime in nanos, or {@link Long#MAX_VALUE} if the lifetime is unlimited
+     */
+    long remainingLifetimeNanos(long nowNanos) {
+        return lifetimeNanos > 0L ? Math.max(0L, lifetimeNanos - (nowNanos - createdNanos)) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether the connection should be retired for having outlived its max lifetime or served its max number of
+     * requests, in which case the request in flight is supposed to be the last one.
+     *
+     * @param nowNanos  current time in nanos
+     * @return          {@code true} if retired, otherwise {@code false}
+     */
+    boolean isRetired(long nowNanos) {
+        return isExpired(nowNanos) || (maxRequests > 0 && requests >= maxRequests);
+    }
+
+    /**
+     * Whether the connection which is idle in the pool is still reusable. A connection in use is always reusable.
+     *
+     * @param nowNanos          current time in nanos
+     * @param idleTimeoutNanos  max idle time in nanos, 0 means no limit
+     * @return                  {@code true} if reusable, otherwise {@code false}
+     */
+    boolean isReusable(long nowNanos, long idleTimeoutNanos) {
+        if (inUse) {
+            return true;
+        }
+        if (remainingRequests == 0 || isRetired(nowNanos)) {
+            return false;
+        }
+        final long idle = nowNanos - lastUsedNanos;
+        if (idleTimeoutNanos > 0L && idle >= idleTimeoutNanos) {
+            return false;
+        }
+        return keepAliveNanos < 0L || idle < keepAliveNanos;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package esa.httpclient.core.netty;
 
+import esa.commons.http.HttpHeaderNames;
 import esa.commons.http.HttpHeaders;
 import esa.commons.netty.core.Buffer;
 import esa.commons.netty.core.BufferImpl;
@@ -24,6 +25,7 @@ import esa.httpclient.core.Handle;
 import esa.httpclient.core.HttpRequest;
 import esa.httpclient.core.HttpResponse;
 import esa.httpclient.core.Listener;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
@@ -33,31 +35,70 @@ import java.util.function.Consumer;
 
 import static esa.httpclient.core.netty.Utils.tryRelease;
 
+/**
+ * Aggregates the body of a response. By default the body is gathered into a {@link CompositeByteBuf} and copied onto
+ * the heap at the end. If the body is pooled, the {@link CompositeByteBuf} itself, or a single buffer which is
+ * presized by the {@code Content-Length} of the response, is handed over to the response without copying, which is
+ * released by {@link HttpResponse#close()}.
+ */
 public class DefaultHandle extends NettyHandle {
 
     private static final int MAX_COMPOSITE_BUFFER_COMPONENTS = 1024;
 
-    private CompositeByteBuf body;
+    /**
+     * The max {@code Content-Length} to presize the buffer of a pooled body, so that a bogus one never leads to a
+     * huge allocation before any content has arrived.
+     */
+    private static final long MAX_PRESIZED_LENGTH = 8L * 1024L * 1024L;
+
+    private ByteBuf body;
 
     DefaultHandle(HttpRequest request,
                   Context ctx,
                   Listener listener,
                   CompletableFuture<HttpResponse> response,
                   ByteBufAllocator alloc) {
+        this(request, ctx, listener, response, alloc, false);
+    }
+
+    DefaultHandle(HttpRequest request,
+                  Context ctx,
+                  Listener listener,
+                  CompletableFuture<HttpResponse> response,
+                  ByteBufAllocator alloc,
+                  boolean pooled) {
         super(request, ctx, listener, response);
 
+        if (pooled) {
+            this.start = (v) -> {
+                final long contentLength = contentLength(super.underlying.headers());
+                if (contentLength > 0L && contentLength <= MAX_PRESIZED_LENGTH) {
+                    body = alloc.buffer((int) contentLength);
+                }
+            };
+        }
+
         this.data = (d) -> {
             if (d.isReadable()) {
                 if (body == null) {
                     body = alloc.compositeBuffer(MAX_COMPOSITE_BUFFER_COMPONENTS);
                 }
-                body.addComponent(true, d.getByteBuf().retain());
+                if (body instanceof CompositeByteBuf) {
+                    ((CompositeByteBuf) body).addComponent(true, d.getByteBuf().retain());
+                } else {
+                    body.writeBytes(d.getByteBuf());
+                }
             }
         };
 
         this.end = (v) -> {
             if (body == null) {
                 super.underlying.body(Buffers.EMPTY_BUFFER);
+            } else if (pooled) {
+                // Hand over to the response.
+                final ByteBuf buf = body;
+                body = null;
+                super.underlying.pooledBody(buf);
             } else {
                 super.underlying.body(new BufferImpl(Unpooled.copiedBuffer(body)));
             }
@@ -81,6 +122,18 @@ public class DefaultHandle extends NettyHandle {
         }
     }
 
+    private static long contentLength(HttpHeaders headers) {
+        final String value = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+        if (value == null) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
     @Override
     public Handle onStart(Consumer<Void> h) {
         // Do nothing
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.config.LoadBalanceStrategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks one of the resolved addresses of a host for each request, by the {@link EndpointStats} of the addresses.
+ */
+abstract class EndpointBalancer {
+
+    /**
+     * Creates a {@link EndpointBalancer} of the given strategy.
+     *
+     * @param strategy strategy
+     * @return balancer
+     */
+    static EndpointBalancer of(LoadBalanceStrategy strategy) {
+        Checks.checkNotNull(strategy, "LoadBalanceStrategy must not be null");
+        switch (strategy) {
+            case LEAST_REQUESTS:
+                return new LeastRequests();
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoices();
+            case LATENCY_EWMA:
+                return new LatencyEwma();
+            default:
+                return new RoundRobin();
+        }
+    }
+
+    /**
+     * Picks one of the given addresses.
+     *
+     * @param endpoints the statistics of the addresses, which must not be empty
+     * @return index of the picked one
+     */
+    abstract int select(EndpointStats[] endpoints);
+
+    private static final class RoundRobin extends EndpointBalancer {
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Override
+        int select(EndpointStats[] endpoints) {
+            return Math.floorMod(next.getAndIncrement(), endpoints.length);
+        }
+    }
+
+    private static final class LeastRequests extends EndpointBalancer {
+
+        @Override
+        int select(EndpointStats[] endpoints) {
+            // Scan from a random position, so that the ties are not always broken in favor of the first one.
+            final int start = ThreadLocalRandom.current().nextInt(endpoints.length);
+            int selected = start;
+            int least = endpoints[start].outstanding();
+            for (int i = 1; i < endpoints.length && least > 0; i++) {
+                final int index = (start + i) % endpoints.length;
+                final int outstanding = endpoints[index].outstanding();
+                if (outstanding < least) {
+                    selected = index;
+                    least = outstanding;
+                }
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * Picks two distinct addresses randomly and compares them.
+     */
+    private abstract static class TwoChoices extends EndpointBalancer {
+
+        @Override
+        int select(EndpointStats[] endpoints) {
+            if (endpoints.length == 1) {
+                return 0;
+            }
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int a = random.nextInt(endpoints.length);
+            int b = random.nextInt(endpoints.length - 1);
+            if (b >= a) {
+                b++;
+            }
+            return isBetter(endpoints[a], endpoints[b]) ? a : b;
+        }
+
+        abstract boolean isBetter(EndpointStats a, EndpointStats b);
+    }
+
+    private static final class PowerOfTwoChoices extends TwoChoices {
+
+        @Override
+        boolean isBetter(EndpointStats a, EndpointStats b) {
+            return a.outstanding() <= b.outstanding();
+        }
+    }
+
+    private static final class LatencyEwma extends TwoChoices {
+
+        @Override
+        boolean isBetter(EndpointStats a, EndpointStats b) {
+            final double latencyA = a.latency();
+            final double latencyB = b.latency();
+            final int outstandingA = a.outstanding();
+            final int outstandingB = b.outstanding();
+            if (latencyA < 0.0D || latencyB < 0.0D) {
+                // Not measured yet, which is preferred unless it's busier.
+                return outstandingA < outstandingB || (outstandingA == outstandingB && latencyA < 0.0D);
+            }
+            return latencyA * (outstandingA + 1) <= latencyB * (outstandingB + 1);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.util.Futures;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of a resolved address of a host, which are consulted by {@link EndpointBalancer} to pick an
+ * address for each request. The outstanding requests are counted by the pool of the address, and the latency is
+ * recorded by the transceiver through the channels connected to the address.
+ *
+ * If a {@link OutlierDetector} is given, the failed connects, the read timeouts and the 5xx responses are counted
+ * as failures, and the address is ejected once it has failed too many times in a row.
+ */
+class EndpointStats {
+
+    /**
+     * The statistics of the address which the channel is connected to.
+     */
+    static final AttributeKey<EndpointStats> ENDPOINT_STATS = AttributeKey.valueOf("$endpoint.stats");
+
+    /**
+     * The time constant of the latency average, the weight of a sample decays to 1/e after that.
+     */
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10L);
+
+    private final OutlierDetector detector;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double latency = -1.0D;
+    private long lastUpdate;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * The time in nanoseconds until which the address is ejected, or 0 if it's not ejected.
+     */
+    private final AtomicLong ejectedUntil = new AtomicLong();
+    private volatile int ejections;
+
+    EndpointStats() {
+        this(null);
+    }
+
+    EndpointStats(OutlierDetector detector) {
+        this.detector = detector;
+    }
+
+    /**
+     * Records the latency and the failures of the responses to the requests written to the given channel, if it's
+     * connected to an address with statistics.
+     *
+     * @param channel  channel
+     * @param response response
+     */
+    static void record(Channel channel, CompletableFuture<? extends HttpResponse> response) {
+        if (!channel.hasAttr(ENDPOINT_STATS)) {
+            return;
+        }
+        final EndpointStats stats = channel.attr(ENDPOINT_STATS).get();
+        if (stats == null) {
+            return;
+        }
+        final long startTime = System.nanoTime();
+        response.whenComplete((r, th) -> {
+            if (th == null) {
+                stats.onResponded(System.nanoTime() - startTime);
+                if (r.status() >= 500) {
+                    stats.onFailed();
+                } else {
+                    stats.onSucceeded();
+                }
+            } else if (Futures.unwrapped(th) instanceof SocketTimeoutException) {
+                // Read timeout
+                stats.onFailed();
+            }
+        });
+    }
+
+    void onStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    void onFinished() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Updates the exponentially weighted moving average of the latency, whose weights decay by time rather than by
+     * the number of samples, so that an address with few requests is never stuck with a stale average.
+     *
+     * @param latencyNanos latency in nanoseconds
+     */
+    synchronized void onResponded(long latencyNanos) {
+        final long now = System.nanoTime();
+        if (latency < 0.0D) {
+            latency = latencyNanos;
+        } else {
+            final double w = Math.exp(-Math.max(0L, now - lastUpdate) / DECAY_NANOS);
+            latency = latency * w + latencyNanos * (1.0D - w);
+        }
+        lastUpdate = now;
+    }
+
+    void onSucceeded() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (ejections != 0 && ejectedUntil.get() == 0L) {
+            ejections = 0;
+        }
+    }
+
+    void onFailed() {
+        if (detector != null && consecutiveFailures.incrementAndGet() >= detector.consecutiveFailures) {
+            tryEject();
+        }
+    }
+
+    /**
+     * Whether the address is ejected from the load balancing, and brings it back once the ejection is over.
+     *
+     * @return {@code true} if it's ejected
+     */
+    boolean isEjected() {
+        final long until = ejectedUntil.get();
+        if (until == 0L) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0L) {
+            return true;
+        }
+        if (ejectedUntil.compareAndSet(until, 0L)) {
+            consecutiveFailures.set(0);
+            detector.onReturned();
+        }
+        return false;
+    }
+
+    /**
+     * Brings the address back at once, which is done when it's removed.
+     */
+    void clearEjection() {
+        final long until = ejectedUntil.get();
+        if (until != 0L && ejectedUntil.compareAndSet(until, 0L)) {
+            detector.onReturned();
+        }
+    }
+
+    private void tryEject() {
+        if (ejectedUntil.get() != 0L || !detector.tryEject()) {
+            return;
+        }
+        final int n = Math.min(ejections + 1, OutlierDetector.MAX_EJECTION_MULTIPLIER);
+        // Never 0, which means not ejected.
+        final long until = (System.nanoTime() + detector.ejectionTimeNanos * n) | 1L;
+        if (ejectedUntil.compareAndSet(0L, until)) {
+            ejections = n;
+            consecutiveFailures.set(0);
+        } else {
+            detector.onReturned();
+        }
+    }
+
+    /**
+     * @return the number of requests which have acquired or are acquiring a connection to the address
+     */
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * @return the average latency in nanoseconds, or a negative value if it has not been measured yet
+     */
+    double latency() {
+        return latency;
+    }
+}
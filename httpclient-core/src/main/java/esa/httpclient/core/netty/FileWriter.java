@@ -142,6 +142,7 @@ class FileWriter extends RequestWriterImpl<FileRequest> {
                 try {
                     doWriteContent2(request.file(),
                             channel,
+                            handler,
                             streamId,
                             endPromise);
                 } catch (IOException e) {
@@ -154,6 +155,7 @@ class FileWriter extends RequestWriterImpl<FileRequest> {
                 try {
                     doWriteContent2(request.file(),
                             channel,
+                            handler,
                             streamId,
                             endPromise);
                 } catch (IOException ex) {
@@ -167,6 +169,7 @@ class FileWriter extends RequestWriterImpl<FileRequest> {
 
     private static void doWriteContent2(File file,
                                         Channel channel,
+                                        Http2ConnectionHandler handler,
                                         int streamId,
                                         ChannelPromise endPromise) throws IOException {
         // Writes http2 content
@@ -174,7 +177,8 @@ class FileWriter extends RequestWriterImpl<FileRequest> {
         try {
             RandomAccessFile rFile = new RandomAccessFile(file, MODE_READ);
             chunked = new ChunkedFile(rFile);
-            cleanAndLog(channel.writeAndFlush(new Http2ChunkedInput(chunked, streamId), endPromise), chunked);
+            cleanAndLog(channel.writeAndFlush(new Http2ChunkedInput(chunked, streamId, handler), endPromise),
+                    chunked);
         } catch (Throwable th) {
             final IOException ex;
             if (th instanceof IOException) {
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.netty.PendingAcquireQueue.PendingAcquire;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link ChannelPool} which lets at most as many acquisitions as its limit through to an underlying
+ * {@link MeteredChannelPool} at the same time, while the others wait in a {@link PendingAcquireQueue}, so that they
+ * are served by their priorities, and the ones which have been cancelled or have passed their deadlines never take
+ * a connection. The connections are established by and owned by the underlying pool whose size is the max size.
+ *
+ * The state of this pool is only accessed on its executor.
+ */
+class GatedChannelPool implements AsyncCloseablePool {
+
+    private final MeteredChannelPool underlying;
+    final EventExecutor executor;
+    private final ChannelPoolMetricImpl metric;
+    private final long acquireTimeoutNanos;
+    private final PendingAcquireQueue pendingAcquires;
+    private int limit;
+    private int acquired;
+    private boolean closed;
+
+    GatedChannelPool(Bootstrap bootstrap,
+                     ChannelPoolHandler handler,
+                     ChannelHealthChecker healthCheck,
+                     long acquireTimeoutMillis,
+                     int limit,
+                     int maxConnections,
+                     int maxPendingAcquires,
+                     ChannelPoolMetricImpl metric,
+                     ConnectLimiter limiter) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, limit, maxConnections, maxPendingAcquires,
+                metric, limiter, null);
+    }
+
+    GatedChannelPool(Bootstrap bootstrap,
+                     ChannelPoolHandler handler,
+                     ChannelHealthChecker healthCheck,
+                     long acquireTimeoutMillis,
+                     int limit,
+                     int maxConnections,
+                     int maxPendingAcquires,
+                     ChannelPoolMetricImpl metric,
+                     ConnectLimiter limiter,
+                     HappyEyeballsConnector connector) {
+        Checks.checkNotNull(bootstrap, "Bootstrap must not be null");
+        Checks.checkNotNull(metric, "ChannelPoolMetric must not be null");
+        Checks.checkArg(limit >= 1, "limit is " + limit + " (expected >= 1)");
+        Checks.checkArg(maxConnections >= limit, "maxConnections is " + maxConnections +
+                " (expected >= limit)");
+        Checks.checkArg(maxPendingAcquires >= 1, "maxPendingAcquires is " + maxPendingAcquires +
+                " (expected >= 1)");
+        this.underlying = new MeteredChannelPool(bootstrap,
+                handler,
+                healthCheck,
+                FixedChannelPool.AcquireTimeoutAction.FAIL,
+                acquireTimeoutMillis,
+                maxConnections,
+                maxPendingAcquires,
+                metric,
+                false,
+                limiter,
+                connector);
+        this.executor = bootstrap.config().group().next();
+        this.metric = metric;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        this.pendingAcquires = new PendingAcquireQueue(maxPendingAcquires);
+        this.limit = limit;
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(executor.newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        Checks.checkNotNull(promise, "Promise must not be null");
+        final long startTime = System.nanoTime();
+        metric.onAcquireStarted();
+        promise.addListener(f -> {
+            if (f.isSuccess()) {
+                metric.onAcquired(System.nanoTime() - startTime);
+            } else {
+                metric.onAcquireFailed(f.cause() instanceof TimeoutException);
+            }
+        });
+        execute(() -> acquire0(promise, startTime + acquireTimeoutNanos));
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        return release(channel, channel.eventLoop().newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        Checks.checkNotNull(promise, "Promise must not be null");
+        metric.onReleased();
+        underlying.release(channel, promise).addListener(f -> execute(this::releasePermit));
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        closeAsync().awaitUninterruptibly();
+    }
+
+    /**
+     * Fails the pending acquisitions and closes the underlying pool asynchronously.
+     *
+     * @return future which will be completed after the underlying pool has been closed
+     */
+    @Override
+    public Future<Void> closeAsync() {
+        final Promise<Void> closeFuture = GlobalEventExecutor.INSTANCE.newPromise();
+        execute(() -> {
+            if (!closed) {
+                closed = true;
+                pendingAcquires.failAll(new IllegalStateException("ChannelPool was closed"));
+            }
+            AsyncCloseablePool.cascade(underlying.closeAsync(), closeFuture);
+        });
+        return closeFuture;
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     *
+     * @return current size limit
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Changes the size limit, which should be called on the executor.
+     *
+     * @param limit new limit
+     */
+    void limit(int limit) {
+        this.limit = limit;
+        dispatch();
+    }
+
+    int acquired() {
+        return acquired;
+    }
+
+    int pendingAcquires() {
+        return pendingAcquires.size();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Called before the number of acquired connections changes.
+     */
+    void beforePermitChange() {
+    }
+
+    /**
+     * Called after an acquisition starts waiting.
+     */
+    void onQueued() {
+    }
+
+    private void acquire0(Promise<Channel> promise, long deadline) {
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+            return;
+        }
+        if (acquired < limit && pendingAcquires.isEmpty()) {
+            grant(promise);
+            return;
+        }
+
+        final PendingAcquire pending = new PendingAcquire(promise, deadline);
+        if (!pendingAcquires.offer(pending)) {
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+            return;
+        }
+        pending.timeout = executor.schedule(() -> {
+            if (pendingAcquires.remove(pending)) {
+                pending.promise.tryFailure(new TimeoutException(
+                        "Acquire operation took longer than configured maximum time"));
+            }
+        }, Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        // Leave the queue once the caller has given up, rather than holding a place in it until the timeout.
+        promise.addListener(f -> {
+            if (f.isCancelled()) {
+                execute(() -> {
+                    if (pendingAcquires.remove(pending)) {
+                        pending.timeout.cancel(false);
+                    }
+                });
+            }
+        });
+        onQueued();
+    }
+
+    private void grant(Promise<Channel> promise) {
+        beforePermitChange();
+        acquired++;
+        final Future<Channel> acquire = underlying.acquire();
+        acquire.addListener(f -> {
+            if (!acquire.isSuccess()) {
+                promise.tryFailure(acquire.cause());
+                execute(this::releasePermit);
+            } else if (!promise.trySuccess(acquire.getNow())) {
+                // Cancelled
+                underlying.release(acquire.getNow()).addListener(rf -> execute(this::releasePermit));
+            }
+        });
+    }
+
+    private void releasePermit() {
+        beforePermitChange();
+        acquired--;
+        dispatch();
+    }
+
+    private void dispatch() {
+        PendingAcquire pending;
+        while (!closed && acquired < limit && (pending = pendingAcquires.poll(System.nanoTime())) != null) {
+            grant(pending.promise);
+        }
+    }
+
+    void execute(Runnable task) {
+        if (executor.inEventLoop()) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+}
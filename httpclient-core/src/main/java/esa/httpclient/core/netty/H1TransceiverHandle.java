@@ -25,9 +25,15 @@ import io.netty.channel.Channel;
 import io.netty.channel.pool.ChannelPool;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 class H1TransceiverHandle implements TransceiverHandle {
 
+    /**
+     * The max margin to retire a connection before the server closes it after the {@code Keep-Alive: timeout=}.
+     */
+    private static final long KEEP_ALIVE_MARGIN_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
     @Override
     public TimeoutHandle buildTimeoutHandle(Channel channel,
                                             ChannelPool channelPool,
@@ -78,6 +84,9 @@ class H1TransceiverHandle implements TransceiverHandle {
         public void onCompleted(HttpRequest request, Context ctx, HttpResponse response) {
             if (closeNow(response, version)) {
                 channel.close();
+            } else if (!applyKeepAlive(ConnectionState.of(channel),
+                    response.headers().get(io.netty.handler.codec.http.HttpHeaderNames.KEEP_ALIVE))) {
+                channel.close();
             }
             channelPool.release(channel);
 
@@ -103,4 +112,43 @@ class H1TransceiverHandle implements TransceiverHandle {
         }
     }
 
+    /**
+     * Applies the {@code Keep-Alive: timeout=, max=} hints of the server to the state of the connection, so that
+     * the connection could be retired before the server closes it.
+     *
+     * @param state         state of connection, maybe null
+     * @param keepAlive     value of the Keep-Alive header, maybe null
+     * @return              {@code false} if the server would not accept any more requests on the connection,
+     *                      otherwise {@code true}
+     */
+    static boolean applyKeepAlive(ConnectionState state, String keepAlive) {
+        if (state == null || keepAlive == null) {
+            return true;
+        }
+
+        long keepAliveNanos = -1L;
+        int max = -1;
+        for (String param : keepAlive.split(",")) {
+            final int idx = param.indexOf('=');
+            if (idx <= 0) {
+                continue;
+            }
+            final String name = param.substring(0, idx).trim();
+            final String value = param.substring(idx + 1).trim();
+            try {
+                if ("timeout".equalsIgnoreCase(name)) {
+                    final long timeout = TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+                    keepAliveNanos = Math.max(0L, timeout - Math.min(KEEP_ALIVE_MARGIN_NANOS, timeout / 2));
+                } else if ("max".equalsIgnoreCase(name)) {
+                    max = Integer.parseInt(value);
+                }
+            } catch (NumberFormatException ignored) {
+                // Malformed hints are ignored, as if absent.
+            }
+        }
+
+        state.keepAlive(keepAliveNanos, max);
+        return max != 0;
+    }
+
 }
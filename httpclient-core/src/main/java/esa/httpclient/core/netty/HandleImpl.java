@@ -21,6 +21,7 @@ import esa.commons.http.HttpVersion;
 import esa.commons.netty.core.Buffer;
 import esa.httpclient.core.Handle;
 import esa.httpclient.core.Handler;
+import org.reactivestreams.Publisher;
 
 import java.util.function.Consumer;
 
@@ -34,6 +35,7 @@ class HandleImpl implements Handle {
     protected volatile Consumer<Throwable> error;
 
     volatile Consumer<Void> start;
+    volatile BodyPublisher publisher;
 
     HandleImpl(NettyResponse underlying) {
         Checks.checkNotNull(underlying, "NettyResponse must not be null");
@@ -88,6 +90,14 @@ class HandleImpl implements Handle {
         return this;
     }
 
+    @Override
+    public synchronized Publisher<Buffer> publisher() {
+        if (publisher == null) {
+            publisher = new BodyPublisher();
+        }
+        return publisher;
+    }
+
     @Override
     public Buffer body() {
         return underlying.body();
@@ -117,4 +127,9 @@ class HandleImpl implements Handle {
     public boolean aggregated() {
         return underlying.aggregated();
     }
+
+    @Override
+    public void close() {
+        underlying.close();
+    }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.resolver.HostResolver;
+import esa.httpclient.core.util.Futures;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Establishes a connection to a host by racing the connection attempts across all the resolved addresses of the
+ * host, see RFC 8305(Happy Eyeballs Version 2). The addresses are interleaved by address family, starting with the
+ * family of the first one, and the attempts are started one by one, each after the previous one has failed or
+ * the connection attempt delay has elapsed. The first connection established wins, and the other attempts are
+ * cancelled and closed. So that a blackholed address delays the connection by the attempt delay rather than the
+ * whole connect timeout.
+ *
+ * The remote addresses which have been resolved are connected directly.
+ */
+class HappyEyeballsConnector {
+
+    private final HostResolver resolver;
+    private final long attemptDelayNanos;
+
+    HappyEyeballsConnector(HostResolver resolver, long attemptDelayMillis) {
+        Checks.checkNotNull(resolver, "HostResolver must not be null");
+        Checks.checkArg(attemptDelayMillis >= 1L, "attemptDelayMillis is " + attemptDelayMillis +
+                " (expected >= 1)");
+        this.resolver = resolver;
+        this.attemptDelayNanos = TimeUnit.MILLISECONDS.toNanos(attemptDelayMillis);
+    }
+
+    /**
+     * Creates a {@link HappyEyeballsConnector} if the attempt delay is positive.
+     *
+     * @param attemptDelayMillis connection attempt delay, 0 means disabled
+     * @param resolver           resolver
+     * @return connector, or {@code null} if it's disabled
+     */
+    static HappyEyeballsConnector of(int attemptDelayMillis, HostResolver resolver) {
+        if (attemptDelayMillis <= 0 || resolver == null) {
+            return null;
+        }
+        return new HappyEyeballsConnector(resolver, attemptDelayMillis);
+    }
+
+    /**
+     * Connects to the remote address of the given bootstrap.
+     *
+     * @param bs bootstrap
+     * @return future whose {@link ChannelFuture#channel()} is the winner once it has succeeded
+     */
+    ChannelFuture connect(Bootstrap bs) {
+        final SocketAddress remoteAddress = bs.config().remoteAddress();
+        if (!(remoteAddress instanceof InetSocketAddress) || !((InetSocketAddress) remoteAddress).isUnresolved()) {
+            return bs.connect();
+        }
+
+        final InetSocketAddress unresolved = (InetSocketAddress) remoteAddress;
+        final Race race = new Race(bs, unresolved.getPort());
+        CompletableFuture<List<InetAddress>> resolved;
+        try {
+            resolved = resolver.resolveAddresses(unresolved.getHostString());
+        } catch (Throwable th) {
+            resolved = Futures.completed(th);
+        }
+        resolved.whenComplete((addresses, th) -> race.executor.execute(() -> {
+            if (th != null) {
+                race.future.tryFailure(Futures.unwrapped(th));
+            } else if (addresses == null || addresses.isEmpty()) {
+                race.future.tryFailure(new UnknownHostException("Failed to resolve '" +
+                        unresolved.getHostString() + "'"));
+            } else {
+                race.start(interleave(addresses));
+            }
+        }));
+        return race.future;
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     *
+     * @param bs      bootstrap
+     * @param address resolved address
+     * @return future of the attempt
+     */
+    ChannelFuture connect(Bootstrap bs, InetSocketAddress address) {
+        return bs.connect(address);
+    }
+
+    /**
+     * Interleaves the addresses by address family, starting with the family of the first one, see RFC 8305
+     * section 4.
+     *
+     * @param addresses addresses
+     * @return interleaved addresses
+     */
+    static List<InetAddress> interleave(List<InetAddress> addresses) {
+        final boolean preferIpv6 = addresses.get(0) instanceof Inet6Address;
+        final List<InetAddress> preferred = new ArrayList<>(addresses.size());
+        final List<InetAddress> others = new ArrayList<>(addresses.size());
+        for (InetAddress address : addresses) {
+            if ((address instanceof Inet6Address) == preferIpv6) {
+                preferred.add(address);
+            } else {
+                others.add(address);
+            }
+        }
+
+        final List<InetAddress> interleaved = new ArrayList<>(addresses.size());
+        for (int i = 0; i < Math.max(preferred.size(), others.size()); i++) {
+            if (i < preferred.size()) {
+                interleaved.add(preferred.get(i));
+            }
+            if (i < others.size()) {
+                interleaved.add(others.get(i));
+            }
+        }
+        return interleaved;
+    }
+
+    /**
+     * The attempts of a connection, whose state is only accessed on its executor.
+     */
+    private final class Race {
+
+        private final Bootstrap bs;
+        private final int port;
+        private final EventExecutor executor;
+        private final ConnectFuture future;
+        private final List<ChannelFuture> attempts = new ArrayList<>();
+        private List<InetAddress> addresses;
+        private int failed;
+        private ScheduledFuture<?> nextAttempt;
+
+        private Race(Bootstrap bs, int port) {
+            this.bs = bs;
+            this.port = port;
+            this.executor = bs.config().group().next();
+            this.future = new ConnectFuture(executor);
+            // Cancelled by the caller
+            future.addListener(f -> {
+                if (f.isCancelled()) {
+                    executor.execute(this::cancelAttempts);
+                }
+            });
+        }
+
+        private void start(List<InetAddress> addresses) {
+            this.addresses = addresses;
+            startNextAttempt();
+        }
+
+        private void startNextAttempt() {
+            if (future.isDone() || attempts.size() >= addresses.size()) {
+                return;
+            }
+
+            final InetSocketAddress address = new InetSocketAddress(addresses.get(attempts.size()), port);
+            final ChannelFuture attempt;
+            try {
+                attempt = connect(bs, address);
+            } catch (Throwable th) {
+                future.tryFailure(th);
+                cancelAttempts();
+                return;
+            }
+            attempts.add(attempt);
+            if (future.channel == null) {
+                future.channel = attempt.channel();
+            }
+            attempt.addListener(f -> executor.execute(() -> onAttemptDone(attempt)));
+            if (attempts.size() < addresses.size()) {
+                nextAttempt = executor.schedule(this::startNextAttempt, attemptDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void onAttemptDone(ChannelFuture attempt) {
+            if (attempt.isSuccess()) {
+                if (future.isDone()) {
+                    // Lost the race
+                    attempt.channel().close();
+                    return;
+                }
+                future.channel = attempt.channel();
+                future.trySuccess(null);
+                cancelAttempts();
+                return;
+            }
+
+            if (++failed < addresses.size()) {
+                // Start the next attempt at once if all the started ones have failed.
+                if (failed == attempts.size()) {
+                    nextAttempt.cancel(false);
+                    startNextAttempt();
+                }
+                return;
+            }
+            future.tryFailure(attempt.cause());
+        }
+
+        /**
+         * Cancels and closes all the attempts but the winner.
+         */
+        private void cancelAttempts() {
+            if (nextAttempt != null) {
+                nextAttempt.cancel(false);
+            }
+            for (ChannelFuture attempt : attempts) {
+                if (future.isSuccess() && attempt.channel() == future.channel) {
+                    continue;
+                }
+                attempt.cancel(false);
+                attempt.channel().close();
+            }
+        }
+    }
+
+    /**
+     * A {@link ChannelFuture} whose channel is the one of the winning attempt.
+     */
+    private static final class ConnectFuture extends DefaultPromise<Void> implements ChannelFuture {
+
+        private volatile Channel channel;
+
+        private ConnectFuture(EventExecutor executor) {
+            super(executor);
+        }
+
+        @Override
+        public Channel channel() {
+            return channel;
+        }
+
+        @Override
+        public ConnectFuture addListener(GenericFutureListener<? extends io.netty.util.concurrent.Future<?
+                super Void>> listener) {
+            super.addListener(listener);
+            return this;
+        }
+
+        @SafeVarargs
+        @Override
+        public final ConnectFuture addListeners(GenericFutureListener<? extends io.netty.util.concurrent.Future<?
+                super Void>>... listeners) {
+            super.addListeners(listeners);
+            return this;
+        }
+
+        @Override
+        public ConnectFuture removeListener(GenericFutureListener<? extends io.netty.util.concurrent.Future<?
+                super Void>> listener) {
+            super.removeListener(listener);
+            return this;
+        }
+
+        @SafeVarargs
+        @Override
+        public final ConnectFuture removeListeners(GenericFutureListener<? extends io.netty.util.concurrent.Future<?
+                super Void>>... listeners) {
+            super.removeListeners(listeners);
+            return this;
+        }
+
+        @Override
+        public ConnectFuture sync() throws InterruptedException {
+            super.sync();
+            return this;
+        }
+
+        @Override
+        public ConnectFuture syncUninterruptibly() {
+            super.syncUninterruptibly();
+            return this;
+        }
+
+        @Override
+        public ConnectFuture await() throws InterruptedException {
+            super.await();
+            return this;
+        }
+
+        @Override
+        public ConnectFuture awaitUninterruptibly() {
+            super.awaitUninterruptibly();
+            return this;
+        }
+
+        @Override
+        public boolean isVoid() {
+            return false;
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package esa.httpclient.core.netty;
 
 import esa.commons.Checks;
-import esa.commons.netty.core.BufferImpl;
 import esa.commons.netty.http.Http1HeadersAdaptor;
 import esa.httpclient.core.exception.ConnectionInactiveException;
 import esa.httpclient.core.exception.ContentOverSizedException;
@@ -40,6 +39,7 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     private final HandleRegistry registry;
     private final long maxContentLength;
+    private final InboundFlow flow = new AutoReadFlow();
     private ChannelHandlerContext ctx;
 
     private int reusableRequestId;
@@ -149,7 +149,7 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
                     }
                 }
 
-                handle.onData(new BufferImpl(readableBytes.duplicate()));
+                handle.onContent(readableBytes, flow);
                 if (exceeded) {
                     String errMsg = String.format("Content length exceeded %d bytes", maxContentLength);
                     onError(new ContentOverSizedException(errMsg), true);
@@ -189,6 +189,22 @@ class Http1ChannelHandler extends SimpleChannelInboundHandler<HttpObject> {
         return registry;
     }
 
+    /**
+     * Pushes back on the connection by toggling {@code autoRead}, as the responses over it are read one by one.
+     */
+    private final class AutoReadFlow implements InboundFlow {
+
+        @Override
+        public void pause() {
+            ctx.channel().config().setAutoRead(false);
+        }
+
+        @Override
+        public void resume() {
+            Utils.runInChannel(ctx.channel(), () -> ctx.channel().config().setAutoRead(true));
+        }
+    }
+
     private void handleDecodeError(Throwable cause) {
         final String errMsg = "Failed to decode response, channel: " + ctx.channel();
         onError(new ProtocolException(errMsg, cause), true);
@@ -17,24 +17,40 @@ package esa.httpclient.core.netty;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.handler.stream.ChunkedInput;
 
+/**
+ * Wraps the contents of a {@link ChunkedInput} into the data of a stream. If the {@link Http2ConnectionHandler} is
+ * given, the input is only read while the flow-control window of the stream is able to take more, and the transfer
+ * is resumed once the stream becomes writable again.
+ */
 final class Http2ChunkedInput implements ChunkedInput<Http2ChunkedInput.Content> {
 
     private final ChunkedInput<ByteBuf> input;
     private final int streamId;
+    private final Http2ConnectionHandler handler;
+    private boolean endOfStreamSent;
 
     Http2ChunkedInput(ChunkedInput<ByteBuf> input,
                       int streamId) {
+        this(input, streamId, null);
+    }
+
+    Http2ChunkedInput(ChunkedInput<ByteBuf> input,
+                      int streamId,
+                      Http2ConnectionHandler handler) {
         this.input = input;
         this.streamId = streamId;
+        this.handler = handler;
     }
 
     @Override
     public boolean isEndOfInput() throws Exception {
-        return input.isEndOfInput();
+        return input.isEndOfInput() && endOfStreamSent;
     }
 
     @Override
@@ -50,15 +66,22 @@ final class Http2ChunkedInput implements ChunkedInput<Http2ChunkedInput.Content>
 
     @Override
     public Content readChunk(ByteBufAllocator allocator) throws Exception {
-        ByteBuf buf = input.readChunk(allocator);
-        if (buf == null) {
+        if (endOfStreamSent || !isStreamWritable()) {
             return null;
         }
 
-        if (input.isEndOfInput()) {
-            return new Content(buf, streamId, true);
+        ByteBuf buf = input.readChunk(allocator);
+        final boolean endOfStream = input.isEndOfInput();
+        if (buf == null) {
+            if (!endOfStream) {
+                return null;
+            }
+            // The end of input is known after the last chunk, so that the end of stream has to be sent alone.
+            buf = Unpooled.EMPTY_BUFFER;
         }
-        return new Content(buf, streamId, false);
+
+        endOfStreamSent = endOfStream;
+        return new Content(buf, streamId, endOfStream);
     }
 
     @Override
@@ -71,6 +94,15 @@ final class Http2ChunkedInput implements ChunkedInput<Http2ChunkedInput.Content>
         return input.progress();
     }
 
+    private boolean isStreamWritable() {
+        if (handler == null) {
+            return true;
+        }
+
+        final Http2Stream stream = handler.connection().stream(streamId);
+        return stream == null || handler.encoder().flowController().isWritable(stream);
+    }
+
     static class Content extends DefaultHttpContent {
 
         final int streamId;
@@ -35,6 +35,8 @@ import static io.netty.handler.codec.http2.Http2Error.NO_ERROR;
 
 class Http2ConnectionHandler extends io.netty.handler.codec.http2.Http2ConnectionHandler {
 
+    static final String CHUNKED_WRITER = "h2ChunkedWriter";
+
     private final HandleRegistry registry;
     private volatile ChannelHandlerContext ctx;
 
@@ -54,7 +56,16 @@ class Http2ConnectionHandler extends io.netty.handler.codec.http2.Http2Connectio
         // add a ChunkedWriteHandler after Http2ConnectionChunkHandler
         // usually we use the Http2ConnectionChunkHandler#encoder() to write http2 response, and this
         // ChunkedWriteHandler we added here is used to handle the messages type of Http2ChunkedInput(eg. large file)
-        ctx.pipeline().addAfter(ctx.name(), "h2ChunkedWriter", new ChunkedWriteHandler());
+        final ChunkedWriteHandler chunkedWriter = new ChunkedWriteHandler();
+        ctx.pipeline().addAfter(ctx.name(), CHUNKED_WRITER, chunkedWriter);
+
+        // Resumes the Http2ChunkedInputs which have been suspended by the flow-control window of their streams,
+        // later in the event loop rather than while the flow controller is notifying.
+        encoder().flowController().listener(stream -> {
+            if (encoder().flowController().isWritable(stream)) {
+                ctx.executor().execute(chunkedWriter::resumeTransfer);
+            }
+        });
         super.handlerAdded(ctx);
     }
 
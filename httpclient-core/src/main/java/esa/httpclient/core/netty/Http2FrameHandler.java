@@ -16,11 +16,9 @@
 package esa.httpclient.core.netty;
 
 import esa.commons.Checks;
-import esa.commons.netty.core.BufferImpl;
 import esa.commons.netty.http.Http2HeadersAdaptor;
 import esa.httpclient.core.Context;
 import esa.httpclient.core.exception.ContentOverSizedException;
-import esa.httpclient.core.util.HttpHeadersUtils;
 import esa.httpclient.core.util.LoggerUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -70,7 +68,6 @@ class Http2FrameHandler extends Http2EventAdapter {
         final Http2Stream stream = connection.stream(streamId);
 
         headers.setInt(STREAM_ID.text(), streamId);
-        headers.addLong(HttpHeadersUtils.TTFB, System.currentTimeMillis());
         onHeaders(streamId, stream, headers, stream.getProperty(messageKey) != null, endOfStream);
     }
 
@@ -109,6 +106,7 @@ class Http2FrameHandler extends Http2EventAdapter {
         }
 
         final int readableBytes = data.readableBytes();
+        int processed = readableBytes;
         if (readableBytes > 0) {
             ByteBuf handledData;
             boolean exceeded = false;
@@ -125,11 +123,15 @@ class Http2FrameHandler extends Http2EventAdapter {
                     handle.remaining = 0L;
                 }
             }
-            handle.onData(new BufferImpl(handledData.duplicate()));
+            final InboundFlow flow = handle.publisher == null ? null : new StreamFlow(ctx, streamId);
+            if (handle.onContent(handledData, flow)) {
+                // The window is updated once the retained bytes have been consumed by the publisher.
+                processed = readableBytes - handledData.readableBytes();
+            }
             if (exceeded) {
                 String errMsg = String.format("Content length exceeded %d bytes", maxContentLength);
                 onError(new ContentOverSizedException(errMsg), null, streamId, true);
-                return readableBytes + padding;
+                return processed + padding;
             }
         }
 
@@ -142,8 +144,7 @@ class Http2FrameHandler extends Http2EventAdapter {
             registry.remove(streamId);
         }
 
-        // All bytes have been processed.
-        return readableBytes + padding;
+        return processed + padding;
     }
 
     @Override
@@ -274,4 +275,39 @@ class Http2FrameHandler extends Http2EventAdapter {
         return false;
     }
 
+    /**
+     * Pushes back on a stream by holding back the window update until the retained bytes have been consumed.
+     */
+    private final class StreamFlow implements InboundFlow {
+
+        private final ChannelHandlerContext ctx;
+        private final int streamId;
+
+        private StreamFlow(ChannelHandlerContext ctx, int streamId) {
+            this.ctx = ctx;
+            this.streamId = streamId;
+        }
+
+        @Override
+        public void consumed(int bytes) {
+            if (bytes <= 0) {
+                return;
+            }
+            Utils.runInChannel(ctx.channel(), () -> {
+                // The unconsumed bytes have been returned if the stream is closed.
+                final Http2Stream stream = connection.stream(streamId);
+                if (stream == null) {
+                    return;
+                }
+                try {
+                    if (connection.local().flowController().consumeBytes(stream, bytes)) {
+                        ctx.flush();
+                    }
+                } catch (Http2Exception ex) {
+                    LoggerUtils.logger().warn("Failed to consume " + bytes + " bytes of stream: " + streamId, ex);
+                }
+            });
+        }
+    }
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2FrameListener;
+import io.netty.handler.codec.http2.Http2FrameListenerDecorator;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a PING frame periodically on an idle http2 connection which has no active streams, so that the connection
+ * is kept alive from being killed by middleboxes, and the connection whose PING has not been acked in time is
+ * closed, after which it will be removed from the pool. The round-trip time of every PING is recorded.
+ *
+ * It starts after the first SETTINGS has been received from the peer, and all the state is only accessed in the
+ * event loop of the channel.
+ */
+final class Http2PingKeepAlive extends Http2FrameListenerDecorator {
+
+    private final Http2Connection connection;
+    private final Http2ConnectionEncoder encoder;
+    private final long intervalNanos;
+    private final long ackTimeoutNanos;
+    private final ChannelPoolMetricImpl metric;
+
+    private ChannelHandlerContext ctx;
+    private long pingSentNanos;
+    private ScheduledFuture<?> ackTimeout;
+
+    Http2PingKeepAlive(Http2FrameListener listener,
+                       Http2Connection connection,
+                       Http2ConnectionEncoder encoder,
+                       long intervalMillis,
+                       long ackTimeoutMillis,
+                       ChannelPoolMetricImpl metric) {
+        super(listener);
+        this.connection = connection;
+        this.encoder = encoder;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.ackTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        this.metric = metric;
+    }
+
+    @Override
+    public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) throws Http2Exception {
+        if (this.ctx == null) {
+            this.ctx = ctx;
+            scheduleNext();
+        }
+        super.onSettingsRead(ctx, settings);
+    }
+
+    @Override
+    public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+        if (ackTimeout != null && data == pingSentNanos) {
+            ackTimeout.cancel(false);
+            ackTimeout = null;
+            final long rtt = System.nanoTime() - pingSentNanos;
+            final ConnectionState state = ConnectionState.of(ctx.channel());
+            if (state != null) {
+                state.rttNanos(rtt);
+            }
+            if (metric != null) {
+                metric.onPingAcked(rtt);
+            }
+        }
+        super.onPingAckRead(ctx, data);
+    }
+
+    private void scheduleNext() {
+        ctx.executor().schedule(this::onInterval, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onInterval() {
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        if (ackTimeout == null && connection.numActiveStreams() == 0) {
+            ping();
+        }
+        scheduleNext();
+    }
+
+    private void ping() {
+        pingSentNanos = System.nanoTime();
+        encoder.writePing(ctx, false, pingSentNanos, ctx.newPromise());
+        ctx.flush();
+        ackTimeout = ctx.executor().schedule(this::onAckTimeout, ackTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onAckTimeout() {
+        ackTimeout = null;
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        if (metric != null) {
+            metric.onPingTimeout();
+        }
+        LoggerUtils.logger().warn("PING has not been acked in {}ms, and channel: {} will close",
+                TimeUnit.NANOSECONDS.toMillis(ackTimeoutNanos), ctx.channel());
+        ctx.channel().close();
+    }
+}
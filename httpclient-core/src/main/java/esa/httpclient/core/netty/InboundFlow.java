@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+/**
+ * Pushes back on the inbound contents of a response while its {@link BodyPublisher} has no demand.
+ */
+interface InboundFlow {
+
+    /**
+     * Stops reading more contents, which is called in the event loop.
+     */
+    default void pause() {
+    }
+
+    /**
+     * Resumes reading contents, which may be called from any thread.
+     */
+    default void resume() {
+    }
+
+    /**
+     * Notifies that the given number of bytes have been handed over to the subscriber, or discarded.
+     *
+     * @param bytes bytes
+     */
+    default void consumed(int bytes) {
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static esa.httpclient.core.netty.ChannelPoolHandler.HANDSHAKE_FUTURE;
+
+/**
+ * A {@link FixedChannelPool} which records its {@link ChannelPoolMetricImpl} while acquiring, releasing and
+ * connecting.
+ *
+ * If a {@link ConnectLimiter} is given, an acquisition which needs a new connection but is not permitted to connect
+ * leaves the underlying pool and waits, and it's served by the first connection released to this pool, or tries
+ * again once a connect may be permitted, so that the waiters never start a connect each.
+ *
+ * If a {@link HappyEyeballsConnector} is given, the new connections are established by racing the attempts across
+ * the resolved addresses of the host.
+ */
+class MeteredChannelPool extends FixedChannelPool {
+
+    /**
+     * Timing of establishing a new connection, which is taken away by the first request on it.
+     */
+    static final AttributeKey<ConnectionTiming> CONNECTION_TIMING = AttributeKey.valueOf("$connection.timing");
+
+    /**
+     * Thrown by {@link #connectChannel(Bootstrap)} and caught by the {@link io.netty.channel.pool.SimpleChannelPool}
+     * which fails the acquisition with it.
+     */
+    private static final ConnectDeferredException CONNECT_DEFERRED = new ConnectDeferredException();
+
+    private final ChannelPoolMetricImpl metric;
+
+    /**
+     * Whether to record the acquires and releases, which should be disabled if they are recorded by another pool
+     * that acquires from this one.
+     */
+    private final boolean recordAcquires;
+
+    private final ConnectLimiter limiter;
+    private final HappyEyeballsConnector connector;
+    private final EventExecutor executor;
+    private final long acquireTimeoutNanos;
+    private final int maxPendingAcquires;
+
+    /**
+     * The acquisitions which are waiting for a connection to be released or a connect to be permitted.
+     */
+    private final Queue<Deferred> deferred = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger deferredCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    MeteredChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       AcquireTimeoutAction action,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric) {
+        this(bootstrap, handler, healthCheck, action, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+                metric, true);
+    }
+
+    MeteredChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       AcquireTimeoutAction action,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric,
+                       boolean recordAcquires) {
+        this(bootstrap, handler, healthCheck, action, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+                metric, recordAcquires, null);
+    }
+
+    MeteredChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       AcquireTimeoutAction action,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric,
+                       boolean recordAcquires,
+                       ConnectLimiter limiter) {
+        this(bootstrap, handler, healthCheck, action, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+                metric, recordAcquires, limiter, null);
+    }
+
+    MeteredChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       AcquireTimeoutAction action,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric,
+                       boolean recordAcquires,
+                       ConnectLimiter limiter,
+                       HappyEyeballsConnector connector) {
+        super(bootstrap, handler, healthCheck, action, acquireTimeoutMillis, maxConnections, maxPendingAcquires);
+        this.metric = metric;
+        this.recordAcquires = recordAcquires;
+        this.limiter = limiter;
+        this.connector = connector;
+        this.executor = bootstrap.config().group().next();
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        final long startTime = System.nanoTime();
+        if (recordAcquires) {
+            metric.onAcquireStarted();
+            promise.addListener(f -> {
+                if (f.isSuccess()) {
+                    metric.onAcquired(System.nanoTime() - startTime);
+                } else {
+                    metric.onAcquireFailed(f.cause() instanceof TimeoutException);
+                }
+            });
+        }
+        acquire0(promise, startTime + acquireTimeoutNanos, false);
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        if (recordAcquires) {
+            metric.onReleased();
+        }
+        return release0(channel, promise);
+    }
+
+    @Override
+    public Future<Void> closeAsync() {
+        closed = true;
+        Deferred d;
+        while ((d = deferred.poll()) != null) {
+            if (claim(d)) {
+                d.timeout.cancel(false);
+                d.promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+            }
+        }
+        return super.closeAsync();
+    }
+
+    @Override
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        if (limiter != null && !limiter.tryAcquire()) {
+            throw CONNECT_DEFERRED;
+        }
+        final long startTime = System.nanoTime();
+        final ChannelFuture connect;
+        try {
+            connect = connector == null ? super.connectChannel(bs) : connector.connect(bs);
+        } catch (Throwable cause) {
+            if (limiter != null) {
+                limiter.release();
+            }
+            throw cause;
+        }
+        if (limiter != null) {
+            releasePermitAfterHandshake(connect);
+        }
+        connect.addListener(f -> {
+            if (f.isSuccess()) {
+                final long connectedTime = System.nanoTime();
+                final Channel channel = connect.channel();
+                metric.onConnected(connectedTime - startTime);
+                channel.closeFuture().addListener(closed -> metric.onClosed());
+
+                final ConnectionTiming timing = new ConnectionTiming(connectedTime - startTime);
+                channel.attr(CONNECTION_TIMING).set(timing);
+                final ChannelFuture handshake = channel.attr(HANDSHAKE_FUTURE).get();
+                // The handshake of plaintext http1 has completed before connected.
+                if (handshake != null && !handshake.isDone()) {
+                    handshake.addListener(hf -> {
+                        if (hf.isSuccess()) {
+                            timing.handshakeNanos = System.nanoTime() - connectedTime;
+                        }
+                    });
+                }
+            }
+        });
+        return connect;
+    }
+
+    private Future<Void> release0(Channel channel, Promise<Void> promise) {
+        if (limiter != null) {
+            promise.addListener(f -> serveDeferred());
+        }
+        return super.release(channel, promise);
+    }
+
+    /**
+     * Acquires from the underlying pool, and waits outside of it if the acquisition is not permitted to connect.
+     * The underlying pool is always given a promise of its own, since it fails to give the channel back if the
+     * promise has been completed by others, eg. cancelled by the caller.
+     *
+     * @param promise  promise of the acquisition
+     * @param deadline deadline of the acquisition, in nanoseconds
+     * @param woken    whether it's woken up by the limiter, which should pass the signal on once it's done
+     */
+    private void acquire0(Promise<Channel> promise, long deadline, boolean woken) {
+        final Promise<Channel> attempt = executor.newPromise();
+        super.acquire(attempt).addListener(f -> {
+            if (attempt.isSuccess()) {
+                if (!promise.trySuccess(attempt.getNow())) {
+                    // Cancelled
+                    release0(attempt.getNow(), attempt.getNow().eventLoop().newPromise());
+                }
+            } else if (attempt.cause() == CONNECT_DEFERRED) {
+                defer(promise, deadline);
+                return;
+            } else {
+                promise.tryFailure(attempt.cause());
+            }
+            if (woken) {
+                executor.execute(limiter::signal);
+            }
+        });
+    }
+
+    private void defer(Promise<Channel> promise, long deadline) {
+        if (promise.isDone()) {
+            return;
+        }
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+            return;
+        }
+        if (deferredCount.incrementAndGet() > maxPendingAcquires) {
+            deferredCount.decrementAndGet();
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+            return;
+        }
+
+        final Deferred d = new Deferred(promise, deadline);
+        d.timeout = executor.schedule(() -> {
+            if (claim(d)) {
+                deferred.remove(d);
+                promise.tryFailure(new TimeoutException(
+                        "Acquire operation took longer than configured maximum time"));
+            }
+        }, Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        deferred.add(d);
+        limiter.await(() -> claim(d) && retry(d, true));
+    }
+
+    /**
+     * Serves the first waiting acquisition by the connection which has just been released to this pool.
+     */
+    private void serveDeferred() {
+        Deferred d;
+        while ((d = deferred.poll()) != null) {
+            if (claim(d) && retry(d, false)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Tries the claimed acquisition again.
+     *
+     * @return {@code false} if the acquisition has been cancelled
+     */
+    private boolean retry(Deferred d, boolean woken) {
+        d.timeout.cancel(false);
+        deferred.remove(d);
+        if (d.promise.isDone()) {
+            return false;
+        }
+        acquire0(d.promise, d.deadline, woken);
+        return true;
+    }
+
+    /**
+     * Claims the waiting acquisition, which can be done only once, by the timeout, the released connection, the
+     * limiter or the closing.
+     */
+    private boolean claim(Deferred d) {
+        if (d.claimed.compareAndSet(false, true)) {
+            deferredCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives the permit back to the limiter once the connect and the handshake on it have completed.
+     */
+    private void releasePermitAfterHandshake(ChannelFuture connect) {
+        connect.addListener(f -> {
+            final ChannelFuture handshake = f.isSuccess() ? connect.channel().attr(HANDSHAKE_FUTURE).get() : null;
+            if (handshake == null || handshake.isDone()) {
+                limiter.release();
+            } else {
+                handshake.addListener(hf -> limiter.release());
+            }
+        });
+    }
+
+    private static final class Deferred {
+
+        private final Promise<Channel> promise;
+        private final long deadline;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private ScheduledFuture<?> timeout;
+
+        private Deferred(Promise<Channel> promise, long deadline) {
+            this.promise = promise;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class ConnectDeferredException extends IllegalStateException {
+
+        private static final long serialVersionUID = 2916472134561758371L;
+
+        private ConnectDeferredException() {
+            super("Not permitted to connect");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    static final class ConnectionTiming {
+
+        final long connectNanos;
+        volatile long handshakeNanos = -1L;
+
+        ConnectionTiming(long connectNanos) {
+            this.connectNanos = connectNanos;
+        }
+    }
+}
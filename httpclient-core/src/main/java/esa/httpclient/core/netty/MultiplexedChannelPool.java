@@ -0,0 +1,527 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.netty.PendingAcquireQueue.PendingAcquire;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static esa.httpclient.core.netty.ChannelPoolHandler.HANDSHAKE_FUTURE;
+
+/**
+ * A {@link ChannelPool} for http2 which hands out the same connection to concurrent acquisitions as long as the
+ * connection has room for another stream, which is limited by the SETTINGS_MAX_CONCURRENT_STREAMS of the peer.
+ * A new connection is established only if all the existing ones are saturated, and there is at most one connection
+ * being established at any time, so the acquisitions wait for free streams or the new connection in the meanwhile.
+ *
+ * The connections are established by and owned by an underlying {@link MeteredChannelPool}, and the connections
+ * which turn out to be http1(eg. the h2c upgrade was rejected) are managed by it as usual. The state of this pool is
+ * only accessed on its executor, and an acquisition of this pool is released after the request has been written,
+ * while the stream stays counted by the {@link Http2Connection} until it has been closed.
+ */
+class MultiplexedChannelPool implements AsyncCloseablePool {
+
+    private static final AttributeKey<Connection> CONNECTION = AttributeKey.valueOf("$multiplexed.connection");
+
+    private static final String INITIAL_MAX_STREAMS_KEY = "esa.httpclient.http2.initialMaxConcurrentStreams";
+
+    /**
+     * The limit of concurrent streams before receiving the SETTINGS from peer, see RFC 7540 section 6.5.2.
+     */
+    private static final int INITIAL_MAX_STREAMS = SystemPropertyUtil.getInt(INITIAL_MAX_STREAMS_KEY, 100);
+
+    private final MeteredChannelPool underlying;
+    private final EventExecutor executor;
+    private final ChannelPoolMetricImpl metric;
+    private final long acquireTimeoutNanos;
+    private final int maxConnections;
+
+    /**
+     * The max number of streams opened on a connection, 0 means no limit.
+     */
+    private final int maxRequestsPerConnection;
+
+    private final List<Connection> connections = new ArrayList<>();
+    private final PendingAcquireQueue pendingAcquires;
+    private boolean connecting;
+    private boolean closed;
+
+    /**
+     * Whether the connections are http2, which becomes false once a connection turns out to be http1.
+     */
+    private volatile boolean multiplexing = true;
+
+    MultiplexedChannelPool(Bootstrap bootstrap,
+                           ChannelPoolHandler handler,
+                           ChannelHealthChecker healthCheck,
+                           long acquireTimeoutMillis,
+                           int maxConnections,
+                           int maxPendingAcquires,
+                           ChannelPoolMetricImpl metric) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, maxConnections, maxPendingAcquires, 0, metric);
+    }
+
+    MultiplexedChannelPool(Bootstrap bootstrap,
+                           ChannelPoolHandler handler,
+                           ChannelHealthChecker healthCheck,
+                           long acquireTimeoutMillis,
+                           int maxConnections,
+                           int maxPendingAcquires,
+                           int maxRequestsPerConnection,
+                           ChannelPoolMetricImpl metric) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, maxConnections, maxPendingAcquires,
+                maxRequestsPerConnection, metric, null);
+    }
+
+    MultiplexedChannelPool(Bootstrap bootstrap,
+                           ChannelPoolHandler handler,
+                           ChannelHealthChecker healthCheck,
+                           long acquireTimeoutMillis,
+                           int maxConnections,
+                           int maxPendingAcquires,
+                           int maxRequestsPerConnection,
+                           ChannelPoolMetricImpl metric,
+                           HappyEyeballsConnector connector) {
+        Checks.checkNotNull(bootstrap, "Bootstrap must not be null");
+        Checks.checkNotNull(metric, "ChannelPoolMetric must not be null");
+        Checks.checkArg(maxConnections >= 1, "maxConnections is " + maxConnections + " (expected >= 1)");
+        Checks.checkArg(maxPendingAcquires >= 1, "maxPendingAcquires is " + maxPendingAcquires +
+                " (expected >= 1)");
+        this.underlying = new MeteredChannelPool(bootstrap,
+                handler,
+                healthCheck,
+                FixedChannelPool.AcquireTimeoutAction.FAIL,
+                acquireTimeoutMillis,
+                maxConnections,
+                maxPendingAcquires,
+                metric,
+                false,
+                null,
+                connector);
+        this.executor = bootstrap.config().group().next();
+        this.metric = metric;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        this.maxConnections = maxConnections;
+        this.pendingAcquires = new PendingAcquireQueue(maxPendingAcquires);
+        this.maxRequestsPerConnection = maxRequestsPerConnection;
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(executor.newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        Checks.checkNotNull(promise, "Promise must not be null");
+        final long startTime = System.nanoTime();
+        metric.onAcquireStarted();
+        promise.addListener(f -> {
+            if (f.isSuccess()) {
+                metric.onAcquired(System.nanoTime() - startTime);
+            } else {
+                metric.onAcquireFailed(f.cause() instanceof TimeoutException);
+            }
+        });
+
+        if (!multiplexing) {
+            return acquireHttp1(promise);
+        }
+        execute(() -> acquire0(promise, startTime + acquireTimeoutNanos));
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        return release(channel, channel.eventLoop().newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        Checks.checkNotNull(promise, "Promise must not be null");
+        metric.onReleased();
+        final Connection connection = channel.hasAttr(CONNECTION) ? channel.attr(CONNECTION).get() : null;
+        if (connection == null) {
+            return underlying.release(channel, promise);
+        }
+
+        execute(() -> {
+            connection.acquired--;
+            if (!channel.isActive()) {
+                remove(connection);
+            }
+            dispatch();
+            promise.trySuccess(null);
+        });
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        closeAsync().awaitUninterruptibly();
+    }
+
+    /**
+     * Closes all the connections and the underlying pool asynchronously.
+     *
+     * @return future which will be completed after the underlying pool has been closed
+     */
+    @Override
+    public Future<Void> closeAsync() {
+        final Promise<Void> closeFuture = GlobalEventExecutor.INSTANCE.newPromise();
+        execute(() -> {
+            final List<Future<Void>> releases = new ArrayList<>(connections.size());
+            if (!closed) {
+                closed = true;
+                failPendingAcquires(new IllegalStateException("ChannelPool was closed"));
+                // Given back to the underlying pool which closes them along with the idle ones, so that the
+                // acquisitions and releases of the underlying pool keep balanced.
+                for (Connection connection : connections) {
+                    if (connection.expiry != null) {
+                        connection.expiry.cancel(false);
+                    }
+                    releases.add(underlying.release(connection.channel));
+                }
+                connections.clear();
+            }
+
+            AsyncCloseablePool.whenAll(releases, GlobalEventExecutor.INSTANCE.newPromise()).addListener(f ->
+                    AsyncCloseablePool.cascade(underlying.closeAsync(), closeFuture));
+        });
+        return closeFuture;
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     *
+     * @return the number of http2 connections
+     */
+    int connections() {
+        return connections.size();
+    }
+
+    private void acquire0(Promise<Channel> promise, long deadline) {
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("ChannelPool was closed"));
+            return;
+        }
+        if (!multiplexing) {
+            acquireHttp1(promise);
+            return;
+        }
+
+        final Connection connection = select();
+        if (connection != null) {
+            handOut(connection, promise);
+            return;
+        }
+
+        final PendingAcquire pending = new PendingAcquire(promise, deadline);
+        if (!pendingAcquires.offer(pending)) {
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+            return;
+        }
+        pending.timeout = executor.schedule(() -> {
+            if (pendingAcquires.remove(pending)) {
+                pending.promise.tryFailure(new TimeoutException(
+                        "Acquire operation took longer than configured maximum time"));
+            }
+        }, Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        connectIfNecessary();
+    }
+
+    /**
+     * Acquires a http1 connection from the underlying pool through a promise of its own, and the connection is given
+     * back if the given promise has been completed by others, eg. cancelled by the caller.
+     */
+    private Future<Channel> acquireHttp1(Promise<Channel> promise) {
+        final Future<Channel> acquire = underlying.acquire(executor.newPromise());
+        acquire.addListener(f -> {
+            if (!acquire.isSuccess()) {
+                promise.tryFailure(acquire.cause());
+            } else if (!promise.trySuccess(acquire.getNow())) {
+                underlying.release(acquire.getNow());
+            }
+        });
+        return promise;
+    }
+
+    private void handOut(Connection connection, Promise<Channel> promise) {
+        connection.acquired++;
+        if (!promise.trySuccess(connection.channel)) {
+            // Cancelled
+            connection.acquired--;
+            return;
+        }
+        if (++connection.requests == maxRequestsPerConnection) {
+            connection.retired = true;
+            connectIfNecessary();
+        }
+    }
+
+    /**
+     * Selects the first connection which has room for another stream, so that the streams are packed into as few
+     * connections as possible.
+     */
+    private Connection select() {
+        for (Connection connection : connections) {
+            if (connection.available() > 0) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private void dispatch() {
+        final long now = System.nanoTime();
+        for (Connection c : connections) {
+            if (c.state != null && c.state.isExpired(now)) {
+                c.retired = true;
+            }
+        }
+
+        PendingAcquire pending;
+        Connection connection;
+        while (!pendingAcquires.isEmpty() && (connection = select()) != null
+                && (pending = pendingAcquires.poll(now)) != null) {
+            handOut(connection, pending.promise);
+        }
+
+        // Close the connections which have received GOAWAY or have been retired once all the streams on them
+        // have completed, and they will be removed after being closed. Closing a http2 connection sends a GOAWAY
+        // to the peer, see Http2ConnectionHandler.close().
+        for (Connection c : connections) {
+            if ((c.goAwayReceived() || c.retired) && c.idle()) {
+                c.channel.close();
+            }
+        }
+        connectIfNecessary();
+    }
+
+    private void connectIfNecessary() {
+        if (closed || connecting || connections.size() >= maxConnections) {
+            return;
+        }
+        // Replace the retired connections in background before they have been drained.
+        if (pendingAcquires.isEmpty() && !draining()) {
+            return;
+        }
+
+        connecting = true;
+        final Future<Channel> connect = underlying.acquire();
+        connect.addListener(f -> execute(() -> onConnected(connect)));
+    }
+
+    /**
+     * Whether all the connections have been retired and are waiting for the streams on them to complete.
+     */
+    private boolean draining() {
+        if (connections.isEmpty()) {
+            return false;
+        }
+        for (Connection c : connections) {
+            if (!c.retired) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void onConnected(Future<Channel> connect) {
+        if (!connect.isSuccess()) {
+            onConnectFailed(connect.cause());
+            return;
+        }
+
+        final Channel channel = connect.getNow();
+        final ChannelFuture handshake = channel.attr(HANDSHAKE_FUTURE).get();
+        if (handshake == null || handshake.isDone()) {
+            onHandshakeDone(channel, handshake);
+        } else {
+            handshake.addListener(f -> execute(() -> onHandshakeDone(channel, handshake)));
+        }
+    }
+
+    private void onHandshakeDone(Channel channel, ChannelFuture handshake) {
+        connecting = false;
+        if (closed) {
+            underlying.release(channel);
+            return;
+        }
+        if (handshake != null && !handshake.isSuccess()) {
+            underlying.release(channel);
+            onConnectFailed(handshake.cause());
+            return;
+        }
+
+        final Http2ConnectionHandler handler = channel.pipeline().get(Http2ConnectionHandler.class);
+        if (handler == null) {
+            fallbackToHttp1(channel);
+            return;
+        }
+
+        final Connection connection = new Connection(channel, handler);
+        channel.attr(CONNECTION).set(connection);
+        connections.add(connection);
+        final long lifetime = connection.state == null
+                ? Long.MAX_VALUE : connection.state.remainingLifetimeNanos(System.nanoTime());
+        if (lifetime != Long.MAX_VALUE) {
+            connection.expiry = executor.schedule(this::dispatch, lifetime, TimeUnit.NANOSECONDS);
+        }
+        // Always deferred, since the listener may be notified inline while the connections are being iterated
+        // when the channel is closed in the executor.
+        channel.closeFuture().addListener(f -> executor.execute(() -> {
+            remove(connection);
+            dispatch();
+        }));
+        // The listeners of Http2Connection are supposed to be added in the event loop of channel.
+        channel.eventLoop().execute(() -> handler.connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                execute(MultiplexedChannelPool.this::dispatch);
+            }
+
+            @Override
+            public void onGoAwayReceived(int lastStreamId, long errorCode, ByteBuf debugData) {
+                execute(MultiplexedChannelPool.this::dispatch);
+            }
+        }));
+        dispatch();
+    }
+
+    private void onConnectFailed(Throwable cause) {
+        connecting = false;
+        // Keep waiting for the streams of existing connections if there are any.
+        if (connections.isEmpty()) {
+            failPendingAcquires(cause);
+        }
+    }
+
+    /**
+     * The peer does not speak http2, so the pool behaves like the underlying one from now on.
+     */
+    private void fallbackToHttp1(Channel channel) {
+        multiplexing = false;
+        final long now = System.nanoTime();
+        final PendingAcquire first = pendingAcquires.poll(now);
+        if (first == null || !first.promise.trySuccess(channel)) {
+            underlying.release(channel);
+        }
+
+        PendingAcquire pending;
+        while ((pending = pendingAcquires.poll(now)) != null) {
+            acquireHttp1(pending.promise);
+        }
+    }
+
+    private void remove(Connection connection) {
+        if (connection.expiry != null) {
+            connection.expiry.cancel(false);
+        }
+        if (connections.remove(connection)) {
+            // Give back to the underlying pool which will dispose it after the health check.
+            underlying.release(connection.channel);
+        }
+    }
+
+    private void failPendingAcquires(Throwable cause) {
+        pendingAcquires.failAll(cause);
+    }
+
+    private void execute(Runnable task) {
+        if (executor.inEventLoop()) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    private static final class Connection {
+
+        private final Channel channel;
+        private final Http2ConnectionHandler handler;
+        private final ConnectionState state;
+
+        /**
+         * The number of acquisitions which have not been released yet, whose streams may not have been created.
+         */
+        private int acquired;
+
+        /**
+         * The number of acquisitions which have been handed out.
+         */
+        private int requests;
+
+        /**
+         * Whether the connection has outlived its lifetime or served its max number of requests, which will not be
+         * handed out any more and will be closed once drained.
+         */
+        private boolean retired;
+        private ScheduledFuture<?> expiry;
+
+        private Connection(Channel channel, Http2ConnectionHandler handler) {
+            this.channel = channel;
+            this.handler = handler;
+            this.state = ConnectionState.of(channel);
+        }
+
+        /**
+         * Note that the state of {@link Http2Connection} is updated in the event loop of channel, so the value
+         * may be a little stale, which is corrected by the dispatching after every stream has been closed.
+         */
+        private int available() {
+            if (!channel.isActive() || goAwayReceived() || retired) {
+                return 0;
+            }
+            final Http2Connection.Endpoint<?> local = handler.connection().local();
+            final int maxStreams = handler.decoder().prefaceReceived()
+                    ? local.maxActiveStreams() : Math.min(local.maxActiveStreams(), INITIAL_MAX_STREAMS);
+            return maxStreams - local.numActiveStreams() - acquired;
+        }
+
+        private boolean goAwayReceived() {
+            return handler.connection().goAwayReceived();
+        }
+
+        private boolean idle() {
+            return acquired == 0 && handler.connection().local().numActiveStreams() == 0;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package esa.httpclient.core.netty;
 import esa.commons.Checks;
 import esa.commons.http.HttpHeaders;
 import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
 import esa.httpclient.core.Context;
 import esa.httpclient.core.Handle;
 import esa.httpclient.core.Handler;
@@ -25,6 +26,7 @@ import esa.httpclient.core.HttpMessage;
 import esa.httpclient.core.HttpRequest;
 import esa.httpclient.core.HttpResponse;
 import esa.httpclient.core.Listener;
+import io.netty.buffer.ByteBuf;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -135,6 +137,29 @@ public class NettyHandle extends HandleImpl {
         }
     }
 
+    /**
+     * Hands the content over to the {@link BodyPublisher} if there is one, which retains it until it has been
+     * published, or passes it to {@link #onData(Buffer)} otherwise.
+     *
+     * @param content   content
+     * @param flow      flow to push back on, or {@code null} if the content can not be held back
+     * @return          {@code true} if the content is retained by the {@link BodyPublisher}, and the flow will be
+     *                  notified once it has been consumed
+     */
+    boolean onContent(ByteBuf content, InboundFlow flow) {
+        final BodyPublisher publisher = super.publisher;
+        if (publisher == null || flow == null) {
+            onData(new BufferImpl(content.duplicate()));
+            return false;
+        }
+
+        if (ended.get()) {
+            return false;
+        }
+        publisher.offer(content.retainedDuplicate(), flow);
+        return true;
+    }
+
     public void onEnd() {
         if (ended.get()) {
             return;
@@ -145,7 +170,13 @@ public class NettyHandle extends HandleImpl {
                 if (super.end != null) {
                     super.end.accept(null);
                 }
-                response.complete(this);
+                if (super.publisher != null) {
+                    super.publisher.complete();
+                }
+                if (!response.complete(this)) {
+                    // Cancelled, so that nobody would close it.
+                    close();
+                }
                 listener.onCompleted(request, ctx, this);
             }
         } catch (Throwable ex) {
@@ -183,6 +214,9 @@ public class NettyHandle extends HandleImpl {
         if (super.error != null) {
             super.error.accept(cause);
         }
+        if (super.publisher != null) {
+            super.publisher.error(cause);
+        }
 
         listener.onError(request, ctx, cause);
     }
@@ -36,9 +36,11 @@ import esa.httpclient.core.metrics.ConnectionPoolMetric;
 import esa.httpclient.core.metrics.ConnectionPoolMetricProvider;
 import esa.httpclient.core.metrics.IoThreadGroupMetric;
 import esa.httpclient.core.metrics.IoThreadMetric;
+import esa.httpclient.core.metrics.RequestMetricProvider;
 import esa.httpclient.core.spi.SslEngineFactory;
 import esa.httpclient.core.util.Futures;
 import esa.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultithreadEventLoopGroup;
 import io.netty.channel.SingleThreadEventLoop;
@@ -55,7 +57,9 @@ import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.internal.SystemPropertyUtil;
 
 import javax.net.ssl.SSLException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -126,6 +130,8 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
     private final IdentityFactory.Identified<ThreadPoolExecutor> callbackExecutor;
     private final String id;
     private final RequestExecutor executor;
+    private final RequestMetricListener requestMetric;
+    private final Listener listener;
 
     private final SslEngineFactory sslEngineFactory;
     private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -148,6 +154,13 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         this.id = IDENTITY_PREFIX + IDENTITY.incrementAndGet();
         this.sslEngineFactory = loadSslEngineFactory(builder.sslOptions());
         this.executor = build(ioThreads.origin(), channelPools, builder);
+        if (builder.isRequestMetricsEnabled()) {
+            this.requestMetric = new RequestMetricListener();
+            this.listener = new ListenerProxy(Arrays.asList(ListenerProxy.DEFAULT, requestMetric));
+        } else {
+            this.requestMetric = null;
+            this.listener = ListenerProxy.DEFAULT;
+        }
         ACTIVE_CLIENTS.incrementAndGet();
     }
 
@@ -167,6 +180,24 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         return async(request, new ContextImpl(), true);
     }
 
+    @Override
+    public CompletableFuture<Integer> warmUp(String uri, int connections) {
+        Checks.checkNotEmptyArg(uri, "uri must not be empty");
+        Checks.checkArg(connections >= 1, "connections is " + connections + " (expected >= 1)");
+        final URI target = URI.create(uri);
+        Checks.checkArg(target.getHost() != null, "Unable to detect host from uri: " + uri);
+
+        final boolean ssl = Scheme.HTTPS.name0().equalsIgnoreCase(target.getScheme());
+        int port = target.getPort();
+        if (port <= 0) {
+            port = ssl ? Scheme.HTTPS.port() : Scheme.HTTP.port();
+        }
+
+        // Use the newest builder, which is the same as the channel pools created by applying options.
+        return new NettyTransceiver(ioThreads.origin(), channelPools, builder, sslEngineFactory)
+                .warmUp(ssl, InetSocketAddress.createUnresolved(target.getHost(), port), connections);
+    }
+
     @Override
     public ConnectionPoolMetricProvider connectionPoolMetric() {
         return channelPools;
@@ -189,32 +220,47 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         return new CallbackExecutorMetricImpl(callbackExecutor.origin(), callbackExecutor.identity());
     }
 
+    @Override
+    public RequestMetricProvider requestMetric() {
+        return requestMetric;
+    }
+
     private CompletableFuture<HttpResponse> async(HttpRequest request,
                                                   Context ctx,
                                                   boolean aggregate) {
         Checks.checkNotNull(request, "HttpRequest must not be null");
         Checks.checkNotNull(ctx, "Context must not be null");
-        final Listener listener = ListenerProxy.DEFAULT;
-
         addAcceptEncodingIfAbsent(request);
 
         ctx.setAttr(AGGREGATE, aggregate);
 
+        final CompletableFuture<HttpResponse> response = releaseBufferOnDone(request,
+                executor.async(request,
+                        ctx,
+                        listener));
         if (callbackExecutor.origin() == null) {
-            return executor.async(request,
-                    ctx,
-                    listener);
+            return response;
         } else {
             // Note that: only if callback executor exists and the response
             // of original execution completes normally, we switch the original
             // response to continue execute in callback executor.
-            return executor.async(request,
-                    ctx,
-                    listener)
-                    .thenComposeAsync(Futures::completed, callbackExecutor.origin());
+            return response.thenComposeAsync(Futures::completed, callbackExecutor.origin());
         }
     }
 
+    private static CompletableFuture<HttpResponse> releaseBufferOnDone(HttpRequest request,
+                                                                       CompletableFuture<HttpResponse> response) {
+        if (!(request instanceof PlainRequest) || ((PlainRequest) request).buffer() == null) {
+            return response;
+        }
+
+        // The request owns the buffer, which is only written as retained duplicates so that
+        // it keeps valid for retries and redirects until the whole execution is done.
+        final ByteBuf buf = ((PlainRequest) request).buffer().getByteBuf();
+        response.whenComplete((rsp, th) -> Utils.tryRelease(buf));
+        return response;
+    }
+
     @Override
     public void close() {
         if (closed.compareAndSet(false, true)) {
@@ -300,7 +346,22 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         if (options.connectTimeout() == builder.connectTimeout()
                 && options.readTimeout() == builder.readTimeout()
                 && options.poolSize() == builder.connectionPoolSize()
-                && options.waitingQueueLength() == builder.connectionPoolWaitingQueueLength()) {
+                && options.waitingQueueLength() == builder.connectionPoolWaitingQueueLength()
+                && options.type() == builder.connectionPoolType()
+                && options.minIdle() == builder.connectionPoolMinIdle()
+                && options.idleTimeout() == builder.connectionPoolIdleTimeout()
+                && options.maxLifetime() == builder.connectionPoolMaxLifetime()
+                && options.maxRequestsPerConnection() == builder.connectionPoolMaxRequestsPerConnection()
+                && options.minPoolSize() == builder.connectionPoolMinSize()
+                && options.maxConnecting() == builder.connectionPoolMaxConnecting()
+                && options.connectRate() == builder.connectionPoolConnectRate()
+                && options.acquireTimeout() == builder.connectionPoolAcquireTimeout()
+                && options.resolveInterval() == builder.connectionPoolResolveInterval()
+                && options.connectAttemptDelay() == builder.connectionPoolConnectAttemptDelay()
+                && options.loadBalance() == builder.connectionPoolLoadBalance()
+                && options.outlierConsecutiveFailures() == builder.connectionPoolOutlierConsecutiveFailures()
+                && options.outlierEjectionTime() == builder.connectionPoolOutlierEjectionTime()
+                && options.outlierMaxEjectionPercent() == builder.connectionPoolOutlierMaxEjectionPercent()) {
             return this;
         }
 
@@ -308,7 +369,22 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
                 .connectTimeout(options.connectTimeout())
                 .readTimeout(options.readTimeout())
                 .connectionPoolSize(options.poolSize())
-                .connectionPoolWaitingQueueLength(options.waitingQueueLength());
+                .connectionPoolWaitingQueueLength(options.waitingQueueLength())
+                .connectionPoolType(options.type())
+                .connectionPoolMinIdle(options.minIdle())
+                .connectionPoolIdleTimeout(options.idleTimeout())
+                .connectionPoolMaxLifetime(options.maxLifetime())
+                .connectionPoolMaxRequestsPerConnection(options.maxRequestsPerConnection())
+                .connectionPoolMinSize(options.minPoolSize())
+                .connectionPoolMaxConnecting(options.maxConnecting())
+                .connectionPoolConnectRate(options.connectRate())
+                .connectionPoolAcquireTimeout(options.acquireTimeout())
+                .connectionPoolResolveInterval(options.resolveInterval())
+                .connectionPoolConnectAttemptDelay(options.connectAttemptDelay())
+                .connectionPoolLoadBalance(options.loadBalance())
+                .connectionPoolOutlierConsecutiveFailures(options.outlierConsecutiveFailures())
+                .connectionPoolOutlierEjectionTime(options.outlierEjectionTime())
+                .connectionPoolOutlierMaxEjectionPercent(options.outlierMaxEjectionPercent());
 
         if (!applyToExisted) {
             return this;
@@ -507,6 +583,7 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
         @Override
         public ChunkRequest build() {
             final ChunkRequest request = new ChunkRequestImpl(executor,
+                    listener,
                     new RequestOptions(method,
                             uri,
                             readTimeout,
@@ -514,8 +591,15 @@ public class NettyHttpClient implements HttpClient, ModifiableClient<NettyHttpCl
                             maxRetries,
                             maxRedirects,
                             headers,
+                            null,
                             handle,
-                            handler),
+                            handler,
+                            null,
+                            null,
+                            false,
+                            null,
+                            null,
+                            priority),
                             ctx,
                             getValue(aggregate, handle == null
                                 && handler == null));
@@ -19,6 +19,7 @@ import esa.commons.Checks;
 import esa.commons.collection.MultiValueMap;
 import esa.commons.http.HttpHeaders;
 import esa.commons.http.HttpMethod;
+import esa.commons.netty.core.Buffer;
 import esa.httpclient.core.FileRequest;
 import esa.httpclient.core.Handle;
 import esa.httpclient.core.Handler;
@@ -28,8 +29,13 @@ import esa.httpclient.core.MultipartFileItem;
 import esa.httpclient.core.MultipartRequest;
 import esa.httpclient.core.PlainRequest;
 import esa.httpclient.core.RequestOptions;
+import esa.httpclient.core.RequestPriority;
+import esa.httpclient.core.StreamRequest;
+import org.reactivestreams.Publisher;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -120,7 +126,11 @@ public class NettyRequest implements HttpRequest {
 
     public static HttpRequest from(RequestOptions options) {
         Checks.checkNotNull(options, "RequestOptions must not be null");
-        if (options.file() != null) {
+        if (options.channel() != null || options.publisher() != null) {
+            return new StreamRequestImpl(options);
+        } else if (options.buffer() != null) {
+            return new PlainRequestImpl(options);
+        } else if (options.file() != null) {
             return from(options.method(),
                     options.uri(),
                     options.readTimeout(),
@@ -131,7 +141,8 @@ public class NettyRequest implements HttpRequest {
                     options.headers(),
                     options.handle(),
                     options.handler(),
-                    options.file());
+                    options.file(),
+                    options.priority());
         } else if (options.attributes() != null || options.files() != null) {
             return from(options.method(),
                     options.uri(),
@@ -145,7 +156,8 @@ public class NettyRequest implements HttpRequest {
                     options.handler(),
                     options.multipart(),
                     options.attributes(),
-                    options.files());
+                    options.files(),
+                    options.priority());
         } else {
             return from(options.method(),
                     options.uri(),
@@ -157,7 +169,8 @@ public class NettyRequest implements HttpRequest {
                     options.headers(),
                     options.handle(),
                     options.handler(),
-                    options.body());
+                    options.body(),
+                    options.priority());
         }
     }
 
@@ -172,17 +185,72 @@ public class NettyRequest implements HttpRequest {
                                     Consumer<Handle> handle,
                                     Handler handler,
                                     byte[] body) {
+        return from(method, uri, readTimeout, uriEncodeEnabled, expectContinueEnabled, maxRetries, maxRedirects,
+                headers, handle, handler, body, null);
+    }
+
+    public static PlainRequest from(HttpMethod method,
+                                    HttpUri uri,
+                                    int readTimeout,
+                                    Boolean uriEncodeEnabled,
+                                    Boolean expectContinueEnabled,
+                                    int maxRetries,
+                                    int maxRedirects,
+                                    HttpHeaders headers,
+                                    Consumer<Handle> handle,
+                                    Handler handler,
+                                    byte[] body,
+                                    RequestPriority priority) {
         return new PlainRequestImpl(new RequestOptions(method,
                 uri,
                 readTimeout,
                 uriEncodeEnabled,
+                maxRetries,
+                maxRedirects,
+                headers,
                 expectContinueEnabled,
+                handle,
+                handler,
+                body,
+                null,
+                false,
+                null,
+                null,
+                priority));
+    }
+
+    public static PlainRequest from(HttpMethod method,
+                                    HttpUri uri,
+                                    int readTimeout,
+                                    Boolean uriEncodeEnabled,
+                                    Boolean expectContinueEnabled,
+                                    int maxRetries,
+                                    int maxRedirects,
+                                    HttpHeaders headers,
+                                    Consumer<Handle> handle,
+                                    Handler handler,
+                                    Buffer buffer,
+                                    RequestPriority priority) {
+        Checks.checkNotNull(buffer, "Buffer must not be null");
+        return new PlainRequestImpl(new RequestOptions(method,
+                uri,
+                readTimeout,
+                uriEncodeEnabled,
                 maxRetries,
                 maxRedirects,
                 headers,
+                expectContinueEnabled,
                 handle,
                 handler,
-                body));
+                null,
+                null,
+                false,
+                null,
+                null,
+                priority,
+                null,
+                null,
+                buffer));
     }
 
     public static FileRequest from(HttpMethod method,
@@ -196,18 +264,105 @@ public class NettyRequest implements HttpRequest {
                                    Consumer<Handle> handle,
                                    Handler handler,
                                    File file) {
+        return from(method, uri, readTimeout, uriEncodeEnabled, expectContinueEnabled, maxRetries, maxRedirects,
+                headers, handle, handler, file, null);
+    }
+
+    public static FileRequest from(HttpMethod method,
+                                   HttpUri uri,
+                                   int readTimeout,
+                                   Boolean uriEncodeEnabled,
+                                   Boolean expectContinueEnabled,
+                                   int maxRetries,
+                                   int maxRedirects,
+                                   HttpHeaders headers,
+                                   Consumer<Handle> handle,
+                                   Handler handler,
+                                   File file,
+                                   RequestPriority priority) {
         Checks.checkNotNull(file, "File must not be null");
         return new FileRequestImpl(new RequestOptions(method,
                 uri,
                 readTimeout,
                 uriEncodeEnabled,
+                maxRetries,
+                maxRedirects,
+                headers,
                 expectContinueEnabled,
+                handle,
+                handler,
+                null,
+                file,
+                false,
+                null,
+                null,
+                priority));
+    }
+
+    public static StreamRequest from(HttpMethod method,
+                                     HttpUri uri,
+                                     int readTimeout,
+                                     Boolean uriEncodeEnabled,
+                                     Boolean expectContinueEnabled,
+                                     int maxRetries,
+                                     int maxRedirects,
+                                     HttpHeaders headers,
+                                     Consumer<Handle> handle,
+                                     Handler handler,
+                                     ReadableByteChannel channel,
+                                     RequestPriority priority) {
+        Checks.checkNotNull(channel, "ReadableByteChannel must not be null");
+        return new StreamRequestImpl(new RequestOptions(method,
+                uri,
+                readTimeout,
+                uriEncodeEnabled,
+                maxRetries,
+                maxRedirects,
+                headers,
+                expectContinueEnabled,
+                handle,
+                handler,
+                null,
+                null,
+                false,
+                null,
+                null,
+                priority,
+                channel,
+                null));
+    }
+
+    public static StreamRequest from(HttpMethod method,
+                                     HttpUri uri,
+                                     int readTimeout,
+                                     Boolean uriEncodeEnabled,
+                                     Boolean expectContinueEnabled,
+                                     int maxRetries,
+                                     int maxRedirects,
+                                     HttpHeaders headers,
+                                     Consumer<Handle> handle,
+                                     Handler handler,
+                                     Publisher<ByteBuffer> publisher,
+                                     RequestPriority priority) {
+        Checks.checkNotNull(publisher, "Publisher must not be null");
+        return new StreamRequestImpl(new RequestOptions(method,
+                uri,
+                readTimeout,
+                uriEncodeEnabled,
                 maxRetries,
                 maxRedirects,
                 headers,
+                expectContinueEnabled,
                 handle,
                 handler,
-                file));
+                null,
+                null,
+                false,
+                null,
+                null,
+                priority,
+                null,
+                publisher));
     }
 
     public static MultipartRequest from(HttpMethod method,
@@ -223,6 +378,24 @@ public class NettyRequest implements HttpRequest {
                                         boolean multipart,
                                         MultiValueMap<String, String> attributes,
                                         List<MultipartFileItem> files) {
+        return from(method, uri, readTimeout, uriEncodeEnabled, expectContinueEnabled, maxRetries, maxRedirects,
+                headers, handle, handler, multipart, attributes, files, null);
+    }
+
+    public static MultipartRequest from(HttpMethod method,
+                                        HttpUri uri,
+                                        int readTimeout,
+                                        Boolean uriEncodeEnabled,
+                                        Boolean expectContinueEnabled,
+                                        int maxRetries,
+                                        int maxRedirects,
+                                        HttpHeaders headers,
+                                        Consumer<Handle> handle,
+                                        Handler handler,
+                                        boolean multipart,
+                                        MultiValueMap<String, String> attributes,
+                                        List<MultipartFileItem> files,
+                                        RequestPriority priority) {
         boolean attributesAbsent = attributes == null || attributes.isEmpty();
         boolean filesAbsent = files == null || files.isEmpty();
         if (attributesAbsent && filesAbsent) {
@@ -232,15 +405,18 @@ public class NettyRequest implements HttpRequest {
                 uri,
                 readTimeout,
                 uriEncodeEnabled,
-                expectContinueEnabled,
                 maxRetries,
                 maxRedirects,
                 headers,
+                expectContinueEnabled,
                 handle,
                 handler,
+                null,
+                null,
                 multipart,
                 attributes,
-                files));
+                files,
+                priority));
     }
 
     @Override
@@ -18,19 +18,35 @@ package esa.httpclient.core.netty;
 import esa.commons.http.HttpHeaders;
 import esa.commons.http.HttpVersion;
 import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
 import esa.commons.netty.core.Buffers;
 import esa.commons.netty.http.Http1HeadersImpl;
 import esa.httpclient.core.HttpMessage;
 import esa.httpclient.core.HttpResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetectorFactory;
+import io.netty.util.ResourceLeakTracker;
+
+import static esa.httpclient.core.netty.Utils.tryRelease;
 
 public class NettyResponse implements HttpResponse {
 
+    private static final ResourceLeakDetector<NettyResponse> LEAK_DETECTOR =
+            ResourceLeakDetectorFactory.instance().newResourceLeakDetector(NettyResponse.class);
+
     private final HttpHeaders trailers = new Http1HeadersImpl();
     private final boolean aggregated;
 
     private volatile HttpMessage message;
     private volatile Buffer body = Buffers.buffer(0);
 
+    /**
+     * The pooled buffer which backs the body, which is released by {@link #close()}.
+     */
+    private ByteBuf pooled;
+    private ResourceLeakTracker<NettyResponse> leak;
+
     public NettyResponse(boolean aggregated) {
         this.aggregated = aggregated;
     }
@@ -72,4 +88,35 @@ public class NettyResponse implements HttpResponse {
     void body(Buffer body) {
         this.body = body;
     }
+
+    /**
+     * Sets the body which is backed by a pooled buffer, whose ownership is taken by this response.
+     *
+     * @param buf pooled buffer
+     */
+    synchronized void pooledBody(ByteBuf buf) {
+        this.pooled = buf;
+        this.leak = LEAK_DETECTOR.track(this);
+        this.body = new BufferImpl(buf);
+    }
+
+    @Override
+    public void close() {
+        final ByteBuf buf;
+        final ResourceLeakTracker<NettyResponse> leak;
+        synchronized (this) {
+            buf = this.pooled;
+            leak = this.leak;
+            this.pooled = null;
+            this.leak = null;
+        }
+        if (buf == null) {
+            return;
+        }
+        this.body = Buffers.EMPTY_BUFFER;
+        tryRelease(buf);
+        if (leak != null) {
+            leak.close(this);
+        }
+    }
 }
@@ -25,6 +25,7 @@ import esa.httpclient.core.HttpClientBuilder;
 import esa.httpclient.core.HttpRequest;
 import esa.httpclient.core.HttpResponse;
 import esa.httpclient.core.Listener;
+import esa.httpclient.core.RequestPriority;
 import esa.httpclient.core.RequestType;
 import esa.httpclient.core.Scheme;
 import esa.httpclient.core.config.SslOptions;
@@ -138,9 +139,15 @@ public class NettyTransceiver implements HttpTransceiver {
         listener.onConnectionAttempt(request, ctx, address);
 
         final RequestWriter writer = RequestWriter.getByType(request.type());
-        final Future<Channel> channel = channelPool.acquire();
+        final Future<Channel> channel = acquire(channelPool, request.config().priority());
 
         final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        // Give up waiting for a connection once the response has been completed, eg. cancelled by the caller.
+        response.whenComplete((r, t) -> {
+            if (!channel.isDone()) {
+                channel.cancel(false);
+            }
+        });
         if (channel.isDone()) {
             this.handle0(request,
                     address,
@@ -170,6 +177,13 @@ public class NettyTransceiver implements HttpTransceiver {
         return response;
     }
 
+    private Future<Channel> acquire(ChannelPool channelPool, RequestPriority priority) {
+        if (priority == RequestPriority.NORMAL) {
+            return channelPool.acquire();
+        }
+        return channelPool.acquire(new AcquirePromise(ioThreads.next(), priority));
+    }
+
     static void closeTimer() {
         Set<Timeout> tasks = READ_TIMEOUT_TIMER.stop();
         for (Timeout item : tasks) {
@@ -258,6 +272,7 @@ public class NettyTransceiver implements HttpTransceiver {
                  CompletableFuture<HttpResponse> response,
                  RequestWriter writer,
                  CompletableFuture<RequestWriter> chunkWriterPromise) {
+        takeConnectionTiming(channel, ctx);
         listener.onConnectionAcquired(request, ctx, channel.remoteAddress());
 
         if (!handshake.isSuccess()) {
@@ -291,6 +306,7 @@ public class NettyTransceiver implements HttpTransceiver {
             return;
         }
 
+        EndpointStats.record(channel, response);
         try {
             TimeoutHandle h = buildTimeoutHandle(http2, channel, channelPool, listener, version);
             this.doWrite0(request,
@@ -310,6 +326,24 @@ public class NettyTransceiver implements HttpTransceiver {
         }
     }
 
+    /**
+     * Passes the timing of establishing the connection to the first request on it, so that it can be
+     * recorded by {@link RequestMetricListener}.
+     */
+    private static void takeConnectionTiming(Channel channel, Context ctx) {
+        if (!channel.hasAttr(MeteredChannelPool.CONNECTION_TIMING)) {
+            return;
+        }
+        final MeteredChannelPool.ConnectionTiming timing =
+                channel.attr(MeteredChannelPool.CONNECTION_TIMING).getAndSet(null);
+        if (timing != null) {
+            ctx.setAttr(RequestMetricListener.CONNECT_TIME, timing.connectNanos);
+            if (timing.handshakeNanos >= 0L) {
+                ctx.setAttr(RequestMetricListener.HANDSHAKE_TIME, timing.handshakeNanos);
+            }
+        }
+    }
+
     private void onAcquireConnectionFailed(HttpRequest request,
                                            SocketAddress address,
                                            Context ctx,
@@ -346,17 +380,21 @@ public class NettyTransceiver implements HttpTransceiver {
                   RequestWriter writer,
                   CompletableFuture<RequestWriter> chunkWriterPromise) throws IOException {
         final HandleRegistry registry = detectRegistry(channel);
-        setKeepAlive((Http1HeadersImpl) request.headers(), version);
+        setKeepAlive((Http1HeadersImpl) request.headers(), version, !http2 && isRetired(channel));
 
         h.onWriteAttempt(request, ctx, readTimeout);
 
         // we should add response handle before writing because that the inbound
         // message may arrive before completing writing.
+        NettyHandle handle0 = handle.apply(h, response);
+        if (handle0 == null && builder.isPooledResponseBody()) {
+            handle0 = new DefaultHandle(request, ctx, h, response, channel.alloc(), true);
+        }
         final int requestId = addRspHandle(request,
                 ctx,
                 channel,
                 h,
-                handle.apply(h, response),
+                handle0,
                 http2,
                 registry,
                 response);
@@ -402,13 +440,34 @@ public class NettyTransceiver implements HttpTransceiver {
         }
     }
 
+    /**
+     * Establishes the given number of connections to given {@code address} in advance.
+     *
+     * @param ssl           whether to use https
+     * @param address       address
+     * @param connections   the number of connections expected
+     * @return future which will be completed with the number of connections which are ready
+     */
+    CompletableFuture<Integer> warmUp(boolean ssl, SocketAddress address, int connections) {
+        final esa.httpclient.core.netty.ChannelPool channelPool;
+        try {
+            channelPool = getChannelPool(ssl, address);
+        } catch (Throwable ex) {
+            return Futures.completed(ex);
+        }
+        return channelPool.warmUp(connections);
+    }
+
     ChannelPool getChannelPool(HttpRequest request, SocketAddress address) {
+        return getChannelPool(Scheme.HTTPS.name0().equals(request.scheme()), address).underlying;
+    }
+
+    private esa.httpclient.core.netty.ChannelPool getChannelPool(boolean ssl, SocketAddress address) {
         esa.httpclient.core.netty.ChannelPool channelPool = channelPools.getIfPresent(address);
         if (channelPool != null) {
-            return channelPool.underlying;
+            return channelPool;
         }
 
-        final boolean ssl = Scheme.HTTPS.name0().equals(request.scheme());
         return channelPools.getOrCreate(ssl,
                 address,
                 ioThreads,
@@ -435,7 +494,7 @@ public class NettyTransceiver implements HttpTransceiver {
                     }
 
                     return sslHandler;
-                }).underlying;
+                });
     }
 
     private boolean isHttp2(Channel channel) {
@@ -537,22 +596,33 @@ public class NettyTransceiver implements HttpTransceiver {
         endWithError(request, ctx, handle, response, chunkWriterPromise, cause);
     }
 
+    /**
+     * Whether the connection has outlived its lifetime or served its max number of requests, so that the request
+     * on it is supposed to be the last one.
+     */
+    private static boolean isRetired(Channel channel) {
+        final ConnectionState state = ConnectionState.of(channel);
+        return state != null && state.isRetired(System.nanoTime());
+    }
+
     /**
      * Set keepAlive to given headers.
      *
      * @param headers   headers
      * @param version   version
+     * @param retired   whether the connection is retired, see {@link #isRetired(Channel)}
      */
-    private void setKeepAlive(Http1HeadersImpl headers, esa.commons.http.HttpVersion version) {
+    private void setKeepAlive(Http1HeadersImpl headers, esa.commons.http.HttpVersion version, boolean retired) {
         if (esa.commons.http.HttpVersion.HTTP_2 == builder.version()) {
             headers.remove(HttpHeaderNames.CONNECTION);
         }
 
-        if (headers.contains(HttpHeaderNames.CONNECTION)) {
+        // Ask the server to close the connection after responding to the last request.
+        if (!retired && headers.contains(HttpHeaderNames.CONNECTION)) {
             return;
         }
 
-        final boolean keepAlive = builder.isKeepAlive();
+        final boolean keepAlive = !retired && builder.isKeepAlive();
         HttpUtil.setKeepAlive(headers,
                 esa.commons.http.HttpVersion.HTTP_1_1 == version
                         ? HttpVersion.HTTP_1_1 : HttpVersion.HTTP_1_0,
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.config.ChannelPoolOptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passive health checking of the resolved addresses of a host. An address which has failed for the configured
+ * number of times in a row is ejected from the load balancing for a while, unless the max percent of the addresses
+ * have been ejected. The ejection time grows with the number of times the address has been ejected in a row, which
+ * is reset by a success once it has come back.
+ */
+final class OutlierDetector {
+
+    static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    final int consecutiveFailures;
+    final long ejectionTimeNanos;
+    private final int maxEjectionPercent;
+    private final AtomicInteger ejected = new AtomicInteger();
+    private volatile int size;
+
+    OutlierDetector(int consecutiveFailures, long ejectionTimeMillis, int maxEjectionPercent) {
+        Checks.checkArg(consecutiveFailures >= 1, "consecutiveFailures is " + consecutiveFailures +
+                " (expected >= 1)");
+        Checks.checkArg(ejectionTimeMillis >= 1L, "ejectionTimeMillis is " + ejectionTimeMillis +
+                " (expected >= 1)");
+        Checks.checkArg(maxEjectionPercent >= 1 && maxEjectionPercent <= 100, "maxEjectionPercent is " +
+                maxEjectionPercent + " (expected: [1, 100])");
+        this.consecutiveFailures = consecutiveFailures;
+        this.ejectionTimeNanos = TimeUnit.MILLISECONDS.toNanos(ejectionTimeMillis);
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    /**
+     * Creates a {@link OutlierDetector} by the given options.
+     *
+     * @param options options
+     * @return detector, or {@code null} if the outlier detection is disabled
+     */
+    static OutlierDetector of(ChannelPoolOptions options) {
+        if (options.outlierConsecutiveFailures() <= 0) {
+            return null;
+        }
+        return new OutlierDetector(options.outlierConsecutiveFailures(),
+                options.outlierEjectionTime(),
+                options.outlierMaxEjectionPercent());
+    }
+
+    /**
+     * Sets the number of the addresses which take part in the load balancing.
+     *
+     * @param size size
+     */
+    void size(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the number of the addresses which are ejected or whose ejection has not been noticed to be over yet
+     */
+    int ejected() {
+        return ejected.get();
+    }
+
+    /**
+     * Takes a place of ejection if the max ejection percent permits.
+     *
+     * @return {@code true} if an address can be ejected
+     */
+    boolean tryEject() {
+        final int size = this.size;
+        // At least one address can be ejected, and at least one is always kept.
+        final int max = Math.min(size - 1, Math.max(1, size * maxEjectionPercent / 100));
+        for (;;) {
+            final int n = ejected.get();
+            if (n >= max) {
+                return false;
+            }
+            if (ejected.compareAndSet(n, n + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives the place of an ejection back.
+     */
+    void onReturned() {
+        ejected.decrementAndGet();
+    }
+}
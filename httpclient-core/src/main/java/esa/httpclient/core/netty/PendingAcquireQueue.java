@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.RequestPriority;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The queue of the acquisitions waiting for a connection, which serves the acquisitions of higher
+ * {@link RequestPriority} firstly and the ones of the same priority in FIFO order. Once it's full, a new
+ * acquisition takes the place of the latest one of a lower priority if there is any, otherwise it's rejected.
+ *
+ * The acquisitions which have been cancelled or have passed their deadlines are dropped while polling, so that they
+ * never take a connection which could serve the others. This queue is not thread-safe and should be accessed on
+ * the executor of its pool only.
+ */
+final class PendingAcquireQueue {
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final ArrayDeque<PendingAcquire>[] queues;
+    private final int maxSize;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    PendingAcquireQueue(int maxSize) {
+        this.maxSize = maxSize;
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Adds the acquisition to the end of the queue of its priority.
+     *
+     * @param pending pending acquisition
+     * @return {@code false} if the queue is full of the acquisitions whose priorities are not lower
+     */
+    boolean offer(PendingAcquire pending) {
+        if (size >= maxSize && !evictLowerThan(pending.priority)) {
+            return false;
+        }
+        queues[pending.priority.ordinal()].addLast(pending);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes and returns the first acquisition which is still waiting, the ones which have been cancelled are
+     * discarded and the ones which have passed their deadlines are failed along the way.
+     *
+     * @param now current time in nanoseconds
+     * @return the acquisition to serve, or {@code null} if there is none
+     */
+    PendingAcquire poll(long now) {
+        for (ArrayDeque<PendingAcquire> queue : queues) {
+            PendingAcquire pending;
+            while ((pending = queue.poll()) != null) {
+                size--;
+                pending.cancelTimeout();
+                if (pending.promise.isDone()) {
+                    continue;
+                }
+                if (now - pending.deadline >= 0L) {
+                    pending.promise.tryFailure(new TimeoutException(
+                            "Acquire operation took longer than configured maximum time"));
+                    continue;
+                }
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    boolean remove(PendingAcquire pending) {
+        if (queues[pending.priority.ordinal()].remove(pending)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void failAll(Throwable cause) {
+        for (ArrayDeque<PendingAcquire> queue : queues) {
+            PendingAcquire pending;
+            while ((pending = queue.poll()) != null) {
+                pending.cancelTimeout();
+                pending.promise.tryFailure(cause);
+            }
+        }
+        size = 0;
+    }
+
+    private boolean evictLowerThan(RequestPriority priority) {
+        for (int i = queues.length - 1; i > priority.ordinal(); i--) {
+            final PendingAcquire evicted = queues[i].pollLast();
+            if (evicted != null) {
+                size--;
+                evicted.cancelTimeout();
+                evicted.promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class PendingAcquire {
+
+        final Promise<Channel> promise;
+        final RequestPriority priority;
+
+        /**
+         * Deadline in nanoseconds, see {@link System#nanoTime()}.
+         */
+        final long deadline;
+        ScheduledFuture<?> timeout;
+
+        PendingAcquire(Promise<Channel> promise, long deadline) {
+            this.promise = promise;
+            this.priority = AcquirePromise.priorityOf(promise);
+            this.deadline = deadline;
+        }
+
+        private void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package esa.httpclient.core.netty;
 
+import esa.commons.netty.core.Buffer;
 import esa.httpclient.core.PlainRequest;
 import esa.httpclient.core.RequestOptions;
 
@@ -28,4 +29,9 @@ class PlainRequestImpl extends NettyRequest implements PlainRequest {
     public byte[] body() {
         return options.body();
     }
+
+    @Override
+    public Buffer buffer() {
+        return options.buffer();
+    }
 }
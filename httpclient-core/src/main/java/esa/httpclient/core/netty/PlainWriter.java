@@ -49,7 +49,9 @@ class PlainWriter extends RequestWriterImpl<PlainRequest> {
                                        boolean uriEncodeEnabled,
                                        HttpVersion version,
                                        boolean http2) throws IOException {
-        addContentLengthIfAbsent(request, v -> request.body() == null ? 0L : request.body().length);
+        addContentLengthIfAbsent(request, v -> request.buffer() != null
+                ? request.buffer().readableBytes()
+                : (request.body() == null ? 0L : request.body().length));
 
         return super.writeAndFlush(request, channel, ctx, uriEncodeEnabled, version, http2);
     }
@@ -60,6 +62,9 @@ class PlainWriter extends RequestWriterImpl<PlainRequest> {
                                  Context context,
                                  HttpVersion version,
                                  boolean uriEncodeEnabled) {
+        if (request.buffer() != null) {
+            return writeBuffer1(request, channel, context, version, uriEncodeEnabled);
+        }
         if (request.body() == null || request.body().length == 0) {
             return channel.writeAndFlush(new DefaultFullHttpRequest(version,
                     HttpMethod.valueOf(request.method().name()),
@@ -87,10 +92,41 @@ class PlainWriter extends RequestWriterImpl<PlainRequest> {
         }
     }
 
+    private static ChannelFuture writeBuffer1(PlainRequest request,
+                                              Channel channel,
+                                              Context context,
+                                              HttpVersion version,
+                                              boolean uriEncodeEnabled) {
+        final HttpMethod method = HttpMethod.valueOf(request.method().name());
+        final String uri = request.uri().relative(uriEncodeEnabled);
+        if (writeContentNow(context)) {
+            // Headers and body go out as a single message within one flush, and the body is written as it is
+            // while the request keeps its own reference for retrying and redirecting.
+            return channel.writeAndFlush(new DefaultFullHttpRequest(version,
+                    method,
+                    uri,
+                    request.buffer().getByteBuf().retainedDuplicate(),
+                    (Http1HeadersImpl) request.headers(),
+                    EmptyHttpHeaders.INSTANCE));
+        }
+
+        channel.writeAndFlush(new DefaultHttpRequest(version, method, uri, (Http1HeadersImpl) request.headers()));
+        final ChannelPromise endPromise = channel.newPromise();
+        context.setAttr(EXPECT_CONTINUE_CALLBACK, (Runnable) () ->
+                Utils.runInChannel(channel, () -> doWriteContent1(channel,
+                        request.buffer().getByteBuf().retainedDuplicate(), endPromise)));
+        return endPromise;
+    }
+
     private static void doWriteContent1(Channel channel,
                                         byte[] content,
                                         ChannelPromise endPromise) {
-        ByteBuf buf = channel.alloc().buffer(content.length).writeBytes(content);
+        doWriteContent1(channel, channel.alloc().buffer(content.length).writeBytes(content), endPromise);
+    }
+
+    private static void doWriteContent1(Channel channel,
+                                        ByteBuf buf,
+                                        ChannelPromise endPromise) {
         try {
             channel.writeAndFlush(new DefaultLastHttpContent(buf), endPromise);
         } catch (Throwable ex) {
@@ -106,7 +142,9 @@ class PlainWriter extends RequestWriterImpl<PlainRequest> {
                                  Http2ConnectionHandler handler,
                                  int streamId,
                                  boolean uriEncodeEnabled) {
-        final boolean endOfStream = request.body() == null || request.body().length == 0;
+        final boolean endOfStream = request.buffer() != null
+                ? request.buffer().readableBytes() == 0
+                : request.body() == null || request.body().length == 0;
 
         final ChannelFuture future = checkAndWriteH2Headers(channel,
                 handler,
@@ -121,21 +159,26 @@ class PlainWriter extends RequestWriterImpl<PlainRequest> {
         final ChannelPromise endPromise = channel.newPromise();
         if (writeContentNow(context)) {
             doWriteContent2(channel,
-                    request.body(),
+                    content2(request),
                     handler,
                     streamId,
                     endPromise);
         } else {
             channel.flush();
             context.setAttr(EXPECT_CONTINUE_CALLBACK, (Runnable) () ->
-                    doWriteContent2(channel, request.body(), handler, streamId, endPromise));
+                    doWriteContent2(channel, content2(request), handler, streamId, endPromise));
         }
 
         return endPromise;
     }
 
+    private static Object content2(PlainRequest request) {
+        // Write the buffer as it is while the request keeps its own reference for retrying and redirecting.
+        return request.buffer() == null ? request.body() : request.buffer().getByteBuf().retainedDuplicate();
+    }
+
     private static void doWriteContent2(Channel channel,
-                                        byte[] data,
+                                        Object data,
                                         Http2ConnectionHandler handler,
                                         int streamId,
                                         ChannelPromise endPromise) {
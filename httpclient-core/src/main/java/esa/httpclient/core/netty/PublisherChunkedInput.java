@@ -0,0 +1,170 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Adapts a {@link Publisher} to a {@link ChunkedInput}, which requests the next {@link ByteBuffer} only once the
+ * previous one has been taken by the {@link ChunkedWriteHandler}, that is to say, while the connection is able to
+ * take more. The transfer is suspended while there is nothing received, and resumed by the given {@code resume}
+ * once there is.
+ */
+final class PublisherChunkedInput implements ChunkedInput<ByteBuf>, Subscriber<ByteBuffer> {
+
+    private final Publisher<ByteBuffer> publisher;
+    private final Runnable resume;
+    private final Queue<ByteBuffer> buffers = new ArrayDeque<>(2);
+
+    private Subscription subscription;
+    private boolean subscribed;
+    private boolean completed;
+    private Throwable cause;
+    private boolean closed;
+    private long progress;
+
+    PublisherChunkedInput(Publisher<ByteBuffer> publisher, Runnable resume) {
+        this.publisher = publisher;
+        this.resume = resume;
+    }
+
+    @Override
+    public synchronized boolean isEndOfInput() {
+        return completed && buffers.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        final Subscription s;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffers.clear();
+            // Nothing to cancel once the publisher has terminated.
+            s = completed || cause != null ? null : subscription;
+        }
+
+        if (s != null) {
+            s.cancel();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        final boolean subscribe;
+        synchronized (this) {
+            subscribe = !subscribed;
+            subscribed = true;
+        }
+        if (subscribe) {
+            publisher.subscribe(this);
+        }
+
+        final ByteBuffer buffer;
+        final Subscription s;
+        synchronized (this) {
+            if (cause != null) {
+                throw cause instanceof Exception ? (Exception) cause : new IOException(cause);
+            }
+            buffer = buffers.poll();
+            s = subscription;
+        }
+        if (buffer == null) {
+            return null;
+        }
+
+        progress += buffer.remaining();
+        if (!isEndOfInput()) {
+            s.request(1L);
+        }
+        return Unpooled.wrappedBuffer(buffer);
+    }
+
+    @Override
+    public long length() {
+        return -1L;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        final boolean cancel;
+        synchronized (this) {
+            cancel = closed || subscription != null;
+            if (!cancel) {
+                subscription = s;
+            }
+        }
+
+        if (cancel) {
+            s.cancel();
+        } else {
+            s.request(1L);
+        }
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            buffers.offer(buffer);
+        }
+        resume.run();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        synchronized (this) {
+            cause = t;
+        }
+        resume.run();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            completed = true;
+        }
+        resume.run();
+    }
+}
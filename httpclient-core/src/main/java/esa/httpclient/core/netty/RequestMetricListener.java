@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.Context;
+import esa.httpclient.core.HttpMessage;
+import esa.httpclient.core.HttpRequest;
+import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.Listener;
+import esa.httpclient.core.metrics.Histogram;
+import esa.httpclient.core.metrics.RequestMetric;
+import esa.httpclient.core.metrics.RequestMetricProvider;
+import esa.httpclient.core.util.ConcurrentHistogram;
+import io.netty.util.internal.SystemPropertyUtil;
+
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Listener} which records the latency of each phase of requests into per-host histograms by
+ * {@link System#nanoTime()}. The timestamps of a request are kept in its {@link Context}, so that recording
+ * neither locks nor allocates except one small object per request.
+ */
+final class RequestMetricListener implements Listener, RequestMetricProvider {
+
+    static final String CONNECT_TIME = "$connect.nanos";
+    static final String HANDSHAKE_TIME = "$handshake.nanos";
+
+    private static final String TIMING = "$request.timing";
+
+    private static final String MAX_HOSTS_KEY = "esa.httpclient.requestMetrics.maxHosts";
+    private static final int MAX_HOSTS = SystemPropertyUtil.getInt(MAX_HOSTS_KEY, 1024);
+
+    private final Map<SocketAddress, RequestMetricImpl> metrics = new ConcurrentHashMap<>();
+    private final Map<SocketAddress, RequestMetric> unmodifiableMetrics = Collections.unmodifiableMap(metrics);
+
+    @Override
+    public void onInterceptorsStart(HttpRequest request, Context ctx) {
+        ctx.setAttr(TIMING, new Timing(System.nanoTime()));
+    }
+
+    @Override
+    public void onConnectionPoolAttempt(HttpRequest request, Context ctx, SocketAddress address) {
+        final Timing timing = timing(ctx);
+        timing.metric = metricOf(address);
+    }
+
+    @Override
+    public void onConnectionAttempt(HttpRequest request, Context ctx, SocketAddress address) {
+        timing(ctx).acquireStartTime = System.nanoTime();
+    }
+
+    @Override
+    public void onConnectionAcquired(HttpRequest request, Context ctx, SocketAddress address) {
+        final Timing timing = timing(ctx);
+        final Long connectTime = ctx.removeUncheckedAttr(CONNECT_TIME);
+        final Long handshakeTime = ctx.removeUncheckedAttr(HANDSHAKE_TIME);
+        final RequestMetricImpl metric = timing.metric;
+        if (metric == null) {
+            return;
+        }
+
+        metric.poolWaitTime.record(System.nanoTime() - timing.acquireStartTime);
+        if (connectTime != null) {
+            metric.connectTime.record(connectTime);
+        }
+        if (handshakeTime != null) {
+            metric.handshakeTime.record(handshakeTime);
+        }
+    }
+
+    @Override
+    public void onWriteAttempt(HttpRequest request, Context ctx, long readTimeout) {
+        timing(ctx).writeStartTime = System.nanoTime();
+    }
+
+    @Override
+    public void onWriteDone(HttpRequest request, Context ctx, long readTimeout) {
+        final Timing timing = timing(ctx);
+        if (timing.metric != null) {
+            timing.metric.writeTime.record(System.nanoTime() - timing.writeStartTime);
+        }
+    }
+
+    @Override
+    public void onMessageReceived(HttpRequest request, Context ctx, HttpMessage message) {
+        final Timing timing = timing(ctx);
+        if (timing.metric != null) {
+            timing.metric.timeToFirstByte.record(System.nanoTime() - timing.writeStartTime);
+        }
+    }
+
+    @Override
+    public void onCompleted(HttpRequest request, Context ctx, HttpResponse response) {
+        final Timing timing = timing(ctx);
+        if (timing.metric != null) {
+            timing.metric.totalTime.record(System.nanoTime() - timing.startTime);
+        }
+    }
+
+    @Override
+    public void onError(HttpRequest request, Context ctx, Throwable cause) {
+        final Timing timing = timing(ctx);
+        if (timing.metric != null) {
+            timing.metric.errors.increment();
+        }
+    }
+
+    @Override
+    public Map<SocketAddress, RequestMetric> all() {
+        return unmodifiableMetrics;
+    }
+
+    @Override
+    public RequestMetric get(SocketAddress address) {
+        return metrics.get(address);
+    }
+
+    private RequestMetricImpl metricOf(SocketAddress address) {
+        if (address == null) {
+            return null;
+        }
+        final RequestMetricImpl metric = metrics.get(address);
+        if (metric != null) {
+            return metric;
+        }
+        // Don't let a huge number of hosts exhaust the memory.
+        if (metrics.size() >= MAX_HOSTS) {
+            return null;
+        }
+        return metrics.computeIfAbsent(address, addr -> new RequestMetricImpl());
+    }
+
+    private static Timing timing(Context ctx) {
+        Timing timing = ctx.getUncheckedAttr(TIMING);
+        if (timing == null) {
+            // The request is executed without passing interceptors, eg: a chunk request.
+            timing = new Timing(System.nanoTime());
+            ctx.setAttr(TIMING, timing);
+        }
+        return timing;
+    }
+
+    /**
+     * Timestamps of a request, which are updated by the I/O thread serially except {@link #startTime}.
+     */
+    private static final class Timing {
+
+        private final long startTime;
+        private volatile RequestMetricImpl metric;
+        private long acquireStartTime;
+        private long writeStartTime;
+
+        private Timing(long startTime) {
+            this.startTime = startTime;
+            this.acquireStartTime = startTime;
+            this.writeStartTime = startTime;
+        }
+    }
+
+    private static final class RequestMetricImpl implements RequestMetric {
+
+        private final ConcurrentHistogram poolWaitTime = new ConcurrentHistogram();
+        private final ConcurrentHistogram connectTime = new ConcurrentHistogram();
+        private final ConcurrentHistogram handshakeTime = new ConcurrentHistogram();
+        private final ConcurrentHistogram writeTime = new ConcurrentHistogram();
+        private final ConcurrentHistogram timeToFirstByte = new ConcurrentHistogram();
+        private final ConcurrentHistogram totalTime = new ConcurrentHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        @Override
+        public Histogram poolWaitTime() {
+            return poolWaitTime;
+        }
+
+        @Override
+        public Histogram connectTime() {
+            return connectTime;
+        }
+
+        @Override
+        public Histogram handshakeTime() {
+            return handshakeTime;
+        }
+
+        @Override
+        public Histogram writeTime() {
+            return writeTime;
+        }
+
+        @Override
+        public Histogram timeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        @Override
+        public Histogram totalTime() {
+            return totalTime;
+        }
+
+        @Override
+        public long errorCount() {
+            return errors.sum();
+        }
+    }
+}
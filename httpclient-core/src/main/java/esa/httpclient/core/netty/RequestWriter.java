@@ -64,6 +64,8 @@ public interface RequestWriter<Request extends HttpRequest> {
                 return MultipartWriter.singleton();
             case CHUNK:
                 return new ChunkWriter();
+            case STREAM:
+                return StreamWriter.singleton();
             default:
                 return PlainWriter.singleton();
         }
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import esa.httpclient.core.config.LoadBalanceStrategy;
+import esa.httpclient.core.resolver.HostResolver;
+import esa.httpclient.core.util.Futures;
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A {@link ChannelPool} of a host which is split into a sub pool per resolved address of the host, and each
+ * acquisition picks a sub pool by the {@link EndpointBalancer}. The host is resolved again periodically, once the
+ * addresses change, the sub pools of the new addresses are created at once, while the sub pools of the removed
+ * addresses take no more acquisitions and are closed after all of their connections have been released. The sub
+ * pools are kept if a resolution fails or returns nothing, so that a transient failure of DNS never breaks the
+ * established connections.
+ *
+ * If a {@link OutlierDetector} is given, the sub pools whose addresses keep failing are ejected from the balancing
+ * for a while, see {@link EndpointStats}.
+ *
+ * The sub pools are created by the given factory with a copy of the bootstrap, whose remote address is the resolved
+ * one. The state of this pool is only accessed on its executor, except the active sub pools which are published to
+ * the acquisitions.
+ */
+class ResolvingChannelPool implements AsyncCloseablePool {
+
+    private static final AttributeKey<SubPool> SUB_POOL = AttributeKey.valueOf("$resolving.subPool");
+
+    private static final SubPool[] EMPTY = new SubPool[0];
+
+    private final Bootstrap bootstrap;
+    private final String host;
+    private final int port;
+    private final HostResolver resolver;
+    private final Function<Bootstrap, ChannelPool> factory;
+    private final EventExecutor executor;
+    private final ScheduledFuture<?> refresher;
+    private final EndpointBalancer balancer;
+    private final OutlierDetector detector;
+
+    private final Map<InetAddress, SubPool> subPools = new LinkedHashMap<>();
+    private final Set<SubPool> draining = new HashSet<>();
+    private volatile SubPool[] active = EMPTY;
+    private Promise<Void> resolving;
+    private volatile boolean closed;
+
+    ResolvingChannelPool(Bootstrap bootstrap,
+                         HostResolver resolver,
+                         long resolveIntervalMillis,
+                         Function<Bootstrap, ChannelPool> factory) {
+        this(bootstrap, resolver, resolveIntervalMillis, EndpointBalancer.of(LoadBalanceStrategy.ROUND_ROBIN),
+                factory);
+    }
+
+    ResolvingChannelPool(Bootstrap bootstrap,
+                         HostResolver resolver,
+                         long resolveIntervalMillis,
+                         EndpointBalancer balancer,
+                         Function<Bootstrap, ChannelPool> factory) {
+        this(bootstrap, resolver, resolveIntervalMillis, balancer, null, factory);
+    }
+
+    ResolvingChannelPool(Bootstrap bootstrap,
+                         HostResolver resolver,
+                         long resolveIntervalMillis,
+                         EndpointBalancer balancer,
+                         OutlierDetector detector,
+                         Function<Bootstrap, ChannelPool> factory) {
+        Checks.checkNotNull(bootstrap, "Bootstrap must not be null");
+        Checks.checkNotNull(resolver, "HostResolver must not be null");
+        Checks.checkNotNull(balancer, "EndpointBalancer must not be null");
+        Checks.checkNotNull(factory, "factory must not be null");
+        Checks.checkArg(resolveIntervalMillis >= 1L, "resolveIntervalMillis is " + resolveIntervalMillis +
+                " (expected >= 1)");
+        Checks.checkArg(bootstrap.config().remoteAddress() instanceof InetSocketAddress,
+                "remoteAddress must be an InetSocketAddress");
+        final InetSocketAddress address = (InetSocketAddress) bootstrap.config().remoteAddress();
+        this.bootstrap = bootstrap;
+        this.host = address.getHostString();
+        this.port = address.getPort();
+        this.resolver = resolver;
+        this.balancer = balancer;
+        this.detector = detector;
+        this.factory = factory;
+        this.executor = bootstrap.config().group().next();
+        this.refresher = executor.scheduleWithFixedDelay(this::resolve, resolveIntervalMillis, resolveIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        execute(this::resolve);
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        return acquire(executor.newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        Checks.checkNotNull(promise, "Promise must not be null");
+        if (!tryAcquire(promise)) {
+            execute(() -> resolve().addListener(f -> {
+                if (!tryAcquire(promise)) {
+                    promise.tryFailure(f.cause() != null ? f.cause()
+                            : new UnknownHostException("Failed to resolve '" + host + "'"));
+                }
+            }));
+        }
+        return promise;
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        return release(channel, channel.eventLoop().newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        Checks.checkNotNull(promise, "Promise must not be null");
+        final SubPool subPool = channel.attr(SUB_POOL).get();
+        if (subPool == null) {
+            channel.close();
+            promise.setFailure(new IllegalArgumentException("Channel " + channel +
+                    " was not acquired from this ChannelPool"));
+            return promise;
+        }
+        subPool.pool.release(channel, promise).addListener(f -> subPool.unretain());
+        return promise;
+    }
+
+    @Override
+    public void close() {
+        closeAsync().awaitUninterruptibly();
+    }
+
+    /**
+     * Closes all the sub pools asynchronously.
+     *
+     * @return future which will be completed after all the sub pools have been closed
+     */
+    @Override
+    public Future<Void> closeAsync() {
+        closed = true;
+        refresher.cancel(false);
+        final Promise<Void> closeFuture = GlobalEventExecutor.INSTANCE.newPromise();
+        execute(() -> {
+            final List<SubPool> all = new ArrayList<>(subPools.values());
+            all.addAll(draining);
+            subPools.clear();
+            draining.clear();
+            active = EMPTY;
+            if (resolving != null) {
+                resolving.tryFailure(new IllegalStateException("ChannelPool was closed"));
+            }
+
+            final List<Future<Void>> closes = new ArrayList<>(all.size());
+            for (SubPool subPool : all) {
+                closes.add(ChannelPools.closeAsync(subPool.pool));
+            }
+            AsyncCloseablePool.whenAll(closes, closeFuture);
+        });
+        return closeFuture;
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     *
+     * @return the addresses of the sub pools which take acquisitions
+     */
+    List<InetSocketAddress> addresses() {
+        final List<InetSocketAddress> addresses = new ArrayList<>();
+        for (SubPool subPool : active) {
+            addresses.add(subPool.address);
+        }
+        return addresses;
+    }
+
+    private boolean tryAcquire(Promise<Channel> promise) {
+        SubPool[] pools;
+        while ((pools = active).length > 0) {
+            if (detector != null && detector.ejected() > 0) {
+                pools = healthy(pools);
+            }
+            final SubPool subPool = pools[balancer.select(pools)];
+            // Fails only if the sub pool is closing, which has been removed from the active ones before.
+            if (subPool.retain()) {
+                promise.addListener(f -> {
+                    if (!f.isSuccess()) {
+                        subPool.unretain();
+                        if (isConnectFailure(f)) {
+                            subPool.onFailed();
+                        }
+                    }
+                });
+                subPool.pool.acquire(promise);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Filters out the ejected sub pools, and brings back the ones whose ejection is over.
+     */
+    private static SubPool[] healthy(SubPool[] pools) {
+        final List<SubPool> healthy = new ArrayList<>(pools.length);
+        for (SubPool subPool : pools) {
+            if (!subPool.isEjected()) {
+                healthy.add(subPool);
+            }
+        }
+        // Never happens unless the addresses have just changed, in which case all of them are taken.
+        return healthy.isEmpty() ? pools : healthy.toArray(EMPTY);
+    }
+
+    /**
+     * Whether the acquisition failed to connect, rather than timed out or rejected by the pool, or cancelled.
+     */
+    private static boolean isConnectFailure(Future<?> f) {
+        final Throwable cause = f.cause();
+        return !f.isCancelled() && !(cause instanceof TimeoutException) && !(cause instanceof IllegalStateException);
+    }
+
+    private Future<Void> resolve() {
+        if (resolving != null) {
+            return resolving;
+        }
+        final Promise<Void> promise = executor.newPromise();
+        if (closed) {
+            promise.setFailure(new IllegalStateException("ChannelPool was closed"));
+            return promise;
+        }
+        resolving = promise;
+
+        CompletableFuture<List<InetAddress>> resolved;
+        try {
+            resolved = resolver.resolveAddresses(host);
+        } catch (Throwable th) {
+            resolved = Futures.completed(th);
+        }
+        resolved.whenComplete((addresses, th) -> execute(() -> {
+            resolving = null;
+            if (th != null) {
+                if (LoggerUtils.logger().isDebugEnabled()) {
+                    LoggerUtils.logger().debug("Failed to resolve {}, the sub pools will be kept", host, th);
+                }
+                promise.tryFailure(Futures.unwrapped(th));
+                return;
+            }
+            reconcile(addresses);
+            promise.trySuccess(null);
+        }));
+        return promise;
+    }
+
+    private void reconcile(List<InetAddress> addresses) {
+        if (closed || addresses == null || addresses.isEmpty()) {
+            return;
+        }
+
+        final Set<InetAddress> resolved = new LinkedHashSet<>(addresses);
+        boolean changed = false;
+        for (Iterator<Map.Entry<InetAddress, SubPool>> it = subPools.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<InetAddress, SubPool> entry = it.next();
+            if (!resolved.contains(entry.getKey())) {
+                it.remove();
+                changed = true;
+                final SubPool subPool = entry.getValue();
+                subPool.removed = true;
+                subPool.clearEjection();
+                draining.add(subPool);
+                LoggerUtils.logger().info("Address {} of {} has been removed, begin to drain its sub pool",
+                        subPool.address, host);
+            }
+        }
+        for (InetAddress address : resolved) {
+            if (!subPools.containsKey(address)) {
+                changed = true;
+                subPools.put(address, newSubPool(address));
+            }
+        }
+        if (changed) {
+            active = subPools.values().toArray(EMPTY);
+            if (detector != null) {
+                detector.size(active.length);
+            }
+            for (SubPool subPool : new ArrayList<>(draining)) {
+                closeIfDrained(subPool);
+            }
+        }
+    }
+
+    private SubPool newSubPool(InetAddress address) {
+        final InetSocketAddress remoteAddress = new InetSocketAddress(address, port);
+        final Bootstrap bs = bootstrap.clone().remoteAddress(remoteAddress);
+        final SubPool subPool = new SubPool(remoteAddress);
+        bs.attr(SUB_POOL, subPool);
+        bs.attr(EndpointStats.ENDPOINT_STATS, subPool);
+        subPool.pool = factory.apply(bs);
+        LoggerUtils.logger().info("Created sub pool of {} for address {}", host, remoteAddress);
+        return subPool;
+    }
+
+    private void closeIfDrained(SubPool subPool) {
+        if (draining.contains(subPool) && subPool.tryClose()) {
+            draining.remove(subPool);
+            ChannelPools.closeAsync(subPool.pool);
+            LoggerUtils.logger().info("Closed drained sub pool of {} for address {}", host, subPool.address);
+        }
+    }
+
+    private void execute(Runnable task) {
+        if (executor.inEventLoop()) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    private final class SubPool extends EndpointStats {
+
+        private final InetSocketAddress address;
+
+        /**
+         * The number of acquisitions which are outstanding, or -1 once it's closing.
+         */
+        private final AtomicInteger retained = new AtomicInteger();
+        private ChannelPool pool;
+        private volatile boolean removed;
+
+        private SubPool(InetSocketAddress address) {
+            super(detector);
+            this.address = address;
+        }
+
+        private boolean retain() {
+            for (;;) {
+                final int n = retained.get();
+                if (n < 0) {
+                    return false;
+                }
+                if (retained.compareAndSet(n, n + 1)) {
+                    onStarted();
+                    return true;
+                }
+            }
+        }
+
+        private void unretain() {
+            onFinished();
+            if (retained.decrementAndGet() == 0 && removed) {
+                execute(() -> closeIfDrained(this));
+            }
+        }
+
+        private boolean tryClose() {
+            return retained.compareAndSet(0, -1);
+        }
+    }
+}
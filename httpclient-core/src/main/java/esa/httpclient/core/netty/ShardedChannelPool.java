@@ -0,0 +1,265 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.Checks;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ChannelPool} which is sharded by the {@link EventLoop}s of the given {@link EventLoopGroup}. Every shard
+ * is a {@link MeteredChannelPool} whose executor is the very {@link EventLoop} its connections are registered to,
+ * so that an acquisition on an I/O thread is served by the shard of the same thread without any handoff, and a
+ * release is always routed back to the shard of {@link Channel#eventLoop()}.
+ *
+ * An acquisition prefers the shard of current thread, or picks one in round-robin when current thread is not one
+ * of the I/O threads. Only if the preferred shard has run out of connections will it borrow from the first sibling
+ * which still has spare capacity. If all the shards are exhausted, the acquisition waits on the preferred one.
+ * The shards share the same {@link ConnectLimiter} of the host if it's given.
+ *
+ * The max connections and the max pending acquisitions are divided among the shards as evenly as possible, whose
+ * sums are exactly the given ones, so that there are fewer shards than {@link EventLoop}s if either of them is less
+ * than the number of the {@link EventLoop}s.
+ */
+class ShardedChannelPool implements AsyncCloseablePool {
+
+    private final Shard[] shards;
+    private final Map<EventLoop, Shard> shardsByLoop;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    ShardedChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, maxConnections, maxPendingAcquires, metric,
+                null);
+    }
+
+    ShardedChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric,
+                       ConnectLimiter limiter) {
+        this(bootstrap, handler, healthCheck, acquireTimeoutMillis, maxConnections, maxPendingAcquires, metric,
+                limiter, null);
+    }
+
+    ShardedChannelPool(Bootstrap bootstrap,
+                       ChannelPoolHandler handler,
+                       ChannelHealthChecker healthCheck,
+                       long acquireTimeoutMillis,
+                       int maxConnections,
+                       int maxPendingAcquires,
+                       ChannelPoolMetricImpl metric,
+                       ConnectLimiter limiter,
+                       HappyEyeballsConnector connector) {
+        Checks.checkNotNull(bootstrap, "Bootstrap must not be null");
+        Checks.checkNotNull(metric, "ChannelPoolMetric must not be null");
+        Checks.checkArg(maxConnections >= 1, "maxConnections is " + maxConnections + " (expected >= 1)");
+        Checks.checkArg(maxPendingAcquires >= 1, "maxPendingAcquires is " + maxPendingAcquires +
+                " (expected >= 1)");
+        final EventLoopGroup group = bootstrap.config().group();
+        Checks.checkNotNull(group, "EventLoopGroup must not be null");
+
+        final List<EventLoop> loops = new ArrayList<>();
+        for (EventExecutor executor : group) {
+            loops.add((EventLoop) executor);
+        }
+        Checks.checkArg(!loops.isEmpty(), "EventLoopGroup must not be empty");
+
+        // Every shard holds one connection and one pending acquisition at least.
+        final int size = Math.min(loops.size(), Math.min(maxConnections, maxPendingAcquires));
+        final Map<EventLoop, Shard> shardsByLoop = new IdentityHashMap<>(size);
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            final EventLoop loop = loops.get(i);
+            final int maxConnectionsPerShard = share(maxConnections, size, i);
+            final int maxPendingAcquiresPerShard = share(maxPendingAcquires, size, i);
+            shards[i] = new Shard(loop, maxConnectionsPerShard,
+                    new MeteredChannelPool(bootstrap.clone(loop),
+                            handler,
+                            healthCheck,
+                            FixedChannelPool.AcquireTimeoutAction.FAIL,
+                            acquireTimeoutMillis,
+                            maxConnectionsPerShard,
+                            maxPendingAcquiresPerShard,
+                            metric,
+                            true,
+                            limiter,
+                            connector));
+            shardsByLoop.put(loop, shards[i]);
+        }
+        this.shardsByLoop = Collections.unmodifiableMap(shardsByLoop);
+    }
+
+    @Override
+    public Future<Channel> acquire() {
+        final Shard shard = select();
+        return acquire0(shard, shard.loop.newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        Checks.checkNotNull(promise, "Promise must not be null");
+        return acquire0(select(), promise);
+    }
+
+    @Override
+    public Future<Void> release(Channel channel) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        return release(channel, channel.eventLoop().newPromise());
+    }
+
+    @Override
+    public Future<Void> release(Channel channel, Promise<Void> promise) {
+        Checks.checkNotNull(channel, "Channel must not be null");
+        Checks.checkNotNull(promise, "Promise must not be null");
+        final Shard shard = shardsByLoop.get(channel.eventLoop());
+        if (shard == null) {
+            channel.close();
+            promise.setFailure(new IllegalArgumentException("Channel " + channel +
+                    " was not acquired from this ChannelPool"));
+            return promise;
+        }
+        shard.outstanding.decrementAndGet();
+        return shard.pool.release(channel, promise);
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.pool.close();
+        }
+    }
+
+    /**
+     * Closes all the shards asynchronously.
+     *
+     * @return future which will be completed after all the shards have been closed
+     */
+    @Override
+    public Future<Void> closeAsync() {
+        final List<Future<Void>> closes = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            closes.add(shard.pool.closeAsync());
+        }
+        return AsyncCloseablePool.whenAll(closes, GlobalEventExecutor.INSTANCE.newPromise());
+    }
+
+    /**
+     * Designed as package visibility for unit test.
+     *
+     * @return the number of shards
+     */
+    int shards() {
+        return shards.length;
+    }
+
+    private Future<Channel> acquire0(Shard shard, Promise<Channel> promise) {
+        shard.outstanding.incrementAndGet();
+        final Future<Channel> acquire = shard.pool.acquire(shard.loop.newPromise());
+        acquire.addListener(f -> {
+            if (!acquire.isSuccess()) {
+                shard.outstanding.decrementAndGet();
+                promise.tryFailure(acquire.cause());
+            } else if (!promise.trySuccess(acquire.getNow())) {
+                // Cancelled, so that the channel is released to the shard directly
+                shard.outstanding.decrementAndGet();
+                shard.pool.release(acquire.getNow());
+            }
+        });
+        return promise;
+    }
+
+    private Shard select() {
+        final Shard[] shards = this.shards;
+        final int size = shards.length;
+        int start = -1;
+        for (int i = 0; i < size; i++) {
+            if (shards[i].loop.inEventLoop()) {
+                start = i;
+                break;
+            }
+        }
+        if (start < 0) {
+            start = (nextIndex.getAndIncrement() & Integer.MAX_VALUE) % size;
+        }
+
+        final Shard preferred = shards[start];
+        if (preferred.hasCapacity()) {
+            return preferred;
+        }
+        for (int i = 1; i < size; i++) {
+            final Shard sibling = shards[(start + i) % size];
+            if (sibling.hasCapacity()) {
+                return sibling;
+            }
+        }
+        return preferred;
+    }
+
+    /**
+     * Divides the total into the given parts as evenly as possible, and the remainder goes to the first parts.
+     */
+    private static int share(int total, int parts, int index) {
+        return total / parts + (index < total % parts ? 1 : 0);
+    }
+
+    private static final class Shard {
+
+        private final EventLoop loop;
+        private final int maxConnections;
+        private final MeteredChannelPool pool;
+
+        /**
+         * The number of channels which have been acquired or are being acquired from this shard.
+         */
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private Shard(EventLoop loop, int maxConnections, MeteredChannelPool pool) {
+            this.loop = loop;
+            this.maxConnections = maxConnections;
+            this.pool = pool;
+        }
+
+        private boolean hasCapacity() {
+            return outstanding.get() < maxConnections;
+        }
+    }
+}
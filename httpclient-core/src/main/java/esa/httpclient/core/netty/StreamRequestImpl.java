@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.RequestOptions;
+import esa.httpclient.core.StreamRequest;
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+class StreamRequestImpl extends NettyRequest implements StreamRequest {
+
+    StreamRequestImpl(RequestOptions options) {
+        super(options);
+    }
+
+    @Override
+    public ReadableByteChannel channel() {
+        return options.channel();
+    }
+
+    @Override
+    public Publisher<ByteBuffer> publisher() {
+        return options.publisher();
+    }
+
+}
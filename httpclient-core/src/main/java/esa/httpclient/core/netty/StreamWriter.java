@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.io.IOUtils;
+import esa.commons.netty.http.Http1HeadersImpl;
+import esa.httpclient.core.Context;
+import esa.httpclient.core.StreamRequest;
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioStream;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.io.IOException;
+
+import static esa.httpclient.core.ContextNames.EXPECT_CONTINUE_CALLBACK;
+import static esa.httpclient.core.util.HttpHeadersUtils.toHttp2Headers;
+
+/**
+ * Writes the body of a {@link StreamRequest} through the {@link ChunkedWriteHandler}, which pulls the next chunk
+ * only while the channel is writable and resumes once it becomes writable again. As for http2, the
+ * {@link Http2ChunkedInput} additionally waits for the flow-control window of the stream.
+ */
+class StreamWriter extends RequestWriterImpl<StreamRequest> {
+
+    private static final StreamWriter INSTANCE = new StreamWriter();
+
+    private StreamWriter() {
+    }
+
+    @Override
+    public ChannelFuture writeAndFlush(StreamRequest request,
+                                       Channel channel,
+                                       Context ctx,
+                                       boolean uriEncodeEnabled,
+                                       HttpVersion version,
+                                       boolean http2) throws IOException {
+        addContentTypeIfAbsent(request, () -> HttpHeaderValues.APPLICATION_OCTET_STREAM);
+
+        return super.writeAndFlush(request, channel, ctx, uriEncodeEnabled, version, http2);
+    }
+
+    @Override
+    ChannelFuture writeAndFlush1(StreamRequest request,
+                                 Channel channel,
+                                 Context context,
+                                 HttpVersion version,
+                                 boolean uriEncodeEnabled) {
+        final HttpRequest request0 = new DefaultHttpRequest(version,
+                HttpMethod.valueOf(request.method().name()),
+                request.uri().relative(uriEncodeEnabled),
+                ((Http1HeadersImpl) request.headers()));
+        if (!HttpUtil.isContentLengthSet(request0)) {
+            HttpUtil.setTransferEncodingChunked(request0, true);
+        }
+        channel.write(request0);
+
+        final ChannelPromise endPromise = channel.newPromise();
+        final ChunkedWriteHandler chunkedWriter = channel.pipeline().get(ChunkedWriteHandler.class);
+        if (writeContentNow(context)) {
+            doWriteContent1(request, channel, chunkedWriter, endPromise);
+        } else {
+            channel.flush();
+            context.setAttr(EXPECT_CONTINUE_CALLBACK, (Runnable)
+                    () -> doWriteContent1(request, channel, chunkedWriter, endPromise));
+        }
+
+        return endPromise;
+    }
+
+    private static void doWriteContent1(StreamRequest request,
+                                        Channel channel,
+                                        ChunkedWriteHandler chunkedWriter,
+                                        ChannelPromise endPromise) {
+        // Note: HttpChunkedInput will write the end marker (LastHttpContent) for us.
+        final ChunkedInput<ByteBuf> input = newInput(request, channel, chunkedWriter);
+        cleanAndLog(channel.writeAndFlush(new HttpChunkedInput(input), endPromise), input);
+    }
+
+    @Override
+    ChannelFuture writeAndFlush2(StreamRequest request,
+                                 Channel channel,
+                                 Context context,
+                                 Http2ConnectionHandler handler,
+                                 int streamId,
+                                 boolean uriEncodeEnabled) {
+        // Writes http2 headers
+        final ChannelFuture future = checkAndWriteH2Headers(channel,
+                handler,
+                toHttp2Headers(request, (Http1HeadersImpl) request.headers(), uriEncodeEnabled),
+                streamId,
+                false,
+                channel.newPromise());
+        if (future.isDone() && !future.isSuccess()) {
+            closeSourceQuietly(request);
+            return future;
+        }
+
+        final ChannelPromise endPromise = channel.newPromise();
+        final ChunkedWriteHandler chunkedWriter =
+                (ChunkedWriteHandler) channel.pipeline().get(Http2ConnectionHandler.CHUNKED_WRITER);
+
+        // Writes http2 content
+        if (writeContentNow(context)) {
+            Utils.runInChannel(channel, () -> doWriteContent2(request, channel, chunkedWriter, handler,
+                    streamId, endPromise));
+        } else {
+            channel.flush();
+            context.setAttr(EXPECT_CONTINUE_CALLBACK, (Runnable) () -> Utils.runInChannel(channel,
+                    () -> doWriteContent2(request, channel, chunkedWriter, handler, streamId, endPromise)));
+        }
+
+        return endPromise;
+    }
+
+    private static void doWriteContent2(StreamRequest request,
+                                        Channel channel,
+                                        ChunkedWriteHandler chunkedWriter,
+                                        Http2ConnectionHandler handler,
+                                        int streamId,
+                                        ChannelPromise endPromise) {
+        final ChunkedInput<ByteBuf> input = newInput(request, channel, chunkedWriter);
+        cleanAndLog(channel.writeAndFlush(new Http2ChunkedInput(input, streamId, handler), endPromise), input);
+    }
+
+    private static ChunkedInput<ByteBuf> newInput(StreamRequest request,
+                                                  Channel channel,
+                                                  ChunkedWriteHandler chunkedWriter) {
+        if (request.channel() != null) {
+            return new ChunkedNioStream(request.channel());
+        }
+
+        // Resumes later in the event loop, as the publisher may signal while the ChunkedWriteHandler is reading.
+        return new PublisherChunkedInput(request.publisher(),
+                () -> channel.eventLoop().execute(chunkedWriter::resumeTransfer));
+    }
+
+    private static void cleanAndLog(ChannelFuture future, ChunkedInput<?> input) {
+        if (future.isDone()) {
+            closeInputQuietly(input);
+        } else {
+            future.addListener(f -> closeInputQuietly(input));
+        }
+    }
+
+    private static void closeInputQuietly(ChunkedInput<?> input) {
+        try {
+            input.close();
+        } catch (Exception ex) {
+            LoggerUtils.logger().error("Error while closing chunked input", ex);
+        }
+    }
+
+    private static void closeSourceQuietly(StreamRequest request) {
+        IOUtils.closeQuietly(request.channel());
+    }
+
+    static StreamWriter singleton() {
+        return INSTANCE;
+    }
+}
@@ -49,6 +49,17 @@ public abstract class BalancedHostResolver implements HostResolver {
         });
     }
 
+    /**
+     * Returns all the {@link InetAddress}s resolved by {@link #resolveAll(String)}.
+     *
+     * @param inetHost inetHost
+     * @return addresses
+     */
+    @Override
+    public CompletableFuture<List<InetAddress>> resolveAddresses(String inetHost) {
+        return resolveAll(inetHost);
+    }
+
     /**
      * Resolves the given {@code inetHost} and returns all resolved {@link InetAddress}s.
      *
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.resolver;
+
+import esa.commons.Checks;
+import esa.commons.concurrent.ThreadFactories;
+import esa.commons.loadbalance.LoadBalancer;
+import esa.commons.loadbalance.RandomLoadBalancer;
+import esa.httpclient.core.config.ResolverCacheOptions;
+import esa.httpclient.core.metrics.HostResolverCacheMetric;
+import esa.httpclient.core.util.Futures;
+import esa.httpclient.core.util.LoggerUtils;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link HostResolver} which caches the addresses resolved by the underlying {@link BalancedHostResolver} and
+ * serves them in a stale-while-revalidate way: a fresh entry is returned directly, an expired one is still returned
+ * within {@link ResolverCacheOptions#maxStaleMillis()} while it's refreshed in background, and the hot entries
+ * are refreshed {@link ResolverCacheOptions#prefetchAheadMillis()} before they expire. So that most of the
+ * resolutions are served by cache and never wait for the underlying resolver. A failed refresh keeps the stale
+ * entry, which makes the transient failures of DNS invisible to the requests.
+ *
+ * The loads from the underlying resolver are executed by dedicated daemon threads and the concurrent loads of the
+ * same host are coalesced, so that it's safe to wrap a blocking resolver, eg: {@link SystemDefaultResolver}.
+ * Please {@link #close()} it once it's no longer used, which closes the underlying resolver too.
+ */
+public class CachingHostResolver extends BalancedHostResolver {
+
+    private static final long MAX_SCAN_INTERVAL_MILLIS = 1000L;
+    private static final long MIN_SCAN_INTERVAL_MILLIS = 10L;
+
+    private final BalancedHostResolver delegate;
+    private final ResolverCacheOptions options;
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final long prefetchAheadNanos;
+    private final long idleTimeoutNanos;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<List<InetAddress>>> loading = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+    private final Metric metric = new Metric();
+
+    public CachingHostResolver(BalancedHostResolver delegate) {
+        this(delegate, ResolverCacheOptions.ofDefault());
+    }
+
+    public CachingHostResolver(BalancedHostResolver delegate, ResolverCacheOptions options) {
+        this(delegate, options, new RandomLoadBalancer<>());
+    }
+
+    public CachingHostResolver(BalancedHostResolver delegate,
+                               ResolverCacheOptions options,
+                               LoadBalancer<InetAddress> loadBalancer) {
+        super(loadBalancer);
+        Checks.checkNotNull(delegate, "delegate must not be null");
+        Checks.checkNotNull(options, "ResolverCacheOptions must not be null");
+        this.delegate = delegate;
+        this.options = options.copy();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(this.options.ttlMillis());
+        this.maxStaleNanos = TimeUnit.MILLISECONDS.toNanos(this.options.maxStaleMillis());
+        this.prefetchAheadNanos = TimeUnit.MILLISECONDS.toNanos(this.options.prefetchAheadMillis());
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(this.options.idleTimeoutMillis());
+        this.executor = new ScheduledThreadPoolExecutor(this.options.threads(),
+                ThreadFactories.namedThreadFactory("HttpClient-Resolver-Cache-", true));
+        this.executor.setRemoveOnCancelPolicy(true);
+
+        final long scanInterval = Math.max(MIN_SCAN_INTERVAL_MILLIS,
+                Math.min(MAX_SCAN_INTERVAL_MILLIS, this.options.ttlMillis() / 4L));
+        this.executor.scheduleWithFixedDelay(this::scan, scanInterval, scanInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected CompletableFuture<List<InetAddress>> resolveAll(String inetHost) {
+        final long now = System.nanoTime();
+        final Entry entry = cache.get(inetHost);
+        if (entry != null) {
+            entry.lastAccessTime = now;
+            final long age = now - entry.resolvedTime;
+            if (age < ttlNanos) {
+                metric.hits.increment();
+                return Futures.completed(entry.addresses);
+            }
+            if (age < ttlNanos + maxStaleNanos) {
+                metric.staleHits.increment();
+                load(inetHost);
+                return Futures.completed(entry.addresses);
+            }
+        }
+
+        metric.misses.increment();
+        // Don't expose the shared loading future to the caller.
+        final CompletableFuture<List<InetAddress>> result = new CompletableFuture<>();
+        load(inetHost).whenComplete((addresses, th) -> {
+            if (th != null) {
+                result.completeExceptionally(Futures.unwrapped(th));
+            } else {
+                result.complete(addresses);
+            }
+        });
+        return result;
+    }
+
+    public ResolverCacheOptions options() {
+        return options;
+    }
+
+    public HostResolverCacheMetric metric() {
+        return metric;
+    }
+
+    @Override
+    public void close() {
+        try {
+            executor.shutdownNow();
+            loading.values().forEach(f -> f.completeExceptionally(
+                    new IllegalStateException("CachingHostResolver has been closed")));
+            loading.clear();
+            cache.clear();
+        } finally {
+            delegate.close();
+        }
+        LoggerUtils.logger().info("Closed CachingHostResolver successfully, options: {}", options);
+    }
+
+    private CompletableFuture<List<InetAddress>> load(String inetHost) {
+        CompletableFuture<List<InetAddress>> current = loading.get(inetHost);
+        if (current != null) {
+            return current;
+        }
+
+        final CompletableFuture<List<InetAddress>> promise = new CompletableFuture<>();
+        current = loading.putIfAbsent(inetHost, promise);
+        if (current != null) {
+            return current;
+        }
+
+        try {
+            executor.execute(() -> doLoad(inetHost, promise));
+        } catch (RejectedExecutionException ex) {
+            loading.remove(inetHost, promise);
+            promise.completeExceptionally(ex);
+        }
+        return promise;
+    }
+
+    private void doLoad(String inetHost, CompletableFuture<List<InetAddress>> promise) {
+        final long startTime = System.nanoTime();
+        CompletableFuture<List<InetAddress>> resolved;
+        try {
+            resolved = delegate.resolveAddresses(inetHost);
+        } catch (Throwable th) {
+            resolved = Futures.completed(th);
+        }
+
+        resolved.whenComplete((addresses, th) -> {
+            final long endTime = System.nanoTime();
+            final boolean success = th == null && addresses != null && !addresses.isEmpty();
+            metric.onLoaded(endTime - startTime, success);
+            if (success) {
+                final List<InetAddress> copied = Collections.unmodifiableList(new ArrayList<>(addresses));
+                cache.compute(inetHost, (host, old) -> new Entry(copied, endTime,
+                        old == null ? endTime : old.lastAccessTime));
+            } else if (LoggerUtils.logger().isDebugEnabled()) {
+                LoggerUtils.logger().debug("Failed to load addresses of {}, the cached ones will be kept if present",
+                        inetHost, th);
+            }
+
+            // Remove before completing, so that the callers which see the completion won't get this one again.
+            loading.remove(inetHost, promise);
+            if (th != null) {
+                promise.completeExceptionally(Futures.unwrapped(th));
+            } else {
+                promise.complete(addresses);
+            }
+        });
+    }
+
+    private void scan() {
+        final long now = System.nanoTime();
+        for (Map.Entry<String, Entry> item : cache.entrySet()) {
+            final String inetHost = item.getKey();
+            final Entry entry = item.getValue();
+            final long idle = now - entry.lastAccessTime;
+            if (idle >= idleTimeoutNanos) {
+                cache.remove(inetHost, entry);
+                continue;
+            }
+
+            // Only the hosts which have been accessed within the last ttl are worth prefetching.
+            if (prefetchAheadNanos > 0L
+                    && idle < ttlNanos
+                    && now - entry.resolvedTime >= ttlNanos - prefetchAheadNanos
+                    && !loading.containsKey(inetHost)) {
+                metric.prefetches.increment();
+                load(inetHost);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<InetAddress> addresses;
+        private final long resolvedTime;
+        private volatile long lastAccessTime;
+
+        private Entry(List<InetAddress> addresses, long resolvedTime, long lastAccessTime) {
+            this.addresses = addresses;
+            this.resolvedTime = resolvedTime;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    private final class Metric implements HostResolverCacheMetric {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder staleHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder prefetches = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder totalLoadTime = new LongAdder();
+        private final LongAccumulator maxLoadTime = new LongAccumulator(Math::max, 0L);
+
+        private void onLoaded(long elapsedNanos, boolean success) {
+            loads.increment();
+            if (!success) {
+                loadFailures.increment();
+            }
+            totalLoadTime.add(elapsedNanos);
+            maxLoadTime.accumulate(elapsedNanos);
+        }
+
+        @Override
+        public int size() {
+            return cache.size();
+        }
+
+        @Override
+        public long hitCount() {
+            return hits.sum();
+        }
+
+        @Override
+        public long staleHitCount() {
+            return staleHits.sum();
+        }
+
+        @Override
+        public long missCount() {
+            return misses.sum();
+        }
+
+        @Override
+        public long prefetchCount() {
+            return prefetches.sum();
+        }
+
+        @Override
+        public long loadCount() {
+            return loads.sum();
+        }
+
+        @Override
+        public long loadFailureCount() {
+            return loadFailures.sum();
+        }
+
+        @Override
+        public long totalLoadTimeNanos() {
+            return totalLoadTime.sum();
+        }
+
+        @Override
+        public long maxLoadTimeNanos() {
+            return maxLoadTime.get();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.resolver;
+
+import esa.commons.Checks;
+import esa.commons.concurrent.ThreadFactories;
+import esa.commons.loadbalance.LoadBalancer;
+import esa.commons.loadbalance.RandomLoadBalancer;
+import esa.httpclient.core.config.DnsOptions;
+import esa.httpclient.core.util.LoggerUtils;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DefaultDnsCnameCache;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A non-blocking {@link HostResolver} based on netty's {@link DnsNameResolver}, which caches the resolved records
+ * by their TTLs and caches the failures by {@link DnsOptions#negativeTtl()}. Different from
+ * {@link SystemDefaultResolver}, it never blocks the I/O thread which is connecting to the resolved address.
+ *
+ * The queries are sent by a dedicated daemon thread, so please {@link #close()} it once it's no longer used.
+ * It can be used by {@link esa.httpclient.core.HttpClientBuilder#resolver(HostResolver)}.
+ */
+public class DnsHostResolver extends BalancedHostResolver {
+
+    private final DnsOptions options;
+    private final EventLoopGroup group;
+    private final EventLoop eventLoop;
+    private final DnsNameResolver resolver;
+
+    public DnsHostResolver() {
+        this(DnsOptions.ofDefault());
+    }
+
+    public DnsHostResolver(DnsOptions options) {
+        this(options, new RandomLoadBalancer<>());
+    }
+
+    public DnsHostResolver(DnsOptions options, LoadBalancer<InetAddress> loadBalancer) {
+        super(loadBalancer);
+        Checks.checkNotNull(options, "DnsOptions must not be null");
+        this.options = options.copy();
+        this.group = new NioEventLoopGroup(1, ThreadFactories.namedThreadFactory("HttpClient-Dns-Resolver-", true));
+        this.eventLoop = group.next();
+        this.resolver = build(this.options, eventLoop);
+    }
+
+    @Override
+    protected CompletableFuture<List<InetAddress>> resolveAll(String inetHost) {
+        final CompletableFuture<List<InetAddress>> result = new CompletableFuture<>();
+        final Future<List<InetAddress>> resolved;
+        try {
+            resolved = resolver.resolveAll(inetHost);
+        } catch (Throwable ex) {
+            result.completeExceptionally(ex);
+            return result;
+        }
+
+        if (!resolved.isDone() && options.resolveTimeoutMillis() > 0L) {
+            final ScheduledFuture<?> timeout = eventLoop.schedule(() -> {
+                if (result.completeExceptionally(new UnknownHostException("Failed to resolve '" + inetHost +
+                        "' in " + options.resolveTimeoutMillis() + "ms"))) {
+                    resolved.cancel(false);
+                }
+            }, options.resolveTimeoutMillis(), TimeUnit.MILLISECONDS);
+            result.whenComplete((addresses, th) -> timeout.cancel(false));
+        }
+
+        resolved.addListener(f -> {
+            if (f.isSuccess()) {
+                result.complete(resolved.getNow());
+            } else {
+                result.completeExceptionally(f.cause());
+            }
+        });
+        return result;
+    }
+
+    public DnsOptions options() {
+        return options;
+    }
+
+    @Override
+    public void close() {
+        try {
+            resolver.close();
+        } finally {
+            group.shutdownGracefully(0L, 2L, TimeUnit.SECONDS);
+        }
+        LoggerUtils.logger().info("Closed DnsHostResolver successfully, options: {}", options);
+    }
+
+    private static DnsNameResolver build(DnsOptions options, EventLoop eventLoop) {
+        final DnsNameResolverBuilder builder = new DnsNameResolverBuilder(eventLoop)
+                .channelType(NioDatagramChannel.class)
+                .queryTimeoutMillis(options.queryTimeoutMillis())
+                .maxQueriesPerResolve(options.maxQueriesPerResolve())
+                .resolveCache(new DefaultDnsCache(options.minTtl(), options.maxTtl(), options.negativeTtl()))
+                .cnameCache(new DefaultDnsCnameCache(options.minTtl(), options.maxTtl()))
+                .nameServerProvider(options.nameServers().isEmpty()
+                        ? DnsServerAddressStreamProviders.platformDefault()
+                        : new SequentialDnsServerAddressStreamProvider(options.nameServers()));
+        if (options.searchDomains() != null) {
+            builder.searchDomains(options.searchDomains());
+        }
+        if (options.resolvedAddressTypes() != null) {
+            builder.resolvedAddressTypes(options.resolvedAddressTypes());
+        }
+        return builder.build();
+    }
+}
@@ -17,6 +17,8 @@ package esa.httpclient.core.resolver;
 
 import java.io.Closeable;
 import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -33,6 +35,19 @@ public interface HostResolver extends Closeable {
      */
     CompletableFuture<InetAddress> resolve(String inetHost);
 
+    /**
+     * Resolves the {@code inetHost} to all of its {@link InetAddress}s asynchronously, which are used to split the
+     * connections to the host by address. The default implementation returns the one resolved by
+     * {@link #resolve(String)}.
+     *
+     * @param inetHost host
+     * @return addresses
+     */
+    default CompletableFuture<List<InetAddress>> resolveAddresses(String inetHost) {
+        return resolve(inetHost).thenApply(address -> address == null
+                ? Collections.emptyList() : Collections.singletonList(address));
+    }
+
     /**
      * Closes the {@link HostResolver}.
      */
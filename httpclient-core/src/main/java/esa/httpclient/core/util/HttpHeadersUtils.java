@@ -37,6 +37,11 @@ import static io.netty.util.AsciiString.EMPTY_STRING;
 
 public final class HttpHeadersUtils {
 
+    /**
+     * @deprecated the time to first byte is no longer injected into the headers of responses, please use
+     * {@link esa.httpclient.core.metrics.RequestMetric#timeToFirstByte()} instead.
+     */
+    @Deprecated
     public static final String TTFB = "$ttfb";
 
     private static final String VALIDATE_KEY = "esa.httpclient.validateHttpHeaders";
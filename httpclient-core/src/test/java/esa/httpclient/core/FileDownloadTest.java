@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core;
+
+import esa.commons.http.HttpHeaderNames;
+import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
+import esa.commons.netty.http.Http1HeadersImpl;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileDownloadTest {
+
+    private static final byte[] DATA = "Hello World! Hello World! Hi!!".getBytes();
+
+    @Test
+    void testIllegalArgs() {
+        assertThrows(NullPointerException.class, () -> FileDownload.to(null));
+        final File file = new File("/abc");
+        assertThrows(IllegalArgumentException.class,
+                () -> FileDownload.to(file.toPath()).maxPendingBytes(0L).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> FileDownload.to(file.toPath()).digest("UNKNOWN").build());
+        final FileDownload download = FileDownload.to(file.toPath()).build();
+        assertThrows(NullPointerException.class, () -> download.execute(null, HttpRequest.get("/abc")));
+        assertThrows(NullPointerException.class, () -> download.execute(mock(HttpClient.class), null));
+    }
+
+    @Test
+    void testDownload() throws Exception {
+        final File file = File.createTempFile("httpclient-", ".tmp");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "Old content which is longer than the new one".getBytes());
+
+        final Queue<Runnable> tasks = new LinkedList<>();
+        final List<Long> progress = new ArrayList<>();
+        final FileDownload download = FileDownload.to(file.toPath())
+                .executor(tasks::add)
+                .digest("SHA-256")
+                .maxPendingBytes(15L)
+                .onProgress((written, total) -> {
+                    then(total).isEqualTo(DATA.length);
+                    progress.add(written);
+                })
+                .build();
+
+        final Handle handle = mock(Handle.class);
+        final Http1HeadersImpl headers = new Http1HeadersImpl();
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(DATA.length));
+        when(handle.status()).thenReturn(200);
+        when(handle.headers()).thenReturn(headers);
+        final Subscriber<? super Buffer>[] subscriber = newSubscriberHolder();
+        when(handle.publisher()).thenReturn(s -> subscriber[0] = s);
+        final AtomicLong requested = new AtomicLong();
+        final Subscription subscription = mock(Subscription.class);
+        doAnswer(invocation -> requested.addAndGet(invocation.getArgument(0)))
+                .when(subscription).request(anyLong());
+
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        then(download.bind(response)).isSameAs(download.future());
+        download.accept(handle);
+        startOf(handle).accept(null);
+        subscriber[0].onSubscribe(subscription);
+        then(requested.get()).isEqualTo(1L);
+
+        final ByteBuf buf1 = publish(subscriber[0], 0, 10);
+        then(requested.get()).isEqualTo(2L);
+        final ByteBuf buf2 = publish(subscriber[0], 10, 10);
+        // 20 bytes are waiting to be written, so that no more is requested until they have been written.
+        then(requested.get()).isEqualTo(2L);
+        then(tasks).hasSize(1);
+        then(buf1.refCnt()).isEqualTo(1);
+
+        tasks.poll().run();
+        then(buf1.refCnt()).isEqualTo(0);
+        then(buf2.refCnt()).isEqualTo(0);
+        then(requested.get()).isEqualTo(3L);
+        then(progress).containsExactly(20L);
+
+        publish(subscriber[0], 20, 10);
+        subscriber[0].onComplete();
+        // The response ends once the body has been received rather than written
+        response.complete(handle);
+        then(download.future().isDone()).isFalse();
+        tasks.poll().run();
+        then(tasks).isEmpty();
+
+        final FileDownload.Result result = download.future().get();
+        then(result.path()).isEqualTo(file.toPath());
+        then(result.bytes()).isEqualTo(DATA.length);
+        then(result.digest()).isEqualTo(MessageDigest.getInstance("SHA-256").digest(DATA));
+        then(Files.readAllBytes(file.toPath())).isEqualTo(DATA);
+        then(progress).containsExactly(20L, 30L);
+    }
+
+    @Test
+    void testUnexpectedStatus() {
+        final FileDownload download = FileDownload.to(new File("/abc").toPath())
+                .executor(Runnable::run)
+                .build();
+        final Handle handle = mock(Handle.class);
+        when(handle.status()).thenReturn(404);
+
+        download.accept(handle);
+        startOf(handle).accept(null);
+        verify(handle, never()).publisher();
+
+        endOf(handle).accept(null);
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testExecute() {
+        final FileDownload download = FileDownload.to(new File("/abc").toPath())
+                .executor(Runnable::run)
+                .build();
+        final HttpClient client = mock(HttpClient.class);
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(client.execute(request.capture())).thenReturn(response);
+
+        then(download.execute(client, HttpRequest.get("/abc").maxRetries(3))).isSameAs(download.future());
+        then(request.getValue().config().handle()).isNotNull();
+        // Every attempt truncates the file
+        then(request.getValue().config().maxRetries()).isEqualTo(0);
+        assertThrows(IllegalStateException.class, () -> download.execute(client, HttpRequest.get("/abc")));
+
+        // Bound to the execution
+        final ConnectException cause = new ConnectException();
+        response.completeExceptionally(cause);
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isSameAs(cause);
+    }
+
+    @Test
+    void testFailedToExecute() {
+        final FileDownload download = FileDownload.to(new File("/abc").toPath()).build();
+        final HttpClient client = mock(HttpClient.class);
+        final IllegalStateException cause = new IllegalStateException();
+        when(client.execute(any())).thenThrow(cause);
+
+        download.execute(client, HttpRequest.get("/abc"));
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isSameAs(cause);
+    }
+
+    @Test
+    void testFailedToConnect() {
+        final FileDownload download = FileDownload.to(new File("/abc").toPath())
+                .executor(Runnable::run)
+                .build();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        download.bind(response);
+        then(download.future().isDone()).isFalse();
+
+        // No response, so the download is never applied to a handle.
+        final ConnectException cause = new ConnectException();
+        response.completeExceptionally(cause);
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isSameAs(cause);
+    }
+
+    @Test
+    void testRedirectionNotFollowed() {
+        final FileDownload download = FileDownload.to(new File("/abc").toPath())
+                .executor(Runnable::run)
+                .build();
+        final Handle handle = mock(Handle.class);
+        when(handle.status()).thenReturn(302);
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        download.bind(response);
+
+        download.accept(handle);
+        startOf(handle).accept(null);
+        endOf(handle).accept(null);
+        verify(handle, never()).publisher();
+        // It may be redirected yet.
+        then(download.future().isDone()).isFalse();
+
+        response.complete(handle);
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testNotUsedAsHandle() {
+        final FileDownload download = FileDownload.to(new File("/abc").toPath())
+                .executor(Runnable::run)
+                .build();
+        final HttpResponse response = mock(HttpResponse.class);
+        when(response.status()).thenReturn(200);
+
+        download.bind(CompletableFuture.completedFuture(response));
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testErrorWhileDownloading() throws IOException {
+        final File file = File.createTempFile("httpclient-", ".tmp");
+        file.deleteOnExit();
+
+        final Queue<Runnable> tasks = new LinkedList<>();
+        final FileDownload download = FileDownload.to(file.toPath())
+                .executor(tasks::add)
+                .build();
+        final Handle handle = mock(Handle.class);
+        when(handle.status()).thenReturn(200);
+        when(handle.headers()).thenReturn(new Http1HeadersImpl());
+        final Subscriber<? super Buffer>[] subscriber = newSubscriberHolder();
+        when(handle.publisher()).thenReturn(s -> subscriber[0] = s);
+
+        download.accept(handle);
+        startOf(handle).accept(null);
+        subscriber[0].onSubscribe(mock(Subscription.class));
+
+        final ByteBuf buf = publish(subscriber[0], 0, DATA.length);
+        final IllegalStateException cause = new IllegalStateException();
+        subscriber[0].onError(cause);
+        // The error of the download does not come from the handle again.
+        errorOf(handle).accept(cause);
+        then(download.future().isDone()).isFalse();
+
+        tasks.poll().run();
+        then(buf.refCnt()).isEqualTo(0);
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> download.future().get());
+        then(ex.getCause()).isSameAs(cause);
+    }
+
+    private static ByteBuf publish(Subscriber<? super Buffer> subscriber, int offset, int length) {
+        // Released after onNext() as same as the publisher of the handle.
+        final ByteBuf buf = Unpooled.directBuffer(length).writeBytes(DATA, offset, length);
+        subscriber.onNext(new BufferImpl(buf));
+        buf.release();
+        return buf;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Subscriber<? super Buffer>[] newSubscriberHolder() {
+        return new Subscriber[1];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Void> startOf(Handle handle) {
+        final ArgumentCaptor<Consumer<Void>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(handle).onStart(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Void> endOf(Handle handle) {
+        final ArgumentCaptor<Consumer<Void>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(handle).onEnd(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Throwable> errorOf(Handle handle) {
+        final ArgumentCaptor<Consumer<Throwable>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(handle).onError(captor.capture());
+        return captor.getValue();
+    }
+}
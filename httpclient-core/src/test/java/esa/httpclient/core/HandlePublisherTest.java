@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core;
+
+import esa.commons.netty.core.Buffer;
+import esa.commons.netty.core.BufferImpl;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class HandlePublisherTest {
+
+    @Test
+    void testPublishByDemand() {
+        final Handle handle = mock(Handle.class);
+        final HandlePublisher publisher = new HandlePublisher(handle);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        // Copied and held while there is no demand
+        final ByteBuf content = Unpooled.copiedBuffer("Hello", StandardCharsets.UTF_8);
+        dataOf(handle).accept(new BufferImpl(content));
+        content.release();
+        then(subscriber.received).isEmpty();
+
+        subscriber.subscription.request(1L);
+        then(subscriber.received).containsExactly("Hello");
+
+        dataOf(handle).accept(new BufferImpl(Unpooled.copiedBuffer("World", StandardCharsets.UTF_8)));
+        endOf(handle).accept(null);
+        then(subscriber.received).containsExactly("Hello");
+        then(subscriber.completed).isFalse();
+
+        subscriber.subscription.request(1L);
+        then(subscriber.received).containsExactly("Hello", "World");
+        then(subscriber.completed).isTrue();
+    }
+
+    @Test
+    void testError() {
+        final Handle handle = mock(Handle.class);
+        final HandlePublisher publisher = new HandlePublisher(handle);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        dataOf(handle).accept(new BufferImpl(Unpooled.copiedBuffer("Hello", StandardCharsets.UTF_8)));
+        final IllegalStateException cause = new IllegalStateException();
+        errorOf(handle).accept(cause);
+        then(subscriber.received).isEmpty();
+        then(subscriber.error).isSameAs(cause);
+    }
+
+    @Test
+    void testOnlyOneSubscriber() {
+        final HandlePublisher publisher = new HandlePublisher(mock(Handle.class));
+        publisher.subscribe(new RecordingSubscriber());
+
+        final RecordingSubscriber another = new RecordingSubscriber();
+        publisher.subscribe(another);
+        then(another.error).isInstanceOf(IllegalStateException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Buffer> dataOf(Handle handle) {
+        final ArgumentCaptor<Consumer<Buffer>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(handle).onData(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Void> endOf(Handle handle) {
+        final ArgumentCaptor<Consumer<Void>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(handle).onEnd(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Throwable> errorOf(Handle handle) {
+        final ArgumentCaptor<Consumer<Throwable>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(handle).onError(captor.capture());
+        return captor.getValue();
+    }
+
+    private static final class RecordingSubscriber implements Subscriber<Buffer> {
+
+        private final List<String> received = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(Buffer buffer) {
+            received.add(buffer.getByteBuf().toString(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
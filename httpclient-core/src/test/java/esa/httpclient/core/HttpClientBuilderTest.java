@@ -16,9 +16,11 @@
 package esa.httpclient.core;
 
 import esa.commons.http.HttpVersion;
+import esa.httpclient.core.config.ChannelPoolType;
 import esa.httpclient.core.config.Decompression;
 import esa.httpclient.core.config.Http1Options;
 import esa.httpclient.core.config.Http2Options;
+import esa.httpclient.core.config.LoadBalanceStrategy;
 import esa.httpclient.core.config.NetOptions;
 import esa.httpclient.core.config.RetryOptions;
 import esa.httpclient.core.exec.ExpectContinueInterceptor;
@@ -49,10 +51,23 @@ class HttpClientBuilderTest {
         final HttpVersion version = HttpVersion.HTTP_2;
         final int connectionPoolSize = ThreadLocalRandom.current().nextInt(1, 1000);
         final int connectionPoolWaitQueueSize = ThreadLocalRandom.current().nextInt(1, 1000);
+        final ChannelPoolType connectionPoolType = ChannelPoolType.EVENT_LOOP_SHARDED;
+        final int connectionPoolMinIdle = ThreadLocalRandom.current().nextInt(0, 10);
+        final int connectionPoolIdleTimeout = ThreadLocalRandom.current().nextInt(0, 100000);
+        final int connectionPoolMaxLifetime = ThreadLocalRandom.current().nextInt(0, 100000);
+        final int connectionPoolMaxRequests = ThreadLocalRandom.current().nextInt(0, 1000);
+        final int connectionPoolMinSize = ThreadLocalRandom.current().nextInt(1, 1000);
+        final int connectionPoolMaxConnecting = ThreadLocalRandom.current().nextInt(0, 100);
+        final int connectionPoolConnectRate = ThreadLocalRandom.current().nextInt(0, 100);
+        final int connectionPoolAcquireTimeout = ThreadLocalRandom.current().nextInt(1, 10000);
+        final int connectionPoolResolveInterval = ThreadLocalRandom.current().nextInt(0, 100000);
+        final int connectionPoolConnectAttemptDelay = ThreadLocalRandom.current().nextInt(0, 100000);
         final boolean useDecompress = ThreadLocalRandom.current().nextBoolean();
         final Decompression decompression = Decompression.GZIP_DEFLATE;
         final boolean expectContinueEnabled = ThreadLocalRandom.current().nextBoolean();
         final boolean uriEncodeEnabled = ThreadLocalRandom.current().nextBoolean();
+        final boolean requestMetricsEnabled = ThreadLocalRandom.current().nextBoolean();
+        final boolean pooledResponseBody = ThreadLocalRandom.current().nextBoolean();
         final ChannelPoolOptionsProvider channelPoolOptionsProvider = key -> null;
         final NetOptions netOptions = NetOptions.ofDefault();
         final Http1Options http1Options = Http1Options.ofDefault();
@@ -70,10 +85,27 @@ class HttpClientBuilderTest {
         builder.version(version);
         builder.connectionPoolSize(connectionPoolSize);
         builder.connectionPoolWaitingQueueLength(connectionPoolWaitQueueSize);
+        builder.connectionPoolType(connectionPoolType);
+        builder.connectionPoolMinIdle(connectionPoolMinIdle);
+        builder.connectionPoolIdleTimeout(connectionPoolIdleTimeout);
+        builder.connectionPoolMaxLifetime(connectionPoolMaxLifetime);
+        builder.connectionPoolMaxRequestsPerConnection(connectionPoolMaxRequests);
+        builder.connectionPoolMinSize(connectionPoolMinSize);
+        builder.connectionPoolMaxConnecting(connectionPoolMaxConnecting);
+        builder.connectionPoolConnectRate(connectionPoolConnectRate);
+        builder.connectionPoolAcquireTimeout(connectionPoolAcquireTimeout);
+        builder.connectionPoolResolveInterval(connectionPoolResolveInterval);
+        builder.connectionPoolConnectAttemptDelay(connectionPoolConnectAttemptDelay);
+        builder.connectionPoolLoadBalance(LoadBalanceStrategy.POWER_OF_TWO_CHOICES);
+        builder.connectionPoolOutlierConsecutiveFailures(5);
+        builder.connectionPoolOutlierEjectionTime(6);
+        builder.connectionPoolOutlierMaxEjectionPercent(7);
         builder.useDecompress(useDecompress);
         builder.decompression(decompression);
         builder.expectContinueEnabled(expectContinueEnabled);
         builder.uriEncodeEnabled(uriEncodeEnabled);
+        builder.requestMetricsEnabled(requestMetricsEnabled);
+        builder.pooledResponseBody(pooledResponseBody);
         builder.channelPoolOptionsProvider(channelPoolOptionsProvider);
         builder.netOptions(netOptions);
         builder.http1Options(http1Options);
@@ -90,10 +122,27 @@ class HttpClientBuilderTest {
         then(builder.version()).isSameAs(version);
         then(builder.connectionPoolSize()).isEqualTo(connectionPoolSize);
         then(builder.connectionPoolWaitingQueueLength()).isEqualTo(connectionPoolWaitQueueSize);
+        then(builder.connectionPoolType()).isSameAs(connectionPoolType);
+        then(builder.connectionPoolMinIdle()).isEqualTo(connectionPoolMinIdle);
+        then(builder.connectionPoolIdleTimeout()).isEqualTo(connectionPoolIdleTimeout);
+        then(builder.connectionPoolMaxLifetime()).isEqualTo(connectionPoolMaxLifetime);
+        then(builder.connectionPoolMaxRequestsPerConnection()).isEqualTo(connectionPoolMaxRequests);
+        then(builder.connectionPoolMinSize()).isEqualTo(connectionPoolMinSize);
+        then(builder.connectionPoolMaxConnecting()).isEqualTo(connectionPoolMaxConnecting);
+        then(builder.connectionPoolConnectRate()).isEqualTo(connectionPoolConnectRate);
+        then(builder.connectionPoolAcquireTimeout()).isEqualTo(connectionPoolAcquireTimeout);
+        then(builder.connectionPoolResolveInterval()).isEqualTo(connectionPoolResolveInterval);
+        then(builder.connectionPoolConnectAttemptDelay()).isEqualTo(connectionPoolConnectAttemptDelay);
+        then(builder.connectionPoolLoadBalance()).isSameAs(LoadBalanceStrategy.POWER_OF_TWO_CHOICES);
+        then(builder.connectionPoolOutlierConsecutiveFailures()).isEqualTo(5);
+        then(builder.connectionPoolOutlierEjectionTime()).isEqualTo(6);
+        then(builder.connectionPoolOutlierMaxEjectionPercent()).isEqualTo(7);
         then(builder.isUseDecompress()).isEqualTo(useDecompress);
         then(builder.decompression()).isSameAs(decompression);
         then(builder.isExpectContinueEnabled()).isEqualTo(expectContinueEnabled);
         then(builder.isUriEncodeEnabled()).isEqualTo(uriEncodeEnabled);
+        then(builder.isRequestMetricsEnabled()).isEqualTo(requestMetricsEnabled);
+        then(builder.isPooledResponseBody()).isEqualTo(pooledResponseBody);
         then(builder.channelPoolOptionsProvider()).isSameAs(channelPoolOptionsProvider);
         then(builder.netOptions()).isSameAs(netOptions);
         then(builder.http1Options()).isSameAs(http1Options);
@@ -113,10 +162,23 @@ class HttpClientBuilderTest {
         final HttpVersion version = HttpVersion.HTTP_2;
         final int connectionPoolSize = ThreadLocalRandom.current().nextInt(1, 1000);
         final int connectionPoolWaitQueueSize = ThreadLocalRandom.current().nextInt(1, 1000);
+        final ChannelPoolType connectionPoolType = ChannelPoolType.EVENT_LOOP_SHARDED;
+        final int connectionPoolMinIdle = ThreadLocalRandom.current().nextInt(0, 10);
+        final int connectionPoolIdleTimeout = ThreadLocalRandom.current().nextInt(0, 100000);
+        final int connectionPoolMaxLifetime = ThreadLocalRandom.current().nextInt(0, 100000);
+        final int connectionPoolMaxRequests = ThreadLocalRandom.current().nextInt(0, 1000);
+        final int connectionPoolMinSize = ThreadLocalRandom.current().nextInt(1, 1000);
+        final int connectionPoolMaxConnecting = ThreadLocalRandom.current().nextInt(0, 100);
+        final int connectionPoolConnectRate = ThreadLocalRandom.current().nextInt(0, 100);
+        final int connectionPoolAcquireTimeout = ThreadLocalRandom.current().nextInt(1, 10000);
+        final int connectionPoolResolveInterval = ThreadLocalRandom.current().nextInt(0, 100000);
+        final int connectionPoolConnectAttemptDelay = ThreadLocalRandom.current().nextInt(0, 100000);
         final boolean useDecompress = ThreadLocalRandom.current().nextBoolean();
         final Decompression decompression = Decompression.GZIP_DEFLATE;
         final boolean expectContinueEnabled = ThreadLocalRandom.current().nextBoolean();
         final boolean uriEncodeEnabled = ThreadLocalRandom.current().nextBoolean();
+        final boolean requestMetricsEnabled = ThreadLocalRandom.current().nextBoolean();
+        final boolean pooledResponseBody = ThreadLocalRandom.current().nextBoolean();
         final ChannelPoolOptionsProvider channelPoolOptionsProvider = key -> null;
         final NetOptions netOptions = NetOptions.ofDefault();
         final Http1Options http1Options = Http1Options.ofDefault();
@@ -134,10 +196,27 @@ class HttpClientBuilderTest {
         builder.version(version);
         builder.connectionPoolSize(connectionPoolSize);
         builder.connectionPoolWaitingQueueLength(connectionPoolWaitQueueSize);
+        builder.connectionPoolType(connectionPoolType);
+        builder.connectionPoolMinIdle(connectionPoolMinIdle);
+        builder.connectionPoolIdleTimeout(connectionPoolIdleTimeout);
+        builder.connectionPoolMaxLifetime(connectionPoolMaxLifetime);
+        builder.connectionPoolMaxRequestsPerConnection(connectionPoolMaxRequests);
+        builder.connectionPoolMinSize(connectionPoolMinSize);
+        builder.connectionPoolMaxConnecting(connectionPoolMaxConnecting);
+        builder.connectionPoolConnectRate(connectionPoolConnectRate);
+        builder.connectionPoolAcquireTimeout(connectionPoolAcquireTimeout);
+        builder.connectionPoolResolveInterval(connectionPoolResolveInterval);
+        builder.connectionPoolConnectAttemptDelay(connectionPoolConnectAttemptDelay);
+        builder.connectionPoolLoadBalance(LoadBalanceStrategy.POWER_OF_TWO_CHOICES);
+        builder.connectionPoolOutlierConsecutiveFailures(5);
+        builder.connectionPoolOutlierEjectionTime(6);
+        builder.connectionPoolOutlierMaxEjectionPercent(7);
         builder.useDecompress(useDecompress);
         builder.decompression(decompression);
         builder.expectContinueEnabled(expectContinueEnabled);
         builder.uriEncodeEnabled(uriEncodeEnabled);
+        builder.requestMetricsEnabled(requestMetricsEnabled);
+        builder.pooledResponseBody(pooledResponseBody);
         builder.channelPoolOptionsProvider(channelPoolOptionsProvider);
         builder.netOptions(netOptions);
         builder.http1Options(http1Options);
@@ -156,10 +235,27 @@ class HttpClientBuilderTest {
         then(builder1.version()).isSameAs(version);
         then(builder1.connectionPoolSize()).isEqualTo(connectionPoolSize);
         then(builder1.connectionPoolWaitingQueueLength()).isEqualTo(connectionPoolWaitQueueSize);
+        then(builder1.connectionPoolType()).isSameAs(connectionPoolType);
+        then(builder1.connectionPoolMinIdle()).isEqualTo(connectionPoolMinIdle);
+        then(builder1.connectionPoolIdleTimeout()).isEqualTo(connectionPoolIdleTimeout);
+        then(builder1.connectionPoolMaxLifetime()).isEqualTo(connectionPoolMaxLifetime);
+        then(builder1.connectionPoolMaxRequestsPerConnection()).isEqualTo(connectionPoolMaxRequests);
+        then(builder1.connectionPoolMinSize()).isEqualTo(connectionPoolMinSize);
+        then(builder1.connectionPoolMaxConnecting()).isEqualTo(connectionPoolMaxConnecting);
+        then(builder1.connectionPoolConnectRate()).isEqualTo(connectionPoolConnectRate);
+        then(builder1.connectionPoolAcquireTimeout()).isEqualTo(connectionPoolAcquireTimeout);
+        then(builder1.connectionPoolResolveInterval()).isEqualTo(connectionPoolResolveInterval);
+        then(builder1.connectionPoolConnectAttemptDelay()).isEqualTo(connectionPoolConnectAttemptDelay);
+        then(builder1.connectionPoolLoadBalance()).isSameAs(LoadBalanceStrategy.POWER_OF_TWO_CHOICES);
+        then(builder1.connectionPoolOutlierConsecutiveFailures()).isEqualTo(5);
+        then(builder1.connectionPoolOutlierEjectionTime()).isEqualTo(6);
+        then(builder1.connectionPoolOutlierMaxEjectionPercent()).isEqualTo(7);
         then(builder1.isUseDecompress()).isEqualTo(useDecompress);
         then(builder1.decompression()).isSameAs(decompression);
         then(builder1.isExpectContinueEnabled()).isEqualTo(expectContinueEnabled);
         then(builder1.isUriEncodeEnabled()).isEqualTo(uriEncodeEnabled);
+        then(builder1.isRequestMetricsEnabled()).isEqualTo(requestMetricsEnabled);
+        then(builder1.isPooledResponseBody()).isEqualTo(pooledResponseBody);
         then(builder1.channelPoolOptionsProvider()).isSameAs(channelPoolOptionsProvider);
         then(builder1.netOptions()).isNotSameAs(netOptions);
         then(builder1.http1Options()).isNotSameAs(http1Options);
@@ -19,6 +19,9 @@ import esa.commons.collection.MultiValueMap;
 import esa.commons.http.HttpHeaderValues;
 import esa.commons.http.HttpHeaders;
 import esa.commons.http.HttpMethod;
+import esa.httpclient.core.netty.NettyRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
@@ -102,6 +105,28 @@ class HttpRequestBuilderTest {
         builder.file(file);
         then(builder.build()).isInstanceOf(FileRequest.class);
         then(((FileRequest) builder.build()).file()).isSameAs(file);
+
+        final ByteBuf buf = Unpooled.wrappedBuffer(data);
+        builder.buffer(buf);
+        then(builder.build()).isInstanceOf(PlainRequest.class);
+        then(((PlainRequest) builder.build()).body()).isNull();
+        then(((PlainRequest) builder.build()).buffer().getByteBuf()).isSameAs(buf);
+        then(((PlainRequest) NettyRequest.from(builder.build().config())).buffer().getByteBuf()).isSameAs(buf);
+
+        builder.body(data);
+        then(((PlainRequest) builder.build()).buffer()).isNull();
+    }
+
+    @Test
+    void testPriority() {
+        then(HttpRequest.get("http://127.0.0.1:8080/abc").build().config().priority())
+                .isSameAs(RequestPriority.NORMAL);
+        then(HttpRequest.get("http://127.0.0.1:8080/abc").priority(RequestPriority.LOW).build().config()
+                .priority()).isSameAs(RequestPriority.LOW);
+        then(HttpRequest.post("http://127.0.0.1:8080/abc").priority(RequestPriority.HIGH).body(new byte[0])
+                .build().config().priority()).isSameAs(RequestPriority.HIGH);
+        then(HttpRequest.multipart("http://127.0.0.1:8080/abc").priority(RequestPriority.HIGH).attribute("a", "b")
+                .build().config().priority()).isSameAs(RequestPriority.HIGH);
     }
 
     @Test
@@ -82,6 +82,7 @@ class RequestOptionsTest {
         then(options1.multipart()).isEqualTo(multipart);
         then(options1.attributes()).isNull();
         then(options1.files()).isNull();
+        then(options1.priority()).isSameAs(RequestPriority.NORMAL);
 
         final MultiValueMap<String, String> attributes = new HashMultiValueMap<>();
         final List<MultipartFileItem> fileItems = new ArrayList<>();
@@ -118,4 +119,25 @@ class RequestOptionsTest {
         then(options2.files().size()).isEqualTo(1);
         then(options2.files().get(0)).isSameAs(item);
     }
+
+    @Test
+    void testPriority() {
+        final RequestOptions options = new RequestOptions(HttpMethod.GET,
+                new HttpUri("http://127.0.0.1:8080/abc"),
+                1000,
+                true,
+                0,
+                0,
+                new Http1HeadersImpl(),
+                false,
+                null,
+                null,
+                null,
+                null,
+                false,
+                null,
+                null,
+                RequestPriority.HIGH);
+        then(options.priority()).isSameAs(RequestPriority.HIGH);
+    }
 }
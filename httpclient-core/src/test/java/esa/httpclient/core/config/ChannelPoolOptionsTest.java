@@ -18,6 +18,7 @@ package esa.httpclient.core.config;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ChannelPoolOptionsTest {
 
@@ -28,16 +29,51 @@ class ChannelPoolOptionsTest {
         then(options.poolSize()).isEqualTo(512);
         then(options.waitingQueueLength()).isEqualTo(256);
         then(options.readTimeout()).isEqualTo(6000);
+        then(options.type()).isSameAs(ChannelPoolType.FIXED);
+        then(options.minIdle()).isEqualTo(0);
+        then(options.idleTimeout()).isEqualTo(0);
+        then(options.maxLifetime()).isEqualTo(0);
+        then(options.maxRequestsPerConnection()).isEqualTo(0);
+        then(options.minPoolSize()).isEqualTo(1);
+        then(options.maxConnecting()).isEqualTo(0);
+        then(options.connectRate()).isEqualTo(0);
+        then(options.acquireTimeout()).isEqualTo(3000);
+        then(options.resolveInterval()).isEqualTo(0);
+        then(options.connectAttemptDelay()).isEqualTo(0);
+        then(options.loadBalance()).isSameAs(LoadBalanceStrategy.ROUND_ROBIN);
+        then(options.outlierConsecutiveFailures()).isEqualTo(0);
+        then(options.outlierEjectionTime()).isEqualTo(30000);
+        then(options.outlierMaxEjectionPercent()).isEqualTo(10);
     }
 
     @Test
     void testCustom() {
         final ChannelPoolOptions options = ChannelPoolOptions.options().connectTimeout(1)
-                .poolSize(2).waitingQueueLength(3).readTimeout(4).build();
+                .poolSize(2).waitingQueueLength(3).readTimeout(4).type(ChannelPoolType.EVENT_LOOP_SHARDED)
+                .minIdle(1).idleTimeout(5).maxLifetime(6).maxRequestsPerConnection(7)
+                .minPoolSize(2).maxConnecting(8).connectRate(9)
+                .acquireTimeout(10).resolveInterval(11)
+                .connectAttemptDelay(12).loadBalance(LoadBalanceStrategy.LATENCY_EWMA)
+                .outlierConsecutiveFailures(13).outlierEjectionTime(14).outlierMaxEjectionPercent(15).build();
         then(options.connectTimeout()).isEqualTo(1L);
         then(options.poolSize()).isEqualTo(2);
         then(options.waitingQueueLength()).isEqualTo(3);
         then(options.readTimeout()).isEqualTo(4);
+        then(options.type()).isSameAs(ChannelPoolType.EVENT_LOOP_SHARDED);
+        then(options.minIdle()).isEqualTo(1);
+        then(options.idleTimeout()).isEqualTo(5);
+        then(options.maxLifetime()).isEqualTo(6);
+        then(options.maxRequestsPerConnection()).isEqualTo(7);
+        then(options.minPoolSize()).isEqualTo(2);
+        then(options.maxConnecting()).isEqualTo(8);
+        then(options.connectRate()).isEqualTo(9);
+        then(options.acquireTimeout()).isEqualTo(10);
+        then(options.resolveInterval()).isEqualTo(11);
+        then(options.connectAttemptDelay()).isEqualTo(12);
+        then(options.loadBalance()).isSameAs(LoadBalanceStrategy.LATENCY_EWMA);
+        then(options.outlierConsecutiveFailures()).isEqualTo(13);
+        then(options.outlierEjectionTime()).isEqualTo(14);
+        then(options.outlierMaxEjectionPercent()).isEqualTo(15);
     }
 
     @Test
@@ -47,6 +83,87 @@ class ChannelPoolOptionsTest {
         then(options.poolSize()).isEqualTo(512);
         then(options.waitingQueueLength()).isEqualTo(256);
         then(options.readTimeout()).isEqualTo(6000);
+        then(options.type()).isSameAs(ChannelPoolType.FIXED);
+        then(options.minIdle()).isEqualTo(0);
+        then(options.idleTimeout()).isEqualTo(0);
+        then(options.maxLifetime()).isEqualTo(0);
+        then(options.maxRequestsPerConnection()).isEqualTo(0);
+        then(options.minPoolSize()).isEqualTo(1);
+        then(options.maxConnecting()).isEqualTo(0);
+        then(options.connectRate()).isEqualTo(0);
+        then(options.acquireTimeout()).isEqualTo(3000);
+        then(options.resolveInterval()).isEqualTo(0);
+        then(options.connectAttemptDelay()).isEqualTo(0);
+        then(options.loadBalance()).isSameAs(LoadBalanceStrategy.ROUND_ROBIN);
+        then(options.outlierConsecutiveFailures()).isEqualTo(0);
+        then(options.outlierEjectionTime()).isEqualTo(30000);
+        then(options.outlierMaxEjectionPercent()).isEqualTo(10);
+    }
+
+    @Test
+    void testIllegalMinIdle() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().minIdle(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().poolSize(2)
+                .minIdle(3).build());
+    }
+
+    @Test
+    void testIllegalIdleTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().idleTimeout(-1).build());
+        then(ChannelPoolOptions.options().idleTimeout(0).build().idleTimeout()).isEqualTo(0);
+    }
+
+    @Test
+    void testIllegalConnectionLimits() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().maxLifetime(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options()
+                .maxRequestsPerConnection(-1).build());
+    }
+
+    @Test
+    void testIllegalMinPoolSize() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().minPoolSize(0).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().poolSize(2)
+                .minPoolSize(3).build());
+    }
+
+    @Test
+    void testIllegalConnectLimits() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().maxConnecting(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().connectRate(-1).build());
+    }
+
+    @Test
+    void testIllegalAcquireTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().acquireTimeout(0).build());
+    }
+
+    @Test
+    void testIllegalResolveInterval() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().resolveInterval(-1).build());
+    }
+
+    @Test
+    void testIllegalConnectAttemptDelay() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options().connectAttemptDelay(-1)
+                .build());
+    }
+
+    @Test
+    void testIllegalLoadBalance() {
+        assertThrows(NullPointerException.class, () -> ChannelPoolOptions.options().loadBalance(null).build());
+    }
+
+    @Test
+    void testIllegalOutlierDetection() {
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options()
+                .outlierConsecutiveFailures(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options()
+                .outlierEjectionTime(0).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options()
+                .outlierMaxEjectionPercent(0).build());
+        assertThrows(IllegalArgumentException.class, () -> ChannelPoolOptions.options()
+                .outlierMaxEjectionPercent(101).build());
     }
 
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.config;
+
+import io.netty.resolver.ResolvedAddressTypes;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DnsOptionsTest {
+
+    @Test
+    void testDefault() {
+        final DnsOptions options = DnsOptions.ofDefault();
+        then(options.nameServers()).isEmpty();
+        then(options.searchDomains()).isNull();
+        then(options.resolvedAddressTypes()).isNull();
+        then(options.queryTimeoutMillis()).isEqualTo(2000L);
+        then(options.resolveTimeoutMillis()).isEqualTo(5000L);
+        then(options.maxQueriesPerResolve()).isEqualTo(16);
+        then(options.minTtl()).isEqualTo(0);
+        then(options.maxTtl()).isEqualTo(Integer.MAX_VALUE);
+        then(options.negativeTtl()).isEqualTo(5);
+    }
+
+    @Test
+    void testCustom() {
+        final InetSocketAddress nameServer = new InetSocketAddress("127.0.0.1", 53);
+        final DnsOptions options = DnsOptions.options()
+                .addNameServer(nameServer)
+                .searchDomains(Collections.singletonList("esa.test"))
+                .resolvedAddressTypes(ResolvedAddressTypes.IPV4_ONLY)
+                .queryTimeoutMillis(1L)
+                .resolveTimeoutMillis(2L)
+                .maxQueriesPerResolve(3)
+                .minTtl(4)
+                .maxTtl(5)
+                .negativeTtl(6)
+                .build();
+        then(options.nameServers()).containsExactly(nameServer);
+        then(options.searchDomains()).containsExactly("esa.test");
+        then(options.resolvedAddressTypes()).isSameAs(ResolvedAddressTypes.IPV4_ONLY);
+        then(options.queryTimeoutMillis()).isEqualTo(1L);
+        then(options.resolveTimeoutMillis()).isEqualTo(2L);
+        then(options.maxQueriesPerResolve()).isEqualTo(3);
+        then(options.minTtl()).isEqualTo(4);
+        then(options.maxTtl()).isEqualTo(5);
+        then(options.negativeTtl()).isEqualTo(6);
+    }
+
+    @Test
+    void testIllegalArgs() {
+        assertThrows(IllegalArgumentException.class, () -> DnsOptions.options().queryTimeoutMillis(0L).build());
+        assertThrows(IllegalArgumentException.class, () -> DnsOptions.options().maxQueriesPerResolve(0).build());
+        assertThrows(IllegalArgumentException.class, () -> DnsOptions.options().minTtl(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> DnsOptions.options().minTtl(2).maxTtl(1).build());
+        assertThrows(IllegalArgumentException.class, () -> DnsOptions.options().negativeTtl(-1).build());
+        assertThrows(NullPointerException.class, () -> DnsOptions.options().addNameServer(null));
+    }
+
+    @Test
+    void testCopy() {
+        final DnsOptions options = DnsOptions.options()
+                .addNameServer(new InetSocketAddress("127.0.0.1", 53))
+                .negativeTtl(10)
+                .build();
+        final DnsOptions copied = options.copy();
+        then(copied).isNotSameAs(options);
+        then(copied).isEqualTo(options);
+        then(copied.hashCode()).isEqualTo(options.hashCode());
+    }
+
+}
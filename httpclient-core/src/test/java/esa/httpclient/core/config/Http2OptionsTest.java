@@ -18,6 +18,7 @@ package esa.httpclient.core.config;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class Http2OptionsTest {
 
@@ -27,15 +28,20 @@ class Http2OptionsTest {
         then(options.maxReservedStreams()).isEqualTo(100);
         then(options.maxFrameSize()).isEqualTo(16384);
         then(options.gracefulShutdownTimeoutMillis()).isEqualTo(30_000L);
+        then(options.pingIntervalMillis()).isEqualTo(0L);
+        then(options.pingAckTimeoutMillis()).isEqualTo(5_000L);
     }
 
     @Test
     void testCustom() {
         final Http2Options options = Http2Options.options().maxReservedStreams(1)
-                .maxFrameSize(16385).gracefulShutdownTimeoutMillis(3L).build();
+                .maxFrameSize(16385).gracefulShutdownTimeoutMillis(3L)
+                .pingIntervalMillis(4L).pingAckTimeoutMillis(5L).build();
         then(options.maxReservedStreams()).isEqualTo(1);
         then(options.maxFrameSize()).isEqualTo(16385);
         then(options.gracefulShutdownTimeoutMillis()).isEqualTo(3L);
+        then(options.pingIntervalMillis()).isEqualTo(4L);
+        then(options.pingAckTimeoutMillis()).isEqualTo(5L);
     }
 
     @Test
@@ -44,6 +50,14 @@ class Http2OptionsTest {
         then(options.maxReservedStreams()).isEqualTo(100);
         then(options.maxFrameSize()).isEqualTo(16384);
         then(options.gracefulShutdownTimeoutMillis()).isEqualTo(30_000L);
+        then(options.pingIntervalMillis()).isEqualTo(0L);
+        then(options.pingAckTimeoutMillis()).isEqualTo(5_000L);
+    }
+
+    @Test
+    void testIllegalPingOptions() {
+        assertThrows(IllegalArgumentException.class, () -> Http2Options.options().pingIntervalMillis(-1L).build());
+        assertThrows(IllegalArgumentException.class, () -> Http2Options.options().pingAckTimeoutMillis(0L).build());
     }
 
 }
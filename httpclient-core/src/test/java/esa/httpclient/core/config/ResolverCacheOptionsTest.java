@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResolverCacheOptionsTest {
+
+    @Test
+    void testDefault() {
+        final ResolverCacheOptions options = ResolverCacheOptions.ofDefault();
+        then(options.ttlMillis()).isEqualTo(60_000L);
+        then(options.maxStaleMillis()).isEqualTo(300_000L);
+        then(options.prefetchAheadMillis()).isEqualTo(5_000L);
+        then(options.idleTimeoutMillis()).isEqualTo(600_000L);
+        then(options.threads()).isEqualTo(2);
+    }
+
+    @Test
+    void testCustom() {
+        final ResolverCacheOptions options = ResolverCacheOptions.options()
+                .ttlMillis(10L)
+                .maxStaleMillis(20L)
+                .prefetchAheadMillis(5L)
+                .idleTimeoutMillis(30L)
+                .threads(1)
+                .build();
+        then(options.ttlMillis()).isEqualTo(10L);
+        then(options.maxStaleMillis()).isEqualTo(20L);
+        then(options.prefetchAheadMillis()).isEqualTo(5L);
+        then(options.idleTimeoutMillis()).isEqualTo(30L);
+        then(options.threads()).isEqualTo(1);
+    }
+
+    @Test
+    void testIllegalArgs() {
+        assertThrows(IllegalArgumentException.class, () -> ResolverCacheOptions.options().ttlMillis(0L).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> ResolverCacheOptions.options().maxStaleMillis(-1L).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> ResolverCacheOptions.options().ttlMillis(10L).prefetchAheadMillis(10L).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> ResolverCacheOptions.options().ttlMillis(10L).prefetchAheadMillis(0L)
+                        .idleTimeoutMillis(9L).build());
+        assertThrows(IllegalArgumentException.class, () -> ResolverCacheOptions.options().threads(0).build());
+    }
+
+    @Test
+    void testCopy() {
+        final ResolverCacheOptions options = ResolverCacheOptions.options()
+                .ttlMillis(1000L)
+                .prefetchAheadMillis(100L)
+                .threads(4)
+                .build();
+        final ResolverCacheOptions copied = options.copy();
+        then(copied).isNotSameAs(options);
+        then(copied).isEqualTo(options);
+        then(copied.hashCode()).isEqualTo(options.hashCode());
+    }
+
+}
@@ -18,6 +18,7 @@ package esa.httpclient.core.config;
 import esa.httpclient.core.Context;
 import esa.httpclient.core.HttpRequest;
 import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.exec.ExponentialBackOff;
 import esa.httpclient.core.exec.RetryPredicate;
 import esa.httpclient.core.exec.RetryPredicateImpl;
 import org.junit.jupiter.api.Test;
@@ -54,6 +55,18 @@ class RetryOptionsTest {
         then(options.intervalMillis()).isSameAs(intervalMs);
     }
 
+    @Test
+    void testExponentialBackOff() {
+        final RetryOptions options = RetryOptions.options()
+                .exponentialBackOff(100L, 1000L, ExponentialBackOff.Jitter.FULL).build();
+        then(options.intervalMillis()).isInstanceOf(ExponentialBackOff.class);
+
+        final ExponentialBackOff backOff = (ExponentialBackOff) options.intervalMillis();
+        then(backOff.baseMillis()).isEqualTo(100L);
+        then(backOff.maxMillis()).isEqualTo(1000L);
+        then(backOff.jitter()).isSameAs(ExponentialBackOff.Jitter.FULL);
+    }
+
     @Test
     void testCopy() {
         final RetryOptions options = RetryOptions.ofDefault().copy();
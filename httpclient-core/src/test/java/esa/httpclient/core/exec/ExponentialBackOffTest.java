@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.exec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExponentialBackOffTest {
+
+    @Test
+    void testConstruct() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ExponentialBackOff(0L, 100L, ExponentialBackOff.Jitter.NONE));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ExponentialBackOff(100L, 99L, ExponentialBackOff.Jitter.NONE));
+        assertThrows(NullPointerException.class,
+                () -> new ExponentialBackOff(100L, 1000L, null));
+    }
+
+    @Test
+    void testNoJitter() {
+        final ExponentialBackOff backOff = new ExponentialBackOff(100L, 1000L, ExponentialBackOff.Jitter.NONE);
+        then(backOff.applyAsLong(1)).isEqualTo(100L);
+        then(backOff.applyAsLong(2)).isEqualTo(200L);
+        then(backOff.applyAsLong(3)).isEqualTo(400L);
+        then(backOff.applyAsLong(4)).isEqualTo(800L);
+        then(backOff.applyAsLong(5)).isEqualTo(1000L);
+        then(backOff.applyAsLong(100)).isEqualTo(1000L);
+        then(backOff.applyAsLong(Integer.MAX_VALUE)).isEqualTo(1000L);
+    }
+
+    @Test
+    void testFullJitter() {
+        final ExponentialBackOff backOff = new ExponentialBackOff(100L, 1000L, ExponentialBackOff.Jitter.FULL);
+        for (int i = 0; i < 100; i++) {
+            then(backOff.applyAsLong(1)).isBetween(0L, 100L);
+            then(backOff.applyAsLong(3)).isBetween(0L, 400L);
+            then(backOff.applyAsLong(10)).isBetween(0L, 1000L);
+        }
+    }
+
+    @Test
+    void testDecorrelatedJitter() {
+        final ExponentialBackOff backOff = new ExponentialBackOff(100L, 1000L,
+                ExponentialBackOff.Jitter.DECORRELATED);
+        for (int i = 0; i < 100; i++) {
+            then(backOff.next(1, -1L)).isBetween(100L, 300L);
+            then(backOff.next(2, 150L)).isBetween(100L, 450L);
+            then(backOff.next(3, 900L)).isBetween(100L, 1000L);
+            // Falls back to the exponential interval if the previous one is unknown.
+            then(backOff.applyAsLong(2)).isBetween(100L, 300L);
+        }
+    }
+}
@@ -28,11 +28,13 @@ import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntToLongFunction;
 
 import static esa.httpclient.core.ContextNames.MAX_RETRIES;
 import static esa.httpclient.core.exec.RetryInterceptor.HAS_RETRIED_COUNT;
+import static esa.httpclient.core.exec.RetryInterceptor.LAST_INTERVAL;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -152,8 +154,9 @@ class RetryInterceptorTest {
 
         final RetryInterceptor interceptor = new RetryInterceptor(RetryPredicateImpl.DEFAULT, intervalMs) {
             @Override
-            protected void backOff(HttpRequest request, int retryCount, IntToLongFunction intervalMs) {
-                backOffs.add(intervalMs.applyAsLong(retryCount));
+            protected void backOff(HttpRequest request, int retryCount, long intervalMs, Runnable retry) {
+                backOffs.add(intervalMs);
+                retry.run();
             }
         };
 
@@ -168,6 +171,61 @@ class RetryInterceptorTest {
         ctx.clear();
     }
 
+    @Test
+    void testBackOffWithoutBlocking() throws Exception {
+        final HttpRequest request = HttpRequest.get("http://127.0.0.1:9999/abc/def").build();
+        final ExecChain chain = mock(ExecChain.class);
+        final ContextImpl ctx = new ContextImpl();
+        final HttpResponse succeed = new MockHttpResponse(200);
+        when(chain.proceed(request)).thenReturn(Futures.completed(new ConnectException()))
+                .thenReturn(Futures.completed(succeed));
+        when(chain.ctx()).thenReturn(ctx);
+
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final RetryInterceptor interceptor = new RetryInterceptor(RetryPredicateImpl.DEFAULT, (count) -> 200L);
+
+        final long start = System.nanoTime();
+        interceptor.doRetry(response, request, chain, 2);
+        // The calling thread returns immediately and the retry is proceeded by the timer.
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(200L);
+        then(response.isDone()).isFalse();
+
+        then(response.get(3L, TimeUnit.SECONDS)).isSameAs(succeed);
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(200L);
+        then(ctx.getAttr(HAS_RETRIED_COUNT)).isEqualTo(1);
+    }
+
+    @Test
+    void testDecorrelatedBackOff() {
+        final HttpRequest request = HttpRequest.get("http://127.0.0.1:9999/abc/def").build();
+        final ExecChain chain = mock(ExecChain.class);
+        final ContextImpl ctx = new ContextImpl();
+        when(chain.proceed(request)).thenReturn(Futures.completed(new ConnectException()));
+        when(chain.ctx()).thenReturn(ctx);
+
+        final List<Long> backOffs = new ArrayList<>(10);
+        final List<Long> lastIntervals = new ArrayList<>(10);
+        final RetryInterceptor interceptor = new RetryInterceptor(RetryPredicateImpl.DEFAULT,
+                new ExponentialBackOff(10L, 10000L, ExponentialBackOff.Jitter.DECORRELATED)) {
+            @Override
+            protected void backOff(HttpRequest request, int retryCount, long intervalMs, Runnable retry) {
+                backOffs.add(intervalMs);
+                lastIntervals.add(ctx.getUncheckedAttr(LAST_INTERVAL));
+                retry.run();
+            }
+        };
+
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        interceptor.doRetry(response, request, chain, 10);
+        then(response.isCompletedExceptionally()).isTrue();
+        then(backOffs).hasSize(10);
+        then(backOffs).isEqualTo(lastIntervals);
+        then(backOffs.get(0)).isBetween(10L, 30L);
+        for (int i = 1; i < 10; i++) {
+            then(backOffs.get(i)).isBetween(10L, Math.min(10000L, backOffs.get(i - 1) * 3L));
+        }
+    }
+
     private static final class AuxiliaryRetryInterceptor extends RetryInterceptor {
 
         private static final HttpResponse RESPONSE = new MockHttpResponse(200);
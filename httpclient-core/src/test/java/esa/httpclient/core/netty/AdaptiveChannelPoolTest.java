@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveChannelPoolTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress("adaptive-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testIllegalArguments() {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        assertThrows(IllegalArgumentException.class, () -> newPool(metric, 0, 1, 1000L, 16));
+        assertThrows(IllegalArgumentException.class, () -> newPool(metric, 2, 1, 1000L, 16));
+        assertThrows(IllegalArgumentException.class, () -> newPool(metric, 1, 1, 1000L, 0));
+    }
+
+    @Test
+    void testGrowWhenAcquiresWait() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final AdaptiveChannelPool pool = newPool(metric, 1, 8, 3000L, 16);
+        then(metric.currentMaxSize()).isEqualTo(1);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        final Future<Channel> pending = pool.acquire();
+        then(pending.isDone()).isFalse();
+
+        // The limit grows on the next resizing, then the waiting one gets a new connection.
+        final Channel channel2 = await(pending).getNow();
+        then(channel2).isNotSameAs(channel1);
+        then(metric.currentMaxSize()).isGreaterThanOrEqualTo(2);
+        then(metric.createdCount()).isEqualTo(2L);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testShrinkWhenIdle() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final AdaptiveChannelPool pool = newPool(metric, 1, 8, 3000L, 16);
+
+        final List<Future<Channel>> acquires = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            acquires.add(pool.acquire());
+        }
+        final List<Channel> channels = new ArrayList<>();
+        for (Future<Channel> acquire : acquires) {
+            channels.add(await(acquire).getNow());
+        }
+        then(metric.currentMaxSize()).isGreaterThanOrEqualTo(6);
+
+        for (Channel channel : channels) {
+            pool.release(channel).get(3L, TimeUnit.SECONDS);
+        }
+        waitUntil(() -> metric.currentMaxSize() == 1);
+
+        // Never shrinks below the min size
+        Thread.sleep(500L);
+        then(metric.currentMaxSize()).isEqualTo(1);
+        then(pool.limit()).isEqualTo(1);
+        pool.close();
+    }
+
+    @Test
+    void testAcquireTimeout() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final AdaptiveChannelPool pool = newPool(metric, 1, 1, 100L, 16);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> pending = await(pool.acquire());
+        then(pending.cause()).isInstanceOf(TimeoutException.class);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(pool.acquire()).getNow()).isSameAs(channel);
+        pool.close();
+    }
+
+    @Test
+    void testTooManyPendingAcquires() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final AdaptiveChannelPool pool = newPool(metric, 1, 1, 3000L, 1);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> pending = pool.acquire();
+        then(await(pool.acquire()).cause()).isInstanceOf(IllegalStateException.class);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(pending).getNow()).isSameAs(channel);
+        pool.close();
+    }
+
+    @Test
+    void testCloseAsync() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final AdaptiveChannelPool pool = newPool(metric, 1, 1, 3000L, 16);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> pending = pool.acquire();
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.release(await(pending).getNow()).get(3L, TimeUnit.SECONDS);
+
+        await(pool.acquire());
+        final Future<Channel> failed = pool.acquire();
+        then(pool.closeAsync().await(3L, TimeUnit.SECONDS)).isTrue();
+        then(await(failed).cause()).isInstanceOf(IllegalStateException.class);
+        then(await(pool.acquire()).cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Waits until the listeners which were added before have been notified, since the waiters of a
+     * {@link Future} are woken up before its listeners.
+     */
+    private static <T> Future<T> await(Future<T> future) throws Exception {
+        final CompletableFuture<Future<T>> notified = new CompletableFuture<>();
+        future.addListener(f -> notified.complete(future));
+        return notified.get(5L, TimeUnit.SECONDS);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20L);
+        }
+        then(condition.getAsBoolean()).isTrue();
+    }
+
+    private AdaptiveChannelPool newPool(ChannelPoolMetricImpl metric,
+                                        int minConnections,
+                                        int maxConnections,
+                                        long acquireTimeoutMillis,
+                                        int maxPendingAcquires) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        return new AdaptiveChannelPool(bootstrap,
+                new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                    }
+                },
+                ChannelHealthChecker.ACTIVE,
+                acquireTimeoutMillis,
+                minConnections,
+                maxConnections,
+                maxPendingAcquires,
+                metric);
+    }
+}
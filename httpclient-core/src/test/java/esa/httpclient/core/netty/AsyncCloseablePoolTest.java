@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class AsyncCloseablePoolTest {
+
+    @Test
+    void testWhenAll() {
+        then(AsyncCloseablePool.whenAll(Collections.emptyList(), newPromise()).isSuccess()).isTrue();
+
+        final Promise<Void> first = newPromise();
+        final Promise<Void> second = newPromise();
+        final Future<Void> all = AsyncCloseablePool.whenAll(Arrays.asList(first, second), newPromise());
+        first.setSuccess(null);
+        then(all.isDone()).isFalse();
+        second.setSuccess(null);
+        then(all.isSuccess()).isTrue();
+
+        final Promise<Void> third = newPromise();
+        final Promise<Void> fourth = newPromise();
+        final Future<Void> failed = AsyncCloseablePool.whenAll(Arrays.asList(third, fourth), newPromise());
+        final IllegalStateException cause = new IllegalStateException();
+        third.setFailure(cause);
+        then(failed.cause()).isSameAs(cause);
+    }
+
+    @Test
+    void testCascade() {
+        final Promise<Void> succeeded = newPromise();
+        AsyncCloseablePool.cascade(ImmediateEventExecutor.INSTANCE.newSucceededFuture(null), succeeded);
+        then(succeeded.isSuccess()).isTrue();
+
+        final IllegalStateException cause = new IllegalStateException();
+        final Promise<Void> failed = newPromise();
+        AsyncCloseablePool.cascade(ImmediateEventExecutor.INSTANCE.newFailedFuture(cause), failed);
+        then(failed.cause()).isSameAs(cause);
+    }
+
+    private static Promise<Void> newPromise() {
+        return ImmediateEventExecutor.INSTANCE.newPromise();
+    }
+}
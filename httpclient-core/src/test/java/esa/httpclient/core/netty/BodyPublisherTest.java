@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.commons.netty.core.Buffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BodyPublisherTest {
+
+    @Test
+    void testPublishByDemand() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingFlow flow = new RecordingFlow();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final ByteBuf content1 = Unpooled.copiedBuffer("Hello".getBytes());
+        publisher.offer(content1, flow);
+        then(subscriber.received).isEmpty();
+        then(flow.paused.get()).isTrue();
+        then(content1.refCnt()).isEqualTo(1);
+
+        subscriber.subscription.request(2L);
+        then(subscriber.received).containsExactly("Hello");
+        then(content1.refCnt()).isEqualTo(0);
+        then(flow.consumed.get()).isEqualTo(5);
+        then(flow.paused.get()).isFalse();
+
+        publisher.offer(Unpooled.copiedBuffer("World".getBytes()), flow);
+        then(subscriber.received).containsExactly("Hello", "World");
+        then(flow.paused.get()).isFalse();
+        then(flow.consumed.get()).isEqualTo(10);
+
+        publisher.offer(Unpooled.copiedBuffer("!".getBytes()), flow);
+        publisher.complete();
+        then(subscriber.completed.get()).isFalse();
+        // Resumed for the next response once the body has ended
+        then(flow.paused.get()).isFalse();
+
+        subscriber.subscription.request(1L);
+        then(subscriber.received).containsExactly("Hello", "World", "!");
+        then(subscriber.completed.get()).isTrue();
+    }
+
+    @Test
+    void testResumeOnceHeldContentsPublished() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingFlow flow = new RecordingFlow();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        publisher.offer(Unpooled.copiedBuffer("Hello".getBytes()), flow);
+        then(flow.paused.get()).isTrue();
+
+        // No demand left, but there is nothing held either
+        subscriber.subscription.request(1L);
+        then(subscriber.received).containsExactly("Hello");
+        then(flow.paused.get()).isFalse();
+
+        publisher.offer(Unpooled.copiedBuffer("World".getBytes()), flow);
+        then(subscriber.received).containsExactly("Hello");
+        then(flow.paused.get()).isTrue();
+    }
+
+    @Test
+    void testSubscribeLater() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingFlow flow = new RecordingFlow();
+        publisher.offer(Unpooled.copiedBuffer("Hello".getBytes()), flow);
+        publisher.complete();
+
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        then(subscriber.received).containsExactly("Hello");
+        then(subscriber.completed.get()).isTrue();
+    }
+
+    @Test
+    void testError() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingFlow flow = new RecordingFlow();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final ByteBuf content = Unpooled.copiedBuffer("Hello".getBytes());
+        publisher.offer(content, flow);
+        final IllegalStateException ex = new IllegalStateException();
+        publisher.error(ex);
+        then(subscriber.error).isSameAs(ex);
+        then(subscriber.received).isEmpty();
+        then(content.refCnt()).isEqualTo(0);
+        then(flow.consumed.get()).isEqualTo(5);
+        then(flow.paused.get()).isFalse();
+
+        // Contents offered after the end are discarded
+        final ByteBuf content1 = Unpooled.copiedBuffer("World".getBytes());
+        publisher.offer(content1, flow);
+        then(content1.refCnt()).isEqualTo(0);
+        then(flow.consumed.get()).isEqualTo(10);
+    }
+
+    @Test
+    void testCancel() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingFlow flow = new RecordingFlow();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final ByteBuf content = Unpooled.copiedBuffer("Hello".getBytes());
+        publisher.offer(content, flow);
+        then(flow.paused.get()).isTrue();
+
+        subscriber.subscription.cancel();
+        then(content.refCnt()).isEqualTo(0);
+        then(flow.paused.get()).isFalse();
+
+        final ByteBuf content1 = Unpooled.copiedBuffer("World".getBytes());
+        publisher.offer(content1, flow);
+        subscriber.subscription.request(1L);
+        publisher.complete();
+        then(content1.refCnt()).isEqualTo(0);
+        then(subscriber.received).isEmpty();
+        then(subscriber.completed.get()).isFalse();
+        then(flow.consumed.get()).isEqualTo(10);
+    }
+
+    @Test
+    void testIllegalRequest() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0L);
+        then(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testSubscribeTwice() {
+        final BodyPublisher publisher = new BodyPublisher();
+        assertThrows(NullPointerException.class, () -> publisher.subscribe(null));
+
+        publisher.subscribe(new RecordingSubscriber());
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        then(subscriber.subscription).isNotNull();
+        then(subscriber.error).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testRequestInOnNext() {
+        final BodyPublisher publisher = new BodyPublisher();
+        final RecordingFlow flow = new RecordingFlow();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(1L) {
+            @Override
+            public void onNext(Buffer buffer) {
+                super.onNext(buffer);
+                subscription.request(1L);
+            }
+        };
+        publisher.subscribe(subscriber);
+
+        for (int i = 0; i < 3; i++) {
+            publisher.offer(Unpooled.copiedBuffer("Hello".getBytes()), flow);
+            then(flow.paused.get()).isFalse();
+        }
+        publisher.complete();
+        then(subscriber.received).hasSize(3);
+        then(subscriber.completed.get()).isTrue();
+    }
+
+    private static class RecordingFlow implements InboundFlow {
+
+        private final AtomicBoolean paused = new AtomicBoolean();
+        private final AtomicInteger consumed = new AtomicInteger();
+
+        @Override
+        public void pause() {
+            then(paused.getAndSet(true)).isFalse();
+        }
+
+        @Override
+        public void resume() {
+            then(paused.getAndSet(false)).isTrue();
+        }
+
+        @Override
+        public void consumed(int bytes) {
+            consumed.addAndGet(bytes);
+        }
+    }
+
+    private static class RecordingSubscriber implements Subscriber<Buffer> {
+
+        private final long initial;
+        private final List<String> received = new ArrayList<>();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        Subscription subscription;
+        private Throwable error;
+
+        private RecordingSubscriber() {
+            this(0L);
+        }
+
+        private RecordingSubscriber(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+            if (initial > 0L) {
+                s.request(initial);
+            }
+        }
+
+        @Override
+        public void onNext(Buffer buffer) {
+            final byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+            received.add(new String(bytes));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            this.error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed.set(true);
+        }
+    }
+}
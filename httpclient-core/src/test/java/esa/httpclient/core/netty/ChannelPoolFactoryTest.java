@@ -18,6 +18,8 @@ package esa.httpclient.core.netty;
 import esa.httpclient.core.HttpClient;
 import esa.httpclient.core.HttpClientBuilder;
 import esa.httpclient.core.config.ChannelPoolOptions;
+import esa.httpclient.core.config.ChannelPoolType;
+import esa.httpclient.core.config.LoadBalanceStrategy;
 import esa.httpclient.core.config.NetOptions;
 import esa.httpclient.core.resolver.SystemDefaultResolver;
 import esa.httpclient.core.spi.ChannelPoolOptionsProvider;
@@ -93,12 +95,38 @@ class ChannelPoolFactoryTest {
 
         // Case 3: default from HttpClientBuilder
         builder.channelPoolOptionsProvider(null);
-        builder.readTimeout(1).connectTimeout(2).connectionPoolWaitingQueueLength(3).connectionPoolSize(4);
+        builder.readTimeout(1).connectTimeout(2).connectionPoolWaitingQueueLength(3).connectionPoolSize(4)
+                .connectionPoolType(ChannelPoolType.EVENT_LOOP_SHARDED).connectionPoolMinIdle(5)
+                .connectionPoolIdleTimeout(6)
+                .connectionPoolMaxLifetime(7).connectionPoolMaxRequestsPerConnection(8).connectionPoolMinSize(9)
+                .connectionPoolMaxConnecting(10).connectionPoolConnectRate(11)
+                .connectionPoolAcquireTimeout(12)
+                .connectionPoolResolveInterval(13)
+                .connectionPoolConnectAttemptDelay(14)
+                .connectionPoolLoadBalance(LoadBalanceStrategy.LEAST_REQUESTS)
+                .connectionPoolOutlierConsecutiveFailures(15).connectionPoolOutlierEjectionTime(16)
+                .connectionPoolOutlierMaxEjectionPercent(17);
         final ChannelPoolOptions options3 = ChannelPoolFactory.detectOptions(address1, builder);
         then(options3.readTimeout()).isEqualTo(1);
         then(options3.connectTimeout()).isEqualTo(2);
         then(options3.poolSize()).isEqualTo(4);
         then(options3.waitingQueueLength()).isEqualTo(3);
+        then(options3.type()).isSameAs(ChannelPoolType.EVENT_LOOP_SHARDED);
+        // Limited by the pool size
+        then(options3.minIdle()).isEqualTo(4);
+        then(options3.idleTimeout()).isEqualTo(6);
+        then(options3.maxLifetime()).isEqualTo(7);
+        then(options3.maxRequestsPerConnection()).isEqualTo(8);
+        then(options3.minPoolSize()).isEqualTo(4);
+        then(options3.maxConnecting()).isEqualTo(10);
+        then(options3.connectRate()).isEqualTo(11);
+        then(options3.acquireTimeout()).isEqualTo(12);
+        then(options3.resolveInterval()).isEqualTo(13);
+        then(options3.connectAttemptDelay()).isEqualTo(14);
+        then(options3.loadBalance()).isSameAs(LoadBalanceStrategy.LEAST_REQUESTS);
+        then(options3.outlierConsecutiveFailures()).isEqualTo(15);
+        then(options3.outlierEjectionTime()).isEqualTo(16);
+        then(options3.outlierMaxEjectionPercent()).isEqualTo(17);
     }
 
     @Test
@@ -18,6 +18,7 @@ package esa.httpclient.core.netty;
 import esa.commons.http.HttpVersion;
 import esa.httpclient.core.HttpClient;
 import esa.httpclient.core.HttpClientBuilder;
+import esa.httpclient.core.config.ChannelPoolOptions;
 import esa.httpclient.core.config.Http2Options;
 import esa.httpclient.core.config.NetOptions;
 import io.netty.buffer.ByteBuf;
@@ -41,6 +42,8 @@ import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.ssl.SslHandshakeCompletionEvent;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
 import org.junit.jupiter.api.Test;
 
 import javax.net.ssl.SSLException;
@@ -48,6 +51,7 @@ import java.net.ConnectException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static esa.httpclient.core.netty.ChannelPoolHandler.HANDSHAKE_FUTURE;
 import static io.netty.handler.codec.http.HttpResponseStatus.SWITCHING_PROTOCOLS;
@@ -125,7 +129,7 @@ class ChannelPoolHandlerTest {
         then(channel1.attr(HANDSHAKE_FUTURE).get().isSuccess()).isTrue();
 
         final ChannelPipeline pipeline1 = channel1.pipeline();
-        then(pipeline1.get(ChannelPoolHandler.DelegatingHttpResponseDecoder.class)).isNotNull();
+        then(pipeline1.get(HttpResponseDecoder.class)).isNotNull();
         then(pipeline1.get(HttpRequestEncoder.class)).isNotNull();
         then(pipeline1.get(HttpContentDecompressor.class)).isNotNull();
         then(pipeline1.get(ChunkedWriteHandler.class)).isNotNull();
@@ -141,7 +145,7 @@ class ChannelPoolHandlerTest {
         then(channel2.attr(HANDSHAKE_FUTURE).get().isSuccess()).isTrue();
 
         final ChannelPipeline pipeline2 = channel2.pipeline();
-        then(pipeline2.get(ChannelPoolHandler.DelegatingHttpResponseDecoder.class)).isNotNull();
+        then(pipeline2.get(HttpResponseDecoder.class)).isNotNull();
         then(pipeline2.get(HttpRequestEncoder.class)).isNotNull();
         then(pipeline2.get(ChunkedWriteHandler.class)).isNotNull();
         then(pipeline2.last()).isInstanceOf(Http1ChannelHandler.class);
@@ -176,6 +180,81 @@ class ChannelPoolHandlerTest {
         channel.finishAndReleaseAll();
     }
 
+    @Test
+    void testEvictIdleConnection() {
+        final HttpClientBuilder builder = HttpClient.create();
+
+        // Case 1: idle eviction is disabled
+        final EmbeddedChannel channel0 = new EmbeddedChannel();
+        new ChannelPoolHandler(builder, null, false).channelCreated(channel0);
+        then(channel0.pipeline().get(IdleStateHandler.class)).isNull();
+        then(ConnectionState.of(channel0)).isNotNull();
+        channel0.finishAndReleaseAll();
+
+        // Case 2: the idle connection is closed
+        final ChannelPoolHandler handler = new ChannelPoolHandler(builder, null, false,
+                ChannelPoolOptions.options().idleTimeout(1000).build(), null);
+        final EmbeddedChannel channel1 = new EmbeddedChannel();
+        handler.channelCreated(channel1);
+        then(channel1.pipeline().get(IdleStateHandler.class)).isNotNull();
+        then(channel1.pipeline().last()).isInstanceOf(Http1ChannelHandler.class);
+
+        handler.channelAcquired(channel1);
+        handler.channelReleased(channel1);
+        channel1.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        then(channel1.isActive()).isFalse();
+
+        // Case 3: the connection in use is kept
+        final EmbeddedChannel channel2 = new EmbeddedChannel();
+        handler.channelCreated(channel2);
+        handler.channelAcquired(channel2);
+        channel2.pipeline().fireUserEventTriggered(IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        then(channel2.isActive()).isTrue();
+        channel2.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRetireConnection() throws InterruptedException {
+        final HttpClientBuilder builder = HttpClient.create();
+        final AtomicInteger replacements = new AtomicInteger();
+
+        // Case 1: retired after max requests
+        final ChannelPoolHandler handler1 = new ChannelPoolHandler(builder, null, false,
+                ChannelPoolOptions.options().maxRequestsPerConnection(2).build(), null);
+        handler1.replacement(replacements::incrementAndGet);
+        final EmbeddedChannel channel1 = new EmbeddedChannel();
+        handler1.channelCreated(channel1);
+        handler1.channelAcquired(channel1);
+        handler1.channelReleased(channel1);
+        then(channel1.isActive()).isTrue();
+        handler1.channelAcquired(channel1);
+        handler1.channelReleased(channel1);
+        then(channel1.isActive()).isFalse();
+        then(replacements.get()).isEqualTo(1);
+
+        // Case 2: idle connection is retired after max lifetime
+        final ChannelPoolHandler handler2 = new ChannelPoolHandler(builder, null, false,
+                ChannelPoolOptions.options().maxLifetime(10).build(), null);
+        handler2.replacement(replacements::incrementAndGet);
+        final EmbeddedChannel channel2 = new EmbeddedChannel();
+        handler2.channelCreated(channel2);
+        Thread.sleep(20L);
+        channel2.runScheduledPendingTasks();
+        then(channel2.isActive()).isFalse();
+        then(replacements.get()).isEqualTo(2);
+
+        // Case 3: connection in use is retired after the request has completed
+        final EmbeddedChannel channel3 = new EmbeddedChannel();
+        handler2.channelCreated(channel3);
+        handler2.channelAcquired(channel3);
+        Thread.sleep(20L);
+        channel3.runScheduledPendingTasks();
+        then(channel3.isActive()).isTrue();
+        handler2.channelReleased(channel3);
+        then(channel3.isActive()).isFalse();
+        then(replacements.get()).isEqualTo(3);
+    }
+
     @Test
     void testH2CUpgradeSuccessfully() throws Exception {
         final boolean decompression = ThreadLocalRandom.current().nextBoolean();
@@ -392,7 +471,7 @@ class ChannelPoolHandlerTest {
     }
 
     private void validateHttp1Handlers(ChannelPipeline pipeline, boolean decompression) {
-        then(pipeline.get(ChannelPoolHandler.DelegatingHttpResponseDecoder.class)).isNotNull();
+        then(pipeline.get(HttpResponseDecoder.class)).isNotNull();
         then(pipeline.get(HttpRequestEncoder.class)).isNotNull();
         then(pipeline.get(ChunkedWriteHandler.class)).isNotNull();
         then(pipeline.get(Http1ChannelHandler.class)).isNotNull();
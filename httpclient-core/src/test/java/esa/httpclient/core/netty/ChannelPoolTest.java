@@ -17,14 +17,58 @@ package esa.httpclient.core.netty;
 
 import esa.commons.function.ThrowingSupplier;
 import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
 import io.netty.handler.ssl.SslHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 class ChannelPoolTest {
 
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(1);
+        address = new LocalAddress("channel-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
     @Test
     void testConstructor() {
         final ThrowingSupplier<SslHandler> ssl = () -> null;
@@ -42,4 +86,90 @@ class ChannelPoolTest {
 
         new ChannelPool(pool, options, true, ssl);
     }
+
+    @Test
+    void testWarmUp() throws Exception {
+        final ChannelPoolOptions options = ChannelPoolOptions.options().poolSize(4).build();
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(options);
+        final ChannelPool pool = newPool(options, metric);
+        assertThrows(IllegalArgumentException.class, () -> pool.warmUp(0));
+
+        then(pool.warmUp(3).get(3L, TimeUnit.SECONDS)).isEqualTo(3);
+        then(metric.createdCount()).isEqualTo(3L);
+        then(metric.active()).isEqualTo(0);
+
+        // The idle connections are counted
+        then(pool.warmUp(3).get(3L, TimeUnit.SECONDS)).isEqualTo(3);
+        then(metric.createdCount()).isEqualTo(3L);
+
+        then(pool.warmUp(5).get(3L, TimeUnit.SECONDS)).isEqualTo(4);
+        then(metric.createdCount()).isEqualTo(4L);
+        pool.underlying.close();
+    }
+
+    @Test
+    void testMaintainMinIdle() throws Exception {
+        final ChannelPoolOptions options = ChannelPoolOptions.options().poolSize(4).minIdle(2).build();
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(options);
+        final ChannelPool pool = newPool(options, metric);
+
+        maintainUntilCreated(pool, metric, 2L);
+        // The warmed up connections are released after their handshakes have completed
+        awaitActive(metric, 0);
+
+        // Enough idle connections
+        pool.maintainMinIdle();
+        Thread.sleep(50L);
+        then(metric.createdCount()).isEqualTo(2L);
+
+        final Channel channel = pool.underlying.acquire().get(3L, TimeUnit.SECONDS);
+        maintainUntilCreated(pool, metric, 3L);
+        awaitActive(metric, 1);
+
+        pool.underlying.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.underlying.close();
+    }
+
+    private static void maintainUntilCreated(ChannelPool pool,
+                                             ChannelPoolMetricImpl metric,
+                                             long created) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (metric.createdCount() < created) {
+            then(System.nanoTime()).isLessThan(deadline);
+            pool.maintainMinIdle();
+            Thread.sleep(10L);
+        }
+        then(metric.createdCount()).isEqualTo(created);
+    }
+
+    private static void awaitActive(ChannelPoolMetricImpl metric, int active) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (metric.active() != active) {
+            then(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10L);
+        }
+    }
+
+    private ChannelPool newPool(ChannelPoolOptions options, ChannelPoolMetricImpl metric) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        return new ChannelPool(new MeteredChannelPool(bootstrap,
+                new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                    }
+                },
+                ChannelHealthChecker.ACTIVE,
+                FixedChannelPool.AcquireTimeoutAction.FAIL,
+                1000L,
+                options.poolSize(),
+                16,
+                metric),
+                options,
+                false,
+                () -> null,
+                metric);
+    }
 }
@@ -60,6 +60,7 @@ class ChannelPoolsTest {
         pools1.put(address2, pool2);
         then(pools1.getIfPresent(address1)).isSameAs(pool2);
         then(pools1.getIfPresent(address2)).isSameAs(pool2);
+        then(pools1.get(address1)).isSameAs(pool2.metric);
         pools1.close();
 
         final ChannelPools pools2 = new ChannelPools(CacheOptions.ofDefault());
@@ -107,9 +108,17 @@ class ChannelPoolsTest {
 
         then(metric.maxSize()).isEqualTo(options.poolSize());
         then(metric.options()).isEqualTo(options);
+        then(metric.createdCount()).isEqualTo(0L);
+        then(metric.closedCount()).isEqualTo(0L);
+        then(metric.acquireTimeoutCount()).isEqualTo(0L);
+        then(metric.acquireWaitTime().count()).isEqualTo(0L);
+        then(metric.connectTime().count()).isEqualTo(0L);
 
         then(pools.all().size()).isEqualTo(1);
-        then(pools.all().get(address)).isNotNull();
+        then(pools.all().get(address)).isSameAs(metric);
+        // Scraping shouldn't copy anything
+        then(pools.all()).isSameAs(pools.all());
+        assertThrows(UnsupportedOperationException.class, () -> pools.all().clear());
         pools.close();
     }
 
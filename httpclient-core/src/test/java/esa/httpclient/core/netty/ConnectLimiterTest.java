@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ConnectLimiterTest {
+
+    private EventLoopGroup group;
+
+    @BeforeEach
+    void setUp() {
+        group = new DefaultEventLoopGroup(1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testOf() {
+        then(ConnectLimiter.of(0, 0, group.next())).isNull();
+        then(ConnectLimiter.of(1, 0, group.next())).isNotNull();
+        then(ConnectLimiter.of(0, 1, group.next())).isNotNull();
+    }
+
+    @Test
+    void testMaxConnecting() {
+        final ConnectLimiter limiter = new ConnectLimiter(2, 0, group.next());
+        then(limiter.tryAcquire()).isTrue();
+        then(limiter.tryAcquire()).isTrue();
+        then(limiter.tryAcquire()).isFalse();
+        then(limiter.connecting()).isEqualTo(2);
+
+        final AtomicInteger woken = new AtomicInteger();
+        limiter.await(() -> {
+            woken.incrementAndGet();
+            return true;
+        });
+        then(woken.get()).isEqualTo(0);
+
+        limiter.release();
+        then(woken.get()).isEqualTo(1);
+        then(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void testSkipStaleWaiters() {
+        final ConnectLimiter limiter = new ConnectLimiter(1, 0, group.next());
+        then(limiter.tryAcquire()).isTrue();
+
+        final AtomicInteger stale = new AtomicInteger();
+        final AtomicInteger woken = new AtomicInteger();
+        limiter.await(() -> {
+            stale.incrementAndGet();
+            return false;
+        });
+        limiter.await(() -> {
+            woken.incrementAndGet();
+            return true;
+        });
+        limiter.await(() -> {
+            woken.incrementAndGet();
+            return true;
+        });
+
+        limiter.release();
+        then(stale.get()).isEqualTo(1);
+        // Only one waiter is woken up for a permit.
+        then(woken.get()).isEqualTo(1);
+
+        limiter.signal();
+        then(woken.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testConnectRate() throws InterruptedException {
+        // One connect every 100ms
+        final ConnectLimiter limiter = new ConnectLimiter(0, 10, group.next());
+        then(limiter.tryAcquire()).isTrue();
+        then(limiter.tryAcquire()).isFalse();
+
+        final long start = System.nanoTime();
+        final CountDownLatch woken = new CountDownLatch(1);
+        limiter.await(() -> {
+            woken.countDown();
+            return true;
+        });
+        then(woken.await(3L, TimeUnit.SECONDS)).isTrue();
+        then(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50L));
+        then(limiter.tryAcquire()).isTrue();
+    }
+}
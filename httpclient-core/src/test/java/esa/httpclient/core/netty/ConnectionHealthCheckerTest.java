@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ConnectionHealthCheckerTest {
+
+    @Test
+    void testIsHealthy() {
+        final ConnectionHealthChecker checker = new ConnectionHealthChecker(1000);
+
+        // Case 1: no state
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        then(checker.isHealthy(channel).getNow()).isTrue();
+
+        // Case 2: recently used
+        final ConnectionState state = new ConnectionState(System.nanoTime());
+        channel.attr(ConnectionState.KEY).set(state);
+        then(checker.isHealthy(channel).getNow()).isTrue();
+
+        // Case 3: idle for too long
+        state.onReleased(System.nanoTime() - TimeUnit.SECONDS.toNanos(2L));
+        then(checker.isHealthy(channel).getNow()).isFalse();
+
+        // Case 4: in use
+        state.onAcquired();
+        then(checker.isHealthy(channel).getNow()).isTrue();
+
+        // Case 5: inactive
+        channel.close();
+        then(checker.isHealthy(channel).getNow()).isFalse();
+    }
+
+    @Test
+    void testKeepAliveHints() {
+        final ConnectionHealthChecker checker = new ConnectionHealthChecker(0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final ConnectionState state = new ConnectionState(System.nanoTime());
+        channel.attr(ConnectionState.KEY).set(state);
+
+        // Case 1: idle eviction is disabled
+        state.onReleased(System.nanoTime() - TimeUnit.HOURS.toNanos(1L));
+        then(checker.isHealthy(channel).getNow()).isTrue();
+
+        // Case 2: the server is about to close the connection
+        state.keepAlive(TimeUnit.SECONDS.toNanos(4L), -1);
+        state.onReleased(System.nanoTime() - TimeUnit.SECONDS.toNanos(5L));
+        then(checker.isHealthy(channel).getNow()).isFalse();
+        state.onReleased(System.nanoTime());
+        then(checker.isHealthy(channel).getNow()).isTrue();
+
+        // Case 3: the server accepts only one more request
+        state.keepAlive(-1L, 1);
+        then(checker.isHealthy(channel).getNow()).isTrue();
+        state.onAcquired();
+        state.onReleased(System.nanoTime());
+        then(checker.isHealthy(channel).getNow()).isFalse();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testRetired() {
+        final ConnectionHealthChecker checker = new ConnectionHealthChecker(0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final ConnectionState state = new ConnectionState(System.nanoTime() - TimeUnit.SECONDS.toNanos(2L),
+                TimeUnit.SECONDS.toNanos(1L), 0);
+        channel.attr(ConnectionState.KEY).set(state);
+        then(checker.isHealthy(channel).getNow()).isFalse();
+
+        final ConnectionState state1 = new ConnectionState(System.nanoTime(), 0L, 1);
+        channel.attr(ConnectionState.KEY).set(state1);
+        then(checker.isHealthy(channel).getNow()).isTrue();
+        state1.onAcquired();
+        then(checker.isHealthy(channel).getNow()).isTrue();
+        state1.onReleased(System.nanoTime());
+        then(checker.isHealthy(channel).getNow()).isFalse();
+        channel.finishAndReleaseAll();
+    }
+}
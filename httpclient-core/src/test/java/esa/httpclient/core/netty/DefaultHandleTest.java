@@ -15,6 +15,7 @@
  */
 package esa.httpclient.core.netty;
 
+import esa.commons.http.HttpHeaderNames;
 import esa.commons.http.HttpHeaders;
 import esa.commons.http.HttpVersion;
 import esa.commons.netty.core.Buffer;
@@ -27,7 +28,9 @@ import esa.httpclient.core.HttpRequest;
 import esa.httpclient.core.HttpResponse;
 import esa.httpclient.core.Listener;
 import esa.httpclient.core.NoopListener;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.CompletableFuture;
@@ -104,6 +107,74 @@ class DefaultHandleTest {
         then(handle2.trailers().get("D")).isEqualTo("E");
     }
 
+    @Test
+    void testPooledAggregate() {
+        final HttpRequest request = HttpRequest.get("/abc").build();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final DefaultHandle handle = new DefaultHandle(request, new ContextImpl(), new NoopListener(), response,
+                ByteBufAllocator.DEFAULT, true);
+
+        final byte[] data = "Hello World!".getBytes();
+        final Buffer chunk = Buffers.buffer().writeBytes(data);
+        handle.onMessage(new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl()));
+        handle.onData(chunk);
+        handle.onData(Buffers.buffer().writeBytes(data));
+        handle.onEnd();
+
+        then(response.join()).isSameAs(handle);
+        final ByteBuf body = handle.body().getByteBuf();
+        // Backed by the received chunks without copying.
+        then(body).isInstanceOf(CompositeByteBuf.class);
+        then(chunk.getByteBuf().refCnt()).isEqualTo(2);
+        then(handle.body().readableBytes()).isEqualTo(data.length * 2);
+
+        handle.close();
+        then(body.refCnt()).isEqualTo(0);
+        then(chunk.getByteBuf().refCnt()).isEqualTo(1);
+        then(handle.body().readableBytes()).isEqualTo(0);
+        // Idempotent
+        handle.close();
+    }
+
+    @Test
+    void testPresizedPooledAggregate() {
+        final HttpRequest request = HttpRequest.get("/abc").build();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final DefaultHandle handle = new DefaultHandle(request, new ContextImpl(), new NoopListener(), response,
+                ByteBufAllocator.DEFAULT, true);
+
+        final byte[] data = "Hello World!".getBytes();
+        final HttpMessage message = new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl());
+        message.headers().add(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(data.length * 2));
+        handle.onMessage(message);
+        handle.onData(Buffers.buffer().writeBytes(data));
+        handle.onData(Buffers.buffer().writeBytes(data));
+        handle.onEnd();
+
+        final ByteBuf body = handle.body().getByteBuf();
+        then(body).isNotInstanceOf(CompositeByteBuf.class);
+        then(body.capacity()).isEqualTo(data.length * 2);
+        then(handle.body().readableBytes()).isEqualTo(data.length * 2);
+
+        handle.close();
+        then(body.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    void testPooledBodyReleasedIfCancelled() {
+        final HttpRequest request = HttpRequest.get("/abc").build();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final DefaultHandle handle = new DefaultHandle(request, new ContextImpl(), new NoopListener(), response,
+                ByteBufAllocator.DEFAULT, true);
+
+        handle.onMessage(new HttpMessageImpl(200, HttpVersion.HTTP_1_1, new Http1HeadersImpl()));
+        handle.onData(Buffers.buffer().writeBytes("Hello World!".getBytes()));
+        response.cancel(false);
+        handle.onEnd();
+
+        then(handle.body().readableBytes()).isEqualTo(0);
+    }
+
     private static final class DefaultHandle0 extends DefaultHandle {
 
         private DefaultHandle0(HttpRequest request,
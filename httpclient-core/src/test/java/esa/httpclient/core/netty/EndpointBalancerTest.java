@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.LoadBalanceStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EndpointBalancerTest {
+
+    @Test
+    void testOf() {
+        assertThrows(NullPointerException.class, () -> EndpointBalancer.of(null));
+        for (LoadBalanceStrategy strategy : LoadBalanceStrategy.values()) {
+            then(EndpointBalancer.of(strategy).select(endpoints(1))).isEqualTo(0);
+        }
+    }
+
+    @Test
+    void testRoundRobin() {
+        final EndpointBalancer balancer = EndpointBalancer.of(LoadBalanceStrategy.ROUND_ROBIN);
+        final EndpointStats[] endpoints = endpoints(3);
+        endpoints[0].onStarted();
+        then(balancer.select(endpoints)).isEqualTo(0);
+        then(balancer.select(endpoints)).isEqualTo(1);
+        then(balancer.select(endpoints)).isEqualTo(2);
+        then(balancer.select(endpoints)).isEqualTo(0);
+    }
+
+    @Test
+    void testLeastRequests() {
+        final EndpointBalancer balancer = EndpointBalancer.of(LoadBalanceStrategy.LEAST_REQUESTS);
+        final EndpointStats[] endpoints = endpoints(3);
+        start(endpoints[0], 2);
+        start(endpoints[1], 1);
+        start(endpoints[2], 3);
+        for (int i = 0; i < 100; i++) {
+            then(balancer.select(endpoints)).isEqualTo(1);
+        }
+
+        // Ties are broken randomly.
+        endpoints[0].onFinished();
+        final int[] selected = new int[3];
+        for (int i = 0; i < 1000; i++) {
+            selected[balancer.select(endpoints)]++;
+        }
+        then(selected[0]).isGreaterThan(0);
+        then(selected[1]).isGreaterThan(0);
+        then(selected[2]).isEqualTo(0);
+    }
+
+    @Test
+    void testPowerOfTwoChoices() {
+        final EndpointBalancer balancer = EndpointBalancer.of(LoadBalanceStrategy.POWER_OF_TWO_CHOICES);
+        final EndpointStats[] endpoints = endpoints(2);
+        start(endpoints[0], 5);
+        for (int i = 0; i < 100; i++) {
+            then(balancer.select(endpoints)).isEqualTo(1);
+        }
+
+        // The busiest one is never picked since it always loses the comparison.
+        final EndpointStats[] endpoints1 = endpoints(3);
+        start(endpoints1[2], 5);
+        for (int i = 0; i < 100; i++) {
+            then(balancer.select(endpoints1)).isNotEqualTo(2);
+        }
+    }
+
+    @Test
+    void testLatencyEwma() {
+        final EndpointBalancer balancer = EndpointBalancer.of(LoadBalanceStrategy.LATENCY_EWMA);
+        final EndpointStats[] endpoints = endpoints(2);
+
+        // Not measured yet
+        endpoints[0].onResponded(TimeUnit.MILLISECONDS.toNanos(1L));
+        then(balancer.select(endpoints)).isEqualTo(1);
+
+        endpoints[1].onResponded(TimeUnit.MILLISECONDS.toNanos(10L));
+        then(balancer.select(endpoints)).isEqualTo(0);
+
+        // The faster one takes requests until its cost exceeds the slower one's.
+        start(endpoints[0], 10);
+        then(balancer.select(endpoints)).isEqualTo(1);
+    }
+
+    @Test
+    void testEwmaLatency() {
+        final EndpointStats stats = new EndpointStats();
+        then(stats.latency()).isLessThan(0.0D);
+        stats.onResponded(100L);
+        then(stats.latency()).isEqualTo(100.0D);
+        // Little time has elapsed, so the new sample hardly counts.
+        stats.onResponded(1_000_000L);
+        then(stats.latency()).isBetween(100.0D, 1_000_000.0D);
+        then(stats.latency()).isLessThan(500_000.0D);
+    }
+
+    private static EndpointStats[] endpoints(int n) {
+        final EndpointStats[] endpoints = new EndpointStats[n];
+        for (int i = 0; i < n; i++) {
+            endpoints[i] = new EndpointStats();
+        }
+        return endpoints;
+    }
+
+    private static void start(EndpointStats stats, int n) {
+        for (int i = 0; i < n; i++) {
+            stats.onStarted();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.RequestPriority;
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GatedChannelPoolTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress("gated-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testIllegalArguments() {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        assertThrows(IllegalArgumentException.class, () -> newPool(metric, 0, 3000L, 16));
+        assertThrows(IllegalArgumentException.class, () -> newPool(metric, 1, 3000L, 0));
+    }
+
+    @Test
+    void testServeByPriority() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final GatedChannelPool pool = newPool(metric, 1, 3000L, 16);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> low = pool.acquire(new AcquirePromise(group.next(), RequestPriority.LOW));
+        final Future<Channel> normal = pool.acquire();
+        final Future<Channel> high = pool.acquire(new AcquirePromise(group.next(), RequestPriority.HIGH));
+        waitUntil(() -> pool.pendingAcquires() == 3);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(high).getNow()).isSameAs(channel);
+        then(normal.isDone()).isFalse();
+        then(low.isDone()).isFalse();
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(normal).getNow()).isSameAs(channel);
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(low).getNow()).isSameAs(channel);
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+
+        then(metric.createdCount()).isEqualTo(1L);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testDropCancelledAcquire() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final GatedChannelPool pool = newPool(metric, 1, 3000L, 1);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> cancelled = pool.acquire();
+        waitUntil(() -> pool.pendingAcquires() == 1);
+        then(cancelled.cancel(false)).isTrue();
+
+        // The cancelled one leaves the queue at once, which makes room for another one.
+        waitUntil(() -> pool.pendingAcquires() == 0);
+        final Future<Channel> pending = pool.acquire();
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(pending).getNow()).isSameAs(channel);
+        then(pool.acquired()).isEqualTo(1);
+        pool.close();
+    }
+
+    @Test
+    void testAcquireTimeout() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final GatedChannelPool pool = newPool(metric, 1, 100L, 16);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        then(await(pool.acquire()).cause()).isInstanceOf(TimeoutException.class);
+        then(pool.pendingAcquires()).isEqualTo(0);
+        then(metric.acquireTimeoutCount()).isEqualTo(1L);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(pool.acquire()).getNow()).isSameAs(channel);
+        pool.close();
+    }
+
+    @Test
+    void testCloseAsync() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final GatedChannelPool pool = newPool(metric, 1, 3000L, 16);
+
+        await(pool.acquire());
+        final Future<Channel> pending = pool.acquire();
+        then(pool.closeAsync().await(3L, TimeUnit.SECONDS)).isTrue();
+        then(await(pending).cause()).isInstanceOf(IllegalStateException.class);
+        then(await(pool.acquire()).cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Waits until the listeners which were added before have been notified, since the waiters of a
+     * {@link Future} are woken up before its listeners.
+     */
+    private static <T> Future<T> await(Future<T> future) throws Exception {
+        final CompletableFuture<Future<T>> notified = new CompletableFuture<>();
+        future.addListener(f -> notified.complete(future));
+        return notified.get(5L, TimeUnit.SECONDS);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20L);
+        }
+        then(condition.getAsBoolean()).isTrue();
+    }
+
+    private GatedChannelPool newPool(ChannelPoolMetricImpl metric,
+                                     int limit,
+                                     long acquireTimeoutMillis,
+                                     int maxPendingAcquires) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        return new GatedChannelPool(bootstrap,
+                new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                    }
+                },
+                ChannelHealthChecker.ACTIVE,
+                acquireTimeoutMillis,
+                limit,
+                limit,
+                maxPendingAcquires,
+                metric,
+                null);
+    }
+}
@@ -31,6 +31,7 @@ import io.netty.channel.pool.ChannelPool;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.ArgumentMatchers.any;
@@ -100,4 +101,28 @@ class H1TransceiverHandleTest {
         then(requestId).isEqualTo(1);
         then(registry.get(requestId)).isNotNull();
     }
+
+    @Test
+    void testApplyKeepAlive() {
+        then(H1TransceiverHandle.applyKeepAlive(null, "timeout=5")).isTrue();
+
+        final ConnectionState state = new ConnectionState(System.nanoTime());
+        then(H1TransceiverHandle.applyKeepAlive(state, null)).isTrue();
+        then(state.isReusable(System.nanoTime() + TimeUnit.HOURS.toNanos(1L), 0L)).isTrue();
+
+        // Retire one second before the server closes it
+        then(H1TransceiverHandle.applyKeepAlive(state, "timeout=5, max=100")).isTrue();
+        final long now = System.nanoTime();
+        state.onReleased(now);
+        then(state.isReusable(now + TimeUnit.MILLISECONDS.toNanos(3900L), 0L)).isTrue();
+        then(state.isReusable(now + TimeUnit.SECONDS.toNanos(4L), 0L)).isFalse();
+
+        // Malformed hints are ignored
+        then(H1TransceiverHandle.applyKeepAlive(state, "Timeout=foo, max")).isTrue();
+        then(state.isReusable(now + TimeUnit.HOURS.toNanos(1L), 0L)).isTrue();
+
+        // No more requests
+        then(H1TransceiverHandle.applyKeepAlive(state, "timeout=5, max=0")).isFalse();
+        then(state.isReusable(now, 0L)).isFalse();
+    }
 }
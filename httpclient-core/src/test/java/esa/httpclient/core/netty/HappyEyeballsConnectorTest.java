@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.resolver.HostResolver;
+import esa.httpclient.core.util.Futures;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HappyEyeballsConnectorTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private int port;
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new NioEventLoopGroup(2);
+        // Only the second loopback address is listened on, so the connects to the first one are refused.
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        accepted.incrementAndGet();
+                    }
+                })
+                .bind(ip(2), 0)
+                .sync()
+                .channel();
+        port = ((InetSocketAddress) server.localAddress()).getPort();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testOf() {
+        then(HappyEyeballsConnector.of(0, host -> Futures.completed(ip(1)))).isNull();
+        then(HappyEyeballsConnector.of(250, null)).isNull();
+        then(HappyEyeballsConnector.of(250, host -> Futures.completed(ip(1)))).isNotNull();
+        assertThrows(IllegalArgumentException.class, () -> new HappyEyeballsConnector(host -> null, 0L));
+    }
+
+    @Test
+    void testInterleave() throws UnknownHostException {
+        final InetAddress v6a = InetAddress.getByName("::2");
+        final InetAddress v6b = InetAddress.getByName("::3");
+        final InetAddress v4a = ip(1);
+        final InetAddress v4b = ip(2);
+        final InetAddress v4c = ip(3);
+
+        then(HappyEyeballsConnector.interleave(Arrays.asList(v6a, v6b, v4a, v4b, v4c)))
+                .containsExactly(v6a, v4a, v6b, v4b, v4c);
+        then(HappyEyeballsConnector.interleave(Arrays.asList(v4a, v4b, v6a, v4c)))
+                .containsExactly(v4a, v6a, v4b, v4c);
+        then(HappyEyeballsConnector.interleave(Collections.singletonList(v4a))).containsExactly(v4a);
+    }
+
+    @Test
+    void testFallbackOnRefused() throws Exception {
+        // The refused attempt starts the next one at once rather than after the delay.
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector(resolver(ip(1), ip(2)), 10_000L);
+        final ChannelFuture future = connector.connect(bootstrap());
+        then(future.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future.isSuccess()).isTrue();
+        then(future.channel().remoteAddress()).isEqualTo(new InetSocketAddress(ip(2), port));
+        future.channel().close().sync();
+    }
+
+    @Test
+    void testStaggeredAttemptOnBlackhole() throws Exception {
+        final InetSocketAddress blackholed = new InetSocketAddress(ip(3), port);
+        final List<ChannelFuture> attempts = new CopyOnWriteArrayList<>();
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector(resolver(ip(3), ip(2)), 100L) {
+            @Override
+            ChannelFuture connect(Bootstrap bs, InetSocketAddress address) {
+                final ChannelFuture attempt;
+                if (address.equals(blackholed)) {
+                    // Never completes, just like a connect to a blackholed address.
+                    final Channel channel = new NioSocketChannel();
+                    group.next().register(channel).syncUninterruptibly();
+                    attempt = channel.newPromise();
+                } else {
+                    attempt = super.connect(bs, address);
+                }
+                attempts.add(attempt);
+                return attempt;
+            }
+        };
+
+        final long start = System.nanoTime();
+        final ChannelFuture future = connector.connect(bootstrap());
+        then(future.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future.isSuccess()).isTrue();
+        then(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100L));
+        then(future.channel().remoteAddress()).isEqualTo(new InetSocketAddress(ip(2), port));
+
+        // The blackholed attempt is cancelled once the other one has won.
+        then(attempts).hasSize(2);
+        then(attempts.get(0).isCancelled()).isTrue();
+        future.channel().close().sync();
+    }
+
+    @Test
+    void testFirstConnectedWins() throws Exception {
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector(resolver(ip(2), ip(2)), 10_000L);
+        final ChannelFuture future = connector.connect(bootstrap());
+        then(future.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future.isSuccess()).isTrue();
+
+        // The next attempt has never been started.
+        Thread.sleep(200L);
+        then(accepted.get()).isEqualTo(1);
+        future.channel().close().sync();
+    }
+
+    @Test
+    void testAllAttemptsFailed() throws Exception {
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector(resolver(ip(1), ip(3)), 50L);
+        final ChannelFuture future = connector.connect(bootstrap());
+        then(future.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future.isSuccess()).isFalse();
+        then(future.cause()).isNotNull();
+        then(accepted.get()).isEqualTo(0);
+    }
+
+    @Test
+    void testUnresolvableHost() throws Exception {
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector(resolver(), 50L);
+        final ChannelFuture future = connector.connect(bootstrap());
+        then(future.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future.cause()).isInstanceOf(UnknownHostException.class);
+
+        final UnknownHostException cause = new UnknownHostException("example.com");
+        final ChannelFuture future1 = new HappyEyeballsConnector(host -> Futures.completed(cause), 50L)
+                .connect(bootstrap());
+        then(future1.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future1.cause()).isSameAs(cause);
+    }
+
+    @Test
+    void testConnectResolvedAddressDirectly() throws Exception {
+        final HappyEyeballsConnector connector = new HappyEyeballsConnector(host -> {
+            throw new AssertionError();
+        }, 50L);
+        final ChannelFuture future = connector.connect(bootstrap().remoteAddress(ip(2), port));
+        then(future.await(5L, TimeUnit.SECONDS)).isTrue();
+        then(future.isSuccess()).isTrue();
+        future.channel().close().sync();
+    }
+
+    private Bootstrap bootstrap() {
+        return new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                    }
+                })
+                .remoteAddress(InetSocketAddress.createUnresolved("example.com", port));
+    }
+
+    private static HostResolver resolver(InetAddress... addresses) {
+        return new HostResolver() {
+            @Override
+            public CompletableFuture<InetAddress> resolve(String inetHost) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<List<InetAddress>> resolveAddresses(String inetHost) {
+                return Futures.completed(Arrays.asList(addresses));
+            }
+        };
+    }
+
+    private static InetAddress ip(int i) {
+        try {
+            return InetAddress.getByAddress(new byte[]{127, 0, 0, (byte) i});
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -32,11 +32,14 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.http.*;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static esa.httpclient.core.ContextNames.EXPECT_CONTINUE_CALLBACK;
 import static org.assertj.core.api.BDDAssertions.then;
@@ -91,6 +94,62 @@ class Http1ChannelHandlerTest {
         channel.finishAndReleaseAll();
     }
 
+    @Test
+    void testPublishBodyByDemand() throws Exception {
+        final HandleRegistry registry = new HandleRegistry(1, 0);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Http1ChannelHandler handler = new Http1ChannelHandler(registry, -1L);
+        channel.pipeline().addLast(handler);
+
+        final HttpRequest request = HttpRequest.get("/abc").build();
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        final AtomicReference<Subscription> subscription = new AtomicReference<>();
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+
+        final NettyHandle handle = new NettyHandle(h -> h.publisher().subscribe(new Subscriber<Buffer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(Buffer buffer) {
+                received.addAndGet(buffer.readableBytes());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.incrementAndGet();
+            }
+        }), request, new ContextImpl(), new NoopListener(), response);
+        handler.updateRequestId(registry.put(handle));
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.buffer().writeBytes(DATA)));
+        then(received.get()).isEqualTo(0);
+        then(channel.config().isAutoRead()).isFalse();
+
+        subscription.get().request(1L);
+        then(received.get()).isEqualTo(DATA.length);
+        then(channel.config().isAutoRead()).isTrue();
+
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.buffer().writeBytes(DATA)));
+        then(response.isDone()).isTrue();
+        then(completed.get()).isEqualTo(0);
+        // Reads on for the next response over the connection
+        then(channel.config().isAutoRead()).isTrue();
+
+        subscription.get().request(1L);
+        then(received.get()).isEqualTo(DATA.length * 2);
+        then(completed.get()).isEqualTo(1);
+        channel.finishAndReleaseAll();
+    }
+
     @Test
     void testHandle100ContinueResponse() throws Exception {
         final HandleRegistry registry = new HandleRegistry(1, 0);
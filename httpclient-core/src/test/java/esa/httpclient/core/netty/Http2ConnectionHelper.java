@@ -98,6 +98,7 @@ class Http2ConnectionHelper {
         when(encoder.connection()).thenReturn(connection);
         when(encoder.frameWriter()).thenReturn(frameWriter);
         when(encoder.flowController()).thenReturn(remoteFlow);
+        when(remoteFlow.isWritable(any(Http2Stream.class))).thenReturn(true);
         when(encoder.writeSettings(any(ChannelHandlerContext.class),
                 any(Http2Settings.class), any(ChannelPromise.class)))
                 .thenAnswer(invocation -> {
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DefaultHttp2ConnectionDecoder;
+import io.netty.handler.codec.http2.DefaultHttp2ConnectionEncoder;
+import io.netty.handler.codec.http2.DefaultHttp2FrameReader;
+import io.netty.handler.codec.http2.DefaultHttp2FrameWriter;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionDecoder;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Settings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class Http2PingKeepAliveTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+    private CompletableFuture<Channel> accepted;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress("h2-ping-" + System.nanoTime());
+        accepted = new CompletableFuture<>();
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ch.pipeline().addLast(new io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder()
+                                .server(true)
+                                .frameListener(new Http2FrameAdapter())
+                                .build());
+                        accepted.complete(ch);
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testRecordRtt() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final Channel channel = connect(metric, 1000L);
+        final ConnectionState state = new ConnectionState(System.nanoTime());
+        channel.attr(ConnectionState.KEY).set(state);
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (state.rttNanos() < 0L) {
+            then(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10L);
+        }
+        then(metric.pingRtt().count()).isGreaterThan(0L);
+        then(metric.pingTimeoutCount()).isEqualTo(0L);
+        then(channel.isActive()).isTrue();
+        channel.close().sync();
+    }
+
+    @Test
+    void testCloseIfNotAcked() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final Channel channel = connect(metric, 50L);
+
+        // The peer stops responding after the SETTINGS have been exchanged.
+        final Channel peer = accepted.get(3L, TimeUnit.SECONDS);
+        peer.pipeline().remove(io.netty.handler.codec.http2.Http2ConnectionHandler.class);
+
+        then(channel.closeFuture().await(3L, TimeUnit.SECONDS)).isTrue();
+        then(metric.pingTimeoutCount()).isEqualTo(1L);
+    }
+
+    private Channel connect(ChannelPoolMetricImpl metric, long ackTimeoutMillis) throws Exception {
+        final Http2Connection connection = new DefaultHttp2Connection(false);
+        final Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(connection,
+                new DefaultHttp2FrameWriter());
+        final Http2ConnectionDecoder decoder = new DefaultHttp2ConnectionDecoder(connection, encoder,
+                new DefaultHttp2FrameReader());
+        decoder.frameListener(new Http2PingKeepAlive(new Http2FrameAdapter(), connection, encoder,
+                20L, ackTimeoutMillis, metric));
+        final Http2ConnectionHandler handler = new Http2ConnectionHandler(decoder, encoder,
+                Http2Settings.defaultSettings(), false, new HandleRegistry(2, 1));
+
+        final Channel channel = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(handler)
+                .connect(address)
+                .sync()
+                .channel();
+        // The preface is only written while the channel becomes active, so that it must be flushed here.
+        channel.flush();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (!handler.decoder().prefaceReceived()) {
+            then(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10L);
+        }
+        return channel;
+    }
+}
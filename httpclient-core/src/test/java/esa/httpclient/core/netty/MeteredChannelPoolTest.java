@@ -0,0 +1,249 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class MeteredChannelPoolTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(1);
+        address = new LocalAddress("metered-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testAcquireAndRelease() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MeteredChannelPool pool = newPool(metric, 1, 1000L);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        then(metric.active()).isEqualTo(1);
+        then(metric.pendingAcquireCount()).isEqualTo(0);
+        then(metric.createdCount()).isEqualTo(1L);
+        then(metric.connectTime().count()).isEqualTo(1L);
+        then(metric.acquireWaitTime().count()).isEqualTo(1L);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+
+        // Reuse the idle one
+        final Channel reused = await(pool.acquire()).getNow();
+        then(reused).isSameAs(channel);
+        then(metric.createdCount()).isEqualTo(1L);
+        then(metric.acquireWaitTime().count()).isEqualTo(2L);
+
+        reused.close().sync();
+        pool.release(reused).await(3L, TimeUnit.SECONDS);
+        then(metric.closedCount()).isEqualTo(1L);
+        pool.close();
+    }
+
+    @Test
+    void testAcquireTimeout() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MeteredChannelPool pool = newPool(metric, 1, 50L);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> pending = await(pool.acquire());
+        then(pending.isSuccess()).isFalse();
+        then(metric.acquireTimeoutCount()).isEqualTo(1L);
+        then(metric.pendingAcquireCount()).isEqualTo(0);
+        then(metric.active()).isEqualTo(1);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testCancelPendingAcquire() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MeteredChannelPool pool = newPool(metric, 1, 1000L);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> pending = pool.acquire();
+        then(pending.cancel(false)).isTrue();
+
+        // The released channel is given back to the pool rather than to the cancelled acquisition
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        final Channel reused = await(pool.acquire()).getNow();
+        then(reused).isSameAs(channel);
+        then(metric.active()).isEqualTo(1);
+
+        pool.release(reused).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testServeDeferredByReleasedConnection() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        // One connect per second
+        final ConnectLimiter limiter = new ConnectLimiter(0, 1, group.next());
+        final MeteredChannelPool pool = newPool(metric, 4, 3000L, limiter);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> deferred = pool.acquire();
+        Thread.sleep(100L);
+        then(deferred.isDone()).isFalse();
+        then(metric.pendingAcquireCount()).isEqualTo(1);
+
+        // Served by the released one without connecting
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(deferred).getNow()).isSameAs(channel);
+        then(metric.createdCount()).isEqualTo(1L);
+        then(limiter.connecting()).isEqualTo(0);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testBoundedConcurrentConnects() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ConnectLimiter limiter = new ConnectLimiter(1, 5, group.next());
+        final MeteredChannelPool pool = newPool(metric, 4, 3000L, limiter);
+
+        final long start = System.nanoTime();
+        final Future<Channel> acquire1 = pool.acquire();
+        final Future<Channel> acquire2 = pool.acquire();
+        final Future<Channel> acquire3 = pool.acquire();
+        final Channel channel1 = await(acquire1).getNow();
+        final Channel channel2 = await(acquire2).getNow();
+        final Channel channel3 = await(acquire3).getNow();
+
+        // The connects are spaced by 200ms
+        then(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(350L));
+        then(channel1).isNotSameAs(channel2);
+        then(channel2).isNotSameAs(channel3);
+        then(metric.createdCount()).isEqualTo(3L);
+        then(limiter.connecting()).isEqualTo(0);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        pool.release(channel3).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testDeferredAcquireTimeout() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ConnectLimiter limiter = new ConnectLimiter(0, 1, group.next());
+        final MeteredChannelPool pool = newPool(metric, 4, 100L, limiter);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> deferred = await(pool.acquire());
+        then(deferred.cause()).isInstanceOf(TimeoutException.class);
+        then(metric.acquireTimeoutCount()).isEqualTo(1L);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testCloseDeferred() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ConnectLimiter limiter = new ConnectLimiter(0, 1, group.next());
+        final MeteredChannelPool pool = newPool(metric, 4, 3000L, limiter);
+
+        await(pool.acquire());
+        final Future<Channel> deferred = pool.acquire();
+        Thread.sleep(100L);
+        pool.closeAsync().await(3L, TimeUnit.SECONDS);
+        then(await(deferred).cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Waits until the listeners which were added before have been notified, since the waiters of a
+     * {@link Future} are woken up before its listeners.
+     */
+    private static <T> Future<T> await(Future<T> future) throws Exception {
+        final CompletableFuture<Future<T>> notified = new CompletableFuture<>();
+        future.addListener(f -> notified.complete(future));
+        return notified.get(3L, TimeUnit.SECONDS);
+    }
+
+    private MeteredChannelPool newPool(ChannelPoolMetricImpl metric, int maxConnections, long acquireTimeout) {
+        return newPool(metric, maxConnections, acquireTimeout, null);
+    }
+
+    private MeteredChannelPool newPool(ChannelPoolMetricImpl metric,
+                                       int maxConnections,
+                                       long acquireTimeout,
+                                       ConnectLimiter limiter) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        return new MeteredChannelPool(bootstrap,
+                new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                    }
+                },
+                ChannelHealthChecker.ACTIVE,
+                FixedChannelPool.AcquireTimeoutAction.FAIL,
+                acquireTimeout,
+                maxConnections,
+                16,
+                metric,
+                true,
+                limiter);
+    }
+}
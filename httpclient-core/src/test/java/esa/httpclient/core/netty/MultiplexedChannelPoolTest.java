@@ -0,0 +1,301 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DefaultHttp2ConnectionDecoder;
+import io.netty.handler.codec.http2.DefaultHttp2ConnectionEncoder;
+import io.netty.handler.codec.http2.DefaultHttp2FrameReader;
+import io.netty.handler.codec.http2.DefaultHttp2FrameWriter;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionDecoder;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class MultiplexedChannelPoolTest {
+
+    private static final int MAX_CONCURRENT_STREAMS = 2;
+
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+    private AtomicInteger acquired;
+    private AtomicInteger released;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        acquired = new AtomicInteger();
+        released = new AtomicInteger();
+        address = new LocalAddress("multiplexed-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ch.pipeline().addLast(new io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder()
+                                .server(true)
+                                .initialSettings(Http2Settings.defaultSettings()
+                                        .maxConcurrentStreams(MAX_CONCURRENT_STREAMS))
+                                .frameListener(new Http2FrameAdapter())
+                                .build());
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testMultiplexUntilSaturated() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MultiplexedChannelPool pool = newPool(metric, 4, 3000L, true);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        awaitSettings(channel1);
+
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(channel2).isSameAs(channel1);
+        then(metric.createdCount()).isEqualTo(1L);
+
+        // Saturated, so that a new connection is established
+        final Channel channel3 = await(pool.acquire()).getNow();
+        then(channel3).isNotSameAs(channel1);
+        then(metric.createdCount()).isEqualTo(2L);
+        then(metric.active()).isEqualTo(3);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        pool.release(channel3).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+
+        // Reuse the first connection
+        then(await(pool.acquire()).getNow()).isSameAs(channel1);
+        pool.close();
+    }
+
+    @Test
+    void testQueueWhenAllConnectionsSaturated() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MultiplexedChannelPool pool = newPool(metric, 1, 3000L, true);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        awaitSettings(channel1);
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(channel2).isSameAs(channel1);
+
+        final Future<Channel> pending = pool.acquire();
+        then(pending.isDone()).isFalse();
+        then(metric.pendingAcquireCount()).isEqualTo(1);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        then(await(pending).getNow()).isSameAs(channel1);
+        then(metric.createdCount()).isEqualTo(1L);
+        then(metric.pendingAcquireCount()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testAcquireTimeout() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MultiplexedChannelPool pool = newPool(metric, 1, 500L, true);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        awaitSettings(channel);
+        await(pool.acquire());
+
+        final Future<Channel> pending = await(pool.acquire());
+        then(pending.cause()).isInstanceOf(TimeoutException.class);
+        then(metric.acquireTimeoutCount()).isEqualTo(1L);
+        then(metric.active()).isEqualTo(2);
+        pool.close();
+    }
+
+    @Test
+    void testFallbackToHttp1() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MultiplexedChannelPool pool = newPool(metric, 4, 3000L, false);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(channel2).isNotSameAs(channel1);
+        then(metric.active()).isEqualTo(2);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        then(await(pool.acquire()).getNow()).isSameAs(channel1);
+        pool.close();
+    }
+
+    @Test
+    void testCancelAcquireAfterFallback() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MultiplexedChannelPool pool = newPool(metric, 1, 3000L, false);
+
+        final Channel channel = await(pool.acquire()).getNow();
+        final Future<Channel> pending = pool.acquire();
+        then(pending.isDone()).isFalse();
+        then(pending.cancel(false)).isTrue();
+
+        // Given back to the underlying pool rather than to the cancelled acquisition
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(pool.acquire()).getNow()).isSameAs(channel);
+        then(metric.createdCount()).isEqualTo(1L);
+        then(metric.active()).isEqualTo(1);
+        pool.close();
+    }
+
+    @Test
+    void testRetireAfterMaxRequests() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final MultiplexedChannelPool pool = newPool(metric, 4, 3000L, true, 1);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        awaitSettings(channel1);
+
+        // Retired, so that another connection is used although the first one has room for another stream
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(channel2).isNotSameAs(channel1);
+        then(channel1.isActive()).isTrue();
+
+        // Closed once drained
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        then(channel1.closeFuture().await(3L, TimeUnit.SECONDS)).isTrue();
+        then(channel2.isActive()).isTrue();
+        pool.close();
+    }
+
+    @Test
+    void testCloseAsync() throws Exception {
+        final MultiplexedChannelPool pool = newPool(new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault()),
+                4, 3000L, true);
+        final Channel channel = await(pool.acquire()).getNow();
+
+        then(pool.closeAsync().await(3L, TimeUnit.SECONDS)).isTrue();
+        channel.closeFuture().await(3L, TimeUnit.SECONDS);
+        then(channel.isOpen()).isFalse();
+        // The connections have been given back to the underlying pool before being closed
+        then(released.get()).isEqualTo(acquired.get());
+        then(await(pool.acquire()).cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void awaitSettings(Channel channel) throws InterruptedException {
+        final Http2ConnectionHandler handler = channel.pipeline().get(Http2ConnectionHandler.class);
+        // The preface is only written while the channel becomes active, so that it must be flushed here.
+        channel.flush();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (!handler.decoder().prefaceReceived()
+                || handler.connection().local().maxActiveStreams() != MAX_CONCURRENT_STREAMS) {
+            then(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10L);
+        }
+    }
+
+    /**
+     * Waits until the listeners which were added before have been notified, since the waiters of a
+     * {@link Future} are woken up before its listeners.
+     */
+    private static <T> Future<T> await(Future<T> future) throws Exception {
+        final CompletableFuture<Future<T>> notified = new CompletableFuture<>();
+        future.addListener(f -> notified.complete(future));
+        return notified.get(3L, TimeUnit.SECONDS);
+    }
+
+    private MultiplexedChannelPool newPool(ChannelPoolMetricImpl metric,
+                                           int maxConnections,
+                                           long acquireTimeout,
+                                           boolean h2) {
+        return newPool(metric, maxConnections, acquireTimeout, h2, 0);
+    }
+
+    private MultiplexedChannelPool newPool(ChannelPoolMetricImpl metric,
+                                           int maxConnections,
+                                           long acquireTimeout,
+                                           boolean h2,
+                                           int maxRequestsPerConnection) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        return new MultiplexedChannelPool(bootstrap,
+                new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                        if (h2) {
+                            ch.pipeline().addLast(newHttp2Handler());
+                        }
+                        ch.attr(ChannelPoolHandler.HANDSHAKE_FUTURE).set(ch.newSucceededFuture());
+                    }
+
+                    @Override
+                    public void channelAcquired(Channel ch) {
+                        acquired.incrementAndGet();
+                    }
+
+                    @Override
+                    public void channelReleased(Channel ch) {
+                        released.incrementAndGet();
+                    }
+                },
+                ChannelHealthChecker.ACTIVE,
+                acquireTimeout,
+                maxConnections,
+                16,
+                maxRequestsPerConnection,
+                metric);
+    }
+
+    private static Http2ConnectionHandler newHttp2Handler() {
+        final Http2Connection connection = new DefaultHttp2Connection(false);
+        final Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(connection,
+                new DefaultHttp2FrameWriter());
+        final Http2ConnectionDecoder decoder = new DefaultHttp2ConnectionDecoder(connection, encoder,
+                new DefaultHttp2FrameReader());
+        decoder.frameListener(new Http2FrameAdapter());
+        return new Http2ConnectionHandler(decoder, encoder, Http2Settings.defaultSettings(), false,
+                new HandleRegistry(2, 1));
+    }
+}
@@ -99,6 +99,19 @@ class NettyHttpClientTest {
         then(request.headers().get(HttpHeaderNames.ACCEPT_ENCODING)).isEqualTo(Decompression.GZIP_DEFLATE.format());
     }
 
+    @Test
+    void testWarmUp() {
+        final ChannelPools channelPools = new ChannelPools(CacheOptions.ofDefault());
+        final NettyHttpClientImpl client = new NettyHttpClientImpl(HttpClient.create(), channelPools);
+
+        assertThrows(IllegalArgumentException.class, () -> client.warmUp(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> client.warmUp("http://127.0.0.1:8080", 0));
+        assertThrows(IllegalArgumentException.class, () -> client.warmUp("/abc", 1));
+
+        channelPools.close();
+        then(client.warmUp("https://127.0.0.1:8443", 1)).isCompletedExceptionally();
+    }
+
     @Test
     void testPrepare() {
         final NettyHttpClientImpl client = new NettyHttpClientImpl(HttpClient.create());
@@ -154,6 +167,17 @@ class NettyHttpClientTest {
         then(client.connectionPoolMetric()).isSameAs(channelPools);
     }
 
+    @Test
+    void testRequestMetric() {
+        final ChannelPools channelPools = mock(ChannelPools.class);
+        then(new NettyHttpClientImpl(HttpClient.create(), channelPools).requestMetric()).isNull();
+
+        final NettyHttpClientImpl client = new NettyHttpClientImpl(HttpClient.create()
+                .requestMetricsEnabled(true), channelPools);
+        then(client.requestMetric()).isInstanceOf(RequestMetricListener.class);
+        then(client.requestMetric().all()).isEmpty();
+    }
+
     @Test
     void testIoThreadsMetric() {
         final String id = "IO-Threads-Pool-1";
@@ -19,6 +19,8 @@ import esa.commons.http.HttpVersion;
 import esa.commons.netty.core.Buffers;
 import esa.commons.netty.http.Http1HeadersImpl;
 import esa.httpclient.core.HttpMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.ThreadLocalRandom;
@@ -50,5 +52,22 @@ class NettyResponseTest {
         then(response.trailers().get("X")).isEqualTo("Y");
 
         then(response.aggregated()).isEqualTo(aggregated);
+
+        // Nothing to release
+        response.close();
+        then(response.body().readableBytes()).isEqualTo(data.length);
+    }
+
+    @Test
+    void testPooledBody() {
+        final NettyResponse response = new NettyResponse(true);
+        final ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer().writeBytes("Hello".getBytes());
+        response.pooledBody(buf);
+        then(response.body().getByteBuf()).isSameAs(buf);
+
+        response.close();
+        then(buf.refCnt()).isEqualTo(0);
+        then(response.body().readableBytes()).isEqualTo(0);
+        response.close();
     }
 }
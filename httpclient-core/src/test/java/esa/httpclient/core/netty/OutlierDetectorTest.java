@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutlierDetectorTest {
+
+    @Test
+    void testOf() {
+        then(OutlierDetector.of(ChannelPoolOptions.ofDefault())).isNull();
+        final OutlierDetector detector = OutlierDetector.of(ChannelPoolOptions.options()
+                .outlierConsecutiveFailures(3).outlierEjectionTime(100).build());
+        then(detector).isNotNull();
+        then(detector.consecutiveFailures).isEqualTo(3);
+
+        assertThrows(IllegalArgumentException.class, () -> new OutlierDetector(0, 1L, 10));
+        assertThrows(IllegalArgumentException.class, () -> new OutlierDetector(1, 0L, 10));
+        assertThrows(IllegalArgumentException.class, () -> new OutlierDetector(1, 1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> new OutlierDetector(1, 1L, 101));
+    }
+
+    @Test
+    void testEjectConsecutiveFailures() {
+        final OutlierDetector detector = new OutlierDetector(3, 60_000L, 50);
+        detector.size(2);
+        final EndpointStats stats = new EndpointStats(detector);
+
+        stats.onFailed();
+        stats.onFailed();
+        // Not consecutive
+        stats.onSucceeded();
+        stats.onFailed();
+        stats.onFailed();
+        then(stats.isEjected()).isFalse();
+
+        stats.onFailed();
+        then(stats.isEjected()).isTrue();
+        then(detector.ejected()).isEqualTo(1);
+
+        stats.clearEjection();
+        then(stats.isEjected()).isFalse();
+        then(detector.ejected()).isEqualTo(0);
+    }
+
+    @Test
+    void testMaxEjectionPercent() {
+        final OutlierDetector detector = new OutlierDetector(1, 60_000L, 10);
+        detector.size(4);
+        final EndpointStats stats1 = new EndpointStats(detector);
+        final EndpointStats stats2 = new EndpointStats(detector);
+
+        // At least one can be ejected.
+        stats1.onFailed();
+        stats2.onFailed();
+        then(stats1.isEjected()).isTrue();
+        then(stats2.isEjected()).isFalse();
+
+        // The last one is always kept.
+        final OutlierDetector detector1 = new OutlierDetector(1, 60_000L, 100);
+        detector1.size(1);
+        final EndpointStats stats3 = new EndpointStats(detector1);
+        stats3.onFailed();
+        then(stats3.isEjected()).isFalse();
+    }
+
+    @Test
+    void testEjectionTimeGrows() throws InterruptedException {
+        final OutlierDetector detector = new OutlierDetector(1, 50L, 50);
+        detector.size(2);
+        final EndpointStats stats = new EndpointStats(detector);
+
+        stats.onFailed();
+        then(stats.isEjected()).isTrue();
+        Thread.sleep(100L);
+        then(stats.isEjected()).isFalse();
+        then(detector.ejected()).isEqualTo(0);
+
+        // Ejected again without a success in between, which lasts twice as long.
+        stats.onFailed();
+        Thread.sleep(70L);
+        then(stats.isEjected()).isTrue();
+        Thread.sleep(80L);
+        then(stats.isEjected()).isFalse();
+
+        // Reset by a success.
+        stats.onSucceeded();
+        stats.onFailed();
+        Thread.sleep(70L);
+        then(stats.isEjected()).isFalse();
+    }
+
+    @Test
+    void testRecordFailures() {
+        final OutlierDetector detector = new OutlierDetector(2, 60_000L, 50);
+        detector.size(2);
+        final EndpointStats stats = new EndpointStats(detector);
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(EndpointStats.ENDPOINT_STATS).set(stats);
+
+        final HttpResponse ok = mock(HttpResponse.class);
+        when(ok.status()).thenReturn(200);
+        final HttpResponse unavailable = mock(HttpResponse.class);
+        when(unavailable.status()).thenReturn(503);
+
+        final CompletableFuture<HttpResponse> response1 = new CompletableFuture<>();
+        EndpointStats.record(channel, response1);
+        response1.complete(unavailable);
+        then(stats.latency()).isGreaterThanOrEqualTo(0.0D);
+        then(stats.isEjected()).isFalse();
+
+        final CompletableFuture<HttpResponse> response2 = new CompletableFuture<>();
+        EndpointStats.record(channel, response2);
+        response2.completeExceptionally(new SocketTimeoutException());
+        then(stats.isEjected()).isTrue();
+
+        stats.clearEjection();
+        final CompletableFuture<HttpResponse> response3 = new CompletableFuture<>();
+        EndpointStats.record(channel, response3);
+        response3.complete(unavailable);
+        final CompletableFuture<HttpResponse> response4 = new CompletableFuture<>();
+        EndpointStats.record(channel, response4);
+        response4.complete(ok);
+        final CompletableFuture<HttpResponse> response5 = new CompletableFuture<>();
+        EndpointStats.record(channel, response5);
+        response5.complete(unavailable);
+        then(stats.isEjected()).isFalse();
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.RequestPriority;
+import esa.httpclient.core.netty.PendingAcquireQueue.PendingAcquire;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class PendingAcquireQueueTest {
+
+    private static final long DEADLINE = System.nanoTime() + TimeUnit.HOURS.toNanos(1L);
+
+    @Test
+    void testPollByPriority() {
+        final PendingAcquireQueue queue = new PendingAcquireQueue(16);
+        final PendingAcquire low = pending(RequestPriority.LOW, DEADLINE);
+        final PendingAcquire normal1 = pending(RequestPriority.NORMAL, DEADLINE);
+        final PendingAcquire high = pending(RequestPriority.HIGH, DEADLINE);
+        final PendingAcquire normal2 = pending(RequestPriority.NORMAL, DEADLINE);
+        then(queue.offer(low)).isTrue();
+        then(queue.offer(normal1)).isTrue();
+        then(queue.offer(high)).isTrue();
+        then(queue.offer(normal2)).isTrue();
+        then(queue.size()).isEqualTo(4);
+
+        final long now = System.nanoTime();
+        then(queue.poll(now)).isSameAs(high);
+        then(queue.poll(now)).isSameAs(normal1);
+        then(queue.poll(now)).isSameAs(normal2);
+        then(queue.poll(now)).isSameAs(low);
+        then(queue.poll(now)).isNull();
+        then(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testDropCancelledAndExpired() {
+        final PendingAcquireQueue queue = new PendingAcquireQueue(16);
+        final long now = System.nanoTime();
+        final PendingAcquire cancelled = pending(RequestPriority.NORMAL, DEADLINE);
+        final PendingAcquire expired = pending(RequestPriority.NORMAL, now - 1L);
+        final PendingAcquire waiting = pending(RequestPriority.NORMAL, DEADLINE);
+        queue.offer(cancelled);
+        queue.offer(expired);
+        queue.offer(waiting);
+        cancelled.promise.cancel(false);
+
+        then(queue.poll(now)).isSameAs(waiting);
+        then(expired.promise.cause()).isInstanceOf(TimeoutException.class);
+        then(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testEvictLowerPriorityWhenFull() {
+        final PendingAcquireQueue queue = new PendingAcquireQueue(2);
+        final PendingAcquire low1 = pending(RequestPriority.LOW, DEADLINE);
+        final PendingAcquire low2 = pending(RequestPriority.LOW, DEADLINE);
+        queue.offer(low1);
+        queue.offer(low2);
+
+        // Rejected since there is no waiter of a lower priority
+        then(queue.offer(pending(RequestPriority.LOW, DEADLINE))).isFalse();
+
+        // The latest waiter of the lowest priority gives its place to the new one.
+        final PendingAcquire high = pending(RequestPriority.HIGH, DEADLINE);
+        then(queue.offer(high)).isTrue();
+        then(low2.promise.cause()).isInstanceOf(IllegalStateException.class);
+        then(queue.size()).isEqualTo(2);
+
+        final long now = System.nanoTime();
+        then(queue.poll(now)).isSameAs(high);
+        then(queue.poll(now)).isSameAs(low1);
+    }
+
+    @Test
+    void testRemoveAndFailAll() {
+        final PendingAcquireQueue queue = new PendingAcquireQueue(16);
+        final PendingAcquire pending1 = pending(RequestPriority.HIGH, DEADLINE);
+        final PendingAcquire pending2 = pending(RequestPriority.LOW, DEADLINE);
+        queue.offer(pending1);
+        queue.offer(pending2);
+
+        then(queue.remove(pending1)).isTrue();
+        then(queue.remove(pending1)).isFalse();
+        then(queue.size()).isEqualTo(1);
+
+        final IllegalStateException cause = new IllegalStateException();
+        queue.failAll(cause);
+        then(pending2.promise.cause()).isSameAs(cause);
+        then(queue.isEmpty()).isTrue();
+    }
+
+    private static PendingAcquire pending(RequestPriority priority, long deadline) {
+        final Promise<Channel> promise = new AcquirePromise(ImmediateEventExecutor.INSTANCE, priority);
+        return new PendingAcquire(promise, deadline);
+    }
+}
@@ -18,8 +18,11 @@ package esa.httpclient.core.netty;
 import esa.httpclient.core.Context;
 import esa.httpclient.core.ContextImpl;
 import esa.httpclient.core.PlainRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
@@ -29,6 +32,7 @@ import io.netty.handler.codec.http2.HttpConversionUtil;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static esa.httpclient.core.ContextNames.EXPECT_CONTINUE_CALLBACK;
 import static esa.httpclient.core.ContextNames.EXPECT_CONTINUE_ENABLED;
@@ -108,6 +112,73 @@ class PlainWriterTest extends Http2ConnectionHelper {
         then(end.isDone() && end.isSuccess()).isTrue();
     }
 
+    @Test
+    void testWriteBufferHttp1() throws IOException {
+        final PlainWriter writer = PlainWriter.singleton();
+        final EmbeddedChannel channel = new EmbeddedChannel();
+
+        final ByteBuf buf = Unpooled.directBuffer().writeBytes(DATA);
+        final esa.httpclient.core.PlainRequest request =
+                (PlainRequest) esa.httpclient.core.HttpRequest.put("http://127.0.0.1/abc")
+                        .buffer(buf)
+                        .build();
+        then(request.body()).isNull();
+        then(request.buffer().getByteBuf()).isSameAs(buf);
+
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                new ContextImpl(),
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+
+        // Headers and body are written as a single message without copying
+        FullHttpRequest req = channel.readOutbound();
+        then(req.method()).isSameAs(HttpMethod.PUT);
+        then(req.headers().getInt(esa.commons.http.HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(DATA.length);
+        then(req.content().unwrap()).isSameAs(buf);
+        then(req.content().readableBytes()).isEqualTo(DATA.length);
+        then((Object) channel.readOutbound()).isNull();
+        then(end.isDone() && end.isSuccess()).isTrue();
+
+        // The request still holds its own reference for retrying
+        req.release();
+        then(buf.refCnt()).isEqualTo(1);
+        then(buf.readableBytes()).isEqualTo(DATA.length);
+        buf.release();
+    }
+
+    @Test
+    void test100ExpectContinueBuffer1() throws IOException {
+        final PlainWriter writer = PlainWriter.singleton();
+        final EmbeddedChannel channel = new EmbeddedChannel();
+
+        final esa.httpclient.core.PlainRequest request =
+                (PlainRequest) esa.httpclient.core.HttpRequest.put("http://127.0.0.1/abc")
+                        .buffer(ByteBuffer.wrap(DATA))
+                        .build();
+        final Context ctx = new ContextImpl();
+
+        ctx.setAttr(EXPECT_CONTINUE_ENABLED, true);
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                ctx,
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+
+        HttpRequest req = channel.readOutbound();
+        then(req).isNotInstanceOf(FullHttpRequest.class);
+        then(req.headers().getInt(esa.commons.http.HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(DATA.length);
+        then((Object) channel.readOutbound()).isNull();
+        then(end.isDone()).isFalse();
+
+        ((Runnable) ctx.removeUncheckedAttr(EXPECT_CONTINUE_CALLBACK)).run();
+        LastHttpContent last = channel.readOutbound();
+        then(last.content().readableBytes()).isEqualTo(DATA.length);
+        then(end.isDone() && end.isSuccess()).isTrue();
+    }
+
     ////////*********************************HTTP2 PLAIN WRITER**************************************////////
 
     @Test
@@ -190,4 +261,39 @@ class PlainWriterTest extends Http2ConnectionHelper {
         then(end.isDone() && end.isSuccess()).isTrue();
     }
 
+    @Test
+    void testWriteBuffer2() throws Exception {
+        setUp();
+        final PlainWriter writer = PlainWriter.singleton();
+
+        final ByteBuf buf = Unpooled.copiedBuffer(DATA);
+        final esa.httpclient.core.PlainRequest request =
+                (PlainRequest) esa.httpclient.core.HttpRequest.put("http://127.0.0.1/abc")
+                        .buffer(buf)
+                        .build();
+        request.headers().add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), STREAM_ID);
+
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                new ContextImpl(),
+                false,
+                null,
+                true);
+        channel.flush();
+        // Ignore preface
+        channel.readOutbound();
+
+        Helper.HeaderFrame header = channel.readOutbound();
+        then(header.endStream).isFalse();
+        then(header.headers.getInt(esa.commons.http.HttpHeaderNames.CONTENT_LENGTH)).isEqualTo(DATA.length);
+
+        Helper.DataFrame data = channel.readOutbound();
+        then(data.endStream).isTrue();
+        then(data.data).isEqualTo(Unpooled.wrappedBuffer(DATA));
+
+        then(end.isDone() && end.isSuccess()).isTrue();
+        then(buf.refCnt()).isPositive();
+        then(buf.readableBytes()).isEqualTo(DATA.length);
+    }
+
 }
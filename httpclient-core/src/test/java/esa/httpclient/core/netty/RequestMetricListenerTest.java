@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.Context;
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.HttpMessage;
+import esa.httpclient.core.HttpRequest;
+import esa.httpclient.core.HttpResponse;
+import esa.httpclient.core.metrics.RequestMetric;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+
+class RequestMetricListenerTest {
+
+    private static final SocketAddress ADDRESS = InetSocketAddress.createUnresolved("127.0.0.1", 8080);
+
+    @Test
+    void testRecordPhases() throws InterruptedException {
+        final RequestMetricListener listener = new RequestMetricListener();
+        final HttpRequest request = mock(HttpRequest.class);
+        final Context ctx = new ContextImpl();
+
+        listener.onInterceptorsStart(request, ctx);
+        listener.onConnectionPoolAttempt(request, ctx, ADDRESS);
+        listener.onConnectionAttempt(request, ctx, ADDRESS);
+        ctx.setAttr(RequestMetricListener.CONNECT_TIME, 100L);
+        ctx.setAttr(RequestMetricListener.HANDSHAKE_TIME, 200L);
+        listener.onConnectionAcquired(request, ctx, ADDRESS);
+        listener.onWriteAttempt(request, ctx, 1000L);
+        TimeUnit.MILLISECONDS.sleep(5L);
+        listener.onWriteDone(request, ctx, 1000L);
+        listener.onMessageReceived(request, ctx, mock(HttpMessage.class));
+        listener.onCompleted(request, ctx, mock(HttpResponse.class));
+
+        final RequestMetric metric = listener.get(ADDRESS);
+        then(listener.all()).containsOnlyKeys(ADDRESS);
+        then(metric.poolWaitTime().count()).isEqualTo(1L);
+        then(metric.connectTime().count()).isEqualTo(1L);
+        then(metric.connectTime().max()).isEqualTo(100L);
+        then(metric.handshakeTime().max()).isEqualTo(200L);
+        then(metric.writeTime().count()).isEqualTo(1L);
+        then(metric.writeTime().max()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5L));
+        then(metric.timeToFirstByte().max()).isGreaterThanOrEqualTo(metric.writeTime().max());
+        then(metric.totalTime().max()).isGreaterThanOrEqualTo(metric.timeToFirstByte().max());
+        then(metric.errorCount()).isEqualTo(0L);
+
+        // The timing of connection is only consumed by the first request of it.
+        then(ctx.getAttr(RequestMetricListener.CONNECT_TIME)).isNull();
+        then(ctx.getAttr(RequestMetricListener.HANDSHAKE_TIME)).isNull();
+    }
+
+    @Test
+    void testReusedConnection() {
+        final RequestMetricListener listener = new RequestMetricListener();
+        final HttpRequest request = mock(HttpRequest.class);
+        final Context ctx = new ContextImpl();
+
+        listener.onInterceptorsStart(request, ctx);
+        listener.onConnectionPoolAttempt(request, ctx, ADDRESS);
+        listener.onConnectionAttempt(request, ctx, ADDRESS);
+        listener.onConnectionAcquired(request, ctx, ADDRESS);
+
+        final RequestMetric metric = listener.get(ADDRESS);
+        then(metric.poolWaitTime().count()).isEqualTo(1L);
+        then(metric.connectTime().count()).isEqualTo(0L);
+        then(metric.handshakeTime().count()).isEqualTo(0L);
+    }
+
+    @Test
+    void testError() {
+        final RequestMetricListener listener = new RequestMetricListener();
+        final HttpRequest request = mock(HttpRequest.class);
+        final Context ctx = new ContextImpl();
+
+        // Before the address is known
+        listener.onError(request, ctx, new IllegalStateException());
+        then(listener.all()).isEmpty();
+
+        listener.onConnectionPoolAttempt(request, ctx, ADDRESS);
+        listener.onError(request, ctx, new IllegalStateException());
+        then(listener.get(ADDRESS).errorCount()).isEqualTo(1L);
+        then(listener.get(ADDRESS).totalTime().count()).isEqualTo(0L);
+    }
+}
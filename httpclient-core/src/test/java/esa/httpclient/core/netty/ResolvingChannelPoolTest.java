@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import esa.httpclient.core.config.LoadBalanceStrategy;
+import esa.httpclient.core.resolver.HostResolver;
+import esa.httpclient.core.util.Futures;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ResolvingChannelPoolTest {
+
+    private EventLoopGroup group;
+    private Channel server;
+    private LocalAddress address;
+    private final Map<InetSocketAddress, ChannelPoolMetricImpl> metrics = new ConcurrentHashMap<>();
+    private final MutableResolver resolver = new MutableResolver();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress("resolving-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testBalanceAcrossAddresses() throws Exception {
+        resolver.resolved(ip(1), ip(2));
+        final ResolvingChannelPool pool = newPool();
+        waitUntil(() -> pool.addresses().size() == 2);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(metrics.get(new InetSocketAddress(ip(1), 80)).createdCount()).isEqualTo(1L);
+        then(metrics.get(new InetSocketAddress(ip(2), 80)).createdCount()).isEqualTo(1L);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testBalanceByOutstandingRequests() throws Exception {
+        resolver.resolved(ip(1), ip(2));
+        final ResolvingChannelPool pool = newPool(LoadBalanceStrategy.LEAST_REQUESTS);
+        waitUntil(() -> pool.addresses().size() == 2);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(metrics.get(new InetSocketAddress(ip(1), 80)).createdCount()).isEqualTo(1L);
+        then(metrics.get(new InetSocketAddress(ip(2), 80)).createdCount()).isEqualTo(1L);
+        then(channel1.attr(EndpointStats.ENDPOINT_STATS).get().outstanding()).isEqualTo(1);
+
+        // The address of the released one has less outstanding requests.
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        waitUntil(() -> channel1.attr(EndpointStats.ENDPOINT_STATS).get().outstanding() == 0);
+        final Channel channel3 = await(pool.acquire()).getNow();
+        then(channel3).isSameAs(channel1);
+
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        pool.release(channel3).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testEjectFailingAddress() throws Exception {
+        resolver.resolved(ip(1), ip(2));
+        final ResolvingChannelPool pool = newPool(LoadBalanceStrategy.ROUND_ROBIN,
+                new OutlierDetector(2, 200L, 50));
+        waitUntil(() -> pool.addresses().size() == 2);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        final Channel channel2 = await(pool.acquire()).getNow();
+        final EndpointStats stats1 = channel1.attr(EndpointStats.ENDPOINT_STATS).get();
+        final EndpointStats stats2 = channel2.attr(EndpointStats.ENDPOINT_STATS).get();
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+
+        stats1.onFailed();
+        stats1.onFailed();
+        for (int i = 0; i < 4; i++) {
+            final Channel channel = await(pool.acquire()).getNow();
+            then(channel.attr(EndpointStats.ENDPOINT_STATS).get()).isSameAs(stats2);
+            pool.release(channel).get(3L, TimeUnit.SECONDS);
+        }
+
+        // Comes back after the ejection time.
+        Thread.sleep(250L);
+        final Channel channel3 = await(pool.acquire()).getNow();
+        final Channel channel4 = await(pool.acquire()).getNow();
+        then(channel3.attr(EndpointStats.ENDPOINT_STATS).get())
+                .isNotSameAs(channel4.attr(EndpointStats.ENDPOINT_STATS).get());
+
+        pool.release(channel3).get(3L, TimeUnit.SECONDS);
+        pool.release(channel4).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testDrainRemovedAddress() throws Exception {
+        resolver.resolved(ip(1));
+        final ResolvingChannelPool pool = newPool();
+        final Channel channel1 = await(pool.acquire()).getNow();
+        then(pool.addresses()).containsExactly(new InetSocketAddress(ip(1), 80));
+
+        resolver.resolved(ip(2));
+        final InetSocketAddress address2 = new InetSocketAddress(ip(2), 80);
+        waitUntil(() -> pool.addresses().equals(Collections.singletonList(address2)));
+
+        // The new acquisitions go to the new address, while the removed one is kept until it has been released.
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(metrics.get(new InetSocketAddress(ip(2), 80)).createdCount()).isEqualTo(1L);
+        then(channel1.isActive()).isTrue();
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        waitUntil(() -> !channel1.isActive());
+        then(channel2.isActive()).isTrue();
+
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testKeepSubPoolsWhileResolveFailed() throws Exception {
+        resolver.resolved(ip(1));
+        final ResolvingChannelPool pool = newPool();
+        waitUntil(() -> pool.addresses().size() == 1);
+
+        resolver.failed(new UnknownHostException("example.com"));
+        Thread.sleep(200L);
+        then(pool.addresses()).containsExactly(new InetSocketAddress(ip(1), 80));
+
+        resolver.resolved();
+        Thread.sleep(200L);
+        then(pool.addresses()).containsExactly(new InetSocketAddress(ip(1), 80));
+
+        final Channel channel = await(pool.acquire()).getNow();
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testAcquireUnresolvableHost() throws Exception {
+        final UnknownHostException cause = new UnknownHostException("example.com");
+        resolver.failed(cause);
+        final ResolvingChannelPool pool = newPool();
+        then(await(pool.acquire()).cause()).isSameAs(cause);
+
+        resolver.resolved(ip(1));
+        final Channel channel = await(pool.acquire()).getNow();
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testCloseAsync() throws Exception {
+        resolver.resolved(ip(1), ip(2));
+        final ResolvingChannelPool pool = newPool();
+        final Channel channel = await(pool.acquire()).getNow();
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+
+        then(pool.closeAsync().await(3L, TimeUnit.SECONDS)).isTrue();
+        then(pool.addresses()).isEmpty();
+        waitUntil(() -> !channel.isActive());
+        then(await(pool.acquire()).cause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    private ResolvingChannelPool newPool() {
+        return newPool(LoadBalanceStrategy.ROUND_ROBIN);
+    }
+
+    private ResolvingChannelPool newPool(LoadBalanceStrategy strategy) {
+        return newPool(strategy, null);
+    }
+
+    private ResolvingChannelPool newPool(LoadBalanceStrategy strategy, OutlierDetector detector) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(InetSocketAddress.createUnresolved("example.com", 80));
+        return new ResolvingChannelPool(bootstrap, resolver, 50L, EndpointBalancer.of(strategy), detector, bs -> {
+            final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+            metrics.put((InetSocketAddress) bs.config().remoteAddress(), metric);
+            // All the addresses are served by the local server.
+            return new GatedChannelPool(bs.remoteAddress(address),
+                    new AbstractChannelPoolHandler() {
+                        @Override
+                        public void channelCreated(Channel ch) {
+                        }
+                    },
+                    ChannelHealthChecker.ACTIVE,
+                    3000L,
+                    8,
+                    8,
+                    16,
+                    metric,
+                    null);
+        });
+    }
+
+    private static InetAddress ip(int i) throws UnknownHostException {
+        return InetAddress.getByAddress("example.com", new byte[]{10, 0, 0, (byte) i});
+    }
+
+    /**
+     * Waits until the listeners which were added before have been notified, since the waiters of a
+     * {@link Future} are woken up before its listeners.
+     */
+    private static <T> Future<T> await(Future<T> future) throws Exception {
+        final CompletableFuture<Future<T>> notified = new CompletableFuture<>();
+        future.addListener(f -> notified.complete(future));
+        return notified.get(5L, TimeUnit.SECONDS);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20L);
+        }
+        then(condition.getAsBoolean()).isTrue();
+    }
+
+    private static final class MutableResolver implements HostResolver {
+
+        private volatile List<InetAddress> addresses = Collections.emptyList();
+        private volatile Throwable cause;
+
+        private void resolved(InetAddress... addresses) {
+            this.addresses = Arrays.asList(addresses);
+            this.cause = null;
+        }
+
+        private void failed(Throwable cause) {
+            this.cause = cause;
+        }
+
+        @Override
+        public CompletableFuture<InetAddress> resolve(String inetHost) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<List<InetAddress>> resolveAddresses(String inetHost) {
+            final Throwable th = cause;
+            return th == null ? Futures.completed(addresses) : Futures.completed(th);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.config.ChannelPoolOptions;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ShardedChannelPoolTest {
+
+    private EventLoopGroup group;
+    private List<EventLoop> loops;
+    private Channel server;
+    private LocalAddress address;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        group = new DefaultEventLoopGroup(2);
+        loops = new ArrayList<>();
+        for (EventExecutor executor : group) {
+            loops.add((EventLoop) executor);
+        }
+        address = new LocalAddress("sharded-pool-" + System.nanoTime());
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                    }
+                })
+                .bind(address)
+                .sync()
+                .channel();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close().sync();
+        group.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    void testAcquireOnCurrentEventLoop() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ShardedChannelPool pool = newPool(metric, 4);
+        then(pool.shards()).isEqualTo(2);
+
+        for (EventLoop loop : loops) {
+            final Channel channel = await(acquireOn(pool, loop)).getNow();
+            then(channel.eventLoop()).isSameAs(loop);
+            pool.release(channel).get(3L, TimeUnit.SECONDS);
+
+            // Reuse the idle one of current shard
+            final Channel reused = await(acquireOn(pool, loop)).getNow();
+            then(reused).isSameAs(channel);
+            pool.release(reused).get(3L, TimeUnit.SECONDS);
+        }
+        then(metric.createdCount()).isEqualTo(2L);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testRoundRobinOutOfEventLoop() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ShardedChannelPool pool = newPool(metric, 4);
+
+        final Channel channel1 = await(pool.acquire()).getNow();
+        final Channel channel2 = await(pool.acquire()).getNow();
+        then(channel1.eventLoop()).isNotSameAs(channel2.eventLoop());
+        then(metric.active()).isEqualTo(2);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testBorrowFromSiblingWhenExhausted() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        // One connection per shard
+        final ShardedChannelPool pool = newPool(metric, 2);
+        final EventLoop local = loops.get(0);
+
+        final Channel channel1 = await(acquireOn(pool, local)).getNow();
+        then(channel1.eventLoop()).isSameAs(local);
+
+        final Channel channel2 = await(acquireOn(pool, local)).getNow();
+        then(channel2.eventLoop()).isSameAs(loops.get(1));
+
+        // All the shards have been exhausted, waits on the local one
+        final Future<Channel> pending = acquireOn(pool, local);
+        then(pending.isDone()).isFalse();
+        then(metric.pendingAcquireCount()).isEqualTo(1);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        then(await(pending).getNow()).isSameAs(channel1);
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+        then(metric.createdCount()).isEqualTo(2L);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testCancelQueuedAcquire() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        // One connection per shard
+        final ShardedChannelPool pool = newPool(metric, 2);
+        final EventLoop local = loops.get(0);
+
+        final Channel channel1 = await(acquireOn(pool, local)).getNow();
+        final Channel channel2 = await(acquireOn(pool, local)).getNow();
+        final Future<Channel> pending = acquireOn(pool, local);
+        then(pending.isDone()).isFalse();
+        then(pending.cancel(false)).isTrue();
+
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+
+        // Both of the shards still serve their full size
+        final Channel reused1 = await(acquireOn(pool, loops.get(0))).getNow();
+        final Channel reused2 = await(acquireOn(pool, loops.get(1))).getNow();
+        then(reused1).isSameAs(channel1);
+        then(reused2).isSameAs(channel2);
+        then(metric.createdCount()).isEqualTo(2L);
+        then(metric.active()).isEqualTo(2);
+
+        pool.release(reused1).get(3L, TimeUnit.SECONDS);
+        pool.release(reused2).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testFewerShardsThanEventLoops() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ShardedChannelPool pool = newPool(metric, 1);
+        then(pool.shards()).isEqualTo(1);
+
+        // Borrowed from the only shard
+        final Channel channel = await(acquireOn(pool, loops.get(1))).getNow();
+        then(channel.eventLoop()).isSameAs(loops.get(0));
+
+        final Future<Channel> pending = acquireOn(pool, loops.get(1));
+        then(pending.isDone()).isFalse();
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        then(await(pending).getNow()).isSameAs(channel);
+        then(metric.createdCount()).isEqualTo(1L);
+
+        pool.release(channel).get(3L, TimeUnit.SECONDS);
+        pool.close();
+    }
+
+    @Test
+    void testDivideUnevenly() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ShardedChannelPool pool = newPool(metric, 3);
+        then(pool.shards()).isEqualTo(2);
+
+        // The remainder goes to the first shard
+        final List<Channel> channels = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            channels.add(await(acquireOn(pool, loops.get(1))).getNow());
+        }
+        then(channels.get(0).eventLoop()).isSameAs(loops.get(1));
+        then(channels.get(1).eventLoop()).isSameAs(loops.get(0));
+        then(channels.get(2).eventLoop()).isSameAs(loops.get(0));
+
+        // No more than the total
+        final Future<Channel> pending = acquireOn(pool, loops.get(1));
+        then(pending.isDone()).isFalse();
+        then(metric.createdCount()).isEqualTo(3L);
+
+        pool.release(channels.get(0)).get(3L, TimeUnit.SECONDS);
+        then(await(pending).getNow()).isSameAs(channels.get(0));
+        pool.release(channels.get(0)).get(3L, TimeUnit.SECONDS);
+        pool.release(channels.get(1)).get(3L, TimeUnit.SECONDS);
+        pool.release(channels.get(2)).get(3L, TimeUnit.SECONDS);
+        then(metric.active()).isEqualTo(0);
+        pool.close();
+    }
+
+    @Test
+    void testReleaseUnknownChannel() throws Exception {
+        final ShardedChannelPool pool = newPool(new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault()), 2);
+        final EventLoopGroup another = new DefaultEventLoopGroup(1);
+        try {
+            final Channel channel = new LocalChannel();
+            another.register(channel).sync();
+            final Future<Void> released = pool.release(channel).await();
+            then(released.cause()).isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            another.shutdownGracefully(0L, 0L, TimeUnit.SECONDS).sync();
+        }
+        pool.close();
+    }
+
+    @Test
+    void testCloseAsync() throws Exception {
+        final ChannelPoolMetricImpl metric = new ChannelPoolMetricImpl(ChannelPoolOptions.ofDefault());
+        final ShardedChannelPool pool = newPool(metric, 4);
+
+        final Channel channel1 = await(acquireOn(pool, loops.get(0))).getNow();
+        final Channel channel2 = await(acquireOn(pool, loops.get(1))).getNow();
+        pool.release(channel1).get(3L, TimeUnit.SECONDS);
+        pool.release(channel2).get(3L, TimeUnit.SECONDS);
+
+        then(pool.closeAsync().await(3L, TimeUnit.SECONDS)).isTrue();
+        channel1.closeFuture().await(3L, TimeUnit.SECONDS);
+        channel2.closeFuture().await(3L, TimeUnit.SECONDS);
+        then(channel1.isOpen()).isFalse();
+        then(channel2.isOpen()).isFalse();
+    }
+
+    private static Future<Channel> acquireOn(ShardedChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(() -> pool.acquire()).get(3L, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits until the listeners which were added before have been notified, since the waiters of a
+     * {@link Future} are woken up before its listeners.
+     */
+    private static <T> Future<T> await(Future<T> future) throws Exception {
+        final CompletableFuture<Future<T>> notified = new CompletableFuture<>();
+        future.addListener(f -> notified.complete(future));
+        return notified.get(3L, TimeUnit.SECONDS);
+    }
+
+    private ShardedChannelPool newPool(ChannelPoolMetricImpl metric, int maxConnections) {
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        return new ShardedChannelPool(bootstrap,
+                new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel ch) {
+                    }
+                },
+                ChannelHealthChecker.ACTIVE,
+                1000L,
+                maxConnections,
+                16,
+                metric);
+    }
+}
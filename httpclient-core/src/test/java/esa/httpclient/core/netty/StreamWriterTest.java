@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.netty;
+
+import esa.httpclient.core.Context;
+import esa.httpclient.core.ContextImpl;
+import esa.httpclient.core.StreamRequest;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class StreamWriterTest extends Http2ConnectionHelper {
+
+    @Test
+    void testWriteInputStreamHttp1() throws Exception {
+        final StreamWriter writer = StreamWriter.singleton();
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+
+        final byte[] data = new byte[20000];
+        ThreadLocalRandom.current().nextBytes(data);
+        final StreamRequest request = (StreamRequest) esa.httpclient.core.HttpRequest.post("http://127.0.0.1/abc")
+                .stream(new ByteArrayInputStream(data)).build();
+
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                new ContextImpl(),
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+
+        final HttpRequest req = channel.readOutbound();
+        then(req.method()).isSameAs(HttpMethod.POST);
+        then(HttpUtil.isTransferEncodingChunked(req)).isTrue();
+        then(req.headers().get(HttpHeaderNames.CONTENT_TYPE)
+                .contentEquals(HttpHeaderValues.APPLICATION_OCTET_STREAM)).isTrue();
+
+        int received = 0;
+        HttpContent content;
+        while (!((content = channel.readOutbound()) instanceof LastHttpContent)) {
+            then(content.content().readableBytes()).isLessThanOrEqualTo(8192);
+            received += content.content().readableBytes();
+            content.release();
+        }
+        then(received).isEqualTo(data.length);
+        then(end.isSuccess()).isTrue();
+        then(request.channel().isOpen()).isFalse();
+    }
+
+    @Test
+    void testKeepContentLengthHttp1() throws Exception {
+        final StreamWriter writer = StreamWriter.singleton();
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+
+        final StreamRequest request = (StreamRequest) esa.httpclient.core.HttpRequest.post("http://127.0.0.1/abc")
+                .setHeader(HttpHeaderNames.CONTENT_LENGTH, "5")
+                .stream(new ByteArrayInputStream("Hello".getBytes())).build();
+
+        writer.writeAndFlush(request, channel, new ContextImpl(), false, HttpVersion.HTTP_1_1, false);
+        final HttpRequest req = channel.readOutbound();
+        then(HttpUtil.isTransferEncodingChunked(req)).isFalse();
+        then(HttpUtil.getContentLength(req)).isEqualTo(5L);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testWritePublisherHttp1() throws Exception {
+        final StreamWriter writer = StreamWriter.singleton();
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        final TestPublisher publisher = new TestPublisher();
+
+        final StreamRequest request = (StreamRequest) esa.httpclient.core.HttpRequest.post("http://127.0.0.1/abc")
+                .publisher(publisher).build();
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                new ContextImpl(),
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+
+        then((Object) channel.readOutbound()).isInstanceOf(HttpRequest.class);
+        then((Object) channel.readOutbound()).isNull();
+        then(publisher.requested.get()).isEqualTo(1);
+
+        // Requests the next one only once the previous one has been written
+        publisher.subscriber.get().onNext(ByteBuffer.wrap("Hello".getBytes()));
+        channel.runPendingTasks();
+        HttpContent content = channel.readOutbound();
+        then(content.content().toString(CharsetUtil.US_ASCII)).isEqualTo("Hello");
+        content.release();
+        then(publisher.requested.get()).isEqualTo(2);
+
+        // Suspended while the channel is not writable
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        publisher.subscriber.get().onNext(ByteBuffer.wrap("World".getBytes()));
+        channel.runPendingTasks();
+        then((Object) channel.readOutbound()).isNull();
+        then(publisher.requested.get()).isEqualTo(2);
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        channel.runPendingTasks();
+        content = channel.readOutbound();
+        then(content.content().toString(CharsetUtil.US_ASCII)).isEqualTo("World");
+        content.release();
+        then(publisher.requested.get()).isEqualTo(3);
+
+        publisher.subscriber.get().onComplete();
+        channel.runPendingTasks();
+        then(end.isSuccess()).isTrue();
+        then(publisher.cancelled.get()).isFalse();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPublisherErrorHttp1() throws Exception {
+        final StreamWriter writer = StreamWriter.singleton();
+        final EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        final TestPublisher publisher = new TestPublisher();
+
+        final StreamRequest request = (StreamRequest) esa.httpclient.core.HttpRequest.post("http://127.0.0.1/abc")
+                .publisher(publisher).build();
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                new ContextImpl(),
+                false,
+                HttpVersion.HTTP_1_1,
+                false);
+
+        final IllegalStateException ex = new IllegalStateException();
+        publisher.subscriber.get().onError(ex);
+        channel.runPendingTasks();
+        then(end.isDone()).isTrue();
+        then(end.cause()).isSameAs(ex);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testWriteInputStreamHttp2() throws Exception {
+        setUp();
+        final StreamWriter writer = StreamWriter.singleton();
+
+        final byte[] data = new byte[20000];
+        ThreadLocalRandom.current().nextBytes(data);
+        final StreamRequest request = (StreamRequest) esa.httpclient.core.HttpRequest.post("http://127.0.0.1/abc")
+                .stream(new ByteArrayInputStream(data)).build();
+        final Context ctx = new ContextImpl();
+        request.headers().add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), STREAM_ID);
+
+        final ChannelFuture end = writer.writeAndFlush(request,
+                channel,
+                ctx,
+                false,
+                null,
+                true);
+        channel.flush();
+        // Ignore preface
+        channel.readOutbound();
+
+        final Helper.HeaderFrame header = channel.readOutbound();
+        then(header.streamId).isEqualTo(STREAM_ID);
+        then(header.headers.contains(HttpHeaderNames.TRANSFER_ENCODING)).isFalse();
+
+        int received = 0;
+        Helper.DataFrame content;
+        do {
+            content = channel.readOutbound();
+            received += content.data.readableBytes();
+        } while (!content.endStream);
+        then(received).isEqualTo(data.length);
+        then(end.isSuccess()).isTrue();
+    }
+
+    private static final class TestPublisher implements Publisher<ByteBuffer> {
+
+        private final AtomicReference<Subscriber<? super ByteBuffer>> subscriber = new AtomicReference<>();
+        private final AtomicInteger requested = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void subscribe(Subscriber<? super ByteBuffer> s) {
+            subscriber.set(s);
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    requested.addAndGet((int) n);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.resolver;
+
+import esa.httpclient.core.config.ResolverCacheOptions;
+import esa.httpclient.core.util.Futures;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingHostResolverTest {
+
+    private static final String HOST = "foo.esa.test";
+
+    @Test
+    void testServeFromCache() throws Exception {
+        final StubResolver stub = new StubResolver();
+        stub.address = InetAddress.getByName("10.0.0.1");
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.ofDefault())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+            then(stub.loads.get()).isEqualTo(1);
+            then(resolver.metric().missCount()).isEqualTo(1L);
+            then(resolver.metric().hitCount()).isEqualTo(1L);
+            then(resolver.metric().loadCount()).isEqualTo(1L);
+            then(resolver.metric().size()).isEqualTo(1);
+        }
+        then(stub.closed).isTrue();
+    }
+
+    @Test
+    void testCoalesceConcurrentLoads() throws Exception {
+        final StubResolver stub = new StubResolver();
+        stub.address = InetAddress.getByName("10.0.0.1");
+        stub.pending = new CompletableFuture<>();
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.ofDefault())) {
+            final CompletableFuture<InetAddress> first = resolver.resolve(HOST);
+            final CompletableFuture<InetAddress> second = resolver.resolve(HOST);
+            then(first).isNotDone();
+            then(second).isNotDone();
+
+            stub.pending.complete(Collections.singletonList(stub.address));
+            then(first.get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+            then(second.get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+            then(stub.loads.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testServeStaleWhileRefreshing() throws Exception {
+        final StubResolver stub = new StubResolver();
+        final InetAddress old = InetAddress.getByName("10.0.0.1");
+        stub.address = old;
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.options()
+                .ttlMillis(100L)
+                .maxStaleMillis(60_000L)
+                .prefetchAheadMillis(0L)
+                .build())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(old);
+
+            final InetAddress updated = InetAddress.getByName("10.0.0.2");
+            stub.address = updated;
+            TimeUnit.MILLISECONDS.sleep(200L);
+
+            // Expired, the stale one is returned and refreshed in background.
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(old);
+            then(resolver.metric().staleHitCount()).isEqualTo(1L);
+            awaitLoads(stub, 2);
+            awaitResolved(resolver, updated);
+            then(resolver.metric().missCount()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void testKeepStaleIfRefreshFailed() throws Exception {
+        final StubResolver stub = new StubResolver();
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        stub.address = address;
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.options()
+                .ttlMillis(100L)
+                .maxStaleMillis(60_000L)
+                .prefetchAheadMillis(0L)
+                .build())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+
+            stub.address = null;
+            TimeUnit.MILLISECONDS.sleep(200L);
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+            awaitLoads(stub, 2);
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+            then(resolver.metric().loadFailureCount()).isGreaterThanOrEqualTo(1L);
+        }
+    }
+
+    @Test
+    void testFailWhenStaleExceeded() throws Exception {
+        final StubResolver stub = new StubResolver();
+        stub.address = InetAddress.getByName("10.0.0.1");
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.options()
+                .ttlMillis(50L)
+                .maxStaleMillis(0L)
+                .prefetchAheadMillis(0L)
+                .build())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+
+            stub.address = null;
+            TimeUnit.MILLISECONDS.sleep(100L);
+            final ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> resolver.resolve(HOST).get(3L, TimeUnit.SECONDS));
+            then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+            then(resolver.metric().missCount()).isEqualTo(2L);
+        }
+    }
+
+    @Test
+    void testPrefetchHotHost() throws Exception {
+        final StubResolver stub = new StubResolver();
+        stub.address = InetAddress.getByName("10.0.0.1");
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.options()
+                .ttlMillis(2000L)
+                .prefetchAheadMillis(1800L)
+                .build())) {
+            // The ttl leaves enough room for a slow first assertion, so that the second resolving is a hit.
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+
+            awaitLoads(stub, 2);
+            then(resolver.metric().prefetchCount()).isGreaterThanOrEqualTo(1L);
+            then(resolver.metric().staleHitCount()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    void testEvictIdleHost() throws Exception {
+        final StubResolver stub = new StubResolver();
+        stub.address = InetAddress.getByName("10.0.0.1");
+        try (CachingHostResolver resolver = new CachingHostResolver(stub, ResolverCacheOptions.options()
+                .ttlMillis(40L)
+                .prefetchAheadMillis(0L)
+                .idleTimeoutMillis(40L)
+                .build())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(stub.address);
+            then(resolver.metric().size()).isEqualTo(1);
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+            while (resolver.metric().size() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            then(resolver.metric().size()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    void testFailAfterClosed() throws Exception {
+        final StubResolver stub = new StubResolver();
+        stub.address = InetAddress.getByName("10.0.0.1");
+        final CachingHostResolver resolver = new CachingHostResolver(stub);
+        resolver.close();
+        assertThrows(ExecutionException.class, () -> resolver.resolve(HOST).get(3L, TimeUnit.SECONDS));
+    }
+
+    private static void awaitLoads(StubResolver stub, int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (stub.loads.get() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+        then(stub.loads.get()).isGreaterThanOrEqualTo(expected);
+    }
+
+    private static void awaitResolved(CachingHostResolver resolver, InetAddress expected) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3L);
+        while (!expected.equals(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS))
+                && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+        then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(expected);
+    }
+
+    private static final class StubResolver extends BalancedHostResolver {
+
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile InetAddress address;
+        private volatile CompletableFuture<List<InetAddress>> pending;
+        private volatile boolean closed;
+
+        @Override
+        protected CompletableFuture<List<InetAddress>> resolveAll(String inetHost) {
+            loads.incrementAndGet();
+            if (pending != null) {
+                return pending;
+            }
+            final InetAddress current = address;
+            if (current == null) {
+                return Futures.completed(new UnknownHostException(inetHost));
+            }
+            return Futures.completed(Collections.singletonList(current));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
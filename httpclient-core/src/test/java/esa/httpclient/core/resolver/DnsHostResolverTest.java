@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.resolver;
+
+import esa.httpclient.core.config.DnsOptions;
+import io.netty.resolver.ResolvedAddressTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DnsHostResolverTest {
+
+    private static final String HOST = "foo.esa.test";
+
+    private StubDnsServer server;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        server = new StubDnsServer().start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testResolveAndCache() throws Exception {
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        server.addRecord(HOST, address, 60L);
+
+        try (DnsHostResolver resolver = new DnsHostResolver(options().build())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+            then(server.queries()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testExpireByTtl() throws Exception {
+        final InetAddress address = InetAddress.getByName("10.0.0.1");
+        server.addRecord(HOST, address, 1L);
+
+        try (DnsHostResolver resolver = new DnsHostResolver(options().build())) {
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+            then(server.queries()).isEqualTo(1);
+
+            final InetAddress updated = InetAddress.getByName("10.0.0.2");
+            server.addRecord(HOST, updated, 60L);
+            TimeUnit.MILLISECONDS.sleep(1500L);
+
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(updated);
+            then(server.queries()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testNegativeCache() throws Exception {
+        try (DnsHostResolver resolver = new DnsHostResolver(options().negativeTtl(60).build())) {
+            ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> resolver.resolve(HOST).get(3L, TimeUnit.SECONDS));
+            then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+            // A failed lookup may take more than one query, which depends on the underlying resolver.
+            final int queries = server.queries();
+            then(queries).isPositive();
+
+            // Served by the negative cache even though the record is available now.
+            server.addRecord(HOST, InetAddress.getByName("10.0.0.1"), 60L);
+            ex = assertThrows(ExecutionException.class,
+                    () -> resolver.resolve(HOST).get(3L, TimeUnit.SECONDS));
+            then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+            then(server.queries()).isEqualTo(queries);
+        }
+    }
+
+    @Test
+    void testWithoutNegativeCache() throws Exception {
+        try (DnsHostResolver resolver = new DnsHostResolver(options().negativeTtl(0).build())) {
+            assertThrows(ExecutionException.class, () -> resolver.resolve(HOST).get(3L, TimeUnit.SECONDS));
+            final int queries = server.queries();
+
+            final InetAddress address = InetAddress.getByName("10.0.0.1");
+            server.addRecord(HOST, address, 60L);
+            then(resolver.resolve(HOST).get(3L, TimeUnit.SECONDS)).isEqualTo(address);
+            then(server.queries()).isEqualTo(queries + 1);
+        }
+    }
+
+    @Test
+    void testResolveTimeout() {
+        server.dropQueries(true);
+        try (DnsHostResolver resolver = new DnsHostResolver(options()
+                .queryTimeoutMillis(10000L)
+                .resolveTimeoutMillis(200L)
+                .build())) {
+            final long start = System.nanoTime();
+            final ExecutionException ex = assertThrows(ExecutionException.class,
+                    () -> resolver.resolve(HOST).get(3L, TimeUnit.SECONDS));
+            then(ex.getCause()).isInstanceOf(UnknownHostException.class);
+            then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(200L, 2000L);
+        }
+    }
+
+    @Test
+    void testResolveIpLiteral() throws Exception {
+        try (DnsHostResolver resolver = new DnsHostResolver(options().build())) {
+            then(resolver.resolve("10.0.0.3").get(3L, TimeUnit.SECONDS))
+                    .isEqualTo(InetAddress.getByName("10.0.0.3"));
+            then(server.queries()).isEqualTo(0);
+        }
+    }
+
+    private DnsOptions.DnsOptionsBuilder options() {
+        return DnsOptions.options()
+                .addNameServer(server.address())
+                .searchDomains(Collections.emptyList())
+                .resolvedAddressTypes(ResolvedAddressTypes.IPV4_ONLY);
+    }
+}
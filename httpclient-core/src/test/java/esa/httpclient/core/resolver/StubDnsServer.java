@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.resolver;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.util.NetUtil;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stub DNS server which answers the A records registered by {@link #addRecord(String, InetAddress, long)},
+ * and NXDOMAIN for other names.
+ */
+class StubDnsServer implements Closeable {
+
+    private final EventLoopGroup group = new NioEventLoopGroup(1);
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private volatile boolean dropQueries;
+    private Channel channel;
+
+    StubDnsServer start() throws InterruptedException {
+        channel = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<DatagramChannel>() {
+                    @Override
+                    protected void initChannel(DatagramChannel ch) {
+                        ch.pipeline().addLast(new DatagramDnsQueryDecoder(),
+                                new DatagramDnsResponseEncoder(),
+                                new QueryHandler());
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0))
+                .sync()
+                .channel();
+        return this;
+    }
+
+    InetSocketAddress address() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    void addRecord(String name, InetAddress address, long ttl) {
+        records.put(name + ".", new Record(address, ttl));
+    }
+
+    void removeRecord(String name) {
+        records.remove(name + ".");
+    }
+
+    void dropQueries(boolean dropQueries) {
+        this.dropQueries = dropQueries;
+    }
+
+    int queries() {
+        return queries.get();
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+        group.shutdownGracefully();
+    }
+
+    private final class QueryHandler extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) {
+            queries.incrementAndGet();
+            if (dropQueries) {
+                return;
+            }
+
+            final DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+            final DatagramDnsResponse response = new DatagramDnsResponse(query.recipient(),
+                    query.sender(), query.id());
+            response.addRecord(DnsSection.QUESTION, question);
+
+            final Record record = records.get(question.name());
+            if (record == null) {
+                response.setCode(DnsResponseCode.NXDOMAIN);
+            } else if (DnsRecordType.A.equals(question.type())) {
+                response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(question.name(),
+                        DnsRecordType.A, record.ttl, Unpooled.wrappedBuffer(record.address.getAddress())));
+            }
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class Record {
+
+        private final InetAddress address;
+        private final long ttl;
+
+        private Record(InetAddress address, long ttl) {
+            this.address = address;
+            this.ttl = ttl;
+        }
+    }
+}
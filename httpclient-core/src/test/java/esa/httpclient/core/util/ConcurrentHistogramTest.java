@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 OPPO ESA Stack Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package esa.httpclient.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentHistogramTest {
+
+    @Test
+    void testEmpty() {
+        final ConcurrentHistogram histogram = new ConcurrentHistogram();
+        then(histogram.count()).isEqualTo(0L);
+        then(histogram.sum()).isEqualTo(0L);
+        then(histogram.max()).isEqualTo(0L);
+        then(histogram.mean()).isEqualTo(0.0d);
+        then(histogram.valueAtPercentile(99.0d)).isEqualTo(0L);
+    }
+
+    @Test
+    void testRecord() {
+        final ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (long i = 1L; i <= 1000L; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-1L);
+
+        then(histogram.count()).isEqualTo(1001L);
+        then(histogram.sum()).isEqualTo(500500000L);
+        then(histogram.max()).isEqualTo(1000000L);
+        then(histogram.valueAtPercentile(0.0d)).isEqualTo(0L);
+        then(histogram.valueAtPercentile(100.0d)).isEqualTo(1000000L);
+        // Within the bounded relative error
+        then(histogram.valueAtPercentile(50.0d)).isBetween(500000L, 562500L);
+        then(histogram.valueAtPercentile(99.0d)).isBetween(990000L, 1000000L);
+    }
+
+    @Test
+    void testHugeValue() {
+        final ConcurrentHistogram histogram = new ConcurrentHistogram();
+        histogram.record(Long.MAX_VALUE);
+        then(histogram.valueAtPercentile(50.0d)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void testBuckets() {
+        for (long value = 0L; value < 100_000L; value++) {
+            final int index = ConcurrentHistogram.indexOf(value);
+            then(ConcurrentHistogram.upperBoundOf(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                then(ConcurrentHistogram.upperBoundOf(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    void testIllegalPercentile() {
+        final ConcurrentHistogram histogram = new ConcurrentHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(-1.0d));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(100.1d));
+    }
+}